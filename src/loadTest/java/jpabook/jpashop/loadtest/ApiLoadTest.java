@@ -0,0 +1,106 @@
+package jpabook.jpashop.loadtest;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.server.LocalServerPort;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * REST API 부하 테스트 (./gradlew loadTest)
+ * 랜덤 포트로 서버를 띄우고 메모리 H2에 loadtest.seed.* 만큼 데이터를 넣은 뒤 측정한다.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ApiLoadTest {
+
+    private static LoadTestDataSeeder seeder;
+
+    private final LoadTestSettings settings = LoadTestSettings.fromSystemProperties();
+
+    @LocalServerPort int port;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    public void seed() {
+        if (seeder == null) {
+            seeder = new LoadTestDataSeeder(em, transactionManager);
+            seeder.seed(settings);
+        }
+    }
+
+    @Test
+    public void 주문_조회_API() throws Exception {
+        List<HttpTarget> targets = Arrays.asList(
+                HttpTarget.get("/api/v1/orders"),
+                HttpTarget.get("/api/v2/orders"),
+                HttpTarget.get("/api/v3/orders"),
+                HttpTarget.get("/api/v3.1/orders?offset=0&limit=100"),
+                HttpTarget.get("/api/v4/orders"),
+                HttpTarget.get("/api/v5/orders"),
+                HttpTarget.get("/api/v6/orders"),
+                HttpTarget.get("/api/v7/orders"),
+                HttpTarget.get("/api/v1/simple-orders"),
+                HttpTarget.get("/api/v2/simple-orders"),
+                HttpTarget.get("/api/v3/simple-orders"),
+                HttpTarget.get("/api/v4/simple-orders"),
+                HttpTarget.get("/api/v2/members"));
+
+        List<EndpointStats> stats = generator().run(targets);
+
+        LoadTestReport.write("order-read", settings, stats);
+        assertFalse(stats.isEmpty());
+    }
+
+    @Test
+    public void 주문_생성_동시성() throws Exception {
+        List<HttpTarget> targets = Arrays.asList(
+                HttpTarget.postForm("/order", () -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    return "memberId=" + seeder.memberIds.get(random.nextInt(seeder.memberIds.size()))
+                            + "&itemId=" + seeder.itemIds.get(random.nextInt(seeder.itemIds.size()))
+                            + "&count=1";
+                }));
+
+        List<EndpointStats> stats = generator().run(targets);
+
+        LoadTestReport.write("order-write", settings, stats);
+        assertFalse(stats.isEmpty());
+    }
+
+    /**
+     * JDBC 대기가 대부분인 주문 생성 + 주문 조회를 높은 동시성으로 섞는다. (가상 스레드 / 플랫폼 스레드 비교용)
+     * ./gradlew loadTest --tests '*ApiLoadTest.블로킹_혼합*' -Dloadtest.rate=2000 -Dloadtest.max-in-flight=4000
+     *   -PruntimeJavaHome=/path/to/jdk-21 -Djpashop.virtual-threads.enabled=true (false 로 한 번 더)
+     */
+    @Test
+    public void 블로킹_혼합_고동시성() throws Exception {
+        List<HttpTarget> targets = Arrays.asList(
+                HttpTarget.postForm("/order", () -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    return "memberId=" + seeder.memberIds.get(random.nextInt(seeder.memberIds.size()))
+                            + "&itemId=" + seeder.itemIds.get(random.nextInt(seeder.itemIds.size()))
+                            + "&count=1";
+                }),
+                HttpTarget.get("/api/v3/orders"),
+                HttpTarget.get("/api/v4/simple-orders"),
+                HttpTarget.get("/api/v3.1/orders?offset=0&limit=100"));
+
+        List<EndpointStats> stats = generator().run(targets);
+
+        LoadTestReport.write("blocking-mix", settings, stats);
+        assertFalse(stats.isEmpty());
+    }
+
+    private OpenModelLoadGenerator generator() {
+        return new OpenModelLoadGenerator("http://localhost:" + port, settings);
+    }
+}
@@ -0,0 +1,54 @@
+package jpabook.jpashop.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 엔드포인트별 지연시간 히스토그램(마이크로초)과 에러 수
+ */
+final class EndpointStats {
+
+    private static final long HIGHEST_MICROS = TimeUnit.MINUTES.toMicros(2);
+
+    final String name;
+    private final Histogram latency = new ConcurrentHistogram(HIGHEST_MICROS, 3);
+    private final AtomicLong errors = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void record(long latencyNanos, boolean success) {
+        latency.recordValue(Math.min(HIGHEST_MICROS, TimeUnit.NANOSECONDS.toMicros(latencyNanos)));
+        if (!success) {
+            errors.incrementAndGet();
+        }
+    }
+
+    void drop() {
+        dropped.incrementAndGet();
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("endpoint", name);
+        map.put("count", latency.getTotalCount());
+        map.put("errors", errors.get());
+        map.put("dropped", dropped.get());
+        map.put("p50Ms", millis(latency.getValueAtPercentile(50)));
+        map.put("p90Ms", millis(latency.getValueAtPercentile(90)));
+        map.put("p99Ms", millis(latency.getValueAtPercentile(99)));
+        map.put("maxMs", millis(latency.getMaxValue()));
+        return map;
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.loadtest;
+
+import java.util.function.Supplier;
+
+/**
+ * 요청 하나의 정의
+ * - body가 있으면 application/x-www-form-urlencoded POST로 보낸다.
+ * - 4xx/5xx, 연결 오류는 에러로 센다. (리다이렉트는 따라가지 않고 성공으로 본다)
+ */
+final class HttpTarget {
+
+    final String name;
+    final String method;
+    final String path;
+    final Supplier<String> body;
+
+    private HttpTarget(String name, String method, String path, Supplier<String> body) {
+        this.name = name;
+        this.method = method;
+        this.path = path;
+        this.body = body;
+    }
+
+    static HttpTarget get(String path) {
+        return new HttpTarget("GET " + path, "GET", path, null);
+    }
+
+    static HttpTarget postForm(String path, Supplier<String> body) {
+        return new HttpTarget("POST " + path, "POST", path, body);
+    }
+}
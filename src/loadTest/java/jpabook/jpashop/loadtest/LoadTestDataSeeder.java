@@ -0,0 +1,76 @@
+package jpabook.jpashop.loadtest;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 부하 테스트 데이터 (회원, 상품, 주문)
+ * 같은 설정이면 항상 같은 데이터가 만들어지도록 시드를 고정한다.
+ */
+final class LoadTestDataSeeder {
+
+    private static final int FLUSH_SIZE = 500;
+
+    private final EntityManager em;
+    private final TransactionTemplate transaction;
+
+    final List<Long> memberIds = new ArrayList<>();
+    final List<Long> itemIds = new ArrayList<>();
+
+    LoadTestDataSeeder(EntityManager em, PlatformTransactionManager transactionManager) {
+        this.em = em;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    void seed(LoadTestSettings settings) {
+        Random random = new Random(42);
+
+        transaction.execute(s -> {
+            for (int i = 0; i < settings.members; i++) {
+                Member member = new Member();
+                member.setName("member" + i);
+                member.setAddress(new Address("city" + (i % 10), "street" + i, String.valueOf(10000 + i)));
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+            for (int i = 0; i < settings.items; i++) {
+                Book book = new Book();
+                book.setName("book" + i);
+                book.setPrice(1000 * (1 + random.nextInt(50)));
+                book.setStockQuantity(Integer.MAX_VALUE / 2);
+                em.persist(book);
+                itemIds.add(book.getId());
+            }
+            return null;
+        });
+
+        for (int from = 0; from < settings.orders; from += FLUSH_SIZE) {
+            int size = Math.min(FLUSH_SIZE, settings.orders - from);
+            transaction.execute(s -> {
+                for (int i = 0; i < size; i++) {
+                    Member member = em.find(Member.class, memberIds.get(random.nextInt(memberIds.size())));
+                    int lines = 1 + random.nextInt(3);
+                    OrderItem[] orderItems = new OrderItem[lines];
+                    for (int j = 0; j < lines; j++) {
+                        Book book = em.find(Book.class, itemIds.get(random.nextInt(itemIds.size())));
+                        orderItems[j] = OrderItem.createOrderItem(book, book.getPrice(), 1 + random.nextInt(3));
+                    }
+                    Delivery delivery = new Delivery();
+                    delivery.setAddress(member.getAddress());
+                    delivery.setStatus(DeliveryStatus.READY);
+                    em.persist(Order.createOrder(member, delivery, orderItems));
+                }
+                em.flush();
+                em.clear();
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package jpabook.jpashop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.threads.VirtualThreads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 결과 출력
+ * - 콘솔 : 엔드포인트별 p50/p90/p99/max(ms), 에러 수
+ * - JSON : build/reports/loadtest/{scenario}-{version}-{시각}.json (버전간 비교용)
+ */
+final class LoadTestReport {
+
+    private LoadTestReport() {
+    }
+
+    static Path write(String scenario, LoadTestSettings settings, List<EndpointStats> stats) throws IOException {
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats endpoint : stats) {
+            endpoints.add(endpoint.toMap());
+        }
+        print(scenario, settings, endpoints);
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", scenario);
+        report.put("version", settings.version);
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("rate", settings.rate);
+        config.put("durationSeconds", settings.durationSeconds);
+        config.put("warmupSeconds", settings.warmupSeconds);
+        config.put("maxInFlight", settings.maxInFlight);
+        config.put("threads", threadMode());
+        config.put("members", settings.members);
+        config.put("items", settings.items);
+        config.put("orders", settings.orders);
+        report.put("settings", config);
+        report.put("endpoints", endpoints);
+
+        Files.createDirectories(settings.reportDir);
+        Path file = settings.reportDir.resolve(scenario + "-" + settings.version + "-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("report : " + file.toAbsolutePath());
+        return file;
+    }
+
+    private static void print(String scenario, LoadTestSettings settings, List<Map<String, Object>> endpoints) {
+        System.out.println();
+        System.out.println("== " + scenario + " (" + settings + ", threads=" + threadMode() + ")");
+        System.out.println(String.format("%-42s %8s %7s %7s %9s %9s %9s %9s",
+                "endpoint", "count", "errors", "dropped", "p50(ms)", "p90(ms)", "p99(ms)", "max(ms)"));
+        for (Map<String, Object> row : endpoints) {
+            System.out.println(String.format("%-42s %8d %7d %7d %9.2f %9.2f %9.2f %9.2f",
+                    row.get("endpoint"), row.get("count"), row.get("errors"), row.get("dropped"),
+                    row.get("p50Ms"), row.get("p90Ms"), row.get("p99Ms"), row.get("maxMs")));
+        }
+    }
+
+    /**
+     * 서버가 같은 JVM 에서 뜨므로 실제로 적용된 요청 스레드 종류를 그대로 기록한다.
+     */
+    private static String threadMode() {
+        return Boolean.getBoolean("jpashop.virtual-threads.enabled") && VirtualThreads.isSupported() ? "virtual" : "platform";
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.loadtest;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * 부하 테스트 설정 (-Dloadtest.xxx)
+ */
+final class LoadTestSettings {
+
+    final double rate;          // 초당 요청 수 (시나리오 전체, open model)
+    final int durationSeconds;  // 측정 시간
+    final int warmupSeconds;    // 측정 전 워밍업 (결과에서 제외)
+    final int maxInFlight;      // 동시에 진행중인 요청 상한, 넘으면 보내지 않고 dropped로 센다.
+    final int members;
+    final int items;
+    final int orders;
+    final String version;
+    final Path reportDir;
+
+    private LoadTestSettings() {
+        this.rate = Double.parseDouble(property("rate", "100"));
+        this.durationSeconds = Integer.parseInt(property("duration", "20"));
+        this.warmupSeconds = Integer.parseInt(property("warmup", "5"));
+        this.maxInFlight = Integer.parseInt(property("max-in-flight", "512"));
+        this.members = Integer.parseInt(property("seed.members", "100"));
+        this.items = Integer.parseInt(property("seed.items", "100"));
+        this.orders = Integer.parseInt(property("seed.orders", "1000"));
+        this.version = property("version", "dev");
+        this.reportDir = Paths.get(property("report-dir", "build/reports/loadtest"));
+    }
+
+    static LoadTestSettings fromSystemProperties() {
+        return new LoadTestSettings();
+    }
+
+    private static String property(String key, String defaultValue) {
+        return System.getProperty("loadtest." + key, defaultValue);
+    }
+
+    @Override
+    public String toString() {
+        return "rate=" + rate + "/s, duration=" + durationSeconds + "s, warmup=" + warmupSeconds + "s"
+                + ", seed(members=" + members + ", items=" + items + ", orders=" + orders + ")";
+    }
+}
@@ -0,0 +1,126 @@
+package jpabook.jpashop.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open model 부하 생성기
+ *
+ * - 응답을 기다리지 않고 정해진 간격(1 / rate)마다 요청을 보낸다. 서버가 느려져도 도착률은 그대로다.
+ * - 지연시간은 "보냈어야 할 시각"부터 잰다. 생성기가 밀려서 늦게 보낸 시간까지 포함하므로
+ *   coordinated omission으로 꼬리 지연이 작게 보이는 문제가 없다.
+ * - 타겟은 순서대로 돌아가며 보낸다.
+ */
+final class OpenModelLoadGenerator {
+
+    private final String baseUrl;
+    private final LoadTestSettings settings;
+
+    OpenModelLoadGenerator(String baseUrl, LoadTestSettings settings) {
+        this.baseUrl = baseUrl;
+        this.settings = settings;
+    }
+
+    List<EndpointStats> run(List<HttpTarget> targets) throws InterruptedException {
+        if (settings.warmupSeconds > 0) {
+            drive(targets, settings.warmupSeconds);
+        }
+        return drive(targets, settings.durationSeconds);
+    }
+
+    private List<EndpointStats> drive(List<HttpTarget> targets, int seconds) throws InterruptedException {
+        Map<HttpTarget, EndpointStats> stats = new LinkedHashMap<>();
+        for (HttpTarget target : targets) {
+            stats.put(target, new EndpointStats(target.name));
+        }
+
+        ExecutorService workers = Executors.newCachedThreadPool();
+        Semaphore inFlight = new Semaphore(settings.maxInFlight);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / settings.rate);
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            HttpTarget target = targets.get((int) (i % targets.size()));
+            EndpointStats endpointStats = stats.get(target);
+            if (!inFlight.tryAcquire()) {
+                endpointStats.drop();
+                continue;
+            }
+            workers.execute(() -> {
+                try {
+                    boolean success = send(target);
+                    endpointStats.record(System.nanoTime() - intended, success);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        workers.shutdown();
+        workers.awaitTermination(2, TimeUnit.MINUTES);
+        return new ArrayList<>(stats.values());
+    }
+
+    private boolean send(HttpTarget target) {
+        HttpURLConnection connection = null;
+        try {
+            connection = (HttpURLConnection) new URL(baseUrl + target.path).openConnection();
+            connection.setRequestMethod(target.method);
+            connection.setInstanceFollowRedirects(false);
+            connection.setConnectTimeout(5_000);
+            connection.setReadTimeout(60_000);
+            if (target.body != null) {
+                byte[] body = target.body.get().getBytes(StandardCharsets.UTF_8);
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/x-www-form-urlencoded");
+                try (OutputStream out = connection.getOutputStream()) {
+                    out.write(body);
+                }
+            }
+            int status = connection.getResponseCode();
+            drain(status < 400 ? connection.getInputStream() : connection.getErrorStream());
+            return status < 400;
+        } catch (IOException e) {
+            return false;
+        } finally {
+            if (connection != null) {
+                connection.disconnect();
+            }
+        }
+    }
+
+    private void drain(InputStream in) throws IOException {
+        if (in == null) {
+            return;
+        }
+        try (InputStream body = in) {
+            byte[] buffer = new byte[8192];
+            while (body.read(buffer) != -1) {
+                // 응답 본문까지 다 받아야 지연시간에 전송 시간이 포함된다.
+            }
+        }
+    }
+}
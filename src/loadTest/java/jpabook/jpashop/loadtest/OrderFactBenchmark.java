@@ -0,0 +1,135 @@
+package jpabook.jpashop.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jpabook.jpashop.analytics.OrderFactQuery;
+import jpabook.jpashop.analytics.OrderFactStore;
+import jpabook.jpashop.analytics.OrderFactSummary;
+import jpabook.jpashop.domain.OrderStatus;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 주문 팩트 저장소 집계 벤치마크 (./gradlew loadTest --tests '*OrderFactBenchmark')
+ *
+ * - loadtest.facts.rows 만큼 1년치 가상 주문상품을 주문일 순서로 쌓는다. (기본 1억 행, 약 4.1GB)
+ *   같은 행 수로 만든 저장소가 loadtest.facts.dir 에 있으면 다시 열기만 한다. (재시작 시간 측정)
+ * - 조회마다 loadtest.facts.iterations 번 실행해서 p50/max(ms) 와 실제로 읽은 행 수를 출력한다.
+ * - 결과 JSON : build/reports/loadtest/order-facts-{version}-{시각}.json
+ */
+class OrderFactBenchmark {
+
+    private static final int ITEMS = 10_000;
+    private static final long HOT_ITEM = 1; // 주문상품의 10%
+    private static final int MEMBERS = 100_000;
+    private static final long SPAN_MILLIS = 365L * 24 * 60 * 60 * 1000;
+
+    private final long rows = Long.parseLong(System.getProperty("loadtest.facts.rows", "100000000"));
+    private final int iterations = Integer.parseInt(System.getProperty("loadtest.facts.iterations", "20"));
+    private final Path dir = Paths.get(System.getProperty("loadtest.facts.dir", "build/order-facts-benchmark"));
+    private final String version = System.getProperty("loadtest.version", "dev");
+    private final Path reportDir = Paths.get(System.getProperty("loadtest.report-dir", "build/reports/loadtest"));
+
+    @Test
+    public void 주문_팩트_집계() throws Exception {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("scenario", "order-facts");
+        report.put("version", version);
+        report.put("timestamp", Instant.now().toString());
+        report.put("java", System.getProperty("java.version"));
+        report.put("processors", Runtime.getRuntime().availableProcessors());
+        report.put("rows", rows);
+
+        long started = System.nanoTime();
+        OrderFactStore store = OrderFactStore.open(dir, 1 << 20);
+        report.put("openMs", (System.nanoTime() - started) / 1e6);
+        report.put("reopened", store.size() == rows);
+        if (store.size() != rows) {
+            started = System.nanoTime();
+            store.rebuild(this::fill);
+            report.put("loadMs", (System.nanoTime() - started) / 1e6);
+        }
+        assertEquals(rows, store.size());
+
+        long itemId = HOT_ITEM;
+        long memberId = MEMBERS / 3;
+        Map<String, OrderFactQuery> queries = new LinkedHashMap<>();
+        queries.put("item-last-hour-by-status", query(itemId, null, null, 60));
+        queries.put("item-last-day-cancelled", query(itemId, null, OrderStatus.CANCEL, 24 * 60));
+        queries.put("item-all-time", query(itemId, null, null, null));
+        queries.put("member-all-time", query(null, memberId, null, null));
+        queries.put("all-time", query(null, null, null, null));
+
+        System.out.println();
+        System.out.println("== order-facts (rows=" + rows + ", processors=" + Runtime.getRuntime().availableProcessors()
+                + ", openMs=" + report.get("openMs") + ")");
+        System.out.println(String.format("%-28s %12s %12s %12s %9s %9s", "query", "rows", "units", "scanned", "p50(ms)", "max(ms)"));
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Map.Entry<String, OrderFactQuery> entry : queries.entrySet()) {
+            store.aggregate(entry.getValue()); // 첫 실행은 페이지 캐시 적재
+            double[] millis = new double[iterations];
+            OrderFactSummary summary = null;
+            for (int i = 0; i < iterations; i++) {
+                summary = store.aggregate(entry.getValue());
+                millis[i] = summary.getElapsedMicros() / 1000.0;
+            }
+            Arrays.sort(millis);
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("query", entry.getKey());
+            row.put("rows", summary.getRows());
+            row.put("units", summary.getUnits());
+            row.put("scannedRows", summary.getScannedRows());
+            row.put("p50Ms", millis[iterations / 2]);
+            row.put("maxMs", millis[iterations - 1]);
+            results.add(row);
+            System.out.println(String.format("%-28s %12d %12d %12d %9.3f %9.3f", entry.getKey(), summary.getRows(),
+                    summary.getUnits(), summary.getScannedRows(), millis[iterations / 2], millis[iterations - 1]));
+        }
+        report.put("queries", results);
+        store.close();
+
+        Files.createDirectories(reportDir);
+        Path file = reportDir.resolve("order-facts-" + version + "-" + System.currentTimeMillis() + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), report);
+        System.out.println("report : " + file.toAbsolutePath());
+    }
+
+    /**
+     * 주문 하나에 상품 1~3개, 주문일은 1년 전부터 지금까지 고르게, 10% 는 취소, 주문상품의 10% 는 HOT_ITEM
+     */
+    private void fill(OrderFactStore store) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long end = System.currentTimeMillis();
+        long start = end - SPAN_MILLIS;
+        long orderId = 0;
+        for (long row = 0; row < rows; ) {
+            orderId++;
+            long orderDate = start + SPAN_MILLIS * row / rows;
+            long memberId = 1 + random.nextInt(MEMBERS);
+            OrderStatus status = random.nextInt(10) == 0 ? OrderStatus.CANCEL : OrderStatus.ORDER;
+            int items = 1 + random.nextInt(3);
+            for (int i = 0; i < items && row < rows; i++, row++) {
+                long itemId = random.nextInt(10) == 0 ? HOT_ITEM : 1 + random.nextInt(ITEMS);
+                store.append(orderId, memberId, orderDate, status, itemId,
+                        1000 + random.nextInt(50_000), 1 + random.nextInt(5));
+            }
+        }
+    }
+
+    private static OrderFactQuery query(Long itemId, Long memberId, OrderStatus status, Integer lastMinutes) {
+        OrderFactQuery query = new OrderFactQuery();
+        query.setItemId(itemId);
+        query.setMemberId(memberId);
+        query.setStatus(status);
+        query.setLastMinutes(lastMinutes);
+        return query;
+    }
+}
@@ -0,0 +1,28 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+
+/**
+ * 세그먼트 스캔 중간 합계 - 상태(ordinal)별 primitive 배열 (세그먼트마다 하나, 행마다 객체를 만들지 않는다)
+ */
+final class OrderFactAccumulator {
+
+    private static final int STATUSES = OrderStatus.values().length;
+
+    final long[] rows = new long[STATUSES];
+    final long[] units = new long[STATUSES];
+    final long[] revenue = new long[STATUSES];
+    long scannedRows;
+    long skippedRows;
+
+    OrderFactAccumulator merge(OrderFactAccumulator other) {
+        for (int i = 0; i < STATUSES; i++) {
+            rows[i] += other.rows[i];
+            units[i] += other.units[i];
+            revenue[i] += other.revenue[i];
+        }
+        scannedRows += other.scannedRows;
+        skippedRows += other.skippedRows;
+        return this;
+    }
+}
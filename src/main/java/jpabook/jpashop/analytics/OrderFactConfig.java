@@ -0,0 +1,59 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.repository.order.query.OrderFactJdbcRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.util.StringUtils;
+
+import java.nio.file.Paths;
+
+/**
+ * 주문 팩트 저장소 (jpashop.order-facts.enabled=true 일 때만)
+ *
+ * - 재시작하면 세그먼트 파일을 그대로 다시 연다.
+ * - 저장소가 비어 있으면(처음 실행, 형식 변경) 기동이 끝난 뒤 DB 전체로 채운다.
+ * - 이후로는 주문 이벤트로 따라간다. (OrderFactHandler)
+ * - 전체 채우기는 메인 DB 주문만 읽으므로 주문 샤딩(jpashop.sharding.enabled)과 함께 켤 수 없다.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.order-facts", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(OrderFactProperties.class)
+public class OrderFactConfig {
+
+    public OrderFactConfig(@Value("${jpashop.sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("jpashop.order-facts.enabled 와 jpashop.sharding.enabled 는 함께 켤 수 없습니다."
+                    + " (팩트 전체 채우기가 샤드 주문을 읽지 않음)");
+        }
+    }
+
+    @Bean(destroyMethod = "close")
+    public OrderFactStore orderFactStore(OrderFactProperties properties) {
+        String dir = StringUtils.hasText(properties.getDir())
+                ? properties.getDir() : Paths.get(System.getProperty("java.io.tmpdir"), "jpashop-order-facts").toString();
+        return OrderFactStore.open(Paths.get(dir), properties.getSegmentRows());
+    }
+
+    @Bean
+    public OrderFactLoader orderFactLoader(OrderFactStore orderFactStore, OrderFactJdbcRepository orderFactJdbcRepository) {
+        return new OrderFactLoader(orderFactStore, orderFactJdbcRepository);
+    }
+
+    @Bean
+    public OrderFactHandler orderFactHandler(OrderFactStore orderFactStore, OrderFactLoader orderFactLoader) {
+        return new OrderFactHandler(orderFactStore, orderFactLoader);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnColdStart(ApplicationReadyEvent event) {
+        OrderFactStore store = event.getApplicationContext().getBean(OrderFactStore.class);
+        if (store.size() == 0) {
+            event.getApplicationContext().getBean(OrderFactLoader.class).rebuild();
+        }
+    }
+}
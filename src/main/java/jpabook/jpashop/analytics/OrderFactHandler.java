@@ -0,0 +1,56 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.event.OrderEvent;
+import jpabook.jpashop.event.OrderEventHandler;
+import jpabook.jpashop.event.OrderEventType;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 주문 이벤트 -> 주문 팩트 저장소
+ * 배치로 모아서 주문(PLACED)은 주문 id IN 조회 한번으로 추가하고, 취소(CANCELLED)는 상태 컬럼만 바꾼다.
+ */
+public class OrderFactHandler implements OrderEventHandler {
+
+    private static final int MAX_BATCH = 500;
+
+    private final OrderFactStore store;
+    private final OrderFactLoader loader;
+    private final Set<Long> placed = new LinkedHashSet<>();
+    private final Set<Long> cancelled = new LinkedHashSet<>();
+    private final List<OrderEvent> pending = new ArrayList<>();
+
+    public OrderFactHandler(OrderFactStore store, OrderFactLoader loader) {
+        this.store = store;
+        this.loader = loader;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        if (event.getType() == OrderEventType.PLACED) {
+            placed.add(event.getOrderId());
+        } else if (event.getType() == OrderEventType.CANCELLED) {
+            cancelled.add(event.getOrderId());
+        }
+        pending.add(event);
+        if (endOfBatch || placed.size() + cancelled.size() >= MAX_BATCH) {
+            try {
+                // 같은 배치에 주문과 취소가 같이 오면 주문을 먼저 넣는다. (DB 에서 읽은 상태가 이미 CANCEL 이어도 결과는 같다)
+                loader.appendOrders(placed);
+                store.updateStatus(cancelled, OrderStatus.CANCEL);
+            } catch (RuntimeException e) {
+                // 모아 둔 이벤트 전부 아웃박스에 남겨서 재시작할 때 다시 받는다.
+                pending.forEach(OrderEvent::markFailed);
+                throw e;
+            } finally {
+                placed.clear();
+                cancelled.clear();
+                pending.clear();
+            }
+        }
+    }
+}
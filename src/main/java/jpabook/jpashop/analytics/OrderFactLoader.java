@@ -0,0 +1,49 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderFactJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+
+/**
+ * DB -> 주문 팩트 저장소
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class OrderFactLoader {
+
+    private final OrderFactStore store;
+    private final OrderFactJdbcRepository orderFactJdbcRepository;
+
+    /**
+     * 저장소를 비우고 DB(아카이브 포함) 전체로 다시 채운다.
+     */
+    public long rebuild() {
+        long started = System.currentTimeMillis();
+        long rows = store.rebuild(s -> orderFactJdbcRepository.forEachFact(appender(s)));
+        log.info("주문 팩트 저장소 재구성 rows={} elapsed={}ms", rows, System.currentTimeMillis() - started);
+        return rows;
+    }
+
+    /**
+     * 아직 저장소에 없는 주문만 추가한다. (이벤트가 다시 와도, rebuild 와 겹쳐도 중복으로 쌓지 않는다)
+     */
+    public void appendOrders(Collection<Long> orderIds) {
+        store.appendMissing(orderIds, (s, newOrderIds) -> orderFactJdbcRepository.forEachFact(newOrderIds, appender(s)));
+    }
+
+    private static RowCallbackHandler appender(OrderFactStore store) {
+        return rs -> {
+            Timestamp orderDate = rs.getTimestamp(3);
+            String status = rs.getString(4);
+            store.append(rs.getLong(1), rs.getLong(2),
+                    orderDate == null ? 0 : orderDate.getTime(),
+                    status == null ? OrderStatus.ORDER : OrderStatus.valueOf(status),
+                    rs.getLong(5), rs.getInt(6), rs.getInt(7));
+        };
+    }
+}
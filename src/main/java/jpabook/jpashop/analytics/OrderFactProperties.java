@@ -0,0 +1,25 @@
+package jpabook.jpashop.analytics;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * jpashop.order-facts.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.order-facts")
+public class OrderFactProperties {
+
+    private boolean enabled;
+
+    /**
+     * 세그먼트 파일 위치 (비어 있으면 java.io.tmpdir/jpashop-order-facts)
+     */
+    private String dir;
+
+    /**
+     * 세그먼트 파일 하나의 행 수 (4096의 배수). 바꾸면 기존 파일을 버리고 DB 에서 다시 채운다.
+     */
+    private int segmentRows = 1 << 20;
+}
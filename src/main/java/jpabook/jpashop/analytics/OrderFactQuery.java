@@ -0,0 +1,26 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 팩트 집계 조건 - 비어 있는 조건은 전체
+ * 기간은 [from, to) 이고 lastMinutes 가 있으면 from = 지금 - lastMinutes 로 본다.
+ */
+@Data
+public class OrderFactQuery {
+
+    static final long ANY = Long.MIN_VALUE;
+
+    private Long itemId;
+    private Long memberId;
+    private OrderStatus status;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime from;
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+    private LocalDateTime to;
+    private Integer lastMinutes;
+}
@@ -0,0 +1,259 @@
+package jpabook.jpashop.analytics;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * 주문 팩트 세그먼트 - 파일 하나를 통째로 메모리 맵으로 연다. (행 capacity 개 고정)
+ *
+ * [header 64B][block zone map : 블록(BLOCK_ROWS 행)마다 min/max 주문일 16B][컬럼들]
+ * 컬럼은 각각 연속된 primitive 배열이다. (little endian)
+ *   orderId long | memberId long | orderDate long(epoch millis) | itemId long | price int | count int | status byte
+ *
+ * - 쓰기는 한 스레드(OrderFactStore 락)만 한다. 행을 다 쓴 뒤 size(volatile)를 올리므로 읽는 쪽은 락 없이 size 까지만 읽는다.
+ * - header 의 size/min/max 도 같이 갱신해서 재시작하면 파일을 다시 맵핑하는 것만으로 열린다.
+ */
+final class OrderFactSegment {
+
+    static final int BLOCK_ROWS = 4096;
+    static final int ROW_BYTES = 8 + 8 + 8 + 8 + 4 + 4 + 1;
+
+    private static final int MAGIC = 0x4F464331; // "OFC1"
+    private static final int HEADER_BYTES = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 4;
+    private static final int SIZE_OFFSET = 8;
+    private static final int MIN_DATE_OFFSET = 16;
+    private static final int MAX_DATE_OFFSET = 24;
+    private static final int MIN_ORDER_ID_OFFSET = 32;
+    private static final int MAX_ORDER_ID_OFFSET = 40;
+
+    final int capacity;
+    private final MappedByteBuffer buffer;
+    private final LongBuffer blockDates; // 블록별 [min, max]
+    private final LongBuffer orderIds;
+    private final LongBuffer memberIds;
+    private final LongBuffer orderDates;
+    private final LongBuffer itemIds;
+    private final IntBuffer prices;
+    private final IntBuffer counts;
+    private final ByteBuffer statuses;
+
+    private volatile int size;
+    // size 를 올리기 전에 갱신하므로 읽는 쪽에서는 항상 size 까지의 행을 포함하는 범위다.
+    private long minDate;
+    private long maxDate;
+    private long minOrderId;
+    private long maxOrderId;
+
+    private OrderFactSegment(int capacity, MappedByteBuffer buffer) {
+        this.capacity = capacity;
+        this.buffer = buffer;
+        int blocks = capacity / BLOCK_ROWS;
+        int offset = HEADER_BYTES;
+        this.blockDates = slice(offset, blocks * 16).asLongBuffer();
+        offset += blocks * 16;
+        this.orderIds = slice(offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        this.memberIds = slice(offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        this.orderDates = slice(offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        this.itemIds = slice(offset, capacity * 8).asLongBuffer();
+        offset += capacity * 8;
+        this.prices = slice(offset, capacity * 4).asIntBuffer();
+        offset += capacity * 4;
+        this.counts = slice(offset, capacity * 4).asIntBuffer();
+        offset += capacity * 4;
+        this.statuses = slice(offset, capacity);
+    }
+
+    static long fileSize(int capacity) {
+        return HEADER_BYTES + (long) (capacity / BLOCK_ROWS) * 16 + (long) capacity * ROW_BYTES;
+    }
+
+    /**
+     * 파일이 없으면 만들고, 있으면 header 를 확인해서 그대로 연다. (capacity 가 다르면 IllegalStateException)
+     */
+    static OrderFactSegment open(Path file, int capacity) {
+        long fileSize = fileSize(capacity);
+        if (capacity % BLOCK_ROWS != 0 || fileSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("세그먼트 행 수는 " + BLOCK_ROWS + "의 배수이고 파일이 2GB 를 넘지 않아야 합니다. capacity=" + capacity);
+        }
+        try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            boolean created = raf.length() == 0;
+            if (created) {
+                raf.setLength(fileSize); // sparse - 쓰기 전까지 디스크를 차지하지 않는다.
+            } else if (raf.length() != fileSize) {
+                throw new IllegalStateException("세그먼트 크기가 다릅니다. " + file);
+            }
+            MappedByteBuffer buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            OrderFactSegment segment = new OrderFactSegment(capacity, buffer);
+            if (created) {
+                buffer.putInt(MAGIC_OFFSET, MAGIC);
+                buffer.putInt(CAPACITY_OFFSET, capacity);
+                segment.reset();
+            } else {
+                segment.load(file);
+            }
+            return segment;
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 팩트 세그먼트를 열 수 없습니다. " + file, e);
+        }
+    }
+
+    private void load(Path file) {
+        if (buffer.getInt(MAGIC_OFFSET) != MAGIC || buffer.getInt(CAPACITY_OFFSET) != capacity) {
+            throw new IllegalStateException("주문 팩트 세그먼트 형식이 다릅니다. " + file);
+        }
+        minDate = buffer.getLong(MIN_DATE_OFFSET);
+        maxDate = buffer.getLong(MAX_DATE_OFFSET);
+        minOrderId = buffer.getLong(MIN_ORDER_ID_OFFSET);
+        maxOrderId = buffer.getLong(MAX_ORDER_ID_OFFSET);
+        size = (int) buffer.getLong(SIZE_OFFSET);
+    }
+
+    /**
+     * 비운다. (파일과 맵핑은 그대로 재사용)
+     */
+    void reset() {
+        size = 0;
+        minDate = Long.MAX_VALUE;
+        maxDate = Long.MIN_VALUE;
+        minOrderId = Long.MAX_VALUE;
+        maxOrderId = Long.MIN_VALUE;
+        writeHeader();
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isFull() {
+        return size == capacity;
+    }
+
+    void append(long orderId, long memberId, long orderDate, int status, long itemId, int price, int count) {
+        int row = size;
+        orderIds.put(row, orderId);
+        memberIds.put(row, memberId);
+        orderDates.put(row, orderDate);
+        itemIds.put(row, itemId);
+        prices.put(row, price);
+        counts.put(row, count);
+        statuses.put(row, (byte) status);
+
+        int block = (row / BLOCK_ROWS) * 2;
+        if (row % BLOCK_ROWS == 0) {
+            blockDates.put(block, orderDate);
+            blockDates.put(block + 1, orderDate);
+        } else {
+            blockDates.put(block, Math.min(blockDates.get(block), orderDate));
+            blockDates.put(block + 1, Math.max(blockDates.get(block + 1), orderDate));
+        }
+        minDate = Math.min(minDate, orderDate);
+        maxDate = Math.max(maxDate, orderDate);
+        minOrderId = Math.min(minOrderId, orderId);
+        maxOrderId = Math.max(maxOrderId, orderId);
+        size = row + 1;
+        writeHeader();
+    }
+
+    private void writeHeader() {
+        buffer.putLong(MIN_DATE_OFFSET, minDate);
+        buffer.putLong(MAX_DATE_OFFSET, maxDate);
+        buffer.putLong(MIN_ORDER_ID_OFFSET, minOrderId);
+        buffer.putLong(MAX_ORDER_ID_OFFSET, maxOrderId);
+        buffer.putLong(SIZE_OFFSET, size);
+    }
+
+    /**
+     * 조건에 맞는 행을 상태별로 더한다. 세그먼트/블록의 주문일 범위가 [from, to) 와 겹치지 않으면 건너뛴다.
+     * itemId, memberId 는 OrderFactQuery.ANY, status 는 -1 이면 조건 없음
+     */
+    void aggregate(long from, long to, long itemId, long memberId, int status, OrderFactAccumulator acc) {
+        int n = size;
+        if (n == 0 || maxDate < from || minDate >= to) {
+            acc.skippedRows += n;
+            return;
+        }
+        for (int start = 0; start < n; start += BLOCK_ROWS) {
+            int end = Math.min(start + BLOCK_ROWS, n);
+            int block = (start / BLOCK_ROWS) * 2;
+            if (blockDates.get(block + 1) < from || blockDates.get(block) >= to) {
+                acc.skippedRows += end - start;
+                continue;
+            }
+            acc.scannedRows += end - start;
+            for (int row = start; row < end; row++) {
+                long date = orderDates.get(row);
+                if (date < from || date >= to) {
+                    continue;
+                }
+                if (itemId != OrderFactQuery.ANY && itemIds.get(row) != itemId) {
+                    continue;
+                }
+                if (memberId != OrderFactQuery.ANY && memberIds.get(row) != memberId) {
+                    continue;
+                }
+                int rowStatus = statuses.get(row);
+                if (status >= 0 && rowStatus != status) {
+                    continue;
+                }
+                int count = counts.get(row);
+                acc.rows[rowStatus]++;
+                acc.units[rowStatus] += count;
+                acc.revenue[rowStatus] += (long) prices.get(row) * count;
+            }
+        }
+    }
+
+    boolean mayContain(long firstOrderId, long lastOrderId) {
+        return size > 0 && maxOrderId >= firstOrderId && minOrderId <= lastOrderId;
+    }
+
+    /**
+     * sortedOrderIds 에 있는 주문의 행 상태를 바꾼다. 바꾼 행 수를 돌려준다.
+     */
+    int updateStatus(long[] sortedOrderIds, int status) {
+        int n = size;
+        int updated = 0;
+        for (int row = 0; row < n; row++) {
+            if (Arrays.binarySearch(sortedOrderIds, orderIds.get(row)) >= 0 && statuses.get(row) != status) {
+                statuses.put(row, (byte) status);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * sortedOrderIds 중 이 세그먼트에 있는 주문을 found 에 표시한다.
+     */
+    void markExisting(long[] sortedOrderIds, boolean[] found) {
+        int n = size;
+        for (int row = 0; row < n; row++) {
+            int index = Arrays.binarySearch(sortedOrderIds, orderIds.get(row));
+            if (index >= 0) {
+                found[index] = true;
+            }
+        }
+    }
+
+    void force() {
+        buffer.force();
+    }
+
+    private ByteBuffer slice(int offset, int length) {
+        ByteBuffer view = buffer.duplicate();
+        view.position(offset);
+        view.limit(offset + length);
+        return view.slice().order(ByteOrder.LITTLE_ENDIAN); // slice() 는 byte order 를 big endian 으로 되돌린다.
+    }
+}
@@ -0,0 +1,371 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 주문 팩트 저장소 - 메모리 맵 파일에 컬럼별로 쌓는 off-heap 저장소
+ *
+ * 행 하나 = 주문상품 하나 (주문 id, 회원 id, 주문일 epoch millis, 주문 상태, 상품 id, 주문가격, 수량)
+ * "최근 1시간 상품 X 판매 수량(상태별)" 같은 집계를 orders, order_item, item 조인 없이 primitive 컬럼 스캔으로 한다.
+ *
+ * - 데이터는 힙 밖(페이지 캐시)에 있고 재시작하면 세그먼트 파일을 다시 맵핑하는 것만으로 열린다.
+ * - 세그먼트 파일은 버전 디렉토리(version-00000)에 있고, 어느 버전을 쓰는지는 CURRENT 파일이 가리킨다.
+ * - 쓰기(append, updateStatus)는 이 객체 락으로 한 스레드만, 읽기(aggregate)는 락 없이 세그먼트별 size 까지만 읽는다.
+ * - rebuild 는 새 버전 디렉토리를 락 없이 채우고 CURRENT 를 원자적으로 바꿔서 한번에 바꿔 끼운다.
+ *   (읽는 중인 집계는 이전 세그먼트로 끝나고, 도중에 죽으면 이전 버전이 그대로 열린다)
+ * - 세그먼트/블록마다 주문일 min/max 가 있어서 최근 기간 조회는 뒤쪽 블록 몇 개만 읽는다.
+ * - 주문일은 시스템 기본 시간대의 LocalDateTime 을 epoch millis 로 바꿔서 저장한다. (Timestamp 와 같은 방식)
+ * - 세그먼트 형식이나 크기 설정이 바뀌면 파일을 지우고 빈 저장소로 연다. (OrderFactConfig 에서 DB 로 다시 채운다)
+ */
+@Slf4j
+public class OrderFactStore implements Closeable {
+
+    private static final String SEGMENT_PREFIX = "segment-";
+    private static final String SEGMENT_SUFFIX = ".ofc";
+    private static final String VERSION_PREFIX = "version-";
+    private static final String CURRENT_FILE = "CURRENT";
+
+    private final Path root;
+    private final int segmentRows;
+    private Path dir; // 지금 버전 디렉토리 (this 로 보호)
+    private final List<OrderFactSegment> segments = new ArrayList<>(); // this 로 보호
+    private volatile OrderFactSegment[] snapshot = new OrderFactSegment[0]; // 읽기용
+    private List<Consumer<OrderFactStore>> pendingWrites; // rebuild 중에 들어온 쓰기, 바꿔 끼우기 전에 새 버전에 다시 적용한다. (this 로 보호)
+
+    private OrderFactStore(Path root, Path dir, int segmentRows) {
+        this.root = root;
+        this.dir = dir;
+        this.segmentRows = segmentRows;
+    }
+
+    public static OrderFactStore open(Path root, int segmentRows) {
+        OrderFactStore store;
+        try {
+            Files.createDirectories(root);
+            Path dir = currentVersion(root);
+            deleteOtherVersions(root, dir); // 재구성 도중에 죽어서 남은 버전
+            store = new OrderFactStore(root, dir, segmentRows);
+            store.load();
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 팩트 저장소를 열 수 없습니다. " + root, e);
+        }
+        log.info("주문 팩트 저장소 열기 dir={} rows={} segments={}", store.dir, store.size(), store.segments.size());
+        return store;
+    }
+
+    /**
+     * CURRENT 가 가리키는 버전 디렉토리, 없으면 첫 버전을 만든다. (버전 디렉토리 없이 root 에 있던 세그먼트는 옮긴다)
+     */
+    private static Path currentVersion(Path root) throws IOException {
+        Path pointer = root.resolve(CURRENT_FILE);
+        if (Files.exists(pointer)) {
+            return root.resolve(new String(Files.readAllBytes(pointer), StandardCharsets.UTF_8).trim());
+        }
+        Path first = root.resolve(versionName(0));
+        Files.createDirectories(first);
+        for (Path file : segmentFiles(root)) {
+            Files.move(file, first.resolve(file.getFileName()), StandardCopyOption.REPLACE_EXISTING);
+        }
+        writePointer(root, first);
+        return first;
+    }
+
+    /**
+     * 임시 파일에 쓰고 rename 으로 바꾼다. 여는 쪽은 이전 버전이나 새 버전 중 하나만 본다.
+     */
+    private static void writePointer(Path root, Path version) throws IOException {
+        Path temp = root.resolve(CURRENT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(version.getFileName().toString().getBytes(StandardCharsets.UTF_8)));
+            channel.force(true);
+        }
+        Files.move(temp, root.resolve(CURRENT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private static String versionName(int version) {
+        return String.format("%s%05d", VERSION_PREFIX, version);
+    }
+
+    private static int versionNumber(Path dir) {
+        String name = dir.getFileName().toString();
+        return name.startsWith(VERSION_PREFIX) ? Integer.parseInt(name.substring(VERSION_PREFIX.length())) : 0;
+    }
+
+    private void load() throws IOException {
+        Files.createDirectories(dir);
+        List<Path> files = segmentFiles(dir);
+        try {
+            for (Path file : files) {
+                segments.add(OrderFactSegment.open(file, segmentRows));
+            }
+        } catch (IllegalStateException e) {
+            log.warn("주문 팩트 저장소 형식이 맞지 않아 비우고 다시 만듭니다. dir={} ({})", dir, e.getMessage());
+            segments.clear();
+            for (Path file : files) {
+                Files.deleteIfExists(file);
+            }
+        }
+        publish();
+    }
+
+    private static List<Path> segmentFiles(Path dir) throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(files::add);
+        }
+        Collections.sort(files);
+        return files;
+    }
+
+    public long size() {
+        long size = 0;
+        for (OrderFactSegment segment : snapshot) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public static long toEpochMillis(LocalDateTime dateTime) {
+        return Timestamp.valueOf(dateTime).getTime();
+    }
+
+    /**
+     * 주문상품 한 행을 추가한다.
+     */
+    public synchronized void append(long orderId, long memberId, long orderDate, OrderStatus status, long itemId, int price, int count) {
+        OrderFactSegment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (segment == null || segment.isFull()) {
+            segment = nextSegment();
+        }
+        segment.append(orderId, memberId, orderDate, status.ordinal(), itemId, price, count);
+    }
+
+    private OrderFactSegment nextSegment() {
+        Path file = dir.resolve(String.format("%s%05d%s", SEGMENT_PREFIX, segments.size(), SEGMENT_SUFFIX));
+        OrderFactSegment segment = OrderFactSegment.open(file, segmentRows);
+        segments.add(segment);
+        publish();
+        return segment;
+    }
+
+    private void publish() {
+        snapshot = segments.toArray(new OrderFactSegment[0]);
+    }
+
+    /**
+     * 주문 상태 변경 (취소) - 바꾼 행 수를 돌려준다.
+     */
+    public synchronized int updateStatus(Collection<Long> orderIds, OrderStatus status) {
+        long[] sorted = sortedIds(orderIds);
+        if (sorted.length == 0) {
+            return 0;
+        }
+        if (pendingWrites != null) {
+            List<Long> ids = new ArrayList<>(orderIds);
+            pendingWrites.add(target -> target.updateStatus(ids, status));
+        }
+        int updated = 0;
+        for (OrderFactSegment segment : segments) {
+            if (segment.mayContain(sorted[0], sorted[sorted.length - 1])) {
+                updated += segment.updateStatus(sorted, status.ordinal());
+            }
+        }
+        return updated;
+    }
+
+    /**
+     * orderIds 중 이미 저장된 주문 (이벤트 중복 수신 확인용)
+     */
+    public Set<Long> findExistingOrderIds(Collection<Long> orderIds) {
+        long[] sorted = sortedIds(orderIds);
+        Set<Long> existing = new HashSet<>();
+        if (sorted.length == 0) {
+            return existing;
+        }
+        boolean[] found = new boolean[sorted.length];
+        for (OrderFactSegment segment : snapshot) {
+            if (segment.mayContain(sorted[0], sorted[sorted.length - 1])) {
+                segment.markExisting(sorted, found);
+            }
+        }
+        for (int i = 0; i < sorted.length; i++) {
+            if (found[i]) {
+                existing.add(sorted[i]);
+            }
+        }
+        return existing;
+    }
+
+    /**
+     * orderIds 중 아직 없는 주문만 loader 로 추가한다. loader 는 같은 스레드에서 append 를 호출한다.
+     * 확인과 추가를 같은 락 안에서 하므로 다른 추가와 겹쳐도 같은 주문이 두번 쌓이지 않는다.
+     * rebuild 중이면 새 버전에도 바꿔 끼우기 전에 같은 방법으로 추가한다.
+     */
+    public synchronized void appendMissing(Collection<Long> orderIds, BiConsumer<OrderFactStore, Set<Long>> loader) {
+        if (pendingWrites != null) {
+            List<Long> ids = new ArrayList<>(orderIds);
+            pendingWrites.add(target -> target.appendMissing(ids, loader));
+        }
+        Set<Long> missing = new HashSet<>(orderIds);
+        missing.removeAll(findExistingOrderIds(missing));
+        if (!missing.isEmpty()) {
+            loader.accept(this, missing);
+        }
+    }
+
+    private static long[] sortedIds(Collection<Long> orderIds) {
+        long[] sorted = orderIds.stream().mapToLong(Long::longValue).distinct().toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    /**
+     * 새 버전 디렉토리에 loader 로 다시 채운 뒤 바꿔 끼운다. loader 는 같은 스레드에서 새 버전의 append 를 호출한다.
+     * - 채우는 동안 락을 잡지 않는다. 그동안 들어온 추가/상태 변경은 지금 버전에 바로 반영하면서 기록해 두고,
+     *   바꿔 끼우기 직전에 락 안에서 새 버전에 다시 적용한다. (이벤트 처리 스레드가 재구성을 기다리지 않는다)
+     * - 채우는 동안 집계는 이전 세그먼트를 읽는다. 실패하면 새 버전을 지우고 이전 세그먼트를 그대로 쓴다.
+     */
+    public long rebuild(Consumer<OrderFactStore> loader) {
+        OrderFactStore building;
+        synchronized (this) {
+            if (pendingWrites != null) {
+                throw new IllegalStateException("주문 팩트 저장소를 이미 다시 채우는 중입니다. " + root);
+            }
+            building = new OrderFactStore(root, root.resolve(versionName(versionNumber(dir) + 1)), segmentRows);
+            pendingWrites = new ArrayList<>();
+        }
+
+        Path previous;
+        try {
+            deleteVersion(building.dir);
+            Files.createDirectories(building.dir);
+            loader.accept(building);
+
+            synchronized (this) {
+                for (Consumer<OrderFactStore> write : pendingWrites) {
+                    write.accept(building);
+                }
+                building.force();
+                writePointer(root, building.dir);
+
+                previous = dir;
+                dir = building.dir;
+                segments.clear();
+                segments.addAll(building.segments);
+                pendingWrites = null;
+                publish();
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                pendingWrites = null;
+            }
+            deleteVersionQuietly(building.dir);
+            if (e instanceof IOException) {
+                throw new UncheckedIOException("주문 팩트 저장소를 다시 채울 수 없습니다. " + root, (IOException) e);
+            }
+            throw (RuntimeException) e;
+        }
+
+        // 맵핑은 파일 이름이 아니라 파일에 묶여 있으므로 이전 세그먼트를 읽는 중인 집계에는 영향이 없다.
+        deleteVersionQuietly(previous);
+        return size();
+    }
+
+    private static void deleteOtherVersions(Path root, Path current) throws IOException {
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, VERSION_PREFIX + "*")) {
+            for (Path version : stream) {
+                if (!version.equals(current)) {
+                    deleteVersionQuietly(version);
+                }
+            }
+        }
+    }
+
+    /**
+     * 지우지 못하면 (맵핑이 남아 있는 Windows 등) 다음에 열 때 다시 지운다.
+     */
+    private static void deleteVersionQuietly(Path version) {
+        try {
+            deleteVersion(version);
+        } catch (IOException e) {
+            log.warn("이전 주문 팩트 버전을 지우지 못했습니다. dir={} ({})", version, e.getMessage());
+        }
+    }
+
+    private static void deleteVersion(Path version) throws IOException {
+        if (!Files.isDirectory(version)) {
+            return;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(version)) {
+            for (Path file : stream) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(version);
+    }
+
+    /**
+     * 조건에 맞는 행을 상태별로 집계한다. 세그먼트는 병렬로 스캔한다.
+     */
+    public OrderFactSummary aggregate(OrderFactQuery query) {
+        long started = System.nanoTime();
+        long from = Long.MIN_VALUE;
+        long to = Long.MAX_VALUE;
+        if (query.getLastMinutes() != null) {
+            from = System.currentTimeMillis() - query.getLastMinutes() * 60_000L;
+        } else if (query.getFrom() != null) {
+            from = toEpochMillis(query.getFrom());
+        }
+        if (query.getTo() != null) {
+            to = toEpochMillis(query.getTo());
+        }
+        long itemId = query.getItemId() == null ? OrderFactQuery.ANY : query.getItemId();
+        long memberId = query.getMemberId() == null ? OrderFactQuery.ANY : query.getMemberId();
+        int status = query.getStatus() == null ? -1 : query.getStatus().ordinal();
+
+        long fromMillis = from;
+        long toMillis = to;
+        OrderFactAccumulator acc = Arrays.stream(snapshot).parallel()
+                .map(segment -> {
+                    OrderFactAccumulator segmentAcc = new OrderFactAccumulator();
+                    segment.aggregate(fromMillis, toMillis, itemId, memberId, status, segmentAcc);
+                    return segmentAcc;
+                })
+                .reduce(OrderFactAccumulator::merge)
+                .orElseGet(OrderFactAccumulator::new);
+        return new OrderFactSummary(acc, System.nanoTime() - started);
+    }
+
+    public synchronized void force() {
+        for (OrderFactSegment segment : segments) {
+            segment.force();
+        }
+    }
+
+    /**
+     * 디스크에 내리기만 한다. Java 8 은 맵핑을 직접 해제할 수 없어서 GC 될 때 풀린다.
+     */
+    @Override
+    public void close() {
+        force();
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 주문 팩트 집계 결과
+ * - rows : 조건에 맞는 주문상품 행 수, units : 수량 합, revenue : 주문가격 x 수량 합
+ * - scannedRows / skippedRows : 실제로 읽은 행 / 주문일 범위(zone map)로 건너뛴 행
+ */
+@Getter
+public class OrderFactSummary {
+
+    private final long rows;
+    private final long units;
+    private final long revenue;
+    private final Map<OrderStatus, Total> byStatus = new LinkedHashMap<>();
+    private final long scannedRows;
+    private final long skippedRows;
+    private final long elapsedMicros;
+
+    OrderFactSummary(OrderFactAccumulator acc, long elapsedNanos) {
+        long rows = 0, units = 0, revenue = 0;
+        for (OrderStatus status : OrderStatus.values()) {
+            int i = status.ordinal();
+            if (acc.rows[i] > 0) {
+                byStatus.put(status, new Total(acc.rows[i], acc.units[i], acc.revenue[i]));
+            }
+            rows += acc.rows[i];
+            units += acc.units[i];
+            revenue += acc.revenue[i];
+        }
+        this.rows = rows;
+        this.units = units;
+        this.revenue = revenue;
+        this.scannedRows = acc.scannedRows;
+        this.skippedRows = acc.skippedRows;
+        this.elapsedMicros = elapsedNanos / 1000;
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static class Total {
+        private final long rows;
+        private final long units;
+        private final long revenue;
+    }
+}
@@ -0,0 +1,42 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.batch.DeliveryCompleteJob;
+import jpabook.jpashop.batch.JobResult;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class DeliveryApiController {
+
+    private final DeliveryCompleteJob deliveryCompleteJob;
+
+    /**
+     * 택배사 배송 완료 보고 (배송 id 목록), 배송 완료 배치의 입력이 된다.
+     */
+    @PostMapping("/api/deliveries/completions")
+    public void reportCompletions(@RequestBody List<Long> deliveryIds) {
+        deliveryCompleteJob.report(deliveryIds);
+    }
+
+    /**
+     * 배송 완료 배치 실행 (비동기)
+     * - 완료 보고된 배송만 처리한다.
+     * - 중단된 jobName으로 다시 호출하면 체크포인트부터 이어서 처리한다.
+     * - concurrency 는 1 ~ 커넥션 풀 크기 - 1, 벗어나면 실행하지 않고 IllegalArgumentException
+     */
+    @PostMapping("/api/deliveries/complete-job/{jobName}")
+    public JobResult launchCompleteJob(@PathVariable("jobName") String jobName,
+                                       @RequestParam(value = "chunkSize", defaultValue = "1000") int chunkSize,
+                                       @RequestParam(value = "concurrency", defaultValue = "4") int concurrency) {
+        deliveryCompleteJob.launch(jobName, chunkSize, concurrency);
+        return deliveryCompleteJob.status(jobName);
+    }
+
+    @GetMapping("/api/deliveries/complete-job/{jobName}")
+    public JobResult completeJobStatus(@PathVariable("jobName") String jobName) {
+        return deliveryCompleteJob.status(jobName);
+    }
+}
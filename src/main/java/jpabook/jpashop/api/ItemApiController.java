@@ -0,0 +1,48 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.repository.item.query.ItemCatalogSearch;
+import jpabook.jpashop.service.ItemBulkUpdate;
+import jpabook.jpashop.service.ItemBulkUpdateResult;
+import jpabook.jpashop.service.ItemBulkUpdateService;
+import jpabook.jpashop.service.query.ItemCatalogPage;
+import jpabook.jpashop.service.query.ItemQueryService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class ItemApiController {
+
+    private final ItemQueryService itemQueryService;
+    private final ItemBulkUpdateService itemBulkUpdateService;
+
+    /**
+     * 상품 카탈로그 검색 (키셋 페이징)
+     * - /api/items?type=BOOK&minPrice=10000&maxPrice=30000&inStock=true&sort=PRICE_ASC&size=20
+     * - 다음 페이지 : 응답의 lastId, lastPrice를 그대로 넘긴다. 가격 정렬에서 하나만 넘기면 400
+     * - type을 지정하면 해당 종류 전용 컬럼(author, isbn 등)까지 내려준다.
+     */
+    @GetMapping("/api/items")
+    public ItemCatalogPage items(ItemCatalogSearch search,
+                                 @RequestParam(value = "size", defaultValue = "20") int size) {
+        if (search.hasPartialCursor()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "가격 정렬 커서는 lastId, lastPrice 를 같이 넘겨야 합니다.");
+        }
+        return itemQueryService.searchCatalog(search, Math.min(Math.max(size, 1), 100));
+    }
+
+    /**
+     * 상품 가격/재고 일괄 변경
+     * - [{"itemId":1,"price":12000}, {"itemId":2,"stockDelta":-3}, {"itemId":3,"stockQuantity":100}]
+     * - chunkSize 건씩 JDBC batch UPDATE, 응답으로 변경/없음/재고부족 건수를 내려준다.
+     */
+    @PostMapping("/api/items/bulk-update")
+    public ItemBulkUpdateResult bulkUpdate(@RequestBody List<ItemBulkUpdate> updates,
+                                           @RequestParam(value = "chunkSize", defaultValue = "1000") int chunkSize) {
+        return itemBulkUpdateService.update(updates, Math.min(chunkSize, 5000));
+    }
+}
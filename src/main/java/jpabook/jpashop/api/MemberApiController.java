@@ -1,13 +1,27 @@
 package jpabook.jpashop.api;
 
 import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.search.MemberNameIndex;
+import jpabook.jpashop.search.MemberNameMatch;
+import jpabook.jpashop.service.MemberImportFormat;
+import jpabook.jpashop.service.MemberImportResult;
+import jpabook.jpashop.service.MemberImportService;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.query.MemberListDto;
+import jpabook.jpashop.service.query.MemberOrderPage;
+import jpabook.jpashop.service.query.MemberQueryService;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -15,7 +29,13 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MemberApiController {
 
+    private static final int MAX_AUTOCOMPLETE = 100;
+
     private final MemberService memberService;
+    private final OrderQueryService orderQueryService;
+    private final MemberQueryService memberQueryService;
+    private final MemberImportService memberImportService;
+    private final MemberNameIndex memberNameIndex;
 
     @GetMapping("/api/v1/members")
     public List<Member> membersV1() {
@@ -24,7 +44,7 @@ public class MemberApiController {
 
     @GetMapping("/api/v2/members")
     public Result memberV2() {
-        List<Member> findMembers = memberService.findMembers();
+        List<MemberListDto> findMembers = memberQueryService.findMemberList();
         List<MemberDto> collect = findMembers.stream()
                     .map(m -> new MemberDto(m.getName()))
                     .collect(Collectors.toList());
@@ -32,6 +52,34 @@ public class MemberApiController {
         return new Result(collect.size(), collect);
     }
 
+    /**
+     * 회원 이름 자동완성 - prefix 로 시작하는 회원을 이름순으로 limit 개 (메모리 인덱스, DB 조회 없음)
+     */
+    @GetMapping("/api/members/autocomplete")
+    public List<MemberNameMatch> autocomplete(@RequestParam("prefix") String prefix,
+                                              @RequestParam(value = "limit", defaultValue = "10") int limit) {
+        return memberNameIndex.search(prefix, Math.min(limit, MAX_AUTOCOMPLETE));
+    }
+
+    /**
+     * 회원 주문 이력 (키셋 페이징)
+     * - 첫 페이지 : /api/members/{id}/orders?size=20
+     * - 다음 페이지 : 응답의 lastOrderDate, lastOrderId를 그대로 넘긴다.
+     * - withCount=true 면 미리 집계된 회원 주문 수를 같이 내려준다.
+     * - includeArchive=true 면 아카이브된 오래된 주문까지 조회한다.
+     */
+    @GetMapping("/api/members/{id}/orders")
+    public MemberOrderPage memberOrders(@PathVariable("id") Long id,
+                                        @RequestParam(value = "lastOrderDate", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime lastOrderDate,
+                                        @RequestParam(value = "lastOrderId", required = false) Long lastOrderId,
+                                        @RequestParam(value = "size", defaultValue = "20") int size,
+                                        @RequestParam(value = "withCount", defaultValue = "false") boolean withCount,
+                                        @RequestParam(value = "includeArchive", defaultValue = "false") boolean includeArchive) {
+        return orderQueryService.findMemberOrders(id, lastOrderDate, lastOrderId, Math.min(Math.max(size, 1), 100),
+                withCount, includeArchive);
+    }
+
     @Data
     @AllArgsConstructor
     static class Result<T> {
@@ -61,6 +109,19 @@ public class MemberApiController {
         return new CreateMemberResponse(id);
     }
 
+    /**
+     * 회원 대량 등록 (스트리밍)
+     * - Content-Type : text/csv (헤더 name,city,street,zipcode) 또는 application/x-ndjson
+     * - 본문을 한 줄씩 읽으면서 chunkSize 건마다 중복 검사(IN 쿼리) + JDBC batch insert 한다.
+     * - 응답 : 전체/등록/오류 건수와 줄 번호별 오류 (최대 1000건)
+     */
+    @PostMapping(value = "/api/members/import", consumes = {"text/csv", "application/x-ndjson"})
+    public MemberImportResult importMembers(InputStream body,
+                                            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                            @RequestParam(value = "chunkSize", defaultValue = "1000") int chunkSize) throws IOException {
+        return memberImportService.importMembers(body, MemberImportFormat.of(contentType), chunkSize);
+    }
+
     @PutMapping("/api/v2/members/{id}")
     public UpdateMemberResponse updateMemberV2(@PathVariable("id") Long id,
                                                @RequestBody @Valid UpdateMemberRequest request) {
@@ -4,22 +4,29 @@ import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
 import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.report.OrderReportService;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.repository.order.query.OrderFlatDto;
 import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderJdbcQueryRepository;
 import jpabook.jpashop.repository.order.query.OrderQueryDto;
 import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.service.OrderLine;
+import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.FetchPlan;
+import jpabook.jpashop.service.query.OrderQueryService;
+import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.function.Function;
 
 import static java.util.stream.Collectors.*;
 
@@ -79,6 +86,12 @@ import static java.util.stream.Collectors.*;
  *      - 페이징이 필요 없으면 -> 폐치 조인 사용
  *  2. 엔티티 조회 방식으로 해결이 안되면 DTO조회 방식 사용
  *  3. DTO조회 방식으로 해결이 안되면 NativeSQL or JdbcTemplate 사용
+ *
+ *  9. JdbcTemplate 직접 조회 (v7)
+ *   - 쿼리 1번(v6와 같은 조인) + order_id 정렬, RowCallbackHandler로 row를 읽는 즉시 DTO로 묶는다.
+ *   - 컬럼 인덱스로 매핑하고 영속성 컨텍스트, 생성자 표현식, groupingBy 중복 제거를 거치지 않는다.
+ *   - fetch size를 키워서 드라이버 왕복 횟수를 줄인다.
+ *   - SQL이 테이블/컬럼 이름에 직접 묶이므로 스키마가 바뀌면 같이 고쳐야 한다.
  *  - 'hibernate.default_batch_fetch_size', @BatchSize
  *      - 설명 :
  */
@@ -86,39 +99,34 @@ import static java.util.stream.Collectors.*;
 @RequiredArgsConstructor
 public class OrderApiController {
 
-    private final OrderRepository orderRepository;
+    private final OrderQueryService orderQueryService;
     private final OrderQueryRepository orderQueryRepository;
-
+    private final OrderReportService orderReportService;
+    private final OrderJdbcQueryRepository orderJdbcQueryRepository;
+    private final OrderService orderService;
+
+    /**
+     * 엔티티 목록 조회(v1 ~ v3.1) 응답에 쓰는 연관관계 : 회원, 배송, 주문상품 + 상품
+     */
+    private static final FetchPlan<Order> ORDER_WITH_ITEMS = FetchPlan.of(Order.class, "member", "delivery", "orderItems.item");
+
+    /*
+     * 엔티티 목록 조회(v1 ~ v3.1)는 OrderQueryService 가 읽기 전용으로 조회한다. (스냅샷/flush 없음)
+     * ORDER_WITH_ITEMS 초기화와 DTO 변환까지 서비스의 readOnly 트랜잭션 안에서 하므로 OSIV 를 꺼도 된다.
+     */
     @GetMapping("/api/v1/orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
-        for (Order order : all) {
-            order.getMember().getName();
-            order.getDelivery().getAddress();
-            List<OrderItem> orderItems = order.getOrderItems();
-            for (OrderItem orderItem : orderItems) {
-                orderItem.getItem().getName();
-            }
-        }
-        return all;
+        return orderQueryService.findOrders(ORDER_WITH_ITEMS, Function.identity());
     }
 
     @GetMapping("/api/v2/orders")
     public List<OrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-        List<OrderDto> collect = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return collect;
+        return orderQueryService.findOrders(ORDER_WITH_ITEMS, OrderDto::new);
     }
 
     @GetMapping("/api/v3/orders")
     public List<OrderDto> ordersV3() {
-        List<Order> orders = orderRepository.findAllWithItem();
-        List<OrderDto> result = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-        return result;
+        return orderQueryService.findOrdersWithItem(ORDER_WITH_ITEMS, OrderDto::new);
     }
 
     @GetMapping("/api/v3.1/orders")
@@ -126,13 +134,7 @@ public class OrderApiController {
             @RequestParam(value = "offset", defaultValue = "0") int offset,
             @RequestParam(value = "limit", defaultValue = "100") int limit) {
 
-        List<Order> orders = orderRepository.findAllWithMemberDelivery(offset, limit);
-
-        List<OrderDto> result = orders.stream()
-                .map(o -> new OrderDto(o))
-                .collect(toList());
-
-        return result;
+        return orderQueryService.findOrdersWithMemberDelivery(offset, limit, ORDER_WITH_ITEMS, OrderDto::new);
     }
 
     @GetMapping("/api/v4/orders")
@@ -145,22 +147,65 @@ public class OrderApiController {
         return orderQueryRepository.findAllByDto_optimization();
     }
 
+    /**
+     * flat 행은 주문 id 순으로 오므로 LinkedHashMap 으로 묶어서 순서를 유지한다.
+     */
     @GetMapping("/api/v6/orders")
     public List<OrderQueryDto> ordersV6() {
         List<OrderFlatDto> flats =  orderQueryRepository.findAllByDto_flat();
 
         return flats.stream()
-                .collect(groupingBy(o -> new OrderQueryDto(o.getOrderId(),
-                                o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress()),
-                        mapping(o -> new OrderItemQueryDto(o.getOrderId(),
-                                o.getItemName(), o.getOrderPrice(), o.getCount()), toList())
-                )).entrySet().stream()
-                .map(e -> new OrderQueryDto(e.getKey().getOrderId(),
-                        e.getKey().getName(), e.getKey().getOrderDate(), e.getKey().getOrderStatus(),
-                        e.getKey().getAddress(), e.getValue()))
+                .collect(groupingBy(OrderFlatDto::getOrderId, LinkedHashMap::new, toList()))
+                .values().stream()
+                .map(rows -> {
+                    OrderFlatDto o = rows.get(0);
+                    return new OrderQueryDto(o.getOrderId(), o.getName(), o.getOrderDate(), o.getOrderStatus(), o.getAddress(),
+                            rows.stream()
+                                    .map(r -> new OrderItemQueryDto(r.getOrderId(), r.getItemName(), r.getOrderPrice(), r.getCount()))
+                                    .collect(toList()));
+                })
                 .collect(toList());
     }
 
+    /**
+     * v6 와 같은 flat 조회지만 주문 수가 많아도 힙에 전부 올리지 않는다. (NDJSON, 주문 id 순)
+     * - 그룹핑 메모리 상한을 넘으면 임시 파일로 내려서 합친다. (OrderReportService)
+     */
+    @GetMapping(value = "/api/v6/orders/export", produces = "application/x-ndjson")
+    public StreamingResponseBody ordersV6Export() {
+        return orderReportService::exportOrders;
+    }
+
+    /**
+     * includeArchive=true 면 아카이브된 오래된 주문까지 조회한다.
+     */
+    @GetMapping("/api/v7/orders")
+    public List<OrderQueryDto> ordersV7(OrderSearch orderSearch,
+                                        @RequestParam(value = "includeArchive", defaultValue = "false") boolean includeArchive) {
+        return orderJdbcQueryRepository.findOrders(orderSearch, includeArchive);
+    }
+
+    /**
+     * 여러 상품 주문 - 트랜잭션 한번에 주문 1건(주문상품 N개)을 만든다.
+     */
+    @PostMapping("/api/orders")
+    public CreateOrderResponse createOrder(@RequestBody CreateOrderRequest request) {
+        Long orderId = orderService.order(request.getMemberId(), request.getLines());
+        return new CreateOrderResponse(orderId);
+    }
+
+    @Data
+    static class CreateOrderRequest {
+        private Long memberId;
+        private List<OrderLine> lines;
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class CreateOrderResponse {
+        private Long orderId;
+    }
+
     @Data
     static class OrderDto {
 
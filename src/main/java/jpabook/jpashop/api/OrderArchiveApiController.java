@@ -0,0 +1,26 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.batch.JobResult;
+import jpabook.jpashop.batch.OrderArchiveJob;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequiredArgsConstructor
+public class OrderArchiveApiController {
+
+    private final OrderArchiveJob orderArchiveJob;
+
+    /**
+     * 주문 아카이브 배치 실행 (비동기), jpashop.archive.min-age 보다 오래된 취소/배송완료 주문을 옮긴다.
+     */
+    @PostMapping("/api/orders/archive-job")
+    public JobResult launchArchiveJob() {
+        return orderArchiveJob.status(orderArchiveJob.launch());
+    }
+
+    @GetMapping("/api/orders/archive-job/{jobName}")
+    public JobResult archiveJobStatus(@PathVariable("jobName") String jobName) {
+        return orderArchiveJob.status(jobName);
+    }
+}
@@ -0,0 +1,45 @@
+package jpabook.jpashop.api;
+
+import jpabook.jpashop.analytics.OrderFactLoader;
+import jpabook.jpashop.analytics.OrderFactQuery;
+import jpabook.jpashop.analytics.OrderFactStore;
+import jpabook.jpashop.analytics.OrderFactSummary;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * 주문 팩트 집계 (jpashop.order-facts.enabled=true 일 때만)
+ * 예) 최근 1시간 상품 X 상태별 판매 수량 : GET /api/analytics/order-facts?itemId=X&lastMinutes=60
+ */
+@RestController
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "jpashop.order-facts", name = "enabled", havingValue = "true")
+public class OrderFactApiController {
+
+    private final OrderFactStore orderFactStore;
+    private final OrderFactLoader orderFactLoader;
+
+    @GetMapping("/api/analytics/order-facts")
+    public OrderFactSummary aggregate(OrderFactQuery query) {
+        return orderFactStore.aggregate(query);
+    }
+
+    /**
+     * DB 에서 다시 채운다. (끝날 때까지 이벤트 반영은 기다린다)
+     */
+    @PostMapping("/api/analytics/order-facts/rebuild")
+    public RebuildResponse rebuild() {
+        return new RebuildResponse(orderFactLoader.rebuild());
+    }
+
+    @Data
+    @AllArgsConstructor
+    static class RebuildResponse {
+        private long rows;
+    }
+}
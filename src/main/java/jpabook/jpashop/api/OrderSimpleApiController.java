@@ -3,18 +3,23 @@ package jpabook.jpashop.api;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
-import jpabook.jpashop.repository.OrderRepository;
-import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.event.OrderFeed;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
 import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.query.FetchPlan;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.time.LocalDateTime;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.function.Function;
 
 /**
  * Order 조회
@@ -53,17 +58,26 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class OrderSimpleApiController {
 
-    private final OrderRepository orderRepository;
+    private final OrderQueryService orderQueryService;
     private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderFeed orderFeed;
 
+    /**
+     * v1 은 엔티티를 그대로 내보내므로 응답에 나가는 연관관계를 모두 초기화한다.
+     */
+    private static final FetchPlan<Order> ORDER_ENTITY = FetchPlan.of(Order.class, "member", "delivery", "orderItems");
+
+    /**
+     * SimpleOrderDto : 회원명, 회원 주소
+     */
+    private static final FetchPlan<Order> SIMPLE_ORDER = FetchPlan.of(Order.class, "member");
+
+    /*
+     * 엔티티 목록 조회(v1 ~ v3)는 OrderQueryService 가 읽기 전용으로 조회하고, 조회 계획 초기화와 변환까지 서비스의 readOnly 트랜잭션 안에서 끝낸다. (스냅샷/flush 없음)
+     */
     @GetMapping("/api/v1/simple-orders")
     public List<Order> ordersV1() {
-        List<Order> all = orderRepository.findAllByString(new OrderSearch());
-        for (Order order : all) {
-            order.getMember().getName();
-            order.getOrderItems().get(0).getOrderPrice();
-        }
-        return all;
+        return orderQueryService.findOrders(ORDER_ENTITY, Function.identity());
     }
 
     /*
@@ -76,25 +90,34 @@ public class OrderSimpleApiController {
      */
     @GetMapping("/api/v2/simple-orders")
     public List<SimpleOrderDto> ordersV2() {
-        List<Order> orders = orderRepository.findAllByString(new OrderSearch());
-        return orders.stream()
-                .map(o -> new SimpleOrderDto(o))
-                .collect(Collectors.toList());
+        return orderQueryService.findOrders(SIMPLE_ORDER, SimpleOrderDto::new);
     }
 
     @GetMapping("/api/v3/simple-orders")
     public List<SimpleOrderDto> orderV3() {
-        List<Order> orders = orderRepository.findAllWithMemberDelivery();
-        List<SimpleOrderDto> result = orders.stream()
-                                        .map(o -> new SimpleOrderDto(o))
-                                        .collect(Collectors.toList());
-
-        return result;
+        return orderQueryService.findOrdersWithMemberDelivery(SIMPLE_ORDER, SimpleOrderDto::new);
     }
 
+    /*
+     * limit 을 주면 최근 주문부터 페이지로 조회한다. (샤딩이면 샤드마다 offset + limit 개를 읽어서 합친다)
+     */
     @GetMapping("/api/v4/simple-orders")
-    public List<OrderSimpleQueryDto> orderV4() {
-       return orderSimpleQueryRepository.findOrderDtos();
+    public List<OrderSimpleQueryDto> orderV4(@RequestParam(value = "offset", defaultValue = "0") int offset,
+                                             @RequestParam(value = "limit", required = false) Integer limit) {
+        if (limit == null) {
+            return orderSimpleQueryRepository.findOrderDtos();
+        }
+        return orderSimpleQueryRepository.findOrderDtos(offset, limit);
+    }
+
+    /*
+     * 주문 실시간 피드 (SSE) - v4 목록을 주기적으로 다시 받는 대신, 처음 한번 목록을 받고 이후 변경분만 받는다.
+     * event: placed / cancelled, data: OrderSimpleQueryDto
+     * 재접속 시 Last-Event-ID 다음부터 보내주고, 이어 받을 수 없으면 reset 이벤트를 보낸다. (목록을 다시 조회)
+     */
+    @GetMapping(value = "/api/simple-orders/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter orderFeed(@RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return orderFeed.subscribe(lastEventId);
     }
 
 
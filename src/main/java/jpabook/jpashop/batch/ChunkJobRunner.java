@@ -0,0 +1,167 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.domain.JobCheckpoint;
+import jpabook.jpashop.repository.JobCheckpointRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 청크 단위 배치 실행기
+ *
+ * 1. 파티션
+ *  - 처음 실행할 때 id 범위를 concurrency 개로 나눠서 파티션별 체크포인트를 저장한다.
+ *  - 파티션마다 스레드 하나가 자기 범위만 처리한다. (범위가 겹치지 않으니 락 경합이 없다)
+ *
+ * 2. 청크 커밋
+ *  - 청크 하나 = 트랜잭션 하나 (read -> process -> write -> 체크포인트 갱신)
+ *  - 트랜잭션이 짧아서 긴 락이나 커넥션 점유가 없고, 영속성 컨텍스트도 청크마다 새로 만들어진다.
+ *
+ * 3. 재시작
+ *  - 같은 jobName으로 다시 실행하면 저장된 파티션과 마지막 처리 id부터 이어서 처리한다.
+ *  - 체크포인트가 쓰기와 같은 트랜잭션에서 커밋되므로 청크가 두번 반영되지 않는다.
+ *  - 같은 jobName은 한번에 하나만 실행된다. (동시에 파티션 체크포인트를 만들면 PK가 충돌한다)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ChunkJobRunner {
+
+    private final PlatformTransactionManager transactionManager;
+    private final JobCheckpointRepository checkpointRepository;
+
+    private final Set<String> runningJobs = ConcurrentHashMap.newKeySet();
+
+    public JobResult run(String jobName, IdChunkStep step, int chunkSize, int concurrency) {
+        if (chunkSize < 1 || concurrency < 1) {
+            throw new IllegalArgumentException("chunkSize, concurrency는 1 이상이어야 합니다.");
+        }
+        if (!runningJobs.add(jobName)) {
+            throw new IllegalStateException("이미 실행 중인 job입니다. jobName=" + jobName);
+        }
+        try {
+            return execute(jobName, step, chunkSize, concurrency);
+        } finally {
+            runningJobs.remove(jobName);
+        }
+    }
+
+    private JobResult execute(String jobName, IdChunkStep step, int chunkSize, int concurrency) {
+        List<JobCheckpoint> partitions = preparePartitions(jobName, step, concurrency);
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, partitions.size()));
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (JobCheckpoint partition : partitions) {
+                if (partition.isCompleted()) {
+                    continue;
+                }
+                String checkpointId = partition.getId();
+                futures.add(executor.submit(() -> runPartition(checkpointId, step, chunkSize)));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("배치가 중단되었습니다. jobName=" + jobName, e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("배치 실행 실패. jobName=" + jobName, e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        return status(jobName);
+    }
+
+    public JobResult status(String jobName) {
+        return newTransaction().execute(s -> new JobResult(jobName, checkpointRepository.findByJobName(jobName)));
+    }
+
+    private List<JobCheckpoint> preparePartitions(String jobName, IdChunkStep step, int concurrency) {
+        return newTransaction().execute(s -> {
+            List<JobCheckpoint> saved = checkpointRepository.findByJobName(jobName);
+            if (!saved.isEmpty()) {
+                log.info("resume job={} partitions={}", jobName, saved.size());
+                return saved;
+            }
+
+            long[] range = step.idRange();
+            List<JobCheckpoint> partitions = new ArrayList<>();
+            if (range == null) {
+                return partitions;
+            }
+
+            long min = range[0];
+            long max = range[1];
+            long width = (max - min) / concurrency + 1;
+            for (int i = 0; i < concurrency; i++) {
+                long from = min + width * i;
+                if (from > max) {
+                    break;
+                }
+                long to = Math.min(max, from + width - 1);
+                JobCheckpoint checkpoint = JobCheckpoint.create(jobName, i, from, to);
+                checkpointRepository.save(checkpoint);
+                partitions.add(checkpoint);
+            }
+            log.info("start job={} range=[{}, {}] partitions={}", jobName, min, max, partitions.size());
+            return partitions;
+        });
+    }
+
+    private void runPartition(String checkpointId, IdChunkStep step, int chunkSize) {
+        TransactionTemplate chunkTransaction = newTransaction();
+        boolean hasNext = true;
+        while (hasNext) {
+            hasNext = chunkTransaction.execute(s -> {
+                JobCheckpoint checkpoint = checkpointRepository.findOne(checkpointId);
+                if (checkpoint.isCompleted()) {
+                    return false;
+                }
+
+                List<Long> ids = step.read(checkpoint.getLastProcessedId(), checkpoint.getRangeTo(), chunkSize);
+                if (ids.isEmpty()) {
+                    checkpoint.complete();
+                    return false;
+                }
+
+                List<Long> targets = step.process(ids);
+                int written = step.write(targets);
+
+                checkpoint.advance(ids.get(ids.size() - 1), ids.size(), written);
+                return true;
+            });
+            if (hasNext && step.pauseMillis() > 0) {
+                pause(step.pauseMillis());
+            }
+        }
+    }
+
+    private void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("배치가 중단되었습니다.", e);
+        }
+    }
+
+    private TransactionTemplate newTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionManager);
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return template;
+    }
+}
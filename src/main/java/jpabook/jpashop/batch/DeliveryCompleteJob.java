@@ -0,0 +1,109 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.DeliveryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 배송 완료 처리 배치 (READY -> COMP)
+ * - 입력 : 택배사가 완료를 보고한 배송 id (report()로 delivery_completion 에 쌓인다)
+ * - reader : 완료 보고된 READY 배송 id를 id 순서로 커서 조회
+ * - processor : 취소된 주문의 배송은 제외
+ * - writer : 벌크 update (Order 그래프를 로딩하지 않는다)
+ * 파티션 스레드마다 커넥션을 하나씩 쓰므로 concurrency 는 커넥션 풀 크기보다 작아야 한다.
+ * (체크포인트 조회와 다른 요청이 쓸 커넥션 하나를 남긴다)
+ */
+@Slf4j
+@Component
+public class DeliveryCompleteJob {
+
+    private final DeliveryRepository deliveryRepository;
+    private final ChunkJobRunner chunkJobRunner;
+    private final int maxConcurrency;
+
+    private final ExecutorService launcher = Executors.newSingleThreadExecutor();
+
+    public DeliveryCompleteJob(DeliveryRepository deliveryRepository, ChunkJobRunner chunkJobRunner,
+                               @Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize) {
+        this.deliveryRepository = deliveryRepository;
+        this.chunkJobRunner = chunkJobRunner;
+        this.maxConcurrency = Math.max(1, poolSize - 1);
+    }
+
+    /**
+     * 택배사 배송 완료 보고, 다음 배치 실행에서 반영된다.
+     */
+    @Transactional
+    public void report(List<Long> deliveryIds) {
+        deliveryRepository.saveCompletions(deliveryIds, LocalDateTime.now());
+    }
+
+    public JobResult run(String jobName, int chunkSize, int concurrency) {
+        checkConcurrency(concurrency);
+        return chunkJobRunner.run(jobName, new DeliveryCompleteStep(), chunkSize, concurrency);
+    }
+
+    /**
+     * 백그라운드 실행, 진행상황은 status()로 확인
+     * 잘못된 concurrency 는 백그라운드로 넘기기 전에 바로 거절한다.
+     */
+    public void launch(String jobName, int chunkSize, int concurrency) {
+        checkConcurrency(concurrency);
+        launcher.submit(() -> {
+            try {
+                JobResult result = run(jobName, chunkSize, concurrency);
+                log.info("job={} read={} write={}", jobName, result.getReadCount(), result.getWriteCount());
+            } catch (RuntimeException e) {
+                log.error("job={} failed, 같은 jobName으로 다시 실행하면 이어서 처리합니다.", jobName, e);
+            }
+        });
+    }
+
+    public JobResult status(String jobName) {
+        return chunkJobRunner.status(jobName);
+    }
+
+    private void checkConcurrency(int concurrency) {
+        if (concurrency < 1 || concurrency > maxConcurrency) {
+            throw new IllegalArgumentException("concurrency는 1 ~ " + maxConcurrency + " (커넥션 풀 크기 - 1) 이어야 합니다. concurrency=" + concurrency);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        launcher.shutdownNow();
+    }
+
+    private class DeliveryCompleteStep implements IdChunkStep {
+
+        @Override
+        public long[] idRange() {
+            return deliveryRepository.findCompletedIdRange();
+        }
+
+        @Override
+        public List<Long> read(long afterId, long toId, int size) {
+            return deliveryRepository.findCompletedReadyIds(afterId, toId, size);
+        }
+
+        @Override
+        public List<Long> process(List<Long> ids) {
+            return deliveryRepository.filterIdsByOrderStatus(ids, OrderStatus.ORDER);
+        }
+
+        @Override
+        public int write(List<Long> ids) {
+            return deliveryRepository.updateStatus(ids, DeliveryStatus.COMP);
+        }
+    }
+}
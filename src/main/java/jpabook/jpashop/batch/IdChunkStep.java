@@ -0,0 +1,31 @@
+package jpabook.jpashop.batch;
+
+import java.util.List;
+
+/**
+ * id 커서 기반 청크 처리 단계
+ * - read : afterId 다음부터 toId까지 오름차순 id를 최대 size개 조회 (커서 리더)
+ * - process : 처리 대상만 걸러낸다. 기본은 전부 통과
+ * - write : 걸러진 id를 한번에 반영 (배치 라이터), 반영된 row 수 반환
+ * 세 단계는 청크마다 하나의 트랜잭션 안에서 체크포인트 갱신과 함께 실행된다.
+ * - pauseMillis : 청크(트랜잭션) 사이에 쉬는 시간, 운영 트래픽과 같이 돌 때 부하를 제한한다.
+ */
+public interface IdChunkStep {
+
+    /**
+     * 처리 대상 전체 id 범위 [min, max], 대상이 없으면 null
+     */
+    long[] idRange();
+
+    List<Long> read(long afterId, long toId, int size);
+
+    default List<Long> process(List<Long> ids) {
+        return ids;
+    }
+
+    int write(List<Long> ids);
+
+    default long pauseMillis() {
+        return 0;
+    }
+}
@@ -0,0 +1,27 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.domain.JobCheckpoint;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class JobResult {
+
+    private String jobName;
+    private int partitions;
+    private long readCount;
+    private long writeCount;
+    private boolean completed;
+
+    public JobResult(String jobName, List<JobCheckpoint> checkpoints) {
+        this.jobName = jobName;
+        this.partitions = checkpoints.size();
+        this.completed = true;
+        for (JobCheckpoint checkpoint : checkpoints) {
+            this.readCount += checkpoint.getReadCount();
+            this.writeCount += checkpoint.getWriteCount();
+            this.completed &= checkpoint.isCompleted();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.repository.OrderArchiveRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 주문 아카이브 배치 (hot -> cold)
+ * - reader : minAge 보다 오래된 취소/배송완료 주문 id를 id 순서로 커서 조회
+ * - writer : 주문, 주문상품, 배송을 *_archive 테이블로 복사 후 삭제
+ * - 한 파티션(스레드 하나)으로 청크 사이에 pause 만큼 쉬면서 천천히 옮긴다.
+ * - jpashop.archive.enabled=true 면 interval 마다 백그라운드로 실행된다.
+ *   (SmartLifecycle 이라 지연 생성 모드에서도 기동 시점에 시작된다)
+ */
+@Slf4j
+@Component
+@EnableConfigurationProperties(OrderArchiveProperties.class)
+@RequiredArgsConstructor
+public class OrderArchiveJob implements SmartLifecycle {
+
+    private static final DateTimeFormatter JOB_NAME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+    private final OrderArchiveRepository orderArchiveRepository;
+    private final ChunkJobRunner chunkJobRunner;
+    private final OrderArchiveProperties properties;
+
+    private final AtomicInteger runCount = new AtomicInteger();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "order-archive");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private volatile boolean running;
+
+    @Override
+    public void start() {
+        running = true;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        long interval = properties.getInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                run(LocalDateTime.now().minus(properties.getMinAge()));
+            } catch (RuntimeException e) {
+                log.error("주문 아카이브 실패, 다음 주기에 다시 실행합니다.", e);
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * cutoff 이전 주문을 옮긴다. 실행마다 새 jobName을 쓴다. (옮긴 주문은 hot 테이블에 없으니 처음부터 다시 읽어도 된다)
+     */
+    public JobResult run(LocalDateTime cutoff) {
+        return run(newJobName(), cutoff);
+    }
+
+    private JobResult run(String jobName, LocalDateTime cutoff) {
+        JobResult result = chunkJobRunner.run(jobName, new OrderArchiveStep(cutoff), properties.getChunkSize(), 1);
+        log.info("job={} cutoff={} read={} moved={}", jobName, cutoff, result.getReadCount(), result.getWriteCount());
+        return result;
+    }
+
+    /**
+     * 백그라운드 실행 (기본 minAge 기준), 진행상황은 status(jobName)로 확인
+     */
+    public String launch() {
+        String jobName = newJobName();
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMinAge());
+        scheduler.submit(() -> {
+            try {
+                run(jobName, cutoff);
+            } catch (RuntimeException e) {
+                log.error("job={} failed", jobName, e);
+            }
+        });
+        return jobName;
+    }
+
+    public JobResult status(String jobName) {
+        return chunkJobRunner.status(jobName);
+    }
+
+    private String newJobName() {
+        return "order-archive-" + LocalDateTime.now().format(JOB_NAME_FORMAT) + "-" + runCount.incrementAndGet();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        scheduler.shutdownNow();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private class OrderArchiveStep implements IdChunkStep {
+
+        private final LocalDateTime cutoff;
+
+        OrderArchiveStep(LocalDateTime cutoff) {
+            this.cutoff = cutoff;
+        }
+
+        @Override
+        public long[] idRange() {
+            return orderArchiveRepository.findIdRange();
+        }
+
+        @Override
+        public List<Long> read(long afterId, long toId, int size) {
+            return orderArchiveRepository.findArchivableIds(cutoff, afterId, toId, size);
+        }
+
+        @Override
+        public int write(List<Long> ids) {
+            return orderArchiveRepository.moveToArchive(ids);
+        }
+
+        @Override
+        public long pauseMillis() {
+            return properties.getPause().toMillis();
+        }
+    }
+}
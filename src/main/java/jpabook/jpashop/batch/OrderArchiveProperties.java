@@ -0,0 +1,34 @@
+package jpabook.jpashop.batch;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * jpashop.archive.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.archive")
+public class OrderArchiveProperties {
+
+    /**
+     * 주기 실행 여부 (false 면 API로만 실행)
+     */
+    private boolean enabled;
+
+    /**
+     * 주문일로부터 이 기간이 지난 취소/배송완료 주문을 옮긴다.
+     */
+    private Duration minAge = Duration.ofDays(90);
+
+    private Duration interval = Duration.ofHours(1);
+
+    private int chunkSize = 500;
+
+    /**
+     * 청크 사이에 쉬는 시간 (운영 트래픽 보호)
+     */
+    private Duration pause = Duration.ofMillis(200);
+}
@@ -0,0 +1,18 @@
+package jpabook.jpashop.coalescing;
+
+import java.lang.annotation.*;
+
+/**
+ * 동일 조회 합치기 (single-flight)
+ * - 같은 메소드 + 같은 인자로 동시에 들어온 호출은 DB 조회 한번의 결과를 나눠 받는다.
+ * - 결과는 모든 호출자가 공유하므로 DTO(조회 전용)만 반환해야 한다. 엔티티는 조회한 스레드의
+ *   영속성 컨텍스트에 묶여 있어서 공유할 수 없다. (List 결과는 수정 불가 뷰로 감싸서 돌려준다)
+ * - setter 가 있는 DTO 는 Copyable 을 구현한다. (호출자마다 복사본을 받는다)
+ * - 트랜잭션 안에서 호출하면 합치지 않고 그대로 실행한다.
+ * - 인자는 equals/hashCode 가 값 기준이어야 한다.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface Coalesced {
+}
@@ -0,0 +1,129 @@
+package jpabook.jpashop.coalescing;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.persistence.Entity;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * @Coalesced 메소드 호출 합치기
+ * - 트랜잭션/지표 aspect 보다 바깥에서 감싸므로 합류한 호출은 트랜잭션과 커넥션을 쓰지 않는다.
+ * - 호출한 쪽 트랜잭션 안이면 합치지 않는다. (다른 트랜잭션의 결과로는 자기 트랜잭션에서 쓴 내용을 볼 수 없다)
+ * - Copyable 결과는 호출자마다 복사본을 돌려준다.
+ *
+ * 지표 : jpashop.coalesced.calls (method, role=leader|follower)
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class CoalescingAspect {
+
+    static final String CALLS = "jpashop.coalesced.calls";
+
+    private final SingleFlight singleFlight = new SingleFlight();
+    private final MeterRegistry registry;
+
+    @Around("@annotation(jpabook.jpashop.coalescing.Coalesced)")
+    public Object coalesce(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        Key key = new Key(joinPoint.getSignature().toLongString(), Arrays.asList(joinPoint.getArgs()));
+
+        Object shared = singleFlight.execute(key,
+                () -> share(joinPoint.proceed()),
+                role -> counter(method, role).increment());
+        return copyForCaller(shared);
+    }
+
+    /**
+     * 공유되는 결과는 수정할 수 없게 만든다.
+     */
+    private Object share(Object result) {
+        if (result instanceof Collection) {
+            checkNotEntity((Collection<?>) result);
+        } else {
+            checkNotEntity(result);
+        }
+        if (result instanceof List) {
+            return Collections.unmodifiableList((List<?>) result);
+        }
+        return result;
+    }
+
+    /**
+     * 공유된 결과 중 Copyable 은 호출자 것으로 복사한다.
+     */
+    private Object copyForCaller(Object shared) {
+        if (shared instanceof List && !((List<?>) shared).isEmpty() && ((List<?>) shared).get(0) instanceof Copyable) {
+            List<Object> copies = new ArrayList<>(((List<?>) shared).size());
+            for (Object element : (List<?>) shared) {
+                copies.add(((Copyable<?>) element).copy());
+            }
+            return Collections.unmodifiableList(copies);
+        }
+        if (shared instanceof Copyable) {
+            return ((Copyable<?>) shared).copy();
+        }
+        return shared;
+    }
+
+    private void checkNotEntity(Collection<?> results) {
+        if (!results.isEmpty()) {
+            checkNotEntity(results.iterator().next());
+        }
+    }
+
+    private void checkNotEntity(Object result) {
+        if (result != null && result.getClass().isAnnotationPresent(Entity.class)) {
+            throw new IllegalStateException("@Coalesced 메소드는 엔티티를 반환할 수 없습니다. DTO로 조회하세요. " + result.getClass());
+        }
+    }
+
+    private Counter counter(String method, SingleFlight.Role role) {
+        return Counter.builder(CALLS)
+                .tag("method", method)
+                .tag("role", role.name().toLowerCase())
+                .register(registry);
+    }
+
+    private static final class Key {
+        private final String method;
+        private final List<Object> args;
+
+        Key(String method, List<Object> args) {
+            this.method = method;
+            this.args = args;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return method.equals(key.method) && args.equals(key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(method, args);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package jpabook.jpashop.coalescing;
+
+/**
+ * 수정할 수 있는 DTO 를 @Coalesced 결과(또는 List 원소)로 돌려줄 때 구현한다.
+ * 합쳐진 호출자마다 copy() 한 값을 받으므로 한 호출자가 고쳐도 다른 호출자에게 보이지 않는다.
+ */
+public interface Copyable<T> {
+
+    T copy();
+}
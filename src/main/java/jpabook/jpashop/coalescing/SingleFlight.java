@@ -0,0 +1,132 @@
+package jpabook.jpashop.coalescing;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+/**
+ * 키별로 한번에 하나의 조회만 실행한다.
+ *
+ * - 실행중인 조회가 없으면 바로 실행한다. (버스트 첫 요청)
+ * - 실행중인 조회가 있으면 다음 조회(pending)에 합류한다. 다음 조회는 현재 조회가 끝나면 한번만 실행되고
+ *   합류한 호출자 모두 그 결과를 받는다.
+ * - 이미 실행중인 조회 결과는 나중에 온 호출자에게 주지 않는다. 모든 호출자는 자기가 호출한 이후에 시작된
+ *   조회 결과만 받으므로 TTL 캐시와 달리 오래된 데이터를 보지 않는다. (쓰기 후 바로 조회해도 반영된다)
+ * - 조회가 끝나면 결과를 버린다. (캐시 아님)
+ */
+public class SingleFlight {
+
+    public interface Call {
+        Object call() throws Throwable;
+    }
+
+    public enum Role {
+        LEADER,   // 조회를 직접 실행
+        FOLLOWER  // 다른 호출자의 조회 결과를 받음
+    }
+
+    private final Map<Object, KeyState> states = new HashMap<>(); // this 로 동기화
+
+    public Object execute(Object key, Call call) throws Throwable {
+        return execute(key, call, null);
+    }
+
+    /**
+     * @param roleListener 호출자의 역할 (지표용, null 가능)
+     */
+    public Object execute(Object key, Call call, Consumer<Role> roleListener) throws Throwable {
+        Flight flight;
+        Flight previous = null;
+        boolean leader;
+        synchronized (this) {
+            KeyState state = states.computeIfAbsent(key, k -> new KeyState());
+            if (state.running == null) {
+                flight = state.running = new Flight();
+                leader = true;
+            } else if (state.pending == null) {
+                flight = state.pending = new Flight();
+                previous = state.running;
+                leader = true;
+            } else {
+                flight = state.pending;
+                leader = false;
+            }
+        }
+        if (roleListener != null) {
+            roleListener.accept(leader ? Role.LEADER : Role.FOLLOWER);
+        }
+
+        if (!leader) {
+            return flight.await();
+        }
+        try {
+            // 기다리다 중단되어도 아래 catch/finally 로 합류한 호출자에게 알리고 키를 정리한다.
+            if (previous != null) {
+                previous.awaitDone();
+            }
+            Object result = call.call();
+            flight.result.complete(result);
+            return result;
+        } catch (Throwable e) {
+            flight.result.completeExceptionally(e);
+            throw e;
+        } finally {
+            finish(key, flight);
+        }
+    }
+
+    /**
+     * 끝난 조회를 내리고, 기다리던 다음 조회를 실행중으로 올린다.
+     * (올리는 순간부터 새로 온 호출자는 그 다음 조회에 합류한다)
+     * 다음 조회가 시작 전에 끝났으면(대기 중 중단) 대기 자리만 비운다.
+     */
+    private synchronized void finish(Object key, Flight flight) {
+        KeyState state = states.get(key);
+        if (state == null) {
+            return;
+        }
+        if (state.pending == flight) {
+            state.pending = null;
+            return;
+        }
+        if (state.running != flight) {
+            return;
+        }
+        state.running = state.pending;
+        state.pending = null;
+        if (state.running == null) {
+            states.remove(key);
+        }
+    }
+
+    synchronized int inFlight() {
+        return states.size();
+    }
+
+    private static class KeyState {
+        Flight running;
+        Flight pending;
+    }
+
+    private static class Flight {
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Object await() throws Throwable {
+            try {
+                return result.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+
+        void awaitDone() throws InterruptedException {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                // 이전 조회의 실패는 다음 조회와 무관하다.
+            }
+        }
+    }
+}
@@ -1,8 +1,9 @@
 package jpabook.jpashop.controller;
 
 import jpabook.jpashop.domain.item.Book;
-import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.query.ItemListDto;
+import jpabook.jpashop.service.query.ItemQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -18,6 +19,7 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemQueryService itemQueryService;
 
     @GetMapping("/items/new")
     public String createForm(Model model) {
@@ -41,7 +43,7 @@ public class ItemController {
 
     @GetMapping("/items")
     public String list(Model model) {
-        List<Item> items = itemService.findItems();
+        List<ItemListDto> items = itemQueryService.findItemList();
         model.addAttribute("items", items);
         return "items/itemList";
     }
@@ -3,6 +3,7 @@ package jpabook.jpashop.controller;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.query.MemberQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -18,6 +19,7 @@ import java.util.List;
 public class MemberController {
 
     private final MemberService memberService;
+    private final MemberQueryService memberQueryService;
 
     @GetMapping("/members/new")
     public String createForm(Model model) {
@@ -44,7 +46,7 @@ public class MemberController {
 
     @GetMapping("members")
     public String list(Model model) {
-        model.addAttribute("members",  memberService.findMembers());
+        model.addAttribute("members",  memberQueryService.findMemberList());
 
         return "members/memberList";
     }
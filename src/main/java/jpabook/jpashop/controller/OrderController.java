@@ -1,12 +1,13 @@
 package jpabook.jpashop.controller;
 
-import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.item.Item;
 import jpabook.jpashop.repository.OrderSearch;
 import jpabook.jpashop.service.ItemService;
-import jpabook.jpashop.service.MemberService;
 import jpabook.jpashop.service.OrderService;
+import jpabook.jpashop.service.query.FetchPlan;
+import jpabook.jpashop.service.query.OrderListDto;
+import jpabook.jpashop.service.query.OrderQueryService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -19,15 +20,21 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService orderService;
-    private final MemberService memberService;
     private final ItemService itemService;
+    private final OrderQueryService orderQueryService;
 
+    /**
+     * 주문 목록 화면 : 회원명, 대표상품(첫번째 주문상품 + 상품명)
+     */
+    private static final FetchPlan<Order> ORDER_LIST = FetchPlan.of(Order.class, "member", "orderItems.item");
+
+    /*
+     * 회원은 전체 목록 대신 이름 자동완성(/api/members/autocomplete)으로 고른다.
+     */
     @GetMapping("/order")
     public String createForm(Model model) {
-        List<Member> members = memberService.findMembers();
         List<Item> items = itemService.findItems();
 
-        model.addAttribute("members", members);
         model.addAttribute("items", items);
 
         return "order/orderForm";
@@ -41,14 +48,14 @@ public class OrderController {
         return "redirect:/orders";
     }
 
+    /*
+     * 화면에 필요한 값(ORDER_LIST)은 OrderQueryService가 트랜잭션 안에서 초기화하고 DTO로 만들어서 넘긴다.
+     * (OSIV를 꺼도 뷰 렌더링 중에 지연로딩이 일어나지 않는다)
+     */
     @GetMapping("/orders")
     public String orderList(@ModelAttribute("orderSearch") OrderSearch orderSearch, Model model) {
-        List<Order> orders = orderService.findOrders(orderSearch);
+        List<OrderListDto> orders = orderQueryService.findOrderList(orderSearch, ORDER_LIST);
         model.addAttribute("orders", orders);
-
-        for(Order order : orders) {
-            System.out.println(order.getOrderItems().size());
-        }
         return "order/orderList";
     }
 
@@ -0,0 +1,78 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.metrics.HikariMetricsTrackerPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 읽기/쓰기 분리 (jpashop.datasource.routing.enabled=true 일 때만)
+ *
+ * routingDataSource(@Primary) = LazyConnectionDataSourceProxy -> ReplicationRoutingDataSource -> primary / replica-N
+ * primary는 spring.datasource 설정, replica는 jpashop.datasource.routing.replicas 설정을 사용한다.
+ */
+@Configuration
+@EnableConfigurationProperties(ReplicationProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    public ReplicationDataSources replicationDataSources(DataSourceProperties dataSourceProperties,
+                                                         ReplicationProperties properties,
+                                                         HikariMetricsTrackerPostProcessor metricsTracker) {
+        HikariDataSource primary = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primary.setPoolName("primary");
+        metricsTracker.postProcessAfterInitialization(primary, "primary");
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < properties.getReplicas().size(); i++) {
+            HikariDataSource replica = createReplica(properties.getReplicas().get(i), i);
+            metricsTracker.postProcessAfterInitialization(replica, replica.getPoolName());
+            replicas.add(replica);
+        }
+        return new ReplicationDataSources(primary, replicas);
+    }
+
+    @Bean
+    public ReplicationLagGuard replicationLagGuard(ReplicationProperties properties) {
+        return new ReplicationLagGuard(properties.getStickyWindow());
+    }
+
+    @Bean
+    @Primary
+    public DataSource routingDataSource(ReplicationDataSources replicationDataSources, ReplicationProperties properties,
+                                        ReplicationLagGuard replicationLagGuard) {
+        ReplicationRoutingDataSource routing = new ReplicationRoutingDataSource(replicationDataSources,
+                properties.getSelection(), replicationLagGuard);
+        routing.afterPropertiesSet();
+
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(routing);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+
+    private HikariDataSource createReplica(ReplicationProperties.Replica replica, int index) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("replica-" + index);
+        pool.setJdbcUrl(replica.getUrl());
+        pool.setUsername(replica.getUsername());
+        pool.setPassword(replica.getPassword());
+        if (replica.getDriverClassName() != null) {
+            pool.setDriverClassName(replica.getDriverClassName());
+        }
+        pool.setMaximumPoolSize(replica.getMaximumPoolSize());
+        pool.setReadOnly(true);
+        return pool;
+    }
+}
@@ -0,0 +1,35 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+/**
+ * 라우팅 대상 물리 커넥션 풀 (primary 1개 + replica N개)
+ * DataSource 빈으로 등록하면 DataSource 초기화/데코레이터 후처리가 라우팅 빈과 순환참조를 만들기 때문에
+ * 풀은 이 홀더에만 두고 JPA에는 routingDataSource 하나만 노출한다.
+ */
+public class ReplicationDataSources implements AutoCloseable {
+
+    private final HikariDataSource primary;
+    private final List<HikariDataSource> replicas;
+
+    public ReplicationDataSources(HikariDataSource primary, List<HikariDataSource> replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    public HikariDataSource getPrimary() {
+        return primary;
+    }
+
+    public List<HikariDataSource> getReplicas() {
+        return replicas;
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
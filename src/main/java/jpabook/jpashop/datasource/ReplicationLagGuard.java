@@ -0,0 +1,68 @@
+package jpabook.jpashop.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import javax.servlet.http.HttpSession;
+import java.time.Duration;
+
+/**
+ * 쓰기 직후 읽기 보호 (read-your-writes)
+ * - 쓰기 트랜잭션이 커밋되면 시각을 기록하고, stickyWindow 안의 읽기는 primary로 보낸다.
+ * - 기록 위치 : HttpSession(이미 있을 때만, 새로 만들지 않는다) -> 현재 요청 -> 현재 스레드
+ */
+public class ReplicationLagGuard {
+
+    static final String LAST_WRITE_ATTRIBUTE = ReplicationLagGuard.class.getName() + ".LAST_WRITE";
+
+    private final ThreadLocal<Long> threadLastWrite = new ThreadLocal<>();
+    private final long stickyNanos;
+
+    public ReplicationLagGuard(Duration stickyWindow) {
+        this.stickyNanos = stickyWindow.toNanos();
+    }
+
+    public void markWrite() {
+        long now = System.nanoTime();
+        threadLastWrite.set(now);
+
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return;
+        }
+        attributes.setAttribute(LAST_WRITE_ATTRIBUTE, now, RequestAttributes.SCOPE_REQUEST);
+        HttpSession session = attributes.getRequest().getSession(false);
+        if (session != null) {
+            session.setAttribute(LAST_WRITE_ATTRIBUTE, now);
+        }
+    }
+
+    public boolean recentlyWritten() {
+        if (stickyNanos <= 0) {
+            return false;
+        }
+        return isRecent(lastWrite());
+    }
+
+    private Long lastWrite() {
+        ServletRequestAttributes attributes = currentRequest();
+        if (attributes == null) {
+            return threadLastWrite.get();
+        }
+        HttpSession session = attributes.getRequest().getSession(false);
+        if (session != null && session.getAttribute(LAST_WRITE_ATTRIBUTE) != null) {
+            return (Long) session.getAttribute(LAST_WRITE_ATTRIBUTE);
+        }
+        return (Long) attributes.getAttribute(LAST_WRITE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    private boolean isRecent(Long lastWrite) {
+        return lastWrite != null && System.nanoTime() - lastWrite < stickyNanos;
+    }
+
+    private ServletRequestAttributes currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes ? (ServletRequestAttributes) attributes : null;
+    }
+}
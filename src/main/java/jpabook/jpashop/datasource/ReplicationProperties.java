@@ -0,0 +1,42 @@
+package jpabook.jpashop.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * jpashop.datasource.routing.*
+ * primary는 기존 spring.datasource 설정을 그대로 사용한다.
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.datasource.routing")
+public class ReplicationProperties {
+
+    private boolean enabled;
+
+    private ReplicaSelection selection = ReplicaSelection.ROUND_ROBIN;
+
+    /**
+     * 쓰기 커밋 이후 이 시간 동안은 같은 세션(요청)의 읽기도 primary로 보낸다. (복제 지연 대비)
+     */
+    private Duration stickyWindow = Duration.ofSeconds(2);
+
+    private List<Replica> replicas = new ArrayList<>();
+
+    public enum ReplicaSelection {
+        ROUND_ROBIN, LEAST_BUSY
+    }
+
+    @Getter @Setter
+    public static class Replica {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
@@ -0,0 +1,106 @@
+package jpabook.jpashop.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jpabook.jpashop.datasource.ReplicationProperties.ReplicaSelection;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * readOnly 트랜잭션은 replica, 나머지는 primary로 보낸다.
+ *
+ * - readOnly 여부는 트랜잭션 시작 후에 설정되므로 LazyConnectionDataSourceProxy로 감싸서
+ *   첫 SQL을 실행하는 시점에 커넥션을 고르게 한다.
+ * - 트랜잭션 밖(OSIV 지연로딩 등)이나 쓰기 직후의 읽기는 primary를 사용한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final Object WRITE_SYNCHRONIZATION_KEY = new Object();
+
+    private final List<String> replicaKeys;
+    private final List<HikariDataSource> replicaPools;
+    private final ReplicaSelection selection;
+    private final ReplicationLagGuard lagGuard;
+    private final AtomicInteger sequence = new AtomicInteger();
+
+    public ReplicationRoutingDataSource(ReplicationDataSources dataSources,
+                                        ReplicaSelection selection, ReplicationLagGuard lagGuard) {
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, dataSources.getPrimary());
+        this.replicaKeys = new ArrayList<>();
+        for (int i = 0; i < dataSources.getReplicas().size(); i++) {
+            String key = "replica-" + i;
+            targets.put(key, dataSources.getReplicas().get(i));
+            replicaKeys.add(key);
+        }
+        this.replicaPools = dataSources.getReplicas();
+        this.selection = selection;
+        this.lagGuard = lagGuard;
+
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(dataSources.getPrimary());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return PRIMARY;
+        }
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            registerWriteSynchronization();
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || lagGuard.recentlyWritten()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(selectReplica());
+    }
+
+    private int selectReplica() {
+        if (selection == ReplicaSelection.LEAST_BUSY) {
+            int best = 0;
+            int bestActive = Integer.MAX_VALUE;
+            for (int i = 0; i < replicaPools.size(); i++) {
+                HikariPoolMXBean pool = replicaPools.get(i).getHikariPoolMXBean();
+                int active = pool == null ? 0 : pool.getActiveConnections() + pool.getThreadsAwaitingConnection();
+                if (active < bestActive) {
+                    best = i;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+        return Math.floorMod(sequence.getAndIncrement(), replicaKeys.size());
+    }
+
+    /**
+     * 쓰기 트랜잭션이 커밋되면 lag guard에 기록 (트랜잭션당 한번)
+     */
+    private void registerWriteSynchronization() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(WRITE_SYNCHRONIZATION_KEY)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(WRITE_SYNCHRONIZATION_KEY, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                lagGuard.markWrite();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(WRITE_SYNCHRONIZATION_KEY);
+            }
+        });
+    }
+}
@@ -0,0 +1,72 @@
+package jpabook.jpashop.domain;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * 청크 배치 체크포인트
+ * - 파티션(id 범위) 하나당 한 row, 청크 커밋과 같은 트랜잭션에서 갱신된다.
+ * - 재시작하면 lastProcessedId 다음부터 이어서 처리한다.
+ */
+@Entity
+@Table(name = "job_checkpoint")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class JobCheckpoint {
+
+    @Id
+    @Column(name = "checkpoint_id")
+    private String id; // jobName#partition
+
+    private String jobName;
+    private int partitionNo;
+
+    private long rangeFrom; // 시작 id (포함)
+    private long rangeTo;   // 끝 id (포함)
+    private long lastProcessedId;
+
+    private long readCount;
+    private long writeCount;
+    private boolean completed;
+
+    private LocalDateTime updatedAt;
+
+    // 생성 메소드
+    public static JobCheckpoint create(String jobName, int partitionNo, long rangeFrom, long rangeTo) {
+        JobCheckpoint checkpoint = new JobCheckpoint();
+        checkpoint.id = jobName + "#" + partitionNo;
+        checkpoint.jobName = jobName;
+        checkpoint.partitionNo = partitionNo;
+        checkpoint.rangeFrom = rangeFrom;
+        checkpoint.rangeTo = rangeTo;
+        checkpoint.lastProcessedId = rangeFrom - 1;
+        checkpoint.updatedAt = LocalDateTime.now();
+        return checkpoint;
+    }
+
+    // 비지니스 로직
+    /**
+     * 청크 하나 처리 완료
+     */
+    public void advance(long lastProcessedId, int readCount, int writeCount) {
+        this.lastProcessedId = lastProcessedId;
+        this.readCount += readCount;
+        this.writeCount += writeCount;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    /**
+     * 파티션 처리 완료
+     */
+    public void complete() {
+        this.completed = true;
+        this.updatedAt = LocalDateTime.now();
+    }
+}
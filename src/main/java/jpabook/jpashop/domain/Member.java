@@ -23,6 +23,11 @@ public class Member {
     @Embedded
     private Address address;
 
+    // 주문 수 (MemberRepository.increaseOrderCount로만 증가)
+    // 엔티티 update 에서 빼야 회원 수정의 변경감지가 그 사이 커밋된 증가분을 옛 값으로 덮어쓰지 않는다.
+    @Column(updatable = false)
+    private int orderCount;
+
     @JsonIgnore
     @OneToMany(mappedBy = "member")
     private List<Order> orders = new ArrayList<>();
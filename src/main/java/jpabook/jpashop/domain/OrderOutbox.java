@@ -0,0 +1,43 @@
+package jpabook.jpashop.domain;
+
+import jpabook.jpashop.event.OrderEventType;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 주문 이벤트 아웃박스
+ * - 주문/취소와 같은 트랜잭션에서 저장되고, 모든 이벤트 소비자가 처리하면 삭제된다.
+ * - 남아 있는 row는 재시작할 때 다시 발행된다.
+ */
+@Entity
+@Table(name = "order_outbox")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class OrderOutbox {
+
+    @Id @GeneratedValue
+    @Column(name = "outbox_id")
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private OrderEventType eventType;
+
+    private Long orderId;
+    private Long memberId;
+
+    private LocalDateTime createdAt;
+
+    // 생성 메소드
+    public static OrderOutbox create(OrderEventType eventType, Long orderId, Long memberId) {
+        OrderOutbox outbox = new OrderOutbox();
+        outbox.eventType = eventType;
+        outbox.orderId = orderId;
+        outbox.memberId = memberId;
+        outbox.createdAt = LocalDateTime.now();
+        return outbox;
+    }
+}
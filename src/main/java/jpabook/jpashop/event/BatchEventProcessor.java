@@ -0,0 +1,83 @@
+package jpabook.jpashop.event;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 소비자 스레드 하나 - 발행된 이벤트를 쌓인 만큼 한번에 꺼내서 handler 에 넘긴다.
+ * dependencies 가 있으면 그 소비자들이 처리한 이벤트까지만 읽는다. (아웃박스 정리는 모든 소비자 뒤에 실행)
+ */
+@Slf4j
+class BatchEventProcessor implements Runnable {
+
+    private final String name;
+    private final OrderEventRingBuffer ringBuffer;
+    private final OrderEventHandler handler;
+    private final List<BatchEventProcessor> dependencies;
+    private final AtomicLong sequence = new AtomicLong(-1);
+
+    private volatile boolean running = true;
+
+    BatchEventProcessor(String name, OrderEventRingBuffer ringBuffer, OrderEventHandler handler,
+                        List<BatchEventProcessor> dependencies) {
+        this.name = name;
+        this.ringBuffer = ringBuffer;
+        this.handler = handler;
+        this.dependencies = dependencies;
+    }
+
+    @Override
+    public void run() {
+        WaitStrategy.Waiter waiter = ringBuffer.getWaiter();
+        long next = sequence.get() + 1;
+        while (running) {
+            long available;
+            try {
+                long from = next;
+                available = waiter.waitFor(next, () -> available(from));
+            } catch (InterruptedException e) {
+                if (!running) {
+                    break;
+                }
+                continue;
+            }
+
+            for (long current = next; current <= available; current++) {
+                OrderEvent event = ringBuffer.get(current);
+                try {
+                    handler.onEvent(event, current, current == available);
+                } catch (Exception e) {
+                    // 아웃박스 row 를 남겨서 재시작할 때 다시 발행되게 한다.
+                    event.markFailed();
+                    log.error("주문 이벤트 처리 실패. consumer={}, event={}", name, event, e);
+                }
+            }
+            sequence.set(available);
+            next = available + 1;
+            // 뒤에 있는 소비자, 버퍼가 가득 차서 기다리는 발행자에게 알린다.
+            waiter.signalAll();
+        }
+    }
+
+    private long available(long from) {
+        long upTo = ringBuffer.getCursor();
+        for (BatchEventProcessor dependency : dependencies) {
+            upTo = Math.min(upTo, dependency.getSequence().get());
+        }
+        return ringBuffer.highestPublished(from, upTo);
+    }
+
+    void halt() {
+        running = false;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    AtomicLong getSequence() {
+        return sequence;
+    }
+}
@@ -0,0 +1,36 @@
+package jpabook.jpashop.event;
+
+import lombok.Getter;
+
+/**
+ * 링 버퍼 슬롯 - 미리 만들어 두고 재사용한다.
+ * 핸들러가 반환된 뒤에는 다른 이벤트로 덮어써지므로 값을 보관하려면 복사해야 한다.
+ */
+@Getter
+public class OrderEvent {
+
+    private OrderEventType type;
+    private long orderId;
+    private long memberId;
+    private long outboxId;
+    private long occurredAt; // epoch millis
+    private boolean failed; // 처리에 실패한 소비자가 있으면 true, 소비자 sequence 로 아웃박스 정리 스레드에 전달된다.
+
+    void set(OrderEventType type, long orderId, long memberId, long outboxId, long occurredAt) {
+        this.type = type;
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.outboxId = outboxId;
+        this.occurredAt = occurredAt;
+        this.failed = false;
+    }
+
+    public void markFailed() {
+        this.failed = true;
+    }
+
+    @Override
+    public String toString() {
+        return "OrderEvent{" + type + ", orderId=" + orderId + ", outboxId=" + outboxId + "}";
+    }
+}
@@ -0,0 +1,147 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.OrderOutbox;
+import jpabook.jpashop.repository.OrderOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 이벤트 버스 (프로세스 내부)
+ *
+ * 1. 주문 트랜잭션 : 아웃박스 row 를 같이 저장한다. (insert 한번)
+ * 2. 커밋 후 : 링 버퍼에 발행한다. 슬롯 확보 + 값 복사뿐이라 주문 스레드에는 수 us 만 추가된다.
+ *    롤백되면 아웃박스 row도, 이벤트도 없다.
+ * 3. 소비 : OrderEventHandler 빈마다 전용 스레드에서 배치로 꺼내서 처리한다.
+ *    모든 소비자가 처리에 성공한 이벤트는 아웃박스에서 삭제된다. (하나라도 실패하면 row 를 남긴다)
+ * 4. 재시작 : 커밋 후 발행 전에 죽었거나 소비/삭제가 끝나지 않았거나 처리에 실패한 row 를 시작할 때 다시 발행한다. (at-least-once)
+ */
+@Slf4j
+public class OrderEventBus implements SmartLifecycle {
+
+    private final OrderEventProperties properties;
+    private final OrderEventRingBuffer ringBuffer;
+    private final OrderOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<BatchEventProcessor> processors = new ArrayList<>();
+    private final List<Thread> threads = new ArrayList<>();
+    private final BatchEventProcessor acknowledger;
+
+    private volatile boolean running;
+
+    public OrderEventBus(OrderEventProperties properties, List<OrderEventHandler> handlers,
+                         OrderOutboxRepository outboxRepository, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.ringBuffer = new OrderEventRingBuffer(properties.getBufferSize(), properties.getWaitStrategy());
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+
+        for (OrderEventHandler handler : handlers) {
+            processors.add(new BatchEventProcessor(handler.getClass().getSimpleName(), ringBuffer, handler,
+                    Collections.emptyList()));
+        }
+        acknowledger = new BatchEventProcessor("OutboxAcknowledger", ringBuffer,
+                new OutboxAcknowledger(outboxRepository, transactionManager), new ArrayList<>(processors));
+        processors.add(acknowledger);
+        ringBuffer.setGatingSequence(acknowledger.getSequence());
+    }
+
+    /**
+     * 주문 트랜잭션 안에서 호출한다. 아웃박스를 저장하고 커밋되면 발행한다.
+     */
+    public void publishAfterCommit(OrderEventType type, Long orderId, Long memberId) {
+        OrderOutbox outbox = OrderOutbox.create(type, orderId, memberId);
+        outboxRepository.save(outbox);
+
+        long outboxId = outbox.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            ringBuffer.publish(type, orderId, memberId, outboxId);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ringBuffer.publish(type, orderId, memberId, outboxId);
+            }
+        });
+    }
+
+    /**
+     * 아웃박스에 남아 있는 이벤트를 다시 발행한다.
+     */
+    public int replayOutbox() {
+        int replayed = 0;
+        long afterId = 0;
+        while (true) {
+            long from = afterId;
+            List<OrderOutbox> rows = transactionTemplate.execute(
+                    s -> outboxRepository.findAfter(from, properties.getReplayBatchSize()));
+            for (OrderOutbox row : rows) {
+                ringBuffer.publish(row.getEventType(), row.getOrderId(), row.getMemberId(), row.getId());
+                afterId = row.getId();
+            }
+            replayed += rows.size();
+            if (rows.size() < properties.getReplayBatchSize()) {
+                return replayed;
+            }
+        }
+    }
+
+    @Override
+    public void start() {
+        for (BatchEventProcessor processor : processors) {
+            Thread thread = new Thread(processor, "order-event-" + processor.getName());
+            thread.setDaemon(true);
+            thread.start();
+            threads.add(thread);
+        }
+        running = true;
+
+        int replayed = replayOutbox();
+        if (replayed > 0) {
+            log.info("아웃박스 주문 이벤트 {}건을 다시 발행했습니다.", replayed);
+        }
+    }
+
+    /**
+     * 발행된 이벤트를 모두 처리할 때까지(최대 5초) 기다린 뒤 소비자를 멈춘다.
+     * 처리하지 못한 이벤트는 아웃박스에 남는다.
+     */
+    @Override
+    public void stop() {
+        running = false;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (acknowledger.getSequence().get() < ringBuffer.getCursor() && System.nanoTime() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        for (BatchEventProcessor processor : processors) {
+            processor.halt();
+        }
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+        threads.clear();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public OrderEventRingBuffer getRingBuffer() {
+        return ringBuffer;
+    }
+}
@@ -0,0 +1,21 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.repository.OrderOutboxRepository;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(OrderEventProperties.class)
+public class OrderEventConfig {
+
+    @Bean
+    public OrderEventBus orderEventBus(OrderEventProperties properties, List<OrderEventHandler> handlers,
+                                       OrderOutboxRepository outboxRepository,
+                                       PlatformTransactionManager transactionManager) {
+        return new OrderEventBus(properties, handlers, outboxRepository, transactionManager);
+    }
+}
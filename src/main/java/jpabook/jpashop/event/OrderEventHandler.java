@@ -0,0 +1,15 @@
+package jpabook.jpashop.event;
+
+/**
+ * 주문 이벤트 소비자 - 빈으로 등록하면 전용 스레드 하나에서 순서대로 호출된다.
+ *
+ * - 쌓여 있는 이벤트를 한번에 꺼내서 처리하고 마지막 이벤트에 endOfBatch=true 가 넘어온다.
+ *   (캐시 무효화, 색인처럼 모아서 처리할 작업은 endOfBatch 에서 한번에 반영한다)
+ * - 재시작 시 아웃박스 재발행으로 같은 이벤트가 다시 올 수 있으므로 멱등하게 처리해야 한다. (at-least-once)
+ * - 예외는 로그만 남기고 다음 이벤트로 넘어간다. 그 이벤트의 아웃박스 row는 지우지 않으므로 재시작할 때 다시 온다.
+ *   여러 이벤트를 모아서 반영하다 실패하면 모아 둔 이벤트를 전부 OrderEvent.markFailed() 해야 한다.
+ */
+public interface OrderEventHandler {
+
+    void onEvent(OrderEvent event, long sequence, boolean endOfBatch) throws Exception;
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 주문 이벤트 집계 (분석용 소비자)
+ *
+ * 지표
+ *  - jpashop.order.events : 이벤트 수 (type)
+ *  - jpashop.order.events.lag : 주문 커밋부터 소비까지 걸린 시간
+ *  - jpashop.order.events.batch : 한번에 꺼낸 이벤트 수
+ */
+@Component
+public class OrderEventMetricsHandler implements OrderEventHandler {
+
+    private final Map<OrderEventType, Counter> counters = new EnumMap<>(OrderEventType.class);
+    private final Timer lag;
+    private final DistributionSummary batchSize;
+    private int batch;
+
+    public OrderEventMetricsHandler(MeterRegistry registry) {
+        for (OrderEventType type : OrderEventType.values()) {
+            counters.put(type, Counter.builder("jpashop.order.events")
+                    .tag("type", type.name().toLowerCase())
+                    .register(registry));
+        }
+        this.lag = Timer.builder("jpashop.order.events.lag")
+                .publishPercentiles(0.5, 0.99)
+                .register(registry);
+        this.batchSize = DistributionSummary.builder("jpashop.order.events.batch")
+                .register(registry);
+    }
+
+    @Override
+    public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        counters.get(event.getType()).increment();
+        lag.record(Math.max(0, System.currentTimeMillis() - event.getOccurredAt()), TimeUnit.MILLISECONDS);
+        batch++;
+        if (endOfBatch) {
+            batchSize.record(batch);
+            batch = 0;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package jpabook.jpashop.event;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * jpashop.events.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.events")
+public class OrderEventProperties {
+
+    /**
+     * 링 버퍼 크기 (2의 제곱수). 가득 차면 주문 스레드가 소비를 기다린다.
+     */
+    private int bufferSize = 4096;
+
+    private WaitStrategy waitStrategy = WaitStrategy.BLOCKING;
+
+    /**
+     * 재시작 시 아웃박스를 몇 건씩 읽어서 다시 발행할지
+     */
+    private int replayBatchSize = 500;
+
+    private Feed feed = new Feed();
+
+    /**
+     * jpashop.events.feed.* - 주문 실시간 피드 (SSE)
+     */
+    @Getter @Setter
+    public static class Feed {
+
+        /**
+         * 재접속(Last-Event-ID) 시 다시 보내줄 최근 이벤트 수
+         */
+        private int replaySize = 1000;
+
+        /**
+         * 구독자별 미전송 이벤트 상한. 넘으면 그 구독자 연결을 끊는다.
+         */
+        private int subscriberQueueSize = 256;
+
+        private Duration heartbeat = Duration.ofSeconds(15);
+
+        /**
+         * 연결 유지 시간. 끝나면 클라이언트(EventSource)가 Last-Event-ID 로 다시 붙는다.
+         */
+        private Duration timeout = Duration.ofMinutes(30);
+
+        /**
+         * 구독자에게 실제로 쓰는 스레드 수
+         */
+        private int senderThreads = 4;
+    }
+}
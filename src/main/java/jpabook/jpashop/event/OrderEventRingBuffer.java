@@ -0,0 +1,107 @@
+package jpabook.jpashop.event;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 미리 할당된 링 버퍼 (다중 발행자)
+ *
+ * 1. 발행 : cursor 를 CAS 로 하나 증가시켜 슬롯을 확보 -> 슬롯에 값 기록 -> 슬롯의 발행 표시(회차) 기록
+ *    락도, 이벤트 객체 생성도 없다.
+ * 2. 소비 : 소비자는 자기 sequence 다음부터 연속으로 발행 표시된 곳까지 한번에 읽는다.
+ * 3. 가득 차면 : 마지막 소비자(gating)가 슬롯을 비울 때까지 발행자가 잠깐씩 쉬면서 기다린다. (back pressure)
+ */
+public class OrderEventRingBuffer {
+
+    private final OrderEvent[] entries;
+    private final int mask;
+    private final int indexShift;
+    private final AtomicIntegerArray published; // 슬롯별 발행된 회차 (sequence >>> indexShift)
+
+    private final AtomicLong cursor = new AtomicLong(-1); // 마지막으로 확보된 sequence
+    private final WaitStrategy.Waiter waiter;
+
+    private volatile AtomicLong gatingSequence = new AtomicLong(Long.MAX_VALUE);
+    private volatile long cachedGating = -1;
+
+    public OrderEventRingBuffer(int bufferSize, WaitStrategy waitStrategy) {
+        if (bufferSize < 1 || Integer.bitCount(bufferSize) != 1) {
+            throw new IllegalArgumentException("bufferSize는 2의 제곱수여야 합니다. bufferSize=" + bufferSize);
+        }
+        this.entries = new OrderEvent[bufferSize];
+        for (int i = 0; i < bufferSize; i++) {
+            entries[i] = new OrderEvent();
+        }
+        this.mask = bufferSize - 1;
+        this.indexShift = Integer.numberOfTrailingZeros(bufferSize);
+        this.published = new AtomicIntegerArray(bufferSize);
+        for (int i = 0; i < bufferSize; i++) {
+            published.set(i, -1);
+        }
+        this.waiter = waitStrategy.create();
+    }
+
+    public void publish(OrderEventType type, long orderId, long memberId, long outboxId) {
+        long sequence = cursor.incrementAndGet();
+        awaitCapacity(sequence);
+
+        entries[(int) sequence & mask].set(type, orderId, memberId, outboxId, System.currentTimeMillis());
+        published.set((int) sequence & mask, (int) (sequence >>> indexShift));
+        waiter.signalAll();
+    }
+
+    private void awaitCapacity(long sequence) {
+        long wrapPoint = sequence - entries.length;
+        if (wrapPoint <= cachedGating) {
+            return;
+        }
+        long gating;
+        while (wrapPoint > (gating = gatingSequence.get())) {
+            LockSupport.parkNanos(1_000);
+        }
+        cachedGating = gating;
+    }
+
+    /**
+     * from 부터 upTo 까지 중 연속으로 발행된 마지막 sequence (없으면 from - 1)
+     */
+    long highestPublished(long from, long upTo) {
+        for (long sequence = from; sequence <= upTo; sequence++) {
+            if (published.get((int) sequence & mask) != (int) (sequence >>> indexShift)) {
+                return sequence - 1;
+            }
+        }
+        return upTo;
+    }
+
+    OrderEvent get(long sequence) {
+        return entries[(int) sequence & mask];
+    }
+
+    long getCursor() {
+        return cursor.get();
+    }
+
+    public int getBufferSize() {
+        return entries.length;
+    }
+
+    /**
+     * 사용중인 슬롯 수 (발행됐지만 마지막 소비자가 아직 처리하지 않은 이벤트)
+     */
+    public long getBacklog() {
+        return Math.max(0, cursor.get() - gatingSequence.get());
+    }
+
+    WaitStrategy.Waiter getWaiter() {
+        return waiter;
+    }
+
+    /**
+     * 마지막 소비자 sequence - 이 소비자가 처리한 슬롯만 다시 쓴다.
+     */
+    void setGatingSequence(AtomicLong gatingSequence) {
+        this.gatingSequence = gatingSequence;
+    }
+}
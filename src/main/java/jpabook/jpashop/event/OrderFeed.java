@@ -0,0 +1,256 @@
+package jpabook.jpashop.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 주문 실시간 피드 (SSE)
+ *
+ * - 이벤트 id 는 "epoch:순번" 이다. epoch 는 프로세스가 뜰 때 정해지고 순번은 프로세스 안에서만 증가한다.
+ * - 최근 replaySize 건을 보관한다. Last-Event-ID 로 다시 붙으면 그 다음 이벤트부터 보내준다.
+ *   보관 범위를 벗어났거나 epoch 가 다르면(재시작 전, 다른 프로세스) reset 이벤트를 보낸다. (클라이언트는 목록을 한번 다시 조회)
+ * - 구독자마다 크기가 정해진 큐를 두고 sender 스레드가 비운다. 큐가 넘치는 느린 구독자는 연결을 끊는다. (무한정 쌓지 않는다)
+ * - heartbeat 주기마다 주석 한 줄을 보내서 끊긴 연결을 정리한다.
+ *
+ * 지표
+ *  - jpashop.order.feed.subscribers : 현재 구독자 수
+ *  - jpashop.order.feed.dropped : 큐가 넘쳐서 끊은 구독자 수
+ */
+@Slf4j
+@Component
+public class OrderFeed implements DisposableBean {
+
+    private static final OrderFeedEvent HEARTBEAT = new OrderFeedEvent(-1, null, null);
+    private static final OrderFeedEvent RESET = new OrderFeedEvent(-1, null, null);
+
+    private final OrderEventProperties.Feed properties;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ArrayDeque<OrderFeedEvent> replay = new ArrayDeque<>();
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final ExecutorService senders;
+    private final ScheduledExecutorService heartbeat;
+    private final Counter dropped;
+    private long lastId; // replay 와 같이 this 로 보호
+
+    public OrderFeed(OrderEventProperties properties, MeterRegistry registry) {
+        this.properties = properties.getFeed();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = Executors.newFixedThreadPool(this.properties.getSenderThreads(), r -> {
+            Thread thread = new Thread(r, "order-feed-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.heartbeat = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "order-feed-heartbeat");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = this.properties.getHeartbeat().toMillis();
+        heartbeat.scheduleAtFixedRate(this::sendHeartbeat, period, period, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("jpashop.order.feed.subscribers", subscribers, List::size).register(registry);
+        this.dropped = Counter.builder("jpashop.order.feed.dropped").register(registry);
+    }
+
+    public SseEmitter subscribe(String lastEventId) {
+        return subscribe(new SseEmitter(properties.getTimeout().toMillis()), lastEventId);
+    }
+
+    SseEmitter subscribe(SseEmitter emitter, String lastEventId) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        synchronized (this) {
+            if (lastEventId != null) {
+                Long lastSequence = sequenceOf(lastEventId);
+                List<OrderFeedEvent> missed = lastSequence == null ? null : missedSince(lastSequence);
+                if (missed == null || missed.size() > properties.getSubscriberQueueSize()) {
+                    subscriber.queue.offer(RESET);
+                } else {
+                    subscriber.queue.addAll(missed);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        subscriber.schedule();
+        return emitter;
+    }
+
+    /**
+     * 커밋된 주문 이벤트를 피드에 붙인다. (OrderFeedHandler 스레드 하나에서만 호출)
+     */
+    void append(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<OrderFeedEvent> events = new ArrayList<>(entries.size());
+        synchronized (this) {
+            for (Entry entry : entries) {
+                OrderFeedEvent event = new OrderFeedEvent(++lastId, entry.type, entry.order);
+                replay.addLast(event);
+                if (replay.size() > properties.getReplaySize()) {
+                    replay.removeFirst();
+                }
+                events.add(event);
+            }
+            // 구독 중 replay 를 읽는 것과 섞이지 않도록 같은 락 안에서 큐에 넣는다.
+            for (Subscriber subscriber : subscribers) {
+                for (OrderFeedEvent event : events) {
+                    if (!subscriber.queue.offer(event)) {
+                        drop(subscriber);
+                        break;
+                    }
+                }
+            }
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.schedule();
+        }
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    /**
+     * 이 프로세스가 발급한 이벤트 id 의 순번, 다른 epoch 이거나 형식이 다르면 null
+     */
+    private Long sequenceOf(String eventId) {
+        int separator = eventId.indexOf(':');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * lastEventId(순번) 다음 이벤트들, 이어서 보낼 수 없으면 null
+     */
+    private List<OrderFeedEvent> missedSince(long lastEventId) {
+        long firstId = replay.isEmpty() ? lastId + 1 : replay.getFirst().getId();
+        if (lastEventId > lastId || lastEventId < firstId - 1) {
+            return null;
+        }
+        List<OrderFeedEvent> missed = new ArrayList<>();
+        for (OrderFeedEvent event : replay) {
+            if (event.getId() > lastEventId) {
+                missed.add(event);
+            }
+        }
+        return missed;
+    }
+
+    private void sendHeartbeat() {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.queue.offer(HEARTBEAT)) {
+                subscriber.schedule();
+            } else {
+                drop(subscriber);
+            }
+        }
+    }
+
+    private void drop(Subscriber subscriber) {
+        if (subscribers.remove(subscriber)) {
+            dropped.increment();
+            log.info("주문 피드 구독자가 이벤트를 따라오지 못해 연결을 끊습니다. queue={}", subscriber.queue.size());
+            subscriber.queue.clear();
+            subscriber.emitter.complete();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        heartbeat.shutdownNow();
+        for (Subscriber subscriber : subscribers) {
+            subscriber.emitter.complete();
+        }
+        subscribers.clear();
+        senders.shutdownNow();
+    }
+
+    static class Entry {
+        final OrderEventType type;
+        final OrderSimpleQueryDto order;
+
+        Entry(OrderEventType type, OrderSimpleQueryDto order) {
+            this.type = type;
+            this.order = order;
+        }
+    }
+
+    /**
+     * 구독자 하나 - 큐에 쌓인 이벤트를 sender 스레드 하나가 순서대로 보낸다. (동시에 두 스레드가 보내지 않는다)
+     */
+    private class Subscriber implements Runnable {
+
+        final SseEmitter emitter;
+        final BlockingQueue<OrderFeedEvent> queue = new ArrayBlockingQueue<>(properties.getSubscriberQueueSize());
+        final AtomicBoolean scheduled = new AtomicBoolean();
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void schedule() {
+            if (!queue.isEmpty() && scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        @Override
+        public void run() {
+            try {
+                OrderFeedEvent event;
+                while ((event = queue.poll()) != null) {
+                    emitter.send(toSse(event));
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 클라이언트가 끊었거나 이미 완료된 연결
+                subscribers.remove(this);
+                queue.clear();
+            } finally {
+                scheduled.set(false);
+            }
+            // 보내는 사이에 들어온 이벤트
+            schedule();
+        }
+
+        private SseEmitter.SseEventBuilder toSse(OrderFeedEvent event) {
+            if (event == HEARTBEAT) {
+                return SseEmitter.event().comment("heartbeat");
+            }
+            if (event == RESET) {
+                return SseEmitter.event().name("reset").data("{}");
+            }
+            return SseEmitter.event()
+                    .id(epoch + ":" + event.getId())
+                    .name(event.getName())
+                    .data(event.getOrder());
+        }
+    }
+}
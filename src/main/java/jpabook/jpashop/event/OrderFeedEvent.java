@@ -0,0 +1,26 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import lombok.Getter;
+
+/**
+ * 주문 피드 이벤트 - SSE 로 나가는 단위 (id: epoch:피드 순번, event: placed/cancelled, data: OrderSimpleQueryDto)
+ * id(순번)는 프로세스 안에서만 증가하는 값이다. (재시작하면 처음부터, 그래서 SSE id 에 프로세스 epoch 를 붙인다)
+ */
+@Getter
+public class OrderFeedEvent {
+
+    private final long id;
+    private final OrderEventType type;
+    private final OrderSimpleQueryDto order;
+
+    OrderFeedEvent(long id, OrderEventType type, OrderSimpleQueryDto order) {
+        this.id = id;
+        this.type = type;
+        this.order = order;
+    }
+
+    public String getName() {
+        return type.name().toLowerCase();
+    }
+}
@@ -0,0 +1,64 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+
+/**
+ * 주문 이벤트 -> 주문 피드
+ * 배치로 모아서 주문 id IN 조회 한번으로 OrderSimpleQueryDto 를 만든다. (이벤트마다 조회하지 않는다)
+ * 이미 아카이브로 옮겨진 주문은 조회되지 않으므로 건너뛴다.
+ */
+@Component
+public class OrderFeedHandler implements OrderEventHandler {
+
+    private static final int MAX_BATCH = 500;
+
+    private final OrderSimpleQueryRepository orderSimpleQueryRepository;
+    private final OrderFeed orderFeed;
+    private final List<OrderEventType> types = new ArrayList<>();
+    private final List<Long> orderIds = new ArrayList<>();
+    private final List<OrderEvent> pending = new ArrayList<>();
+
+    public OrderFeedHandler(OrderSimpleQueryRepository orderSimpleQueryRepository, OrderFeed orderFeed) {
+        this.orderSimpleQueryRepository = orderSimpleQueryRepository;
+        this.orderFeed = orderFeed;
+    }
+
+    @Override
+    public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        types.add(event.getType());
+        orderIds.add(event.getOrderId());
+        pending.add(event);
+        if (endOfBatch || orderIds.size() >= MAX_BATCH) {
+            try {
+                flush();
+            } catch (RuntimeException e) {
+                // 앞서 모아 둔 이벤트도 반영되지 않았으므로 전부 아웃박스에 남긴다.
+                pending.forEach(OrderEvent::markFailed);
+                throw e;
+            } finally {
+                types.clear();
+                orderIds.clear();
+                pending.clear();
+            }
+        }
+    }
+
+    private void flush() {
+        Map<Long, OrderSimpleQueryDto> orders = new HashMap<>();
+        for (OrderSimpleQueryDto dto : orderSimpleQueryRepository.findOrderDtos(new HashSet<>(orderIds))) {
+            orders.put(dto.getOrderId(), dto);
+        }
+        List<OrderFeed.Entry> entries = new ArrayList<>(orderIds.size());
+        for (int i = 0; i < orderIds.size(); i++) {
+            OrderSimpleQueryDto order = orders.get(orderIds.get(i));
+            if (order != null) {
+                entries.add(new OrderFeed.Entry(types.get(i), order));
+            }
+        }
+        orderFeed.append(entries);
+    }
+}
@@ -0,0 +1,47 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.repository.OrderOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 마지막 소비자 - 모든 소비자가 처리한 이벤트의 아웃박스 row를 배치 단위로 삭제한다.
+ * 삭제 전에 죽으면 row가 남아서 재시작할 때 다시 발행된다.
+ * 처리에 실패한 소비자가 있는 이벤트는 삭제하지 않고 남겨서 재시작할 때 다시 발행한다.
+ */
+@Slf4j
+class OutboxAcknowledger implements OrderEventHandler {
+
+    private final OrderOutboxRepository outboxRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final List<Long> processed = new ArrayList<>();
+
+    OutboxAcknowledger(OrderOutboxRepository outboxRepository, PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+        if (event.isFailed()) {
+            log.warn("처리에 실패한 주문 이벤트는 아웃박스에 남긴다. event={}", event);
+        } else {
+            processed.add(event.getOutboxId());
+        }
+        if (endOfBatch) {
+            try {
+                transactionTemplate.execute(s -> outboxRepository.deleteByIds(processed));
+            } catch (RuntimeException e) {
+                log.warn("아웃박스 정리 실패, 재시작할 때 다시 발행된다. outboxIds={}", processed, e);
+            } finally {
+                processed.clear();
+            }
+        }
+    }
+}
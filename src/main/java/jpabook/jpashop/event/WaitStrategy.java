@@ -0,0 +1,133 @@
+package jpabook.jpashop.event;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * 소비자가 다음 이벤트를 기다리는 방법 (jpashop.events.wait-strategy)
+ *
+ * - BLOCKING : lock/condition 으로 잠든다. CPU를 쓰지 않지만 깨어나는 데 수십 us 가 걸린다. (기본값)
+ * - SLEEPING : 잠깐 스핀 후 parkNanos 로 쉰다. 발행 쪽은 신호를 보내지 않아서 가장 가볍다.
+ * - YIELDING : 스핀 후 Thread.yield(). 지연은 짧지만 코어를 계속 점유한다.
+ * - BUSY_SPIN : 계속 스핀한다. 소비자 수만큼 코어가 남을 때만 사용한다.
+ */
+public enum WaitStrategy {
+
+    BLOCKING {
+        @Override
+        Waiter create() {
+            return new BlockingWaiter();
+        }
+    },
+    SLEEPING {
+        @Override
+        Waiter create() {
+            return new SpinWaiter(200, false);
+        }
+    },
+    YIELDING {
+        @Override
+        Waiter create() {
+            return new SpinWaiter(100, true);
+        }
+    },
+    BUSY_SPIN {
+        @Override
+        Waiter create() {
+            return new SpinWaiter(Integer.MAX_VALUE, false);
+        }
+    };
+
+    abstract Waiter create();
+
+    interface Waiter {
+
+        /**
+         * available 이 sequence 이상이 될 때까지 기다리고 그 값을 돌려준다.
+         */
+        long waitFor(long sequence, LongSupplier available) throws InterruptedException;
+
+        /**
+         * 발행/진행 알림
+         */
+        void signalAll();
+    }
+
+    static class BlockingWaiter implements Waiter {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition progressed = lock.newCondition();
+        private volatile int waiters;
+
+        @Override
+        public long waitFor(long sequence, LongSupplier available) throws InterruptedException {
+            long current = available.getAsLong();
+            if (current >= sequence) {
+                return current;
+            }
+            lock.lock();
+            try {
+                waiters++;
+                while ((current = available.getAsLong()) < sequence) {
+                    // 신호를 놓치는 경우를 대비해 주기적으로 다시 확인한다.
+                    progressed.await(10, TimeUnit.MILLISECONDS);
+                }
+                return current;
+            } finally {
+                waiters--;
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void signalAll() {
+            // 기다리는 소비자가 없으면 락을 잡지 않는다. (발행 경로 비용)
+            if (waiters == 0) {
+                return;
+            }
+            lock.lock();
+            try {
+                progressed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    static class SpinWaiter implements Waiter {
+
+        private final int spinTries;
+        private final boolean yield;
+
+        SpinWaiter(int spinTries, boolean yield) {
+            this.spinTries = spinTries;
+            this.yield = yield;
+        }
+
+        @Override
+        public long waitFor(long sequence, LongSupplier available) throws InterruptedException {
+            long current;
+            int counter = 0;
+            while ((current = available.getAsLong()) < sequence) {
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+                if (counter < spinTries) {
+                    counter++;
+                } else if (yield) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(100_000);
+                }
+            }
+            return current;
+        }
+
+        @Override
+        public void signalAll() {
+        }
+    }
+}
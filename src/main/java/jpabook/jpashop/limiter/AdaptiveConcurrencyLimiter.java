@@ -0,0 +1,141 @@
+package jpabook.jpashop.limiter;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 지연 기반 동시 처리 한도 (gradient)
+ *
+ * - 요청이 끝날 때마다 응답 시간을 짧은 평균(최근)과 긴 평균(평소)으로 나눠 기록한다.
+ * - 최근 지연이 평소 지연 x tolerance 보다 커지면 그 비율만큼 한도를 줄이고(최대 절반), 아니면 sqrt(한도) 만큼 늘린다.
+ * - 과부하 신호(dropped : DB 타임아웃, 503)는 한도를 곱으로 줄인다. (AIMD 의 MD)
+ * - 한도의 절반도 쓰지 않는 동안에는 한도를 바꾸지 않는다. (여유가 있을 때 지연만 보고 늘어나지 않게)
+ *
+ * 한도를 넘는 요청은 기다리지 않고 바로 거절한다.
+ */
+public class AdaptiveConcurrencyLimiter implements MeterBinder {
+
+    static final String LIMIT = "jpashop.http.concurrency.limit";
+    static final String IN_FLIGHT = "jpashop.http.concurrency.in-flight";
+    static final String REJECTED = "jpashop.http.concurrency.rejected";
+
+    private static final double SHORT_WINDOW = 10;
+    private static final double LONG_WINDOW = 600;
+    private static final double DROP_BACKOFF = 0.9;
+
+    private final String group;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+    private volatile int limit;
+
+    // 아래는 this 로 보호
+    private double estimatedLimit;
+    private double shortRtt;
+    private double longRtt;
+    private boolean sampled;
+
+    public AdaptiveConcurrencyLimiter(String group, ConcurrencyLimitProperties.Group config) {
+        if (config.getMinLimit() < 1 || config.getMaxLimit() < config.getMinLimit()) {
+            throw new IllegalArgumentException("잘못된 동시 처리 한도 설정입니다. group=" + group);
+        }
+        this.group = group;
+        this.minLimit = config.getMinLimit();
+        this.maxLimit = config.getMaxLimit();
+        this.tolerance = config.getTolerance();
+        this.smoothing = config.getSmoothing();
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, config.getInitialLimit()));
+        this.limit = (int) estimatedLimit;
+    }
+
+    /**
+     * 한도 안이면 자리를 잡고 true, 넘으면 거절 수를 올리고 false
+     */
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * tryAcquire 가 true 였던 요청이 끝났을 때 한번
+     */
+    public void release(long rttNanos, boolean dropped) {
+        int inFlightBefore = inFlight.getAndDecrement();
+        onSample(rttNanos, inFlightBefore, dropped);
+    }
+
+    synchronized void onSample(long rttNanos, int inFlightBefore, boolean dropped) {
+        if (dropped) {
+            update(estimatedLimit * DROP_BACKOFF);
+            return;
+        }
+        if (!sampled) {
+            shortRtt = longRtt = rttNanos;
+            sampled = true;
+            return;
+        }
+        shortRtt += (rttNanos - shortRtt) / SHORT_WINDOW;
+        longRtt += (rttNanos - longRtt) / LONG_WINDOW;
+        // 지연이 회복되면 평소 지연도 빨리 따라 내려오게 한다. (늘어난 기준선 때문에 다음 과부하를 놓치지 않도록)
+        if (longRtt / shortRtt > 2) {
+            longRtt *= 0.95;
+        }
+        if (inFlightBefore < estimatedLimit / 2) {
+            return;
+        }
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+        double next = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        update(estimatedLimit * (1 - smoothing) + next * smoothing);
+    }
+
+    private void update(double next) {
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, next));
+        limit = (int) estimatedLimit;
+    }
+
+    public String getGroup() {
+        return group;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(LIMIT, this, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("group", group)
+                .register(registry);
+        Gauge.builder(IN_FLIGHT, this, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("group", group)
+                .register(registry);
+        FunctionCounter.builder(REJECTED, this, AdaptiveConcurrencyLimiter::getRejected)
+                .tag("group", group)
+                .register(registry);
+    }
+}
@@ -0,0 +1,40 @@
+package jpabook.jpashop.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * API 동시 처리 한도 (jpashop.concurrency-limit.enabled=true 일 때만)
+ *
+ * - DB 가 느려지면 요청이 커넥션을 잡은 채 쌓여서 모든 API 지연이 같이 늘어난다. 한도를 넘는 요청은 바로 503 으로 돌려보낸다.
+ * - 주문 생성, 무거운 주문 조회, 가벼운 조회를 그룹으로 나눠서 한 그룹이 밀려도 다른 그룹 한도는 남는다.
+ * - 지표 : jpashop.http.concurrency.limit / in-flight / rejected (group 태그)
+ */
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.concurrency-limit", name = "enabled", havingValue = "true")
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry registry) {
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties.getGroups());
+        filter.getLimiters().forEach(limiter -> limiter.bindTo(registry));
+        return filter;
+    }
+
+    /**
+     * 다른 필터(커넥션 점유 시간 측정 등)보다 먼저 거절한다.
+     */
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
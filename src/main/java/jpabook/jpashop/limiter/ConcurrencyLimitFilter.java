@@ -0,0 +1,136 @@
+package jpabook.jpashop.limiter;
+
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.transaction.TransactionTimedOutException;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.sql.SQLTimeoutException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 엔드포인트 그룹별 동시 처리 한도 - 넘으면 대기열에 쌓지 않고 바로 503 (Retry-After: 1)
+ *
+ * - 그룹은 메소드 + Ant 경로 패턴으로 고르고, 처음 일치하는 그룹 하나만 적용한다. 어느 그룹에도 없으면 제한하지 않는다.
+ * - 비동기 응답(SSE, StreamingResponseBody)은 핸들러가 반환될 때 자리를 돌려주므로 그룹에 넣지 않는다.
+ * - 과부하 신호(커넥션 획득/쿼리/트랜잭션 시간 초과 예외, 503 응답)만 한도를 줄인다.
+ *   재고 부족, 잘못된 요청 같은 업무 예외는 500 이어도 과부하가 아니므로 지연 샘플로만 쓴다.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final AntPathMatcher MATCHER = new AntPathMatcher();
+    private static final UrlPathHelper PATH_HELPER = new UrlPathHelper();
+    private static final List<Class<? extends Throwable>> OVERLOAD_SIGNALS = Arrays.asList(
+            SQLTransientConnectionException.class, // 커넥션 풀 획득 시간 초과 (Hikari)
+            SQLTimeoutException.class,
+            QueryTimeoutException.class,
+            javax.persistence.QueryTimeoutException.class,
+            TransactionTimedOutException.class);
+
+    private final List<Route> routes = new ArrayList<>();
+    private final List<AdaptiveConcurrencyLimiter> limiters = new ArrayList<>();
+
+    public ConcurrencyLimitFilter(Map<String, ConcurrencyLimitProperties.Group> groups) {
+        groups.forEach((name, group) -> {
+            AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(name, group);
+            limiters.add(limiter);
+            for (String pattern : group.getPatterns()) {
+                routes.add(Route.parse(pattern.trim(), limiter));
+            }
+        });
+    }
+
+    public List<AdaptiveConcurrencyLimiter> getLimiters() {
+        return Collections.unmodifiableList(limiters);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        AdaptiveConcurrencyLimiter limiter = match(request);
+        if (limiter == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        if (!limiter.tryAcquire()) {
+            reject(response, limiter);
+            return;
+        }
+
+        long start = System.nanoTime();
+        boolean dropped = false;
+        try {
+            filterChain.doFilter(request, response);
+            dropped = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+        } catch (IOException | ServletException | RuntimeException e) {
+            dropped = isOverload(e);
+            throw e;
+        } finally {
+            limiter.release(System.nanoTime() - start, dropped);
+        }
+    }
+
+    /**
+     * 원인 예외 중에 과부하 신호가 있는지
+     */
+    static boolean isOverload(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            for (Class<? extends Throwable> signal : OVERLOAD_SIGNALS) {
+                if (signal.isInstance(cause)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private AdaptiveConcurrencyLimiter match(HttpServletRequest request) {
+        String path = PATH_HELPER.getPathWithinApplication(request);
+        for (Route route : routes) {
+            if ((route.method == null || route.method.equals(request.getMethod())) && MATCHER.match(route.pattern, path)) {
+                return route.limiter;
+            }
+        }
+        return null;
+    }
+
+    private void reject(HttpServletResponse response, AdaptiveConcurrencyLimiter limiter) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader("Retry-After", "1");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"status\":503,\"error\":\"Service Unavailable\",\"group\":\"" + limiter.getGroup() + "\"}");
+    }
+
+    private static final class Route {
+        final String method;
+        final String pattern;
+        final AdaptiveConcurrencyLimiter limiter;
+
+        private Route(String method, String pattern, AdaptiveConcurrencyLimiter limiter) {
+            this.method = method;
+            this.pattern = pattern;
+            this.limiter = limiter;
+        }
+
+        static Route parse(String value, AdaptiveConcurrencyLimiter limiter) {
+            int space = value.indexOf(' ');
+            if (space < 0) {
+                return new Route(null, value, limiter);
+            }
+            return new Route(value.substring(0, space).toUpperCase(), value.substring(space + 1).trim(), limiter);
+        }
+    }
+}
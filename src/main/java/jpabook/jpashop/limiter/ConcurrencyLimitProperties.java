@@ -0,0 +1,44 @@
+package jpabook.jpashop.limiter;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * jpashop.concurrency-limit.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled;
+
+    /**
+     * 그룹(벌크헤드)마다 동시 처리 한도를 따로 둔다. 요청은 처음 일치하는 그룹 하나에만 속한다.
+     */
+    private Map<String, Group> groups = new LinkedHashMap<>();
+
+    @Getter @Setter
+    public static class Group {
+        /**
+         * "GET /api/v1/orders" 형식 (메소드 생략 가능, 경로는 Ant 패턴)
+         */
+        private List<String> patterns = new ArrayList<>();
+        private int initialLimit = 20;
+        private int minLimit = 2;
+        private int maxLimit = 200;
+        /**
+         * 최근 지연이 평소 지연의 몇 배까지 한도를 줄이지 않을지
+         */
+        private double tolerance = 2.0;
+        /**
+         * 새 한도를 반영하는 비율 (0~1)
+         */
+        private double smoothing = 0.2;
+    }
+}
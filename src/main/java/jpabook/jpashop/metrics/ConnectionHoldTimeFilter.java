@@ -0,0 +1,48 @@
+package jpabook.jpashop.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 요청 하나가 커넥션을 점유한 시간 (jpashop.http.connection.hold, uri 태그)
+ * - OSIV가 켜져 있으면 뷰 렌더링이 끝날 때까지, 꺼져 있으면 트랜잭션이 끝날 때까지 점유한다.
+ * - 커넥션을 쓰지 않은 요청과 매핑되지 않은 요청(정적 리소스 등)은 기록하지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class ConnectionHoldTimeFilter extends OncePerRequestFilter {
+
+    static final String CONNECTION_HOLD = "jpashop.http.connection.hold";
+
+    private final MeterRegistry registry;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        long before = TransactionStats.connectionUsageMillis();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            long held = TransactionStats.connectionUsageMillis() - before;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            if (pattern != null && held > 0) {
+                Timer.builder(CONNECTION_HOLD)
+                        .tag("uri", request.getMethod() + " " + pattern)
+                        .publishPercentiles(0.5, 0.99, 0.999)
+                        .register(registry)
+                        .record(held, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package jpabook.jpashop.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+
+/**
+ * Hikari 풀 훅
+ * - 커넥션 획득 대기시간은 빌리는 스레드에서 기록되므로 TransactionStats에 누적해서 서비스 메소드별로 집계한다.
+ * - 커넥션 점유시간은 반환하는 스레드에서 기록되므로 요청별로 집계한다. (ConnectionHoldTimeFilter)
+ * - 풀 단위 지표(hikaricp.*)는 기존처럼 Micrometer로 그대로 넘긴다.
+ */
+@Component
+public class HikariMetricsTrackerPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public HikariMetricsTrackerPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource) {
+            HikariDataSource hikari = DataSourceUnwrapper.unwrap((DataSource) bean, HikariDataSource.class);
+            if (hikari != null && hikari.getMetricRegistry() == null && !(hikari.getMetricsTrackerFactory() instanceof AcquireTrackingFactory)) {
+                hikari.setMetricsTrackerFactory(new AcquireTrackingFactory());
+            }
+        }
+        return bean;
+    }
+
+    private class AcquireTrackingFactory implements MetricsTrackerFactory {
+
+        @Override
+        public IMetricsTracker create(String poolName, PoolStats poolStats) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            IMetricsTracker delegate = registry == null
+                    ? new IMetricsTracker() { }
+                    : new MicrometerMetricsTrackerFactory(registry).create(poolName, poolStats);
+            return new AcquireTrackingTracker(delegate);
+        }
+    }
+
+    private static class AcquireTrackingTracker implements IMetricsTracker {
+
+        private final IMetricsTracker delegate;
+
+        AcquireTrackingTracker(IMetricsTracker delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void recordConnectionCreatedMillis(long connectionCreatedMillis) {
+            delegate.recordConnectionCreatedMillis(connectionCreatedMillis);
+        }
+
+        @Override
+        public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+            TransactionStats.connectionAcquired(elapsedAcquiredNanos);
+            delegate.recordConnectionAcquiredNanos(elapsedAcquiredNanos);
+        }
+
+        @Override
+        public void recordConnectionUsageMillis(long elapsedBorrowedMillis) {
+            TransactionStats.connectionReleased(elapsedBorrowedMillis);
+            delegate.recordConnectionUsageMillis(elapsedBorrowedMillis);
+        }
+
+        @Override
+        public void recordConnectionTimeout() {
+            delegate.recordConnectionTimeout();
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
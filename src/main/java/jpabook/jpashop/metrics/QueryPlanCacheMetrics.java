@@ -0,0 +1,46 @@
+package jpabook.jpashop.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Hibernate 쿼리 플랜 캐시 지표 (hibernate.generate_statistics=true 일 때만)
+ *  - jpashop.hibernate.query.plan.cache : 조회 수 (result=hit/miss)
+ *  - jpashop.hibernate.query.plan.cache.hit.ratio : 누적 적중률
+ * IN 리스트 길이마다 JPQL 이 달라지면 miss 가 계속 늘어난다.
+ */
+@Slf4j
+@Component
+public class QueryPlanCacheMetrics {
+
+    /*
+     * MeterBinder 로 만들면 MeterRegistry 생성 중에 EntityManagerFactory 가 Flyway 보다 먼저 만들어진다.
+     * 일반 빈으로 두고 생성자에서 등록한다.
+     */
+    public QueryPlanCacheMetrics(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            log.info("hibernate.generate_statistics=false - 쿼리 플랜 캐시 지표를 등록하지 않습니다.");
+            return;
+        }
+        FunctionCounter.builder("jpashop.hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheHitCount)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("jpashop.hibernate.query.plan.cache", statistics, Statistics::getQueryPlanCacheMissCount)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("jpashop.hibernate.query.plan.cache.hit.ratio", statistics, QueryPlanCacheMetrics::hitRatio)
+                .register(registry);
+    }
+
+    static double hitRatio(Statistics statistics) {
+        long hit = statistics.getQueryPlanCacheHitCount();
+        long total = hit + statistics.getQueryPlanCacheMissCount();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+}
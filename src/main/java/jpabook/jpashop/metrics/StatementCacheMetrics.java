@@ -0,0 +1,98 @@
+package jpabook.jpashop.metrics;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 문장 캐시 적중률 추정 (p6spy 리스너, Hibernate/JdbcTemplate 모든 SQL)
+ *
+ * H2 등 드라이버의 문장 캐시는 지표를 주지 않으므로, 실행된 SQL 문자열을 크기 cacheSize 인 LRU 에 넣어보고
+ * 이미 있던 문자열이면 hit 로 센다. IN 리스트 길이처럼 같은 쿼리가 여러 문자열로 나뉘면 miss 와 shapes 가 늘어난다.
+ * 모든 SQL 실행 경로라서 LRU 는 SQL 해시로 STRIPES 개로 나누고 조각마다 락을 건다. (조각별 LRU 라 근사치)
+ *  - jpashop.jdbc.statement.cache : 실행 수 (result=hit/miss)
+ *  - jpashop.jdbc.statement.cache.hit.ratio : 누적 적중률
+ *  - jpashop.jdbc.statement.shapes : 지금 LRU 에 있는 서로 다른 SQL 수
+ */
+@Component
+public class StatementCacheMetrics extends SimpleJdbcEventListener implements MeterBinder {
+
+    private static final int STRIPES = 16;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Map<String, Boolean>[] recent;
+
+    @SuppressWarnings("unchecked")
+    public StatementCacheMetrics(@Value("${jpashop.metrics.statement-cache-size:256}") int cacheSize) {
+        int stripeSize = Math.max(1, (cacheSize + STRIPES - 1) / STRIPES);
+        this.recent = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            recent[i] = new LinkedHashMap<String, Boolean>(stripeSize * 2, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                    return size() > stripeSize;
+                }
+            };
+        }
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        String sql = statementInformation.getSql();
+        if (sql == null) {
+            return;
+        }
+        Map<String, Boolean> stripe = recent[(sql.hashCode() ^ (sql.hashCode() >>> 16)) & (STRIPES - 1)];
+        boolean hit;
+        synchronized (stripe) {
+            hit = stripe.put(sql, Boolean.TRUE) != null;
+        }
+        (hit ? hits : misses).increment();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("jpashop.jdbc.statement.cache", hits, LongAdder::sum)
+                .tag("result", "hit").register(registry);
+        FunctionCounter.builder("jpashop.jdbc.statement.cache", misses, LongAdder::sum)
+                .tag("result", "miss").register(registry);
+        Gauge.builder("jpashop.jdbc.statement.cache.hit.ratio", this, StatementCacheMetrics::getHitRatio)
+                .register(registry);
+        Gauge.builder("jpashop.jdbc.statement.shapes", this, StatementCacheMetrics::getShapeCount)
+                .register(registry);
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public double getHitRatio() {
+        long hit = hits.sum();
+        long total = hit + misses.sum();
+        return total == 0 ? 0 : (double) hit / total;
+    }
+
+    public int getShapeCount() {
+        int count = 0;
+        for (Map<String, Boolean> stripe : recent) {
+            synchronized (stripe) {
+                count += stripe.size();
+            }
+        }
+        return count;
+    }
+}
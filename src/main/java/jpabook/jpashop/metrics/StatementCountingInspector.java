@@ -0,0 +1,16 @@
+package jpabook.jpashop.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Hibernate가 SQL을 준비할 때마다 호출된다.
+ * 'hibernate.session_factory.statement_inspector' 설정으로 등록 (Hibernate가 직접 생성함)
+ */
+public class StatementCountingInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        TransactionStats.statementPrepared();
+        return sql;
+    }
+}
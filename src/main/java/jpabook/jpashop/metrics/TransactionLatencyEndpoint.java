@@ -0,0 +1,83 @@
+package jpabook.jpashop.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * /actuator/txlatency
+ * 서비스 메소드별 트랜잭션 시간, 커넥션 대기시간(ms), SQL 수와 풀 전체 대기/점유 시간,
+ * 요청(URI 패턴)별 커넥션 점유시간 요약
+ */
+@Component
+@Endpoint(id = "txlatency")
+@RequiredArgsConstructor
+public class TransactionLatencyEndpoint {
+
+    private final MeterRegistry registry;
+
+    @ReadOperation
+    public Map<String, Object> latency() {
+        Map<String, Object> methods = new TreeMap<>();
+        collect(methods, TransactionMetricsAspect.DURATION, "method", "transactionMs", true);
+        collect(methods, TransactionMetricsAspect.CONNECTION_ACQUIRE, "method", "connectionAcquireMs", true);
+        collect(methods, TransactionMetricsAspect.STATEMENTS, "method", "statements", false);
+
+        Map<String, Object> pools = new TreeMap<>();
+        collect(pools, "hikaricp.connections.acquire", "pool", "acquireMs", true);
+        collect(pools, "hikaricp.connections.usage", "pool", "usageMs", true);
+
+        Map<String, Object> requests = new TreeMap<>();
+        collect(requests, ConnectionHoldTimeFilter.CONNECTION_HOLD, "uri", "connectionHoldMs", true);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("methods", methods);
+        result.put("pools", pools);
+        result.put("requests", requests);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void collect(Map<String, Object> target, String meterName, String tagKey, String label, boolean time) {
+        for (Meter meter : registry.find(meterName).meters()) {
+            HistogramSnapshot snapshot;
+            if (meter instanceof Timer) {
+                snapshot = ((Timer) meter).takeSnapshot();
+            } else if (meter instanceof DistributionSummary) {
+                snapshot = ((DistributionSummary) meter).takeSnapshot();
+            } else {
+                continue;
+            }
+
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("count", snapshot.count());
+            for (ValueAtPercentile percentile : snapshot.percentileValues()) {
+                values.put("p" + format(percentile.percentile()),
+                        time ? percentile.value(TimeUnit.MILLISECONDS) : percentile.value());
+            }
+            values.put("max", time ? snapshot.max(TimeUnit.MILLISECONDS) : snapshot.max());
+
+            String key = meter.getId().getTag(tagKey);
+            Map<String, Object> row = (Map<String, Object>) target.computeIfAbsent(key, k -> new LinkedHashMap<>());
+            row.put(label, values);
+        }
+    }
+
+    private String format(double percentile) {
+        // 0.5 -> 50, 0.99 -> 99, 0.999 -> 999
+        String digits = Double.toString(percentile).substring(2);
+        return digits.length() == 1 ? digits + "0" : digits;
+    }
+}
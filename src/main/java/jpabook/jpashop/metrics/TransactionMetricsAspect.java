@@ -0,0 +1,76 @@
+package jpabook.jpashop.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @Transactional 서비스 메소드 계측
+ * - 트랜잭션 인터셉터 바깥에서 감싸서 커밋까지 포함한 트랜잭션 시간을 잰다.
+ * - 이미 트랜잭션 안에서 호출된 경우(내부 호출)는 바깥 메소드에 포함되므로 따로 기록하지 않는다.
+ *
+ * 지표 (method 태그, p50/p99/p999)
+ *  - jpashop.tx.duration : 트랜잭션 시간
+ *  - jpashop.tx.connection.acquire : 커넥션 풀 대기시간
+ *  - jpashop.tx.statements : 트랜잭션당 SQL 수
+ *
+ * 조회 합치기(CoalescingAspect) 안쪽에서 감싸서 합류한 호출은 기록하지 않는다.
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 1)
+@RequiredArgsConstructor
+public class TransactionMetricsAspect {
+
+    static final String DURATION = "jpashop.tx.duration";
+    static final String CONNECTION_ACQUIRE = "jpashop.tx.connection.acquire";
+    static final String STATEMENTS = "jpashop.tx.statements";
+
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
+
+    private final MeterRegistry registry;
+
+    @Around("execution(public * jpabook.jpashop.service..*(..))"
+            + " && (@within(org.springframework.transaction.annotation.Transactional)"
+            + " || @annotation(org.springframework.transaction.annotation.Transactional))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return joinPoint.proceed();
+        }
+
+        String method = joinPoint.getSignature().getDeclaringType().getSimpleName()
+                + "." + joinPoint.getSignature().getName();
+        long statementsBefore = TransactionStats.statements();
+        long acquireBefore = TransactionStats.acquireNanos();
+        long start = System.nanoTime();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            timer(DURATION, method).record(elapsed, TimeUnit.NANOSECONDS);
+            timer(CONNECTION_ACQUIRE, method).record(TransactionStats.acquireNanos() - acquireBefore, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder(STATEMENTS)
+                    .tag("method", method)
+                    .publishPercentiles(PERCENTILES)
+                    .register(registry)
+                    .record(TransactionStats.statements() - statementsBefore);
+        }
+    }
+
+    private Timer timer(String name, String method) {
+        return Timer.builder(name)
+                .tag("method", method)
+                .publishPercentiles(PERCENTILES)
+                .register(registry);
+    }
+}
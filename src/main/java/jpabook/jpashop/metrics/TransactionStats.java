@@ -0,0 +1,39 @@
+package jpabook.jpashop.metrics;
+
+/**
+ * 스레드별 누적 카운터
+ * - 트랜잭션 시작/종료 시점의 값 차이로 트랜잭션 하나의 SQL 수, 커넥션 획득 대기시간을 구한다.
+ * - 요청 시작/종료 시점의 값 차이로 요청 하나의 커넥션 점유시간을 구한다.
+ * - 트랜잭션, 요청은 한 스레드에서만 실행되므로 ThreadLocal로 충분하다.
+ */
+public final class TransactionStats {
+
+    private static final ThreadLocal<long[]> COUNTERS = ThreadLocal.withInitial(() -> new long[3]);
+
+    private TransactionStats() {
+    }
+
+    static void statementPrepared() {
+        COUNTERS.get()[0]++;
+    }
+
+    static void connectionAcquired(long nanos) {
+        COUNTERS.get()[1] += nanos;
+    }
+
+    static void connectionReleased(long usageMillis) {
+        COUNTERS.get()[2] += usageMillis;
+    }
+
+    static long statements() {
+        return COUNTERS.get()[0];
+    }
+
+    static long acquireNanos() {
+        return COUNTERS.get()[1];
+    }
+
+    static long connectionUsageMillis() {
+        return COUNTERS.get()[2];
+    }
+}
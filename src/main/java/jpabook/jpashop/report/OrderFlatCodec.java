@@ -0,0 +1,103 @@
+package jpabook.jpashop.report;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * OrderFlatDto 바이너리 인코딩 (spill 파일 한 행)
+ *
+ * orderId(long) | name | orderDate(epochSecond long, nano int / 없으면 epochSecond = Long.MIN_VALUE)
+ * | status(byte, 없으면 -1) | address(byte 0/1 + city, street, zipcode) | itemName | orderPrice(int) | count(int)
+ * 문자열은 UTF-8 바이트 길이(int, null 이면 -1) + 바이트
+ */
+final class OrderFlatCodec {
+
+    private static final OrderStatus[] STATUSES = OrderStatus.values();
+
+    private OrderFlatCodec() {
+    }
+
+    static void write(DataOutput out, OrderFlatDto row) throws IOException {
+        out.writeLong(row.getOrderId());
+        writeString(out, row.getName());
+        if (row.getOrderDate() == null) {
+            out.writeLong(Long.MIN_VALUE);
+        } else {
+            out.writeLong(row.getOrderDate().toEpochSecond(ZoneOffset.UTC));
+            out.writeInt(row.getOrderDate().getNano());
+        }
+        out.writeByte(row.getOrderStatus() == null ? -1 : row.getOrderStatus().ordinal());
+        Address address = row.getAddress();
+        out.writeByte(address == null ? 0 : 1);
+        if (address != null) {
+            writeString(out, address.getCity());
+            writeString(out, address.getStreet());
+            writeString(out, address.getZipcode());
+        }
+        writeString(out, row.getItemName());
+        out.writeInt(row.getOrderPrice());
+        out.writeInt(row.getCount());
+    }
+
+    static OrderFlatDto read(ByteBuffer in) {
+        long orderId = in.getLong();
+        String name = readString(in);
+        long epochSecond = in.getLong();
+        LocalDateTime orderDate = epochSecond == Long.MIN_VALUE
+                ? null : LocalDateTime.ofEpochSecond(epochSecond, in.getInt(), ZoneOffset.UTC);
+        byte status = in.get();
+        Address address = null;
+        if (in.get() == 1) {
+            address = new Address(readString(in), readString(in), readString(in));
+        }
+        String itemName = readString(in);
+        int orderPrice = in.getInt();
+        int count = in.getInt();
+        return new OrderFlatDto(orderId, name, orderDate, status < 0 ? null : STATUSES[status], address,
+                itemName, orderPrice, count);
+    }
+
+    /**
+     * 힙에 올라와 있는 행 하나의 대략적인 크기 (객체 헤더, Long/LocalDateTime/Address 포함)
+     */
+    static long estimateHeapSize(OrderFlatDto row) {
+        long size = 200;
+        size += chars(row.getName()) + chars(row.getItemName());
+        if (row.getAddress() != null) {
+            size += chars(row.getAddress().getCity()) + chars(row.getAddress().getStreet()) + chars(row.getAddress().getZipcode());
+        }
+        return size;
+    }
+
+    private static long chars(String value) {
+        return value == null ? 0 : 40 + value.length() * 2L;
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
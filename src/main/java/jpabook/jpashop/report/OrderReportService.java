@@ -0,0 +1,97 @@
+package jpabook.jpashop.report;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManagerFactory;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 주문 리포트 내보내기
+ *
+ * - v6 처럼 flat 조인 한번으로 읽지만 결과를 리스트로 모으지 않는다.
+ * - 행은 SpillingOrderGrouper 로 넘기고, 메모리 상한을 넘으면 임시 파일로 내린 뒤 주문 id 순으로 합쳐서 내보낸다.
+ * - 한 줄에 주문 하나 (NDJSON), 주문 수와 상관없이 힙 사용량이 jpashop.report.memory-budget 근처로 묶인다.
+ * - DB 읽기(readOnly 트랜잭션)를 먼저 끝내고 커넥션을 돌려준 뒤에 쓴다. (느린 클라이언트가 커넥션을 잡고 있지 않게)
+ * - OSIV 가 켜져 있으면 응답 스레드에도 요청 EntityManager 가 바인딩되어 요청이 끝날 때까지 커넥션을 잡는다.
+ *   (트랜잭션 밖에서 호출되면) 읽는 동안만 풀어 두고 트랜잭션 전용 EntityManager 로 읽는다.
+ */
+@Slf4j
+@Service
+@EnableConfigurationProperties(ReportProperties.class)
+public class OrderReportService {
+
+    private final OrderQueryRepository orderQueryRepository;
+    private final ReportProperties properties;
+    private final ObjectMapper objectMapper; // API 응답과 같은 날짜/필드 형식
+    private final TransactionTemplate readOnlyTransaction;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public OrderReportService(OrderQueryRepository orderQueryRepository, ReportProperties properties,
+                              ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                              EntityManagerFactory entityManagerFactory) {
+        this.orderQueryRepository = orderQueryRepository;
+        this.entityManagerFactory = entityManagerFactory;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 전체 주문을 주문 id 순으로 out 에 쓴다. 내보낸 주문 수를 돌려준다.
+     */
+    public long exportOrders(OutputStream out) throws IOException {
+        try (SpillingOrderGrouper grouper = newGrouper()) {
+            // 전부 grouper 로 읽고 스트림, 트랜잭션을 닫는다.
+            Object requestEntityManager = TransactionSynchronizationManager.isActualTransactionActive()
+                    ? null : TransactionSynchronizationManager.unbindResourceIfPossible(entityManagerFactory);
+            try {
+                readOnlyTransaction.execute(s -> {
+                    try (Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat()) {
+                        rows.forEach(grouper::add);
+                    }
+                    return null;
+                });
+            } finally {
+                if (requestEntityManager != null) {
+                    TransactionSynchronizationManager.bindResource(entityManagerFactory, requestEntityManager);
+                }
+            }
+
+            ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            long count = 0;
+            Iterator<OrderQueryDto> orders = grouper.groups();
+            while (orders.hasNext()) {
+                writer.writeValue(out, orders.next());
+                out.write('\n');
+                count++;
+            }
+            out.flush();
+            log.info("주문 리포트 내보내기 orders={} rows={} spill runs={}", count, grouper.getRowCount(), grouper.getSpillCount());
+            return count;
+        }
+    }
+
+    SpillingOrderGrouper newGrouper() {
+        Path tempDir = Paths.get(StringUtils.hasText(properties.getTempDir())
+                ? properties.getTempDir() : System.getProperty("java.io.tmpdir"));
+        return new SpillingOrderGrouper(properties.getMemoryBudget().toBytes(), tempDir);
+    }
+}
@@ -0,0 +1,24 @@
+package jpabook.jpashop.report;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * jpashop.report.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.report")
+public class ReportProperties {
+
+    /**
+     * 리포트 한 건이 그룹핑에 쓰는 힙 상한. 넘으면 정렬된 구간을 임시 파일로 내린다.
+     */
+    private DataSize memoryBudget = DataSize.ofMegabytes(32);
+
+    /**
+     * 임시 파일 위치 (비어 있으면 java.io.tmpdir)
+     */
+    private String tempDir;
+}
@@ -0,0 +1,216 @@
+package jpabook.jpashop.report;
+
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * 메모리 상한이 있는 주문 그룹핑 (OrderFlatDto 행 -> 주문별 OrderQueryDto)
+ *
+ * 1. add : 행을 힙 버퍼에 모은다. 추정 크기가 memoryBudget 을 넘으면 주문 id 순으로 정렬해서 임시 파일(run)로 내린다.
+ * 2. groups : run 이 없으면 힙에서 정렬/그룹핑하고, 있으면 run 들을 메모리 맵으로 읽어서 k-way merge 한다.
+ *    결과는 주문 id 오름차순으로 한 주문씩 흘려보낸다. (전체 결과를 힙에 만들지 않는다)
+ * 3. close : 임시 파일 삭제
+ *
+ * 같은 주문의 주문상품 순서는 add 한 순서를 유지한다. (정렬은 안정 정렬, merge 는 run 순서로 동률을 푼다)
+ * 메모리 맵은 GC 될 때 해제되므로 Windows 에서는 close 직후 파일 삭제가 실패할 수 있다. (deleteOnExit 로 남긴다)
+ */
+@Slf4j
+public class SpillingOrderGrouper implements Closeable {
+
+    private static final Comparator<OrderFlatDto> BY_ORDER_ID = Comparator.comparing(OrderFlatDto::getOrderId);
+
+    private final long memoryBudget;
+    private final Path tempDir;
+    private final List<OrderFlatDto> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private long bufferedBytes;
+    private long rowCount;
+    private boolean grouping;
+
+    public SpillingOrderGrouper(long memoryBudget, Path tempDir) {
+        this.memoryBudget = memoryBudget;
+        this.tempDir = tempDir;
+    }
+
+    public void add(OrderFlatDto row) {
+        if (grouping) {
+            throw new IllegalStateException("groups() 이후에는 행을 추가할 수 없습니다.");
+        }
+        buffer.add(row);
+        rowCount++;
+        bufferedBytes += OrderFlatCodec.estimateHeapSize(row);
+        if (bufferedBytes > memoryBudget) {
+            spill();
+        }
+    }
+
+    /**
+     * 주문 id 순 그룹 결과 (한번만 호출할 수 있다)
+     */
+    public Iterator<OrderQueryDto> groups() {
+        if (grouping) {
+            throw new IllegalStateException("groups()는 한번만 호출할 수 있습니다.");
+        }
+        grouping = true;
+        Iterator<OrderFlatDto> rows;
+        if (runs.isEmpty()) {
+            buffer.sort(BY_ORDER_ID);
+            rows = buffer.iterator();
+        } else {
+            spill();
+            rows = new MergeIterator(runs);
+            log.info("주문 그룹핑 rows={} spill runs={}", rowCount, runs.size());
+        }
+        return new GroupIterator(rows);
+    }
+
+    public int getSpillCount() {
+        return runs.size();
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+
+    @Override
+    public void close() {
+        buffer.clear();
+        for (Path run : runs) {
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException e) {
+                run.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    /**
+     * 버퍼를 주문 id 순으로 정렬해서 run 파일 하나로 내린다.
+     */
+    private void spill() {
+        if (buffer.isEmpty()) {
+            return;
+        }
+        buffer.sort(BY_ORDER_ID);
+        try {
+            Path run = Files.createTempFile(tempDir, "order-group-", ".run");
+            runs.add(run);
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), 64 * 1024))) {
+                for (OrderFlatDto row : buffer) {
+                    OrderFlatCodec.write(out, row);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("주문 그룹핑 임시 파일 쓰기 실패", e);
+        }
+        buffer.clear();
+        bufferedBytes = 0;
+    }
+
+    /**
+     * run 하나 - 메모리 맵으로 순서대로 읽는다.
+     */
+    private static class RunCursor {
+
+        final int index;
+        final MappedByteBuffer in;
+        OrderFlatDto current;
+
+        RunCursor(int index, Path run) {
+            this.index = index;
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.READ)) {
+                this.in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                throw new UncheckedIOException("주문 그룹핑 임시 파일 읽기 실패 " + run, e);
+            }
+        }
+
+        boolean advance() {
+            current = in.hasRemaining() ? OrderFlatCodec.read(in) : null;
+            return current != null;
+        }
+    }
+
+    /**
+     * 정렬된 run 들의 k-way merge (주문 id, 같으면 먼저 만든 run 부터)
+     */
+    private static class MergeIterator implements Iterator<OrderFlatDto> {
+
+        private final PriorityQueue<RunCursor> queue = new PriorityQueue<>(
+                Comparator.comparing((RunCursor cursor) -> cursor.current.getOrderId())
+                        .thenComparingInt(cursor -> cursor.index));
+
+        MergeIterator(List<Path> runs) {
+            for (int i = 0; i < runs.size(); i++) {
+                RunCursor cursor = new RunCursor(i, runs.get(i));
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !queue.isEmpty();
+        }
+
+        @Override
+        public OrderFlatDto next() {
+            RunCursor cursor = queue.poll();
+            if (cursor == null) {
+                throw new NoSuchElementException();
+            }
+            OrderFlatDto row = cursor.current;
+            if (cursor.advance()) {
+                queue.add(cursor);
+            }
+            return row;
+        }
+    }
+
+    /**
+     * 주문 id 순으로 정렬된 행을 주문 단위로 묶는다.
+     */
+    private static class GroupIterator implements Iterator<OrderQueryDto> {
+
+        private final Iterator<OrderFlatDto> rows;
+        private OrderFlatDto pending;
+
+        GroupIterator(Iterator<OrderFlatDto> rows) {
+            this.rows = rows;
+            this.pending = rows.hasNext() ? rows.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public OrderQueryDto next() {
+            if (pending == null) {
+                throw new NoSuchElementException();
+            }
+            OrderFlatDto first = pending;
+            List<OrderItemQueryDto> items = new ArrayList<>();
+            OrderFlatDto row = first;
+            while (row != null && row.getOrderId().equals(first.getOrderId())) {
+                items.add(new OrderItemQueryDto(row.getOrderId(), row.getItemName(), row.getOrderPrice(), row.getCount()));
+                row = rows.hasNext() ? rows.next() : null;
+            }
+            pending = row;
+            return new OrderQueryDto(first.getOrderId(), first.getName(), first.getOrderDate(), first.getOrderStatus(),
+                    first.getAddress(), items);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/*
+ * Delivery는 Order와 mappedBy 1:1 관계라서 엔티티로 조회하면 Order까지 즉시 로딩된다.
+ * 대량 처리용 메소드는 id만 조회하고 벌크 update로 변경한다.
+ * 택배사 완료 보고(delivery_completion)는 엔티티가 없으므로 네이티브 SQL로 다룬다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class DeliveryRepository {
+
+    private final EntityManager em;
+
+    /**
+     * 전체 id 범위 [min, max], 데이터가 없으면 null
+     */
+    public long[] findIdRange() {
+        Object[] range = em.createQuery("select min(d.id), max(d.id) from Delivery d", Object[].class)
+                .getSingleResult();
+        if (range[0] == null) {
+            return null;
+        }
+        return new long[]{(Long) range[0], (Long) range[1]};
+    }
+
+    /**
+     * 커서 조회 - afterId 다음부터 toId까지 상태가 일치하는 id를 limit 만큼
+     */
+    public List<Long> findIdsByStatus(DeliveryStatus status, long afterId, long toId, int limit) {
+        return em.createQuery("select d.id from Delivery d"
+                        + " where d.status = :status"
+                        + " and d.id > :afterId and d.id <= :toId"
+                        + " order by d.id", Long.class)
+                .setParameter("status", status)
+                .setParameter("afterId", afterId)
+                .setParameter("toId", toId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문 상태가 일치하는 배송 id만 걸러낸다.
+     */
+    public List<Long> filterIdsByOrderStatus(List<Long> deliveryIds, OrderStatus orderStatus) {
+        if (deliveryIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return em.createQuery("select d.id from Order o join o.delivery d"
+                        + " where d.id in :deliveryIds"
+                        + " and o.status = :orderStatus"
+                        + " order by d.id", Long.class)
+                .setParameter("deliveryIds", deliveryIds)
+                .setParameter("orderStatus", orderStatus)
+                .getResultList();
+    }
+
+    /**
+     * 벌크 상태 변경 - 영속성 컨텍스트를 거치지 않는다.
+     */
+    public int updateStatus(List<Long> deliveryIds, DeliveryStatus status) {
+        if (deliveryIds.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery("update Delivery d set d.status = :status where d.id in :deliveryIds")
+                .setParameter("status", status)
+                .setParameter("deliveryIds", deliveryIds)
+                .executeUpdate();
+    }
+
+    /**
+     * 택배사 배송 완료 보고 저장
+     */
+    public void saveCompletions(List<Long> deliveryIds, LocalDateTime reportedAt) {
+        for (Long deliveryId : deliveryIds) {
+            em.createNativeQuery("insert into delivery_completion (delivery_id, reported_at) values (:deliveryId, :reportedAt)")
+                    .setParameter("deliveryId", deliveryId)
+                    .setParameter("reportedAt", Timestamp.valueOf(reportedAt))
+                    .executeUpdate();
+        }
+    }
+
+    /**
+     * 완료 보고된 배송 id 범위 [min, max], 보고가 없으면 null
+     */
+    public long[] findCompletedIdRange() {
+        Object[] range = (Object[]) em.createNativeQuery("select min(delivery_id), max(delivery_id) from delivery_completion")
+                .getSingleResult();
+        if (range[0] == null) {
+            return null;
+        }
+        return new long[]{((Number) range[0]).longValue(), ((Number) range[1]).longValue()};
+    }
+
+    /**
+     * 커서 조회 - afterId 다음부터 toId까지 완료 보고된 READY 배송 id를 limit 만큼
+     */
+    public List<Long> findCompletedReadyIds(long afterId, long toId, int limit) {
+        List<?> ids = em.createNativeQuery("select distinct c.delivery_id from delivery_completion c"
+                        + " join delivery d on d.delivery_id = c.delivery_id"
+                        + " where d.status = :status"
+                        + " and c.delivery_id > :afterId and c.delivery_id <= :toId"
+                        + " order by c.delivery_id")
+                .setParameter("status", DeliveryStatus.READY.name())
+                .setParameter("afterId", afterId)
+                .setParameter("toId", toId)
+                .setMaxResults(limit)
+                .getResultList();
+        return ids.stream().map(id -> ((Number) id).longValue()).collect(Collectors.toList());
+    }
+}
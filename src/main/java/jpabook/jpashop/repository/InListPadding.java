@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * JdbcTemplate IN (:ids) 파라미터 패딩
+ * - 리스트 길이마다 SQL 문자열이 달라지면 드라이버/DB 문장 캐시를 매번 새로 채운다.
+ * - 길이를 2의 제곱수로 올리고 마지막 값을 반복해서 채운다. (IN 결과는 같다)
+ * - JPQL/네이티브 쿼리는 hibernate.query.in_clause_parameter_padding 설정이 같은 일을 한다.
+ */
+public final class InListPadding {
+
+    private InListPadding() {
+    }
+
+    public static <T> List<T> pad(Collection<T> values) {
+        List<T> padded = new ArrayList<>(values);
+        int size = padded.size();
+        if (size < 2) {
+            return padded;
+        }
+        int target = Integer.highestOneBit(size - 1) << 1;
+        T last = padded.get(size - 1);
+        while (padded.size() < target) {
+            padded.add(last);
+        }
+        return padded;
+    }
+}
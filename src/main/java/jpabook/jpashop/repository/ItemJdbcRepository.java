@@ -0,0 +1,89 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.service.ItemBulkUpdate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 상품 일괄 변경용 JDBC 리포지토리
+ * - 엔티티를 조회하지 않고 UPDATE 를 JDBC batch 로 보낸다. (select + 변경감지/merge 없음)
+ * - 영속성 컨텍스트와 2차 캐시에 반영되지 않으므로 호출한 쪽에서 캐시를 비워야 한다.
+ */
+@Repository
+public class ItemJdbcRepository {
+
+    /*
+     * price, stock_quantity 가 null 이면 현재 값을 유지하고, 재고 증감(delta)은 현재 재고에 더한다.
+     * 변경 후 재고가 음수면 갱신하지 않는다. (갱신 row 수 0)
+     */
+    private static final String UPDATE_PRICE_STOCK = "update item"
+            + " set price = coalesce(cast(? as integer), price),"
+            + " stock_quantity = coalesce(cast(? as integer), stock_quantity + ?)"
+            + " where item_id = ?"
+            + " and coalesce(cast(? as integer), stock_quantity + ?) >= 0";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public ItemJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return 건별 갱신 row 수 (0 이면 없는 상품이거나 재고가 음수가 되는 경우)
+     */
+    public int[] updatePriceAndStock(List<ItemBulkUpdate> updates) {
+        return jdbcTemplate.getJdbcOperations().batchUpdate(UPDATE_PRICE_STOCK, updates, updates.size(), (ps, update) -> {
+            int delta = update.getStockDelta() == null ? 0 : update.getStockDelta();
+            setNullableInt(ps, 1, update.getPrice());
+            setNullableInt(ps, 2, update.getStockQuantity());
+            ps.setInt(3, delta);
+            ps.setLong(4, update.getItemId());
+            setNullableInt(ps, 5, update.getStockQuantity());
+            ps.setInt(6, delta);
+        })[0];
+    }
+
+    public Set<Long> findExistingIds(Collection<Long> itemIds) {
+        if (itemIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList("select item_id from item where item_id in (:ids)",
+                new MapSqlParameterSource("ids", InListPadding.pad(itemIds)), Long.class));
+    }
+
+    /**
+     * item_id -> name (주문 샤드 조회 결과에 상품 이름 채우기용)
+     */
+    public Map<Long, String> findNames(Collection<Long> itemIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (itemIds.isEmpty()) {
+            return names;
+        }
+        jdbcTemplate.query("select item_id, name from item where item_id in (:ids)",
+                new MapSqlParameterSource("ids", InListPadding.pad(itemIds)),
+                rs -> {
+                    names.put(rs.getLong(1), rs.getString(2));
+                });
+        return names;
+    }
+
+    private static void setNullableInt(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.INTEGER);
+        } else {
+            ps.setInt(index, value);
+        }
+    }
+}
@@ -5,8 +5,12 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import java.util.Collection;
 import java.util.List;
 
+import static jpabook.jpashop.repository.ReadOnlyQueries.readOnly;
+
 @Repository
 @RequiredArgsConstructor
 public class ItemRepository {
@@ -29,4 +33,22 @@ public class ItemRepository {
                 .getResultList();
     }
 
+    /**
+     * 목록 화면용 - 스냅샷 없이 조회한다. (ReadOnlyQueries)
+     */
+    public List<Item> findAllReadOnly() {
+        return readOnly(em.createQuery("select i from Item i", Item.class))
+                .getResultList();
+    }
+
+    /**
+     * 주문용 조회 - IN 쿼리 한번으로 가져오면서 행 잠금(select ... for update)을 건다.
+     * 항상 id 오름차순으로 잠그므로 상품이 겹치는 주문끼리 서로 잠금을 기다리며 교착되지 않는다.
+     */
+    public List<Item> findAllForUpdate(Collection<Long> ids) {
+        return em.createQuery("select i from Item i where i.id in :ids order by i.id", Item.class)
+                .setParameter("ids", ids)
+                .setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .getResultList();
+    }
 }
@@ -0,0 +1,29 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.JobCheckpoint;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class JobCheckpointRepository {
+
+    private final EntityManager em;
+
+    public void save(JobCheckpoint checkpoint) {
+        em.persist(checkpoint);
+    }
+
+    public JobCheckpoint findOne(String id) {
+        return em.find(JobCheckpoint.class, id);
+    }
+
+    public List<JobCheckpoint> findByJobName(String jobName) {
+        return em.createQuery("select c from JobCheckpoint c where c.jobName = :jobName order by c.partitionNo", JobCheckpoint.class)
+                .setParameter("jobName", jobName)
+                .getResultList();
+    }
+}
@@ -0,0 +1,94 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.service.MemberImportRow;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/*
+ * 회원 대량 등록용 JDBC 리포지토리
+ * - 영속성 컨텍스트를 거치지 않고 JDBC batch 로 insert 한다. (엔티티 생성, 1차 캐시, flush 비용 없음)
+ * - id 는 엔티티와 같은 hibernate_sequence 에서 받는다.
+ */
+@Repository
+public class MemberJdbcRepository {
+
+    private static final String INSERT_MEMBER = "insert into member (member_id, name, city, street, zipcode, order_count)"
+            + " values (next value for hibernate_sequence, ?, ?, ?, ?, 0)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public MemberJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+    }
+
+    /**
+     * names 중 이미 가입된 이름 (IN 쿼리 한번, member.name 인덱스 사용)
+     */
+    public Set<String> findExistingNames(Collection<String> names) {
+        if (names.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(jdbcTemplate.queryForList("select name from member where name in (:names)",
+                new MapSqlParameterSource("names", InListPadding.pad(names)), String.class));
+    }
+
+    /**
+     * member_id -> name (주문 샤드 조회 결과에 회원 이름 채우기용)
+     */
+    public Map<Long, String> findNames(Collection<Long> memberIds) {
+        Map<Long, String> names = new HashMap<>();
+        if (memberIds.isEmpty()) {
+            return names;
+        }
+        jdbcTemplate.query("select member_id, name from member where member_id in (:ids)",
+                new MapSqlParameterSource("ids", InListPadding.pad(memberIds)),
+                rs -> {
+                    names.put(rs.getLong(1), rs.getString(2));
+                });
+        return names;
+    }
+
+    /**
+     * JDBC batch insert (statement 하나, 왕복 한번)
+     */
+    public int insertAll(List<MemberImportRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        int[] counts = jdbcTemplate.getJdbcOperations().batchUpdate(INSERT_MEMBER, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, row.getName());
+            ps.setString(2, row.getCity());
+            ps.setString(3, row.getStreet());
+            ps.setString(4, row.getZipcode());
+        })[0];
+        return counts.length;
+    }
+
+    /**
+     * 전체 회원 (member_id, name) - row를 모으지 않고 바로 넘긴다. (MemberNameIndex 구성용)
+     */
+    public void forEachIdAndName(RowCallbackHandler handler) {
+        jdbcTemplate.getJdbcOperations().query("select member_id, name from member", handler);
+    }
+
+    /**
+     * 이름이 names 중 하나인 회원 (member_id, name)
+     */
+    public void forEachIdAndName(Collection<String> names, RowCallbackHandler handler) {
+        if (names.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query("select member_id, name from member where name in (:names)",
+                new MapSqlParameterSource("names", InListPadding.pad(names)), handler);
+    }
+}
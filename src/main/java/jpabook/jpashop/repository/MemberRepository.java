@@ -7,6 +7,8 @@ import org.springframework.stereotype.Repository;
 import javax.persistence.EntityManager;
 import java.util.List;
 
+import static jpabook.jpashop.repository.ReadOnlyQueries.readOnly;
+
 @Repository
 @RequiredArgsConstructor
 public class MemberRepository {
@@ -26,9 +28,35 @@ public class MemberRepository {
                 .getResultList();
     }
 
+    /**
+     * 목록 화면용 - 스냅샷 없이 조회한다. (ReadOnlyQueries)
+     */
+    public List<Member> findAllReadOnly() {
+        return readOnly(em.createQuery("select m from Member m", Member.class))
+                .getResultList();
+    }
+
     public List<Member> findByName(String name) {
         return em.createQuery("select m from Member m where m.name = :name", Member.class)
                 .setParameter("name", name)
                 .getResultList();
     }
+
+    /**
+     * 주문 수 증가 - 동시 주문에도 값이 유실되지 않도록 DB에서 원자적으로 더한다.
+     * 영속성 컨텍스트의 Member 엔티티에는 반영되지 않는다.
+     */
+    public void increaseOrderCount(Long memberId) {
+        em.createQuery("update Member m set m.orderCount = m.orderCount + 1 where m.id = :memberId")
+                .setParameter("memberId", memberId)
+                .executeUpdate();
+    }
+
+    public Integer findOrderCount(Long memberId) {
+        return em.createQuery("select m.orderCount from Member m where m.id = :memberId", Integer.class)
+                .setParameter("memberId", memberId)
+                .getResultList().stream()
+                .findFirst()
+                .orElse(null);
+    }
 }
@@ -0,0 +1,87 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/*
+ * 주문 아카이브 (hot : orders, order_item, delivery -> cold : *_archive)
+ * 아카이브 테이블은 엔티티가 없으므로 이동은 네이티브 SQL(insert ... select, delete)로 한다.
+ * 한 청크의 주문은 같은 트랜잭션에서 복사 후 삭제되므로 양쪽에 동시에 있거나 사라지지 않는다.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OrderArchiveRepository {
+
+    private final EntityManager em;
+
+    /**
+     * hot 주문 id 범위 [min, max], 데이터가 없으면 null
+     */
+    public long[] findIdRange() {
+        Object[] range = em.createQuery("select min(o.id), max(o.id) from Order o", Object[].class)
+                .getSingleResult();
+        if (range[0] == null) {
+            return null;
+        }
+        return new long[]{(Long) range[0], (Long) range[1]};
+    }
+
+    /**
+     * 커서 조회 - cutoff 이전에 주문된 취소/배송완료 주문 id
+     */
+    public List<Long> findArchivableIds(LocalDateTime cutoff, long afterId, long toId, int limit) {
+        return em.createQuery("select o.id from Order o join o.delivery d"
+                        + " where o.id > :afterId and o.id <= :toId"
+                        + " and o.orderDate < :cutoff"
+                        + " and (o.status = :cancel or d.status = :comp)"
+                        + " order by o.id", Long.class)
+                .setParameter("afterId", afterId)
+                .setParameter("toId", toId)
+                .setParameter("cutoff", cutoff)
+                .setParameter("cancel", OrderStatus.CANCEL)
+                .setParameter("comp", DeliveryStatus.COMP)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 주문, 주문상품, 배송을 아카이브 테이블로 옮긴다. 옮긴 주문 수 반환
+     * - FK 순서대로 복사(배송 -> 주문 -> 주문상품)하고 반대 순서로 삭제한다.
+     */
+    public int moveToArchive(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        execute("insert into delivery_archive (delivery_id, city, street, zipcode, status)"
+                + " select d.delivery_id, d.city, d.street, d.zipcode, d.status from delivery d"
+                + " where d.delivery_id in (select o.delivery_id from orders o where o.order_id in (:ids))", orderIds);
+        int moved = execute("insert into orders_archive (order_id, order_date, status, delivery_id, member_id)"
+                + " select o.order_id, o.order_date, o.status, o.delivery_id, o.member_id from orders o"
+                + " where o.order_id in (:ids)", orderIds);
+        execute("insert into order_item_archive (order_item_id, count, order_price, item_id, order_id)"
+                + " select oi.order_item_id, oi.count, oi.order_price, oi.item_id, oi.order_id from order_item oi"
+                + " where oi.order_id in (:ids)", orderIds);
+
+        execute("delete from order_item where order_id in (:ids)", orderIds);
+        List<?> deliveryIds = em.createNativeQuery("select delivery_id from orders_archive where order_id in (:ids)")
+                .setParameter("ids", orderIds)
+                .getResultList();
+        execute("delete from orders where order_id in (:ids)", orderIds);
+        if (!deliveryIds.isEmpty()) {
+            execute("delete from delivery where delivery_id in (:ids)", deliveryIds);
+        }
+        return moved;
+    }
+
+    private int execute(String sql, List<?> ids) {
+        return em.createNativeQuery(sql)
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,41 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.OrderOutbox;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class OrderOutboxRepository {
+
+    private final EntityManager em;
+
+    public void save(OrderOutbox outbox) {
+        em.persist(outbox);
+    }
+
+    /**
+     * 재발행용 커서 조회 - afterId 다음부터 id 순서로 limit 만큼
+     */
+    public List<OrderOutbox> findAfter(long afterId, int limit) {
+        return em.createQuery("select o from OrderOutbox o where o.id > :afterId order by o.id", OrderOutbox.class)
+                .setParameter("afterId", afterId)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * 처리 완료된 이벤트 삭제 (벌크)
+     */
+    public int deleteByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createQuery("delete from OrderOutbox o where o.id in :ids")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+}
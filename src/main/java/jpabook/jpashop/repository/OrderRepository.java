@@ -13,6 +13,14 @@ import javax.persistence.criteria.*;
 import java.util.ArrayList;
 import java.util.List;
 
+import static jpabook.jpashop.repository.ReadOnlyQueries.readOnly;
+
+/*
+ * 목록 조회는 ...ReadOnly 변형을 함께 둔다. 조회 화면/API는 ReadOnly 를 쓰고, 수정할 주문은 findOne 으로 가져온다.
+ *
+ * 엔티티 조회는 hot 테이블(orders)만 대상으로 한다. 아카이브된 주문은 엔티티가 없으므로
+ * 아카이브 포함 조회는 DTO 조회(OrderQueryRepository.findMemberOrders, OrderJdbcQueryRepository.findOrders)의 includeArchive 를 사용한다.
+ */
 @Repository
 @RequiredArgsConstructor
 public class OrderRepository {
@@ -44,6 +52,14 @@ public class OrderRepository {
         }
 
     public List<Order> findAllByString(OrderSearch orderSearch) {
+        return queryByString(orderSearch).getResultList();
+    }
+
+    public List<Order> findAllByStringReadOnly(OrderSearch orderSearch) {
+        return readOnly(queryByString(orderSearch)).getResultList();
+    }
+
+    private TypedQuery<Order> queryByString(OrderSearch orderSearch) {
         //language=JPAQL
         String jpql = "select o From Order o join o.member m";
         boolean isFirstCondition = true;
@@ -75,7 +91,7 @@ public class OrderRepository {
         if (StringUtils.hasText(orderSearch.getMemberName())) {
             query = query.setParameter("name", orderSearch.getMemberName());
         }
-        return query.getResultList();
+        return query;
     }
 
     /**
@@ -84,6 +100,14 @@ public class OrderRepository {
      * @return
      */
     public List<Order> findAllByCriteria(OrderSearch orderSearch) {
+        return queryByCriteria(orderSearch).getResultList();
+    }
+
+    public List<Order> findAllByCriteriaReadOnly(OrderSearch orderSearch) {
+        return readOnly(queryByCriteria(orderSearch)).getResultList();
+    }
+
+    private TypedQuery<Order> queryByCriteria(OrderSearch orderSearch) {
         CriteriaBuilder cb = em.getCriteriaBuilder();
         CriteriaQuery<Order> cq = cb.createQuery(Order.class);
         Root<Order> o = cq.from(Order.class);
@@ -106,8 +130,7 @@ public class OrderRepository {
         }
 
         cq.where(cb.and(criteria.toArray(new Predicate[criteria.size()])));
-        TypedQuery<Order> query = em.createQuery(cq).setMaxResults(1000); //최대 1000건
-        return query.getResultList();
+        return em.createQuery(cq).setMaxResults(1000); //최대 1000건
     }
 
     /*
@@ -115,29 +138,47 @@ public class OrderRepository {
      * 단점으로는 셀렉 쿼리 날릴때 전부 가져오게 됨.
      */
     public List<Order> findAllWithMemberDelivery() {
-        return em.createQuery("select o from Order o" +
-                " join fetch o.member m" +
-                " join fetch o.delivery d", Order.class
-        ).getResultList();
+        return queryWithMemberDelivery().getResultList();
     }
 
+    public List<Order> findAllWithMemberDeliveryReadOnly() {
+        return readOnly(queryWithMemberDelivery()).getResultList();
+    }
 
     public List<Order> findAllWithItem() {
-        return em.createQuery(
-                "select distinct o from Order o"
-                        + " join fetch o.member m"
-                        + " join fetch o.delivery d"
-                        + " join fetch o.orderItems oi"
-                        + " join fetch oi.item i", Order.class)
-                .getResultList();
+        return queryWithItem().getResultList();
+    }
+
+    public List<Order> findAllWithItemReadOnly() {
+        return readOnly(queryWithItem()).getResultList();
     }
 
     public List<Order> findAllWithMemberDelivery(int offset, int limit) {
-        return em.createQuery("select o from Order o" +
-                " join fetch o.member m" +
-                " join fetch o.delivery d", Order.class)
+        return queryWithMemberDelivery()
                 .setFirstResult(offset)
                 .setMaxResults(limit)
                 .getResultList();
     }
+
+    public List<Order> findAllWithMemberDeliveryReadOnly(int offset, int limit) {
+        return readOnly(queryWithMemberDelivery())
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private TypedQuery<Order> queryWithMemberDelivery() {
+        return em.createQuery("select o from Order o" +
+                " join fetch o.member m" +
+                " join fetch o.delivery d", Order.class);
+    }
+
+    private TypedQuery<Order> queryWithItem() {
+        return em.createQuery(
+                "select distinct o from Order o"
+                        + " join fetch o.member m"
+                        + " join fetch o.delivery d"
+                        + " join fetch o.orderItems oi"
+                        + " join fetch oi.item i", Order.class);
+    }
 }
@@ -9,5 +9,5 @@ public class OrderSearch {
 
     private String memberName; // 회원 이름
     private OrderStatus orderStatus; // 주문 상태[ORDER, CANCEL]
-    
+
 }
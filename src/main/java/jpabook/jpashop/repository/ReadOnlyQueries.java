@@ -0,0 +1,27 @@
+package jpabook.jpashop.repository;
+
+import org.hibernate.FlushMode;
+import org.hibernate.annotations.QueryHints;
+
+import javax.persistence.TypedQuery;
+
+/**
+ * 읽기 전용 조회 힌트
+ *
+ * - org.hibernate.readOnly : 조회한 엔티티(페치 조인 포함)의 변경감지용 스냅샷을 만들지 않고 flush 대상에서도 빠진다.
+ * - org.hibernate.flushMode=MANUAL : 조회 전에 영속성 컨텍스트를 flush 하지 않는다.
+ *
+ * 조회 이후 지연로딩으로 올라오는 연관 엔티티는 힌트의 대상이 아니다.
+ * 그런 화면은 @Transactional(readOnly = true) 안에서 조회해야 세션 전체가 읽기 전용이 된다. (HibernateJpaDialect)
+ * 읽기 전용 엔티티는 값을 바꿔도 DB에 반영되지 않으므로 수정할 엔티티는 일반 조회 메소드로 가져온다.
+ */
+public final class ReadOnlyQueries {
+
+    private ReadOnlyQueries() {
+    }
+
+    public static <T> TypedQuery<T> readOnly(TypedQuery<T> query) {
+        return query.setHint(QueryHints.READ_ONLY, true)
+                .setHint(QueryHints.FLUSH_MODE, FlushMode.MANUAL);
+    }
+}
@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Getter;
+
+/**
+ * 카탈로그 - 앨범 전용 컬럼만 추가로 조회한다.
+ */
+@Getter
+public class AlbumCatalogDto extends CatalogItemDto {
+
+    private String artist;
+    private String etc;
+
+    public AlbumCatalogDto(Long id, String name, int price, int stockQuantity, String artist, String etc) {
+        super(id, CatalogItemType.ALBUM, name, price, stockQuantity);
+        this.artist = artist;
+        this.etc = etc;
+    }
+}
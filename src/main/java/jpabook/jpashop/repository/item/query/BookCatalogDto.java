@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Getter;
+
+/**
+ * 카탈로그 - 책 전용 컬럼만 추가로 조회한다.
+ */
+@Getter
+public class BookCatalogDto extends CatalogItemDto {
+
+    private String author;
+    private String isbn;
+
+    public BookCatalogDto(Long id, String name, int price, int stockQuantity, String author, String isbn) {
+        super(id, CatalogItemType.BOOK, name, price, stockQuantity);
+        this.author = author;
+        this.isbn = isbn;
+    }
+}
@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Getter;
+
+/**
+ * 카탈로그 공통 컬럼 - 종류 없이 전체 검색할 때는 하위 타입 컬럼을 조회하지 않는다.
+ */
+@Getter
+public class CatalogItemDto {
+
+    private Long id;
+    private CatalogItemType type;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    /**
+     * 전체 검색 - type(i)는 dtype 값에 해당하는 엔티티 클래스로 조회된다.
+     */
+    public CatalogItemDto(Long id, Class<?> entityClass, String name, int price, int stockQuantity) {
+        this(id, CatalogItemType.of(entityClass), name, price, stockQuantity);
+    }
+
+    protected CatalogItemDto(Long id, CatalogItemType type, String name, int price, int stockQuantity) {
+        this.id = id;
+        this.type = type;
+        this.name = name;
+        this.price = price;
+        this.stockQuantity = stockQuantity;
+    }
+}
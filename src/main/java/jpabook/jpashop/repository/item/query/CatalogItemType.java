@@ -0,0 +1,31 @@
+package jpabook.jpashop.repository.item.query;
+
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+
+/**
+ * 상품 종류 (item.dtype)
+ */
+public enum CatalogItemType {
+
+    BOOK(Book.class),
+    ALBUM(Album.class),
+    MOVIE(Movie.class);
+
+    private final Class<? extends Item> entityClass;
+
+    CatalogItemType(Class<? extends Item> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public static CatalogItemType of(Class<?> entityClass) {
+        for (CatalogItemType type : values()) {
+            if (type.entityClass.equals(entityClass)) {
+                return type;
+            }
+        }
+        throw new IllegalArgumentException("unknown item type : " + entityClass);
+    }
+}
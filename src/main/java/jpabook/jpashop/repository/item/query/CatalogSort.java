@@ -0,0 +1,10 @@
+package jpabook.jpashop.repository.item.query;
+
+/**
+ * 카탈로그 정렬 - 모두 item_id로 동률을 끊어서 키셋 페이징이 가능하다.
+ */
+public enum CatalogSort {
+    NEWEST,     // item_id desc
+    PRICE_ASC,  // price asc, item_id asc
+    PRICE_DESC  // price desc, item_id desc
+}
@@ -0,0 +1,99 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * 상품 카탈로그 검색 (키셋 페이징)
+ * - 종류를 지정하면 해당 하위 타입 컬럼만 DTO로 조회한다. (Book 목록에 artist, director 컬럼이 없다)
+ * - 하위 엔티티로 조회하면 dtype 조건은 하이버네이트가 붙인다.
+ * - 인덱스 : item (dtype, price, stock_quantity), item (price, stock_quantity) - V4 migration
+ */
+@Repository
+@RequiredArgsConstructor
+public class ItemCatalogRepository {
+
+    private final EntityManager em;
+
+    public List<? extends CatalogItemDto> search(ItemCatalogSearch search, int limit) {
+        CatalogItemType type = search.getType();
+        String jpql;
+        Class<? extends CatalogItemDto> resultClass;
+        if (type == null) {
+            jpql = "select new jpabook.jpashop.repository.item.query.CatalogItemDto(i.id, type(i), i.name, i.price, i.stockQuantity)"
+                    + " from Item i";
+            resultClass = CatalogItemDto.class;
+        } else if (type == CatalogItemType.BOOK) {
+            jpql = "select new jpabook.jpashop.repository.item.query.BookCatalogDto(i.id, i.name, i.price, i.stockQuantity, i.author, i.isbn)"
+                    + " from Book i";
+            resultClass = BookCatalogDto.class;
+        } else if (type == CatalogItemType.ALBUM) {
+            jpql = "select new jpabook.jpashop.repository.item.query.AlbumCatalogDto(i.id, i.name, i.price, i.stockQuantity, i.artist, i.etc)"
+                    + " from Album i";
+            resultClass = AlbumCatalogDto.class;
+        } else {
+            jpql = "select new jpabook.jpashop.repository.item.query.MovieCatalogDto(i.id, i.name, i.price, i.stockQuantity, i.director, i.actor)"
+                    + " from Movie i";
+            resultClass = MovieCatalogDto.class;
+        }
+        return query(jpql, resultClass, search, limit).getResultList();
+    }
+
+    private <T> TypedQuery<T> query(String select, Class<T> resultClass, ItemCatalogSearch search, int limit) {
+        CatalogSort sort = search.getSort() == null ? CatalogSort.NEWEST : search.getSort();
+        boolean keyset = search.getLastId() != null;
+
+        StringBuilder jpql = new StringBuilder(select).append(" where 1 = 1");
+        if (search.getMinPrice() != null) {
+            jpql.append(" and i.price >= :minPrice");
+        }
+        if (search.getMaxPrice() != null) {
+            jpql.append(" and i.price <= :maxPrice");
+        }
+        if (search.isInStock()) {
+            jpql.append(" and i.stockQuantity > 0");
+        }
+        if (keyset) {
+            switch (sort) {
+                case PRICE_ASC:
+                    jpql.append(" and (i.price > :lastPrice or (i.price = :lastPrice and i.id > :lastId))");
+                    break;
+                case PRICE_DESC:
+                    jpql.append(" and (i.price < :lastPrice or (i.price = :lastPrice and i.id < :lastId))");
+                    break;
+                default:
+                    jpql.append(" and i.id < :lastId");
+            }
+        }
+        switch (sort) {
+            case PRICE_ASC:
+                jpql.append(" order by i.price asc, i.id asc");
+                break;
+            case PRICE_DESC:
+                jpql.append(" order by i.price desc, i.id desc");
+                break;
+            default:
+                jpql.append(" order by i.id desc");
+        }
+
+        TypedQuery<T> query = em.createQuery(jpql.toString(), resultClass)
+                .setMaxResults(limit);
+        if (search.getMinPrice() != null) {
+            query.setParameter("minPrice", search.getMinPrice());
+        }
+        if (search.getMaxPrice() != null) {
+            query.setParameter("maxPrice", search.getMaxPrice());
+        }
+        if (keyset) {
+            query.setParameter("lastId", search.getLastId());
+            if (sort != CatalogSort.NEWEST) {
+                query.setParameter("lastPrice", search.getLastPrice());
+            }
+        }
+        return query;
+    }
+}
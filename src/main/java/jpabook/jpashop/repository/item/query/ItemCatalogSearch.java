@@ -0,0 +1,28 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * 상품 카탈로그 검색 조건
+ * - 다음 페이지는 이전 페이지 응답의 lastId, lastPrice를 그대로 넘긴다.
+ */
+@Getter @Setter
+public class ItemCatalogSearch {
+
+    private CatalogItemType type;   // 상품 종류 (없으면 전체)
+    private Integer minPrice;       // 최소 가격 (포함)
+    private Integer maxPrice;       // 최대 가격 (포함)
+    private boolean inStock;        // 재고 있는 상품만
+    private CatalogSort sort = CatalogSort.NEWEST;
+
+    private Long lastId;            // 키셋 커서
+    private Integer lastPrice;      // 가격 정렬일 때 키셋 커서
+
+    /**
+     * 가격 정렬인데 커서가 한쪽만 있는지 (그대로 두면 조용히 첫 페이지가 나간다)
+     */
+    public boolean hasPartialCursor() {
+        return sort != null && sort != CatalogSort.NEWEST && (lastId == null) != (lastPrice == null);
+    }
+}
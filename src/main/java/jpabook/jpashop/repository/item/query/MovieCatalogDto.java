@@ -0,0 +1,19 @@
+package jpabook.jpashop.repository.item.query;
+
+import lombok.Getter;
+
+/**
+ * 카탈로그 - 영화 전용 컬럼만 추가로 조회한다.
+ */
+@Getter
+public class MovieCatalogDto extends CatalogItemDto {
+
+    private String director;
+    private String actor;
+
+    public MovieCatalogDto(Long id, String name, int price, int stockQuantity, String director, String actor) {
+        super(id, CatalogItemType.MOVIE, name, price, stockQuantity);
+        this.director = director;
+        this.actor = actor;
+    }
+}
@@ -0,0 +1,23 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 회원별 주문 이력, orders 테이블 인덱스(member_id, order_date, status)만으로 조회된다.
+ */
+@Data
+public class MemberOrderQueryDto {
+
+    private Long orderId;
+    private LocalDateTime orderDate;
+    private OrderStatus orderStatus;
+
+    public MemberOrderQueryDto(Long orderId, LocalDateTime orderDate, OrderStatus orderStatus) {
+        this.orderId = orderId;
+        this.orderDate = orderDate;
+        this.orderStatus = orderStatus;
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.repository.InListPadding;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+
+/*
+ * 주문 팩트(주문상품 한 행) 조회 - 분석용 팩트 저장소(OrderFactStore)를 채울 때만 쓴다.
+ * 컬럼 순서 : order_id, member_id, order_date, status, item_id, order_price, count
+ * row를 모으지 않고 RowCallbackHandler로 바로 넘긴다.
+ */
+@Repository
+public class OrderFactJdbcRepository {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String SELECT_FACTS = "select o.order_id, o.member_id, o.order_date, o.status,"
+            + " oi.item_id, oi.order_price, oi.count"
+            + " from orders o"
+            + " join order_item oi on oi.order_id = o.order_id";
+
+    private static final String SELECT_ARCHIVED_FACTS = "select o.order_id, o.member_id, o.order_date, o.status,"
+            + " oi.item_id, oi.order_price, oi.count"
+            + " from orders_archive o"
+            + " join order_item_archive oi on oi.order_id = o.order_id";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public OrderFactJdbcRepository(DataSource dataSource) {
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.jdbcTemplate.getJdbcTemplate().setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * 아카이브를 포함한 전체 주문상품 (order_id 순 - 주문일 순서와 거의 같아서 저장소의 주문일 범위가 좁게 잡힌다)
+     */
+    public void forEachFact(RowCallbackHandler handler) {
+        jdbcTemplate.getJdbcTemplate().query(SELECT_FACTS + " union all " + SELECT_ARCHIVED_FACTS + " order by 1", handler);
+    }
+
+    /**
+     * 주문 id로 조회 (주문 이벤트 반영용, 아카이브 제외)
+     */
+    public void forEachFact(Collection<Long> orderIds, RowCallbackHandler handler) {
+        if (orderIds.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.query(SELECT_FACTS + " where o.order_id in (:orderIds) order by 1",
+                new MapSqlParameterSource("orderIds", InListPadding.pad(orderIds)), handler);
+    }
+}
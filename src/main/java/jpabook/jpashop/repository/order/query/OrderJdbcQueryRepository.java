@@ -0,0 +1,119 @@
+package jpabook.jpashop.repository.order.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.OrderSearch;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * JdbcTemplate 직접 조회 (v7)
+ * - 주문 + 주문상품을 SQL 한번으로 가져오고, order_id 순으로 정렬된 row를 읽으면서 바로 DTO로 묶는다.
+ * - JPQL 파싱, 생성자 표현식(리플렉션), 영속성 컨텍스트, 중복 제거용 Map을 모두 거치지 않는다.
+ * - 컬럼은 이름 대신 인덱스로 읽는다. (SELECT 컬럼 순서를 바꾸면 COLUMN 상수도 같이 바꿔야 한다.)
+ */
+@Repository
+public class OrderJdbcQueryRepository {
+
+    private static final int FETCH_SIZE = 500; // 드라이버 기본값(H2 tcp 100)보다 크게 잡아 왕복 횟수를 줄인다.
+
+    private static final String SELECT_ORDERS = "select o.order_id, m.name, o.order_date, o.status,"
+            + " d.city, d.street, d.zipcode,"
+            + " i.name, oi.order_price, oi.count"
+            + " from orders o"
+            + " join member m on m.member_id = o.member_id"
+            + " join delivery d on d.delivery_id = o.delivery_id"
+            + " join order_item oi on oi.order_id = o.order_id"
+            + " join item i on i.item_id = oi.item_id";
+
+    private static final String SELECT_ARCHIVED_ORDERS = "select o.order_id, m.name, o.order_date, o.status,"
+            + " d.city, d.street, d.zipcode,"
+            + " i.name, oi.order_price, oi.count"
+            + " from orders_archive o"
+            + " join member m on m.member_id = o.member_id"
+            + " join delivery_archive d on d.delivery_id = o.delivery_id"
+            + " join order_item_archive oi on oi.order_id = o.order_id"
+            + " join item i on i.item_id = oi.item_id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderJdbcQueryRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    /**
+     * OrderSearch 조건은 findAllByCriteria와 같다. (상태 일치, 회원 이름 포함)
+     */
+    public List<OrderQueryDto> findOrders(OrderSearch orderSearch) {
+        return findOrders(orderSearch, false);
+    }
+
+    /**
+     * includeArchive=true 면 아카이브 테이블에 같은 조건을 걸어 union all 한다. (order_id는 같은 시퀀스라 겹치지 않는다)
+     */
+    public List<OrderQueryDto> findOrders(OrderSearch orderSearch, boolean includeArchive) {
+        List<Object> args = new ArrayList<>();
+        String where = where(orderSearch, args);
+        StringBuilder sql = new StringBuilder(SELECT_ORDERS).append(where);
+        if (includeArchive) {
+            sql.append(" union all ").append(SELECT_ARCHIVED_ORDERS).append(where);
+            args.addAll(new ArrayList<>(args));
+        }
+        sql.append(" order by 1");
+
+        OrderRowCallbackHandler handler = new OrderRowCallbackHandler();
+        jdbcTemplate.query(sql.toString(), handler, args.toArray());
+        return handler.orders;
+    }
+
+    private String where(OrderSearch orderSearch, List<Object> args) {
+        StringBuilder sql = new StringBuilder();
+        String where = " where";
+        if (orderSearch.getOrderStatus() != null) {
+            sql.append(where).append(" o.status = ?");
+            args.add(orderSearch.getOrderStatus().name());
+            where = " and";
+        }
+        if (StringUtils.hasText(orderSearch.getMemberName())) {
+            sql.append(where).append(" m.name like ?");
+            args.add("%" + orderSearch.getMemberName() + "%");
+        }
+        return sql.toString();
+    }
+
+    /**
+     * 같은 order_id row가 연속으로 오므로 직전 주문과 id가 다를 때만 새 주문을 만든다.
+     */
+    private static class OrderRowCallbackHandler implements RowCallbackHandler {
+
+        private final List<OrderQueryDto> orders = new ArrayList<>();
+        private OrderQueryDto current;
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            long orderId = rs.getLong(1);
+            if (current == null || current.getOrderId() != orderId) {
+                Timestamp orderDate = rs.getTimestamp(3);
+                String status = rs.getString(4);
+                current = new OrderQueryDto(orderId,
+                        rs.getString(2),
+                        orderDate == null ? null : orderDate.toLocalDateTime(),
+                        status == null ? null : OrderStatus.valueOf(status),
+                        new Address(rs.getString(5), rs.getString(6), rs.getString(7)),
+                        new ArrayList<>());
+                orders.add(current);
+            }
+            current.getOrderItems().add(new OrderItemQueryDto(orderId, rs.getString(8), rs.getInt(9), rs.getInt(10)));
+        }
+    }
+}
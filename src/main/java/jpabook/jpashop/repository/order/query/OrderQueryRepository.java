@@ -1,21 +1,39 @@
 package jpabook.jpashop.repository.order.query;
 
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.sharding.ShardedOrderQueryRepository;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.annotations.QueryHints;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderQueryRepository {
 
+    private static final int STREAM_FETCH_SIZE = 500;
+
     private final EntityManager em;
+    private final ObjectProvider<ShardedOrderQueryRepository> sharded; // 샤딩이면 메인 DB + 전체 샤드 조회로 대신한다.
 
     // N + 1문제가 발생함.
     public List<OrderQueryDto> findOrderQueryDtos() {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findOrderQueryDtos();
+        }
         List<OrderQueryDto> result = findOrders(); // query 1번 -> N개가 나오는데
 
         result.stream().forEach(o -> {
@@ -46,6 +64,10 @@ public class OrderQueryRepository {
     }
 
     public List<OrderQueryDto> findAllByDto_optimization() {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findOrderQueryDtos();
+        }
         List<OrderQueryDto> result = findOrders();
         List<Long> orderIds = result.stream()
                 .map(o -> o.getOrderId())
@@ -70,13 +92,117 @@ public class OrderQueryRepository {
     }
 
     public List<OrderFlatDto> findAllByDto_flat() {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findOrderFlatDtos();
+        }
         return em.createQuery(
                 "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)"
                             + " from Order o"
                             + " join o.member m"
                             + " join o.delivery d"
                             + " join o.orderItems oi"
-                            + " join oi.item i", OrderFlatDto.class)
+                            + " join oi.item i"
+                            + " order by o.id, oi.id", OrderFlatDto.class)
                 .getResultList();
     }
+
+    /**
+     * findAllByDto_flat 스트리밍 버전 (리포트/내보내기용)
+     * - 결과를 리스트로 모으지 않고 커서로 읽는다. 스트림은 트랜잭션 안에서 소비하고 닫아야 한다.
+     */
+    public Stream<OrderFlatDto> streamAllByDto_flat() {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.streamOrderFlatDtos();
+        }
+        return em.createQuery(
+                "select new jpabook.jpashop.repository.order.query.OrderFlatDto(o.id, m.name, o.orderDate, o.status, d.address, i.name, oi.orderPrice, oi.count)"
+                            + " from Order o"
+                            + " join o.member m"
+                            + " join o.delivery d"
+                            + " join o.orderItems oi"
+                            + " join oi.item i", OrderFlatDto.class)
+                .setHint(QueryHints.FETCH_SIZE, STREAM_FETCH_SIZE)
+                .getResultStream();
+    }
+
+    /**
+     * 회원별 주문 이력 - 키셋 페이징 (order_date desc, order_id desc)
+     * - 첫 페이지는 lastOrderDate, lastOrderId 없이 조회하고, 다음 페이지는 이전 페이지 마지막 주문을 넘긴다.
+     * - o.member.id는 FK 컬럼이라 member 테이블과 조인하지 않는다.
+     */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId, int limit) {
+        return findMemberOrders(memberId, lastOrderDate, lastOrderId, limit, false);
+    }
+
+    /**
+     * includeArchive=true 면 아카이브(orders_archive)도 같은 키셋 조건으로 limit 만큼 읽어서 합친다.
+     * 두 결과가 각각 정렬되어 있으므로 합쳐서 다시 정렬한 뒤 앞에서 limit 개만 쓴다.
+     */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId, int limit,
+                                                      boolean includeArchive) {
+        List<MemberOrderQueryDto> orders = findCurrentMemberOrders(memberId, lastOrderDate, lastOrderId, limit);
+        if (!includeArchive) {
+            return orders;
+        }
+
+        List<MemberOrderQueryDto> merged = new ArrayList<>(orders);
+        merged.addAll(findArchivedMemberOrders(memberId, lastOrderDate, lastOrderId, limit));
+        merged.sort(Comparator.comparing(MemberOrderQueryDto::getOrderDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+                .thenComparing(MemberOrderQueryDto::getOrderId)
+                .reversed());
+        return merged.size() > limit ? merged.subList(0, limit) : merged;
+    }
+
+    /**
+     * 샤딩이면 회원 샤드와 메인 DB(샤딩 전 주문)만 조회한다.
+     */
+    private List<MemberOrderQueryDto> findCurrentMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId, int limit) {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findMemberOrders(memberId, lastOrderDate, lastOrderId, limit);
+        }
+        boolean keyset = lastOrderDate != null && lastOrderId != null;
+        String jpql = "select new jpabook.jpashop.repository.order.query.MemberOrderQueryDto(o.id, o.orderDate, o.status)"
+                + " from Order o"
+                + " where o.member.id = :memberId";
+        if (keyset) {
+            jpql += " and (o.orderDate < :lastOrderDate"
+                    + " or (o.orderDate = :lastOrderDate and o.id < :lastOrderId))";
+        }
+        TypedQuery<MemberOrderQueryDto> query = em.createQuery(jpql + " order by o.orderDate desc, o.id desc", MemberOrderQueryDto.class)
+                .setParameter("memberId", memberId)
+                .setMaxResults(limit);
+        if (keyset) {
+            query.setParameter("lastOrderDate", lastOrderDate)
+                    .setParameter("lastOrderId", lastOrderId);
+        }
+        return query.getResultList();
+    }
+
+    private List<MemberOrderQueryDto> findArchivedMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId, int limit) {
+        boolean keyset = lastOrderDate != null && lastOrderId != null;
+        String sql = "select o.order_id, o.order_date, o.status from orders_archive o"
+                + " where o.member_id = :memberId";
+        if (keyset) {
+            sql += " and (o.order_date < :lastOrderDate"
+                    + " or (o.order_date = :lastOrderDate and o.order_id < :lastOrderId))";
+        }
+        Query query = em.createNativeQuery(sql + " order by o.order_date desc, o.order_id desc")
+                .setParameter("memberId", memberId)
+                .setMaxResults(limit);
+        if (keyset) {
+            query.setParameter("lastOrderDate", lastOrderDate)
+                    .setParameter("lastOrderId", lastOrderId);
+        }
+        List<MemberOrderQueryDto> orders = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            orders.add(new MemberOrderQueryDto(((Number) columns[0]).longValue(),
+                    columns[1] == null ? null : ((Timestamp) columns[1]).toLocalDateTime(),
+                    columns[2] == null ? null : OrderStatus.valueOf((String) columns[2])));
+        }
+        return orders;
+    }
 }
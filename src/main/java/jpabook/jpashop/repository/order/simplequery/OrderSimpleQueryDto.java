@@ -1,5 +1,6 @@
 package jpabook.jpashop.repository.order.simplequery;
 
+import jpabook.jpashop.coalescing.Copyable;
 import jpabook.jpashop.domain.Address;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderStatus;
@@ -7,8 +8,12 @@ import lombok.Data;
 
 import java.time.LocalDateTime;
 
+/**
+ * 주문 목록(v4), 주문 피드 모델
+ * - 목록 조회는 동시 요청끼리 합쳐지므로(@Coalesced) 호출자마다 복사본을 받는다.
+ */
 @Data
-public class OrderSimpleQueryDto {
+public class OrderSimpleQueryDto implements Copyable<OrderSimpleQueryDto> {
     private Long orderId;
     private String name;
     private LocalDateTime orderDate;
@@ -30,4 +35,10 @@ public class OrderSimpleQueryDto {
         this.orderStatus = orderStatus;
         this.address = address; //LAZY
     }
+
+    @Override
+    public OrderSimpleQueryDto copy() {
+        Address copied = address == null ? null : new Address(address.getCity(), address.getStreet(), address.getZipcode());
+        return new OrderSimpleQueryDto(orderId, name, orderDate, orderStatus, copied);
+    }
 }
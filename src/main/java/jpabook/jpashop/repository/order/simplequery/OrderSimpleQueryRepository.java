@@ -1,28 +1,94 @@
 package jpabook.jpashop.repository.order.simplequery;
 
+import jpabook.jpashop.coalescing.Coalesced;
+import jpabook.jpashop.sharding.ShardedOrderQueryRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Repository;
 
 import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Repository
 @RequiredArgsConstructor
 public class OrderSimpleQueryRepository {
 
     private final EntityManager em;
+    private final ObjectProvider<ShardedOrderQueryRepository> sharded; // 샤딩이면 메인 DB + 전체 샤드 조회로 대신한다.
 
     /*
      *  Dto를 통해 조회는 재사용이 힘듬(API Spec 맞춰짐.. )
      *  장점으로 셀렉 쿼리 날릴때 원하는 컬럼만 선택해서 조회 가능.
      * (생각보다 미비..)
+     * 동시에 들어온 요청은 조회 한번으로 합친다.
      * @return
      */
+    @Coalesced
     public List<OrderSimpleQueryDto> findOrderDtos() {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findOrderDtos();
+        }
         return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)"
                 + " from Order o"
                 + " join o.member m"
                 + " join o.delivery d", OrderSimpleQueryDto.class)
                 .getResultList();
     }
+
+    /**
+     * 주문 피드용 - 이벤트가 온 주문만 조회한다. (주문 id 순)
+     * 샤딩이면 샤딩 전 주문(메인 DB id)은 메인 DB 에서, 나머지는 샤드에서 조회한다.
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards == null) {
+            return findMainOrderDtos(orderIds);
+        }
+        List<Long> mainIds = orderIds.stream().filter(id -> !shards.isShardOrderId(id)).collect(Collectors.toList());
+        if (mainIds.isEmpty()) {
+            return shards.findOrderDtos(orderIds);
+        }
+        List<OrderSimpleQueryDto> result = new ArrayList<>(findMainOrderDtos(mainIds));
+        result.addAll(shards.findOrderDtos(orderIds));
+        result.sort(Comparator.comparing(OrderSimpleQueryDto::getOrderId));
+        return result;
+    }
+
+    private List<OrderSimpleQueryDto> findMainOrderDtos(Collection<Long> orderIds) {
+        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)"
+                + " from Order o"
+                + " join o.member m"
+                + " join o.delivery d"
+                + " where o.id in :orderIds"
+                + " order by o.id", OrderSimpleQueryDto.class)
+                .setParameter("orderIds", orderIds)
+                .getResultList();
+    }
+
+    /**
+     * 최근 주문 페이지 (주문일 desc, id desc)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(int offset, int limit) {
+        ShardedOrderQueryRepository shards = sharded.getIfAvailable();
+        if (shards != null) {
+            return shards.findOrderDtos(offset, limit);
+        }
+        return em.createQuery("select new jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto(o.id, m.name, o.orderDate, o.status, d.address)"
+                + " from Order o"
+                + " join o.member m"
+                + " join o.delivery d"
+                + " order by o.orderDate desc, o.id desc", OrderSimpleQueryDto.class)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
+                .getResultList();
+    }
 }
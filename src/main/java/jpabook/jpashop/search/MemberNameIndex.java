@@ -0,0 +1,317 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.repository.MemberJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 회원 이름 자동완성 인덱스 (이름 -> 회원 id, 메모리 radix tree)
+ *
+ * - 공통 접두어를 한 간선으로 합친 트리라서 노드 수가 이름 수 정도로 유지된다. 자식은 첫 글자 순으로 정렬된 배열이다.
+ * - 접두어 검색은 접두어 길이만큼 내려간 뒤 그 아래를 사전순으로 limit 개만 읽는다. (회원 수와 무관)
+ * - 모든 싱글톤이 만들어진 뒤(Flyway 마이그레이션 이후) DB 에서 한번 채우고,
+ *   가입/이름 변경/대량 등록은 커밋된 뒤에 반영한다. (롤백된 회원은 들어가지 않는다)
+ * - 대소문자를 구분하는 정확한 접두어 일치다.
+ */
+@Slf4j
+@Component
+public class MemberNameIndex implements SmartInitializingSingleton {
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final long[] NO_IDS = new long[0];
+
+    private final MemberJdbcRepository memberJdbcRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Node root = new Node("");
+    private int size; // lock 으로 보호
+
+    public MemberNameIndex(MemberJdbcRepository memberJdbcRepository) {
+        this.memberJdbcRepository = memberJdbcRepository;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        long started = System.currentTimeMillis();
+        memberJdbcRepository.forEachIdAndName(rs -> add(rs.getString(2), rs.getLong(1)));
+        log.info("회원 이름 인덱스 구성 members={} elapsed={}ms", size(), System.currentTimeMillis() - started);
+    }
+
+    /**
+     * prefix 로 시작하는 회원을 이름 사전순으로 limit 개까지
+     */
+    public List<MemberNameMatch> search(String prefix, int limit) {
+        if (!StringUtils.hasLength(prefix) || limit <= 0) {
+            return Collections.emptyList();
+        }
+        List<MemberNameMatch> matches = new ArrayList<>(Math.min(limit, 16));
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            StringBuilder path = new StringBuilder(prefix.length() + 16);
+            int pos = 0;
+            while (pos < prefix.length()) {
+                int index = findChild(node, prefix.charAt(pos));
+                if (index < 0) {
+                    return matches;
+                }
+                Node child = node.children[index];
+                int length = Math.min(child.label.length(), prefix.length() - pos);
+                if (!prefix.regionMatches(pos, child.label, 0, length)) {
+                    return matches;
+                }
+                path.append(child.label);
+                pos += length;
+                node = child;
+            }
+            collect(node, path, matches, limit);
+            return matches;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private static boolean collect(Node node, StringBuilder path, List<MemberNameMatch> matches, int limit) {
+        if (node.ids.length > 0) {
+            String name = path.toString();
+            for (long id : node.ids) {
+                matches.add(new MemberNameMatch(id, name));
+                if (matches.size() == limit) {
+                    return true;
+                }
+            }
+        }
+        for (Node child : node.children) {
+            int length = path.length();
+            path.append(child.label);
+            boolean full = collect(child, path, matches, limit);
+            path.setLength(length);
+            if (full) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void add(String name, long id) {
+        if (!StringUtils.hasLength(name)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            Node node = root;
+            int pos = 0;
+            while (pos < name.length()) {
+                int index = findChild(node, name.charAt(pos));
+                if (index < 0) {
+                    Node leaf = new Node(name.substring(pos));
+                    leaf.ids = new long[]{id};
+                    node.children = insertAt(node.children, -(index + 1), leaf);
+                    size++;
+                    return;
+                }
+                Node child = node.children[index];
+                int common = commonPrefix(child.label, name, pos);
+                if (common < child.label.length()) {
+                    // 간선 중간에서 갈라지면 공통 부분을 새 노드로 떼어낸다.
+                    Node split = new Node(child.label.substring(0, common));
+                    child.label = child.label.substring(common);
+                    split.children = new Node[]{child};
+                    node.children[index] = split;
+                    child = split;
+                }
+                node = child;
+                pos += common;
+            }
+            int index = Arrays.binarySearch(node.ids, id);
+            if (index < 0) {
+                node.ids = insertAt(node.ids, -(index + 1), id);
+                size++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(String name, long id) {
+        if (!StringUtils.hasLength(name)) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            List<Node> path = new ArrayList<>();
+            Node node = root;
+            int pos = 0;
+            while (pos < name.length()) {
+                int index = findChild(node, name.charAt(pos));
+                if (index < 0) {
+                    return;
+                }
+                Node child = node.children[index];
+                if (!name.startsWith(child.label, pos)) {
+                    return;
+                }
+                path.add(node);
+                node = child;
+                pos += child.label.length();
+            }
+            int index = Arrays.binarySearch(node.ids, id);
+            if (index < 0) {
+                return;
+            }
+            node.ids = removeAt(node.ids, index);
+            size--;
+
+            // 빈 노드는 떼어내고, 자식이 하나뿐인 빈 노드는 자식과 합쳐서 트리를 압축된 상태로 유지한다.
+            Node parent = path.get(path.size() - 1);
+            if (node.ids.length == 0 && node.children.length == 0) {
+                parent.children = removeAt(parent.children, findChild(parent, node.label.charAt(0)));
+                node = parent;
+            }
+            if (node != root && node.ids.length == 0 && node.children.length == 1) {
+                Node child = node.children[0];
+                node.label = node.label + child.label;
+                node.ids = child.ids;
+                node.children = child.children;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void rename(long id, String oldName, String newName) {
+        remove(oldName, id);
+        add(newName, id);
+    }
+
+    /**
+     * 현재 트랜잭션이 커밋되면 반영한다. (트랜잭션 밖이면 바로)
+     */
+    public void addAfterCommit(String name, long id) {
+        afterCommit(() -> add(name, id));
+    }
+
+    public void renameAfterCommit(long id, String oldName, String newName) {
+        afterCommit(() -> rename(id, oldName, newName));
+    }
+
+    /**
+     * 대량 등록 청크 - 이름으로 id 를 다시 읽어서 커밋 후에 반영한다.
+     */
+    public void addAllAfterCommit(List<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        List<MemberNameMatch> members = new ArrayList<>(names.size());
+        memberJdbcRepository.forEachIdAndName(names, rs -> members.add(new MemberNameMatch(rs.getLong(1), rs.getString(2))));
+        afterCommit(() -> members.forEach(member -> add(member.getName(), member.getId())));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private static int findChild(Node node, char first) {
+        Node[] children = node.children;
+        int low = 0;
+        int high = children.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char c = children[mid].label.charAt(0);
+            if (c < first) {
+                low = mid + 1;
+            } else if (c > first) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    private static int commonPrefix(String label, String name, int pos) {
+        int max = Math.min(label.length(), name.length() - pos);
+        int i = 0;
+        while (i < max && label.charAt(i) == name.charAt(pos + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static Node[] insertAt(Node[] array, int index, Node value) {
+        Node[] copy = new Node[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        copy[index] = value;
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        return copy;
+    }
+
+    private static long[] insertAt(long[] array, int index, long value) {
+        long[] copy = new long[array.length + 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        copy[index] = value;
+        System.arraycopy(array, index, copy, index + 1, array.length - index);
+        return copy;
+    }
+
+    private static Node[] removeAt(Node[] array, int index) {
+        if (array.length == 1) {
+            return NO_CHILDREN;
+        }
+        Node[] copy = new Node[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    private static long[] removeAt(long[] array, int index) {
+        if (array.length == 1) {
+            return NO_IDS;
+        }
+        long[] copy = new long[array.length - 1];
+        System.arraycopy(array, 0, copy, 0, index);
+        System.arraycopy(array, index + 1, copy, index, array.length - index - 1);
+        return copy;
+    }
+
+    /**
+     * label : 부모에서 이 노드로 오는 간선의 글자들, ids : 이름이 정확히 여기서 끝나는 회원 (정렬)
+     */
+    private static final class Node {
+        String label;
+        Node[] children = NO_CHILDREN;
+        long[] ids = NO_IDS;
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
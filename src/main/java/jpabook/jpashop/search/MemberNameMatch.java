@@ -0,0 +1,12 @@
+package jpabook.jpashop.search;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class MemberNameMatch {
+
+    private final long id;
+    private final String name;
+}
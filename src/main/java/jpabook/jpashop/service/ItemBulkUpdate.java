@@ -0,0 +1,21 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 상품 가격/재고 일괄 변경 한 건
+ * - price : 새 가격 (없으면 유지)
+ * - stockQuantity : 새 재고 (절대값) / stockDelta : 재고 증감 (상대값), 둘 중 하나만
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ItemBulkUpdate {
+
+    private Long itemId;
+    private Integer price;
+    private Integer stockQuantity;
+    private Integer stockDelta;
+}
@@ -0,0 +1,39 @@
+package jpabook.jpashop.service;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 상품 일괄 변경 결과
+ * - missing : 없는 상품 id
+ * - rejected : 재고가 음수가 되어 변경하지 않은 상품 id
+ * - id 목록은 앞에서부터 MAX_IDS 건까지만 담는다.
+ */
+@Data
+public class ItemBulkUpdateResult {
+
+    static final int MAX_IDS = 1000;
+
+    private long requested;
+    private long updated;
+    private long missing;
+    private long rejected;
+    private List<Long> missingIds = new ArrayList<>();
+    private List<Long> rejectedIds = new ArrayList<>();
+
+    void missing(Long itemId) {
+        missing++;
+        if (missingIds.size() < MAX_IDS) {
+            missingIds.add(itemId);
+        }
+    }
+
+    void rejected(Long itemId) {
+        rejected++;
+        if (rejectedIds.size() < MAX_IDS) {
+            rejectedIds.add(itemId);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemJdbcRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 상품 가격/재고 일괄 변경
+ *
+ * - chunkSize 건씩 트랜잭션 하나로 JDBC batch UPDATE 를 보낸다. (상품당 select + update 가 없다)
+ * - 청크 안에서는 상품 id 오름차순으로 갱신한다. 주문(ItemRepository.findAllForUpdate)과 같은 순서로 잠가야 교착되지 않는다.
+ * - 갱신되지 않은 건만 IN 조회로 확인해서 없는 상품(missing)과 재고 부족(rejected)을 나눈다.
+ * - 커밋 후 변경된 상품을 2차 캐시에서 내린다. 별도 트랜잭션이므로 호출한 쪽 영속성 컨텍스트에 이미 올라온
+ *   Item 은 갱신되지 않는다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemBulkUpdateService {
+
+    private final ItemJdbcRepository itemJdbcRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManagerFactory entityManagerFactory;
+
+    public ItemBulkUpdateResult update(List<ItemBulkUpdate> updates, int chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize는 1 이상이어야 합니다.");
+        }
+        validate(updates);
+
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        ItemBulkUpdateResult result = new ItemBulkUpdateResult();
+        result.setRequested(updates.size());
+        for (int from = 0; from < updates.size(); from += chunkSize) {
+            List<ItemBulkUpdate> chunk = new ArrayList<>(updates.subList(from, Math.min(updates.size(), from + chunkSize)));
+            chunk.sort(Comparator.comparing(ItemBulkUpdate::getItemId)); // 같은 상품끼리는 요청 순서 유지 (stable)
+            List<Long> updatedIds = chunkTransaction.execute(s -> updateChunk(chunk, result));
+            evict(updatedIds);
+        }
+        log.info("item bulk update requested={} updated={} missing={} rejected={}",
+                result.getRequested(), result.getUpdated(), result.getMissing(), result.getRejected());
+        return result;
+    }
+
+    private List<Long> updateChunk(List<ItemBulkUpdate> chunk, ItemBulkUpdateResult result) {
+        int[] counts = itemJdbcRepository.updatePriceAndStock(chunk);
+
+        List<Long> updatedIds = new ArrayList<>(chunk.size());
+        List<Long> notUpdated = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            if (counts[i] == 0) {
+                notUpdated.add(chunk.get(i).getItemId());
+            } else {
+                updatedIds.add(chunk.get(i).getItemId());
+            }
+        }
+        result.setUpdated(result.getUpdated() + updatedIds.size());
+
+        Set<Long> existing = itemJdbcRepository.findExistingIds(notUpdated);
+        for (Long itemId : notUpdated) {
+            if (existing.contains(itemId)) {
+                result.rejected(itemId);
+            } else {
+                result.missing(itemId);
+            }
+        }
+        return updatedIds;
+    }
+
+    private void evict(List<Long> itemIds) {
+        for (Long itemId : itemIds) {
+            entityManagerFactory.getCache().evict(Item.class, itemId);
+        }
+    }
+
+    private void validate(List<ItemBulkUpdate> updates) {
+        for (int i = 0; i < updates.size(); i++) {
+            ItemBulkUpdate update = updates.get(i);
+            if (update.getItemId() == null) {
+                throw new IllegalArgumentException("itemId가 없습니다. index=" + i);
+            }
+            if (update.getStockQuantity() != null && update.getStockDelta() != null) {
+                throw new IllegalArgumentException("stockQuantity, stockDelta 중 하나만 지정해야 합니다. itemId=" + update.getItemId());
+            }
+            if ((update.getPrice() != null && update.getPrice() < 0)
+                    || (update.getStockQuantity() != null && update.getStockQuantity() < 0)) {
+                throw new IllegalArgumentException("가격, 재고는 0 이상이어야 합니다. itemId=" + update.getItemId());
+            }
+        }
+    }
+}
@@ -28,6 +28,9 @@ public class ItemService {
         findItem.setStockQuantity(param.getStockQuantity());
     }
 
+    /**
+     * 엔티티를 돌려주므로 읽기 전용 조회를 쓰지 않는다. (OSIV 에서 이후 변경이 flush 되지 않는 문제) 목록 화면은 ItemQueryService
+     */
     public List<Item> findItems() {
         return itemRepository.findAll();
     }
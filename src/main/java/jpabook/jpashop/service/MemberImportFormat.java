@@ -0,0 +1,155 @@
+package jpabook.jpashop.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 등록 입력 형식 - 한 줄씩 파싱한다. (여러 줄에 걸친 값은 지원하지 않는다)
+ */
+public enum MemberImportFormat {
+
+    /**
+     * 첫 줄은 헤더(name,city,street,zipcode)이고 순서는 자유, 쉼표가 들어간 값은 "..." 로 감싸고 " 는 "" 로 쓴다.
+     */
+    CSV("text/csv") {
+        @Override
+        Parser parser() {
+            return new CsvParser();
+        }
+    },
+    NDJSON("application/x-ndjson") {
+        @Override
+        Parser parser() {
+            return new NdjsonParser();
+        }
+    };
+
+    private final String mediaType;
+
+    MemberImportFormat(String mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public static MemberImportFormat of(String contentType) {
+        for (MemberImportFormat format : values()) {
+            if (contentType != null && contentType.toLowerCase().startsWith(format.mediaType)) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException("지원하지 않는 형식입니다. (text/csv, application/x-ndjson) contentType=" + contentType);
+    }
+
+    abstract Parser parser();
+
+    interface Parser {
+
+        /**
+         * 데이터 줄이 아니면(헤더, 빈 줄) null, 형식 오류면 IllegalArgumentException
+         */
+        MemberImportRow parse(String line, long lineNumber);
+    }
+
+    static class CsvParser implements Parser {
+
+        private int name = -1, city = -1, street = -1, zipcode = -1;
+        private boolean header = true;
+
+        @Override
+        public MemberImportRow parse(String line, long lineNumber) {
+            if (line.trim().isEmpty()) {
+                return null;
+            }
+            List<String> fields = split(line);
+            if (header) {
+                readHeader(fields);
+                header = false;
+                return null;
+            }
+            return new MemberImportRow(lineNumber, field(fields, name), field(fields, city),
+                    field(fields, street), field(fields, zipcode));
+        }
+
+        private void readHeader(List<String> fields) {
+            for (int i = 0; i < fields.size(); i++) {
+                switch (fields.get(i).trim().toLowerCase()) {
+                    case "name": name = i; break;
+                    case "city": city = i; break;
+                    case "street": street = i; break;
+                    case "zipcode": zipcode = i; break;
+                    default:
+                }
+            }
+            if (name < 0) {
+                throw new IllegalArgumentException("CSV 헤더에 name 컬럼이 없습니다.");
+            }
+        }
+
+        private String field(List<String> fields, int index) {
+            if (index < 0 || index >= fields.size()) {
+                return null;
+            }
+            String value = fields.get(index).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        static List<String> split(String line) {
+            List<String> fields = new ArrayList<>();
+            StringBuilder field = new StringBuilder();
+            boolean quoted = false;
+            for (int i = 0; i < line.length(); i++) {
+                char c = line.charAt(i);
+                if (quoted) {
+                    if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else if (c == '"') {
+                        quoted = false;
+                    } else {
+                        field.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(field.toString());
+                    field.setLength(0);
+                } else {
+                    field.append(c);
+                }
+            }
+            if (quoted) {
+                throw new IllegalArgumentException("닫히지 않은 따옴표가 있습니다.");
+            }
+            fields.add(field.toString());
+            return fields;
+        }
+    }
+
+    static class NdjsonParser implements Parser {
+
+        private static final ObjectMapper MAPPER = new ObjectMapper()
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+        @Override
+        public MemberImportRow parse(String line, long lineNumber) {
+            if (line.trim().isEmpty()) {
+                return null;
+            }
+            MemberImportRow row;
+            try {
+                row = MAPPER.readValue(line, MemberImportRow.class);
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("JSON 형식 오류 : " + e.getOriginalMessage());
+            }
+            row.setLine(lineNumber);
+            return row;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 회원 대량 등록 결과
+ * - errors 는 앞에서부터 MAX_ERRORS 건까지만 담고, 전체 건수는 errorCount 로 센다.
+ */
+@Data
+public class MemberImportResult {
+
+    static final int MAX_ERRORS = 1000;
+
+    private long total;
+    private long imported;
+    private long errorCount;
+    private List<RowError> errors = new ArrayList<>();
+
+    void error(long line, String name, String reason) {
+        errorCount++;
+        if (errors.size() < MAX_ERRORS) {
+            errors.add(new RowError(line, name, reason));
+        }
+    }
+
+    @Data
+    @AllArgsConstructor
+    public static class RowError {
+        private long line;
+        private String name;
+        private String reason;
+    }
+}
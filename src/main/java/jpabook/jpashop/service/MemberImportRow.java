@@ -0,0 +1,26 @@
+package jpabook.jpashop.service;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 회원 대량 등록 한 줄 (CSV : name,city,street,zipcode / NDJSON : {"name":..,"city":..,"street":..,"zipcode":..})
+ */
+@Data
+@NoArgsConstructor
+public class MemberImportRow {
+
+    private long line; // 원본 줄 번호 (오류 보고용)
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+
+    public MemberImportRow(long line, String name, String city, String street, String zipcode) {
+        this.line = line;
+        this.name = name;
+        this.city = city;
+        this.street = street;
+        this.zipcode = zipcode;
+    }
+}
@@ -0,0 +1,116 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.repository.MemberJdbcRepository;
+import jpabook.jpashop.search.MemberNameIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 회원 대량 등록
+ *
+ * - 입력을 한 줄씩 읽으면서 chunkSize 만큼 모이면 처리한다. (전체를 메모리에 올리지 않는다)
+ * - 청크마다 : 중복 이름 IN 조회 한번 -> JDBC batch insert 한번 -> 등록된 id IN 조회 한번 -> 커밋 (커밋 후 회원 이름 인덱스 반영)
+ * - 잘못된 줄, 중복 회원은 건너뛰고 줄 번호와 사유를 결과에 담는다.
+ * - 커밋된 청크는 이후 청크가 실패해도 유지된다. (다시 올리면 이미 등록된 회원은 중복으로 보고된다)
+ * - 중복 검사는 join()과 같이 조회 후 insert 라서 동시에 같은 이름으로 가입하면 둘 다 등록될 수 있다.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class MemberImportService {
+
+    public static final int MAX_CHUNK_SIZE = 5000;
+
+    private final MemberJdbcRepository memberJdbcRepository;
+    private final MemberNameIndex memberNameIndex;
+    private final PlatformTransactionManager transactionManager;
+
+    public MemberImportResult importMembers(InputStream input, MemberImportFormat format, int chunkSize) throws IOException {
+        if (chunkSize < 1 || chunkSize > MAX_CHUNK_SIZE) {
+            throw new IllegalArgumentException("chunkSize는 1 ~ " + MAX_CHUNK_SIZE + " 이어야 합니다.");
+        }
+        TransactionTemplate chunkTransaction = new TransactionTemplate(transactionManager);
+        chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        MemberImportResult result = new MemberImportResult();
+        MemberImportFormat.Parser parser = format.parser();
+        List<MemberImportRow> chunk = new ArrayList<>(chunkSize);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        String line;
+        long lineNumber = 0;
+        boolean header = format == MemberImportFormat.CSV; // 빈 줄을 뺀 첫 줄이 CSV 헤더
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            boolean headerLine = header && !line.trim().isEmpty();
+            if (headerLine) {
+                header = false;
+            }
+            MemberImportRow row;
+            try {
+                row = parser.parse(line, lineNumber);
+            } catch (IllegalArgumentException e) {
+                if (headerLine) {
+                    throw e; // 헤더가 잘못되면 전체를 읽을 수 없다.
+                }
+                result.setTotal(result.getTotal() + 1);
+                result.error(lineNumber, null, e.getMessage());
+                continue;
+            }
+            if (row == null) {
+                continue;
+            }
+            result.setTotal(result.getTotal() + 1);
+            if (!StringUtils.hasText(row.getName())) {
+                result.error(lineNumber, null, "이름이 없습니다.");
+                continue;
+            }
+            chunk.add(row);
+            if (chunk.size() == chunkSize) {
+                chunkTransaction.execute(s -> writeChunk(chunk, result));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunkTransaction.execute(s -> writeChunk(chunk, result));
+        }
+        result.getErrors().sort(Comparator.comparingLong(MemberImportResult.RowError::getLine));
+        log.info("member import total={} imported={} errors={}", result.getTotal(), result.getImported(), result.getErrorCount());
+        return result;
+    }
+
+    private int writeChunk(List<MemberImportRow> chunk, MemberImportResult result) {
+        Set<String> names = new HashSet<>();
+        for (MemberImportRow row : chunk) {
+            names.add(row.getName());
+        }
+        Set<String> existing = memberJdbcRepository.findExistingNames(names);
+
+        List<MemberImportRow> inserts = new ArrayList<>(chunk.size());
+        Set<String> seen = new HashSet<>();
+        for (MemberImportRow row : chunk) {
+            if (existing.contains(row.getName()) || !seen.add(row.getName())) {
+                result.error(row.getLine(), row.getName(), "이미 존재하는 회원입니다.");
+            } else {
+                inserts.add(row);
+            }
+        }
+        int inserted = memberJdbcRepository.insertAll(inserts);
+        memberNameIndex.addAllAfterCommit(inserts.stream().map(MemberImportRow::getName).collect(Collectors.toList()));
+        result.setImported(result.getImported() + inserted);
+        return inserted;
+    }
+}
@@ -2,6 +2,7 @@ package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.search.MemberNameIndex;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,6 +15,7 @@ import java.util.List;
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final MemberNameIndex memberNameIndex;
 
     /**
      * 회원 가입
@@ -23,6 +25,7 @@ public class MemberService {
     public Long join(Member member) {
         validateDuplicateMember(member); // 중복 회원 검증
         memberRepository.save(member);
+        memberNameIndex.addAfterCommit(member.getName(), member.getId());
 
         return member.getId();
     }
@@ -34,7 +37,7 @@ public class MemberService {
         }
     }
 
-    //회원 전체 조회
+    //회원 전체 조회 - 엔티티를 돌려주므로 읽기 전용 조회를 쓰지 않는다. (OSIV 에서 이후 변경이 flush 되지 않는 문제)
     public List<Member> findMembers(){
         return memberRepository.findAll();
     }
@@ -47,6 +50,7 @@ public class MemberService {
     @Transactional
     public void update(Long id, String name) {
         Member member = memberRepository.findOne(id);
+        memberNameIndex.renameAfterCommit(id, member.getName(), name);
         member.setName(name);
     }
 }
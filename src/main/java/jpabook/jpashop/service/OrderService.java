@@ -1,19 +1,27 @@
 package jpabook.jpashop.service;
 
 import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
 import jpabook.jpashop.domain.Member;
 import jpabook.jpashop.domain.Order;
 import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
 import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.event.OrderEventBus;
+import jpabook.jpashop.event.OrderEventType;
+import jpabook.jpashop.exception.NotEnoughtStockExption;
 import jpabook.jpashop.repository.ItemRepository;
 import jpabook.jpashop.repository.MemberRepository;
 import jpabook.jpashop.repository.OrderRepository;
 import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.sharding.ShardedOrder;
+import jpabook.jpashop.sharding.ShardedOrderRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.util.List;
+import java.util.*;
 
 @Service
 @Transactional
@@ -23,42 +31,137 @@ public class OrderService {
     private final OrderRepository orderRepository;
     private final MemberRepository memberRepository;
     private final ItemRepository itemRepository;
+    private final OrderEventBus orderEventBus;
+    private final ObjectProvider<ShardedOrderRepository> shardedOrderRepository; // jpashop.sharding.enabled=true 일 때만
 
     /**
      *  주문
      */
-
     @Transactional
     public Long order(Long memberId, Long itemId, int amount) {
+        return order(memberId, Collections.singletonList(new OrderLine(itemId, amount)));
+    }
 
-        //엔티티 조회
+    /**
+     * 여러 상품 주문 (장바구니)
+     * - 요청 검증 -> 상품 IN 조회 + 행 잠금(id 오름차순) -> 재고 검증 -> 재고 감소/주문 저장 순서로 진행한다.
+     * - 검증은 모두 쓰기 전에 끝나므로 실패하면 아무것도 변경되지 않는다.
+     */
+    @Transactional
+    public Long order(Long memberId, List<OrderLine> lines) {
+        //요청 검증 (잠금 전)
+        Map<Long, Integer> counts = mergeLines(lines);
         Member member = memberRepository.findOne(memberId);
-        Item item = itemRepository.findOne(itemId);
+        if (member == null) {
+            throw new IllegalArgumentException("회원이 존재하지 않습니다. memberId=" + memberId);
+        }
+
+        //엔티티 조회 + 잠금
+        List<Item> items = itemRepository.findAllForUpdate(counts.keySet());
+        if (items.size() != counts.size()) {
+            Set<Long> missing = new TreeSet<>(counts.keySet());
+            items.forEach(item -> missing.remove(item.getId()));
+            throw new IllegalArgumentException("상품이 존재하지 않습니다. itemIds=" + missing);
+        }
+
+        //재고 검증
+        for (Item item : items) {
+            if (item.getStockQuantity() < counts.get(item.getId())) {
+                throw new NotEnoughtStockExption("need more stock. itemId=" + item.getId());
+            }
+        }
 
         //배송정보 생성
         Delivery delivery = new Delivery();
         delivery.setAddress(member.getAddress());
 
         //주문상품 생성
-        OrderItem orderItem = OrderItem.createOrderItem(item, item.getPrice(), amount);
+        OrderItem[] orderItems = items.stream()
+                .map(item -> OrderItem.createOrderItem(item, item.getPrice(), counts.get(item.getId())))
+                .toArray(OrderItem[]::new);
 
         //주문 생성
-        Order order = Order.createOrder(member, delivery, orderItem);
+        Order order = Order.createOrder(member, delivery, orderItems);
+
+        //주문 저장 (샤딩이면 회원 샤드에 저장)
+        ShardedOrderRepository sharded = shardedOrderRepository.getIfAvailable();
+        if (sharded != null) {
+            sharded.insert(order);
+        } else {
+            orderRepository.save(order);
+        }
+        memberRepository.increaseOrderCount(memberId);
 
-        //주문 저장
-        orderRepository.save(order);
+        //이벤트 (커밋 후 발행)
+        orderEventBus.publishAfterCommit(OrderEventType.PLACED, order.getId(), memberId);
         return order.getId();
     }
 
+    /**
+     * 같은 상품이 여러 줄이면 수량을 합친다. (id 오름차순)
+     */
+    private Map<Long, Integer> mergeLines(List<OrderLine> lines) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("주문 상품이 없습니다.");
+        }
+        Map<Long, Integer> counts = new TreeMap<>();
+        for (OrderLine line : lines) {
+            if (line.getItemId() == null || line.getCount() <= 0) {
+                throw new IllegalArgumentException("잘못된 주문 상품입니다. " + line);
+            }
+            counts.merge(line.getItemId(), line.getCount(), Integer::sum);
+        }
+        return counts;
+    }
+
     /**
      * 주문 취소
      */
     @Transactional
     public void cancelOrder(Long orderId) {
+        ShardedOrderRepository sharded = shardedOrderRepository.getIfAvailable();
+        if (sharded != null) {
+            ShardedOrder shardedOrder = sharded.findOrder(orderId);
+            if (shardedOrder != null) {
+                cancelShardedOrder(sharded, shardedOrder);
+                return;
+            }
+            // 샤드에 없으면 샤딩 전에 메인 DB 에 저장된 주문
+        }
         //주문 엔티티 조회
         Order order = orderRepository.findOne(orderId);
+        if (order == null) {
+            throw new IllegalArgumentException("주문이 존재하지 않습니다. orderId=" + orderId);
+        }
         //주문 취소
         order.cancel();
+
+        //이벤트 (커밋 후 발행)
+        orderEventBus.publishAfterCommit(OrderEventType.CANCELLED, orderId, order.getMember().getId());
+    }
+
+    /**
+     * 샤드 주문 취소 - 재고는 메인 DB, 주문 상태는 샤드에서 변경한다.
+     * 샤드 상태 변경은 바로 커밋되므로 잠금/검증을 모두 끝낸 뒤 마지막에 한다. (메인 롤백 시 되돌림)
+     */
+    private void cancelShardedOrder(ShardedOrderRepository sharded, ShardedOrder order) {
+        Long orderId = order.getOrderId();
+        if (order.getDeliveryStatus() == DeliveryStatus.COMP) {
+            throw new IllegalStateException("이미 배송완료된 상품은 취소가 불가능합니다.");
+        }
+
+        //재고 복구 (잠금 순서는 주문과 같이 id 오름차순)
+        Map<Long, Integer> counts = mergeLines(order.getLines());
+        for (Item item : itemRepository.findAllForUpdate(counts.keySet())) {
+            item.addStock(counts.get(item.getId()));
+        }
+
+        if (!sharded.updateStatus(orderId, OrderStatus.ORDER, OrderStatus.CANCEL)) {
+            throw new IllegalStateException("이미 취소된 주문입니다. orderId=" + orderId);
+        }
+
+        //이벤트 (커밋 후 발행)
+        orderEventBus.publishAfterCommit(OrderEventType.CANCELLED, orderId, order.getMemberId());
     }
 
     /**
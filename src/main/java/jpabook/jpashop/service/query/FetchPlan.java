@@ -0,0 +1,72 @@
+package jpabook.jpashop.service.query;
+
+import org.hibernate.Hibernate;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.core.ResolvableType;
+
+import java.beans.PropertyDescriptor;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 조회 계획 - 화면/API 가 쓰는 연관관계 경로를 컨트롤러가 선언한다. (OSIV off 대응)
+ *
+ * - 경로는 "member", "orderItems.item" 처럼 프로퍼티 이름을 점으로 잇는다. 컬렉션은 원소마다 이어서 따라간다.
+ * - 선언할 때 경로를 검사하므로 이름이 틀리면 기동 시점에 실패한다.
+ * - 조회 서비스가 트랜잭션 안에서 경로를 모두 초기화한 뒤 변환한다. (트랜잭션 밖에서는 지연로딩이 없다)
+ */
+public final class FetchPlan<T> {
+
+    private final List<String[]> paths;
+
+    private FetchPlan(List<String[]> paths) {
+        this.paths = paths;
+    }
+
+    public static <T> FetchPlan<T> of(Class<T> rootType, String... paths) {
+        List<String[]> parsed = new ArrayList<>();
+        for (String path : paths) {
+            String[] names = path.split("\\.");
+            validate(rootType, path, names);
+            parsed.add(names);
+        }
+        return new FetchPlan<>(Collections.unmodifiableList(parsed));
+    }
+
+    void initialize(T root) {
+        for (String[] path : paths) {
+            initialize(root, path, 0);
+        }
+    }
+
+    private static void initialize(Object target, String[] path, int depth) {
+        if (target == null || depth == path.length) {
+            return;
+        }
+        Object value = PropertyAccessorFactory.forBeanPropertyAccess(target).getPropertyValue(path[depth]);
+        Hibernate.initialize(value);
+        if (value instanceof Collection) {
+            for (Object element : (Collection<?>) value) {
+                initialize(element, path, depth + 1);
+            }
+        } else {
+            initialize(value, path, depth + 1);
+        }
+    }
+
+    private static void validate(Class<?> rootType, String path, String[] names) {
+        Class<?> type = rootType;
+        for (String name : names) {
+            PropertyDescriptor descriptor = type == null ? null : BeanUtils.getPropertyDescriptor(type, name);
+            if (descriptor == null || descriptor.getReadMethod() == null) {
+                throw new IllegalArgumentException("조회 계획 경로가 잘못되었습니다. " + rootType.getSimpleName() + "." + path);
+            }
+            ResolvableType propertyType = ResolvableType.forMethodReturnType(descriptor.getReadMethod());
+            type = Collection.class.isAssignableFrom(propertyType.toClass())
+                    ? propertyType.asCollection().resolveGeneric(0) : propertyType.resolve();
+        }
+    }
+}
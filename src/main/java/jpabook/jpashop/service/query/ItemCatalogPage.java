@@ -0,0 +1,29 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.item.query.CatalogItemDto;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 상품 카탈로그 한 페이지
+ * 다음 페이지는 lastId, lastPrice를 검색 조건에 그대로 넘겨서 조회한다. (hasNext가 false면 마지막 페이지)
+ */
+@Data
+public class ItemCatalogPage {
+
+    private List<? extends CatalogItemDto> items;
+    private boolean hasNext;
+    private Long lastId;
+    private Integer lastPrice;
+
+    public ItemCatalogPage(List<? extends CatalogItemDto> items, boolean hasNext) {
+        this.items = items;
+        this.hasNext = hasNext;
+        if (!items.isEmpty()) {
+            CatalogItemDto last = items.get(items.size() - 1);
+            this.lastId = last.getId();
+            this.lastPrice = last.getPrice();
+        }
+    }
+}
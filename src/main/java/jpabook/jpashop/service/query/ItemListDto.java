@@ -0,0 +1,23 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.item.Item;
+import lombok.Getter;
+
+/**
+ * 상품 목록 화면(items/itemList) 모델
+ */
+@Getter
+public class ItemListDto {
+
+    private Long id;
+    private String name;
+    private int price;
+    private int stockQuantity;
+
+    public ItemListDto(Item item) {
+        this.id = item.getId();
+        this.name = item.getName();
+        this.price = item.getPrice();
+        this.stockQuantity = item.getStockQuantity();
+    }
+}
@@ -0,0 +1,46 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.coalescing.Coalesced;
+import jpabook.jpashop.repository.ItemRepository;
+import jpabook.jpashop.repository.item.query.CatalogItemDto;
+import jpabook.jpashop.repository.item.query.ItemCatalogRepository;
+import jpabook.jpashop.repository.item.query.ItemCatalogSearch;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class ItemQueryService {
+
+    private final ItemRepository itemRepository;
+    private final ItemCatalogRepository itemCatalogRepository;
+
+    /**
+     * 상품 목록 : 기본 컬럼만 사용
+     * - 동시에 들어온 요청은 조회 한번으로 합친다.
+     */
+    @Coalesced
+    public List<ItemListDto> findItemList() {
+        return itemRepository.findAllReadOnly().stream()
+                .map(ItemListDto::new)
+                .collect(toList());
+    }
+
+    /**
+     * 상품 카탈로그 검색 : 한 건 더 조회해서 다음 페이지 여부를 판단한다.
+     */
+    public ItemCatalogPage searchCatalog(ItemCatalogSearch search, int size) {
+        if (search.hasPartialCursor()) {
+            throw new IllegalArgumentException("가격 정렬 커서는 lastId, lastPrice 를 같이 넘겨야 합니다.");
+        }
+        List<? extends CatalogItemDto> items = itemCatalogRepository.search(search, size + 1);
+        boolean hasNext = items.size() > size;
+        return new ItemCatalogPage(hasNext ? items.subList(0, size) : items, hasNext);
+    }
+}
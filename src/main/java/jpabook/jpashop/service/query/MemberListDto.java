@@ -0,0 +1,30 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import lombok.Getter;
+
+/**
+ * 회원 목록 화면(members/memberList), 회원 목록 API 모델
+ * - 동시 요청끼리 공유되므로 setter 없이 값만 복사해 둔다. (Address 는 setter 가 있어서 펼쳐서 담는다)
+ */
+@Getter
+public class MemberListDto {
+
+    private Long id;
+    private String name;
+    private String city;
+    private String street;
+    private String zipcode;
+
+    public MemberListDto(Member member) {
+        this.id = member.getId();
+        this.name = member.getName();
+        Address address = member.getAddress();
+        if (address != null) {
+            this.city = address.getCity();
+            this.street = address.getStreet();
+            this.zipcode = address.getZipcode();
+        }
+    }
+}
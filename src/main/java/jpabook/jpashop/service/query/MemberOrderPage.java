@@ -0,0 +1,31 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 회원 주문 이력 한 페이지
+ * 다음 페이지는 lastOrderDate, lastOrderId를 그대로 넘겨서 조회한다. (hasNext가 false면 마지막 페이지)
+ */
+@Data
+public class MemberOrderPage {
+
+    private Integer orderCount; // withCount=true 일 때만
+    private List<MemberOrderQueryDto> orders;
+    private boolean hasNext;
+    private LocalDateTime lastOrderDate;
+    private Long lastOrderId;
+
+    public MemberOrderPage(List<MemberOrderQueryDto> orders, boolean hasNext) {
+        this.orders = orders;
+        this.hasNext = hasNext;
+        if (!orders.isEmpty()) {
+            MemberOrderQueryDto last = orders.get(orders.size() - 1);
+            this.lastOrderDate = last.getOrderDate();
+            this.lastOrderId = last.getOrderId();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.coalescing.Coalesced;
+import jpabook.jpashop.repository.MemberRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class MemberQueryService {
+
+    private final MemberRepository memberRepository;
+
+    /**
+     * 회원 목록 : 동시에 들어온 요청은 조회 한번으로 합친다.
+     */
+    @Coalesced
+    public List<MemberListDto> findMemberList() {
+        return memberRepository.findAllReadOnly().stream()
+                .map(MemberListDto::new)
+                .collect(toList());
+    }
+}
@@ -0,0 +1,37 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 주문 목록 화면(order/orderList) 모델
+ * 화면에 필요한 값(회원명, 대표상품)을 트랜잭션 안에서 전부 꺼내 담는다.
+ */
+@Getter
+public class OrderListDto {
+
+    private Long id;
+    private String memberName;
+    private String itemName; // 대표상품
+    private Integer orderPrice;
+    private Integer count;
+    private OrderStatus status;
+    private LocalDateTime orderDate;
+
+    public OrderListDto(Order order) {
+        this.id = order.getId();
+        this.memberName = order.getMember().getName();
+        this.status = order.getStatus();
+        this.orderDate = order.getOrderDate();
+        if (!order.getOrderItems().isEmpty()) {
+            OrderItem orderItem = order.getOrderItems().get(0); //LAZY
+            this.itemName = orderItem.getItem().getName(); //LAZY
+            this.orderPrice = orderItem.getOrderPrice();
+            this.count = orderItem.getCount();
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package jpabook.jpashop.service.query;
+
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.repository.MemberRepository;
+import jpabook.jpashop.repository.OrderRepository;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * 화면 조회 전용 서비스 (OSIV off 대응)
+ *
+ * - OSIV를 끄면 트랜잭션이 끝날 때 커넥션과 영속성 컨텍스트가 반환되므로 뷰 렌더링 중에는 지연로딩이 불가능하다.
+ * - 컨트롤러가 화면별로 필요한 연관관계를 조회 계획(FetchPlan)으로 선언하면, 트랜잭션 안에서 모두 초기화하고 변환해서 넘긴다.
+ * - 컬렉션/지연로딩은 'hibernate.default_batch_fetch_size'로 IN 쿼리 몇번에 끝난다.
+ */
+@Service
+@Transactional(readOnly = true)
+@RequiredArgsConstructor
+public class OrderQueryService {
+
+    private final OrderRepository orderRepository;
+    private final OrderQueryRepository orderQueryRepository;
+    private final MemberRepository memberRepository;
+
+    /**
+     * 주문 목록 화면 (order/orderList)
+     */
+    public List<OrderListDto> findOrderList(OrderSearch orderSearch, FetchPlan<Order> plan) {
+        return convert(orderRepository.findAllByCriteriaReadOnly(orderSearch), plan, OrderListDto::new);
+    }
+
+    /**
+     * 주문 엔티티 API(v1 ~ v3.1, simple v1 ~ v3) - 읽기 전용으로 조회하고 plan 초기화와 converter 까지 이 트랜잭션 안에서 한다.
+     * 초기화로 올라오는 연관 엔티티도 readOnly 트랜잭션이라 스냅샷/flush 가 없다.
+     */
+    public <T> List<T> findOrders(FetchPlan<Order> plan, Function<Order, T> converter) {
+        return convert(orderRepository.findAllByStringReadOnly(new OrderSearch()), plan, converter);
+    }
+
+    public <T> List<T> findOrdersWithItem(FetchPlan<Order> plan, Function<Order, T> converter) {
+        return convert(orderRepository.findAllWithItemReadOnly(), plan, converter);
+    }
+
+    public <T> List<T> findOrdersWithMemberDelivery(FetchPlan<Order> plan, Function<Order, T> converter) {
+        return convert(orderRepository.findAllWithMemberDeliveryReadOnly(), plan, converter);
+    }
+
+    public <T> List<T> findOrdersWithMemberDelivery(int offset, int limit, FetchPlan<Order> plan, Function<Order, T> converter) {
+        return convert(orderRepository.findAllWithMemberDeliveryReadOnly(offset, limit), plan, converter);
+    }
+
+    /**
+     * 회원 주문 이력 : 한 건 더 조회해서 다음 페이지 여부를 판단한다.
+     */
+    public MemberOrderPage findMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId,
+                                           int size, boolean withCount) {
+        return findMemberOrders(memberId, lastOrderDate, lastOrderId, size, withCount, false);
+    }
+
+    /**
+     * includeArchive=true 면 아카이브된 오래된 주문까지 이어서 조회한다.
+     */
+    public MemberOrderPage findMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId,
+                                           int size, boolean withCount, boolean includeArchive) {
+        List<MemberOrderQueryDto> orders = orderQueryRepository.findMemberOrders(memberId, lastOrderDate, lastOrderId, size + 1,
+                includeArchive);
+        boolean hasNext = orders.size() > size;
+        MemberOrderPage page = new MemberOrderPage(hasNext ? orders.subList(0, size) : orders, hasNext);
+        if (withCount) {
+            page.setOrderCount(memberRepository.findOrderCount(memberId));
+        }
+        return page;
+    }
+
+    private static <T> List<T> convert(List<Order> orders, FetchPlan<Order> plan, Function<Order, T> converter) {
+        orders.forEach(plan::initialize);
+        return orders.stream()
+                .map(converter)
+                .collect(toList());
+    }
+}
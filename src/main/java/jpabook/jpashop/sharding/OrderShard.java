@@ -0,0 +1,58 @@
+package jpabook.jpashop.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.function.Function;
+
+/**
+ * 주문 샤드 하나 - 커넥션 풀, JDBC 템플릿, 샤드 로컬 트랜잭션
+ *
+ * 샤드 접근은 항상 read / write 로 샤드 트랜잭션을 열고 한다.
+ * 메인 트랜잭션 안에서 JDBC 템플릿을 그대로 쓰면 샤드 커넥션이 메인 트랜잭션 동기화에 묶여서 메인 커밋까지 반환되지 않는다.
+ */
+public class OrderShard {
+
+    private final int index;
+    private final HikariDataSource dataSource;
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final TransactionTemplate writeTemplate;
+    private final TransactionTemplate readTemplate;
+
+    OrderShard(int index, HikariDataSource dataSource) {
+        this.index = index;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.jdbcTemplate.getJdbcTemplate().setFetchSize(500);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        this.writeTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate = new TransactionTemplate(transactionManager);
+        this.readTemplate.setReadOnly(true);
+    }
+
+    /**
+     * 샤드 로컬 트랜잭션 (메인 트랜잭션과 별개로 바로 커밋된다)
+     */
+    public <T> T write(Function<NamedParameterJdbcTemplate, T> work) {
+        return writeTemplate.execute(status -> work.apply(jdbcTemplate));
+    }
+
+    public <T> T read(Function<NamedParameterJdbcTemplate, T> query) {
+        return readTemplate.execute(status -> query.apply(jdbcTemplate));
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public HikariDataSource getDataSource() {
+        return dataSource;
+    }
+
+    @Override
+    public String toString() {
+        return "shard-" + index;
+    }
+}
@@ -0,0 +1,170 @@
+package jpabook.jpashop.sharding;
+
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 주문 샤드 목록 + 라우팅 + 전체 샤드 병렬 조회
+ *
+ * - 쓰기 : member_id 해시로 샤드를 고른다. 한 회원의 주문은 항상 같은 샤드에 있다.
+ * - id : 샤드 i 는 idBase+i+1 부터 샤드 수 간격으로 발급하므로 주문 id 만으로 샤드를 알 수 있다.
+ *        idBase 이하는 샤딩 전 메인 DB 에 저장된 주문이다.
+ * - 읽기 : 샤드마다 같은 쿼리를 병렬로 실행하고 결과는 샤드 순서대로 돌려준다. (합치기는 호출하는 쪽)
+ */
+public class OrderShards implements AutoCloseable {
+
+    private final List<OrderShard> shards;
+    private final long idBase;
+    private final ExecutorService executor;
+    private final long timeoutMillis;
+
+    public OrderShards(List<OrderShard> shards, long idBase, int queryThreads, Duration queryTimeout) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("jpashop.sharding.shards 가 비어 있습니다.");
+        }
+        this.shards = Collections.unmodifiableList(new ArrayList<>(shards));
+        this.idBase = idBase;
+        this.timeoutMillis = queryTimeout.toMillis();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(queryThreads > 0 ? queryThreads : shards.size(), r -> {
+            Thread thread = new Thread(r, "order-shard-query-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public List<OrderShard> all() {
+        return shards;
+    }
+
+    public int size() {
+        return shards.size();
+    }
+
+    public OrderShard get(int index) {
+        return shards.get(index);
+    }
+
+    /**
+     * 회원이 속한 샤드 - 연속된 id 가 한 샤드로 몰리지 않도록 섞은 뒤 나눈다.
+     */
+    public OrderShard shardForMember(long memberId) {
+        return shards.get((int) Math.floorMod(mix(memberId), (long) shards.size()));
+    }
+
+    /**
+     * 샤드에서 발급된 id 인지 (false 면 메인 DB id)
+     */
+    public boolean isShardId(long id) {
+        return id > idBase;
+    }
+
+    /**
+     * 주문(배송, 주문상품 포함) id 가 발급된 샤드
+     */
+    public OrderShard shardForId(long id) {
+        if (!isShardId(id)) {
+            throw new IllegalArgumentException("샤드 id 가 아닙니다. id=" + id);
+        }
+        return shards.get((int) ((id - idBase - 1) % shards.size()));
+    }
+
+    /**
+     * id 를 샤드별로 나눈다. (샤드 번호 순, 메인 DB id 는 빠진다)
+     */
+    public Map<OrderShard, List<Long>> groupById(Collection<Long> ids) {
+        Map<Integer, List<Long>> byIndex = new TreeMap<>();
+        for (Long id : ids) {
+            if (!isShardId(id)) {
+                continue;
+            }
+            byIndex.computeIfAbsent(shardForId(id).getIndex(), k -> new ArrayList<>()).add(id);
+        }
+        Map<OrderShard, List<Long>> result = new LinkedHashMap<>();
+        byIndex.forEach((index, shardIds) -> result.put(shards.get(index), shardIds));
+        return result;
+    }
+
+    /**
+     * 전체 샤드 병렬 조회
+     */
+    public <T> List<T> scatter(Function<OrderShard, T> query) {
+        return scatter(shards, query);
+    }
+
+    /**
+     * 지정한 샤드만 병렬 조회, 결과는 shards 순서
+     * - 하나라도 실패하면 나머지를 취소하고 예외를 그대로 던진다. (부분 결과를 돌려주지 않는다)
+     */
+    public <T> List<T> scatter(Collection<OrderShard> targets, Function<OrderShard, T> query) {
+        if (targets.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (targets.size() == 1) {
+            return Collections.singletonList(query.apply(targets.iterator().next()));
+        }
+        List<Callable<T>> tasks = new ArrayList<>(targets.size());
+        for (OrderShard shard : targets) {
+            tasks.add(() -> query.apply(shard));
+        }
+        List<Future<T>> futures;
+        try {
+            futures = executor.invokeAll(tasks, timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("샤드 조회가 중단되었습니다.", e);
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (CancellationException e) {
+            throw new QueryTimeoutException("샤드 조회 시간 초과 (" + timeoutMillis + "ms)");
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("샤드 조회 실패", e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("샤드 조회가 중단되었습니다.", e);
+        }
+        return results;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        shards.forEach(shard -> shard.getDataSource().close());
+    }
+
+    // murmur3 fmix64
+    private static long mix(long value) {
+        long h = value;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb93e185a87cbL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
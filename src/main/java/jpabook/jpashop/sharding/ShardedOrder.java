@@ -0,0 +1,29 @@
+package jpabook.jpashop.sharding;
+
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.service.OrderLine;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 샤드에 저장된 주문 (취소 처리에 필요한 값만)
+ */
+@Getter
+public class ShardedOrder {
+
+    private final Long orderId;
+    private final Long memberId;
+    private final OrderStatus status;
+    private final DeliveryStatus deliveryStatus;
+    private final List<OrderLine> lines;
+
+    public ShardedOrder(Long orderId, Long memberId, OrderStatus status, DeliveryStatus deliveryStatus, List<OrderLine> lines) {
+        this.orderId = orderId;
+        this.memberId = memberId;
+        this.status = status;
+        this.deliveryStatus = deliveryStatus;
+        this.lines = lines;
+    }
+}
@@ -0,0 +1,407 @@
+package jpabook.jpashop.sharding;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.InListPadding;
+import jpabook.jpashop.repository.ItemJdbcRepository;
+import jpabook.jpashop.repository.MemberJdbcRepository;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import org.springframework.jdbc.UncategorizedSQLException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+
+import javax.sql.DataSource;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+ * 주문 DTO 조회 (샤드) - 샤드마다 같은 쿼리를 병렬로 실행하고(scatter) 정렬 기준으로 합친다(gather).
+ * - 샤딩 전 주문(id <= id-base)은 메인 DB 에 남아 있으므로 메인 DB 도 소스 하나로 같은 쿼리를 실행해서 합친다.
+ *   (메인 DB 는 호출한 스레드에서 읽어서 호출한 쪽 트랜잭션에 참여한다)
+ * - 샤드마다 이미 정렬해서 읽으므로 합치는 쪽은 k-way merge 만 한다.
+ * - 페이징은 샤드마다 offset + limit 개를 읽어서 합친 뒤 offset 만큼 건너뛴다.
+ * - 회원/상품 이름은 메인 DB 에 있으므로 합친 뒤에 IN 조회로 채운다.
+ */
+public class ShardedOrderQueryRepository {
+
+    private static final String ORDER_COLUMNS = "select o.order_id, o.member_id, o.order_date, o.status, d.city, d.street, d.zipcode"
+            + " from orders o"
+            + " join delivery d on d.delivery_id = o.delivery_id";
+    private static final String FLAT_COLUMNS = "select o.order_id, o.member_id, o.order_date, o.status, d.city, d.street, d.zipcode,"
+            + " oi.item_id, oi.order_price, oi.count"
+            + " from orders o"
+            + " join delivery d on d.delivery_id = o.delivery_id"
+            + " join order_item oi on oi.order_id = o.order_id";
+
+    private static final int NAME_CHUNK_SIZE = 1000;
+    private static final int STREAM_FETCH_SIZE = 500;
+
+    private static final Comparator<Row<OrderSimpleQueryDto>> NEWEST_FIRST = Comparator
+            .comparing((Row<OrderSimpleQueryDto> row) -> row.dto.getOrderDate(), Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(row -> row.dto.getOrderId())
+            .reversed();
+
+    private static final RowMapper<Row<OrderSimpleQueryDto>> SIMPLE_ROW = (rs, rowNum) ->
+            new Row<>(new OrderSimpleQueryDto(rs.getLong(1), null, toLocalDateTime(rs.getTimestamp(3)),
+                    toStatus(rs.getString(4)), toAddress(rs, 5)), rs.getLong(2), null);
+
+    private static final RowMapper<Row<OrderFlatDto>> FLAT_ROW = (rs, rowNum) ->
+            new Row<>(new OrderFlatDto(rs.getLong(1), null, toLocalDateTime(rs.getTimestamp(3)),
+                    toStatus(rs.getString(4)), toAddress(rs, 5), null, rs.getInt(9), rs.getInt(10)),
+                    rs.getLong(2), rs.getLong(8));
+
+    private static final Comparator<MemberOrderQueryDto> MEMBER_ORDER_NEWEST_FIRST = Comparator
+            .comparing(MemberOrderQueryDto::getOrderDate, Comparator.nullsFirst(Comparator.<LocalDateTime>naturalOrder()))
+            .thenComparing(MemberOrderQueryDto::getOrderId)
+            .reversed();
+
+    private final OrderShards shards;
+    private final DataSource mainDataSource;
+    private final NamedParameterJdbcTemplate mainJdbc;
+    private final MemberJdbcRepository memberJdbcRepository;
+    private final ItemJdbcRepository itemJdbcRepository;
+
+    public ShardedOrderQueryRepository(OrderShards shards, DataSource mainDataSource, MemberJdbcRepository memberJdbcRepository,
+                                       ItemJdbcRepository itemJdbcRepository) {
+        this.shards = shards;
+        this.mainDataSource = mainDataSource;
+        this.mainJdbc = new NamedParameterJdbcTemplate(mainDataSource);
+        this.memberJdbcRepository = memberJdbcRepository;
+        this.itemJdbcRepository = itemJdbcRepository;
+    }
+
+    /**
+     * 전체 주문 (주문 id 순)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos() {
+        List<List<Row<OrderSimpleQueryDto>>> perSource = scatterWithMain(jdbc ->
+                jdbc.query(ORDER_COLUMNS + " order by o.order_id", SIMPLE_ROW));
+        return withMemberNames(SortedMerge.merge(perSource, byOrderId(OrderSimpleQueryDto::getOrderId), 0, -1),
+                OrderSimpleQueryDto::setName);
+    }
+
+    /**
+     * 샤드에 저장된 주문 id 인지 (false 면 샤딩 전 메인 DB 주문)
+     */
+    public boolean isShardOrderId(long orderId) {
+        return shards.isShardId(orderId);
+    }
+
+    /**
+     * 주문 id 로 조회 - id 가 발급된 샤드에만 묻는다. 메인 DB 주문 id 는 빠진다.
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(Collection<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<OrderShard, List<Long>> byShard = shards.groupById(orderIds);
+        List<List<Row<OrderSimpleQueryDto>>> perShard = shards.scatter(byShard.keySet(), shard -> shard.read(jdbc ->
+                jdbc.query(ORDER_COLUMNS + " where o.order_id in (:orderIds) order by o.order_id",
+                        new MapSqlParameterSource("orderIds", InListPadding.pad(byShard.get(shard))), SIMPLE_ROW)));
+        return withMemberNames(SortedMerge.merge(perShard, byOrderId(OrderSimpleQueryDto::getOrderId), 0, -1),
+                OrderSimpleQueryDto::setName);
+    }
+
+    /**
+     * 최근 주문 페이지 (order_date desc, order_id desc)
+     */
+    public List<OrderSimpleQueryDto> findOrderDtos(int offset, int limit) {
+        MapSqlParameterSource params = new MapSqlParameterSource("limit", offset + limit);
+        List<List<Row<OrderSimpleQueryDto>>> perSource = scatterWithMain(jdbc ->
+                jdbc.query(ORDER_COLUMNS + " order by o.order_date desc, o.order_id desc limit :limit", params, SIMPLE_ROW));
+        return withMemberNames(SortedMerge.merge(perSource, NEWEST_FIRST, offset, limit), OrderSimpleQueryDto::setName);
+    }
+
+    /**
+     * 주문 + 주문상품 (주문 id 순), 샤드마다 쿼리 2번
+     */
+    public List<OrderQueryDto> findOrderQueryDtos() {
+        List<ShardOrders> perSource = scatterWithMain(jdbc -> {
+            ShardOrders result = new ShardOrders();
+            result.orders.addAll(jdbc.query(ORDER_COLUMNS + " order by o.order_id", (rs, rowNum) ->
+                    new Row<>(new OrderQueryDto(rs.getLong(1), null, toLocalDateTime(rs.getTimestamp(3)),
+                            toStatus(rs.getString(4)), toAddress(rs, 5)), rs.getLong(2), null)));
+            Map<Long, List<OrderItemQueryDto>> itemsByOrder = new HashMap<>();
+            jdbc.query("select oi.order_id, oi.item_id, oi.order_price, oi.count from order_item oi"
+                    + " order by oi.order_id, oi.order_item_id", rs -> {
+                OrderItemQueryDto item = new OrderItemQueryDto(rs.getLong(1), null, rs.getInt(3), rs.getInt(4));
+                itemsByOrder.computeIfAbsent(item.getOrderId(), k -> new ArrayList<>()).add(item);
+                result.items.add(new Row<>(item, null, rs.getLong(2)));
+            });
+            result.orders.forEach(order -> order.dto.setOrderItems(
+                    itemsByOrder.getOrDefault(order.dto.getOrderId(), new ArrayList<>())));
+            return result;
+        });
+
+        List<List<Row<OrderQueryDto>>> orders = new ArrayList<>();
+        List<Row<OrderItemQueryDto>> items = new ArrayList<>();
+        for (ShardOrders shardOrders : perSource) {
+            orders.add(shardOrders.orders);
+            items.addAll(shardOrders.items);
+        }
+        fillNames(items, row -> row.itemId, itemJdbcRepository::findNames, OrderItemQueryDto::setItemName);
+        return withMemberNames(SortedMerge.merge(orders, byOrderId(OrderQueryDto::getOrderId), 0, -1), OrderQueryDto::setName);
+    }
+
+    /**
+     * 주문 x 주문상품 flat (주문 id 순)
+     */
+    public List<OrderFlatDto> findOrderFlatDtos() {
+        List<List<Row<OrderFlatDto>>> perSource = scatterWithMain(jdbc ->
+                jdbc.query(FLAT_COLUMNS + " order by o.order_id, oi.order_item_id", FLAT_ROW));
+        List<Row<OrderFlatDto>> rows = SortedMerge.merge(perSource, byOrderId(OrderFlatDto::getOrderId), 0, -1);
+        fillNames(rows, row -> row.memberId, memberJdbcRepository::findNames, OrderFlatDto::setName);
+        fillNames(rows, row -> row.itemId, itemJdbcRepository::findNames, OrderFlatDto::setItemName);
+        return unwrap(rows);
+    }
+
+    /**
+     * findOrderFlatDtos 스트리밍 버전 - 메인 DB 와 샤드마다 커서를 열고 주문 id 순으로 합친다.
+     * 이름은 STREAM_FETCH_SIZE 행씩 모아서 채운다. 스트림을 닫아야 커서 커넥션이 반환된다.
+     */
+    public Stream<OrderFlatDto> streamOrderFlatDtos() {
+        String sql = FLAT_COLUMNS + " order by o.order_id, oi.order_item_id";
+        List<Cursor<Row<OrderFlatDto>>> cursors = new ArrayList<>();
+        try {
+            cursors.add(new Cursor<>("main", mainDataSource, sql, FLAT_ROW));
+            for (OrderShard shard : shards.all()) {
+                cursors.add(new Cursor<>(shard.toString(), shard.getDataSource(), sql, FLAT_ROW));
+            }
+        } catch (RuntimeException e) {
+            cursors.forEach(Cursor::close);
+            throw e;
+        }
+        Iterator<Row<OrderFlatDto>> merged = SortedMerge.merge(cursors, byOrderId(OrderFlatDto::getOrderId));
+        Iterator<OrderFlatDto> named = new Iterator<OrderFlatDto>() {
+            private Iterator<OrderFlatDto> batch = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                if (!batch.hasNext() && merged.hasNext()) {
+                    List<Row<OrderFlatDto>> rows = new ArrayList<>(STREAM_FETCH_SIZE);
+                    while (merged.hasNext() && rows.size() < STREAM_FETCH_SIZE) {
+                        rows.add(merged.next());
+                    }
+                    fillNames(rows, row -> row.memberId, memberJdbcRepository::findNames, OrderFlatDto::setName);
+                    fillNames(rows, row -> row.itemId, itemJdbcRepository::findNames, OrderFlatDto::setItemName);
+                    batch = unwrap(rows).iterator();
+                }
+                return batch.hasNext();
+            }
+
+            @Override
+            public OrderFlatDto next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return batch.next();
+            }
+        };
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(named, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(() -> cursors.forEach(Cursor::close));
+    }
+
+    /**
+     * 회원별 주문 이력 - 회원 샤드와 메인 DB(샤딩 전 주문)만 조회한다. (키셋 조건은 OrderQueryRepository.findMemberOrders 와 같다)
+     */
+    public List<MemberOrderQueryDto> findMemberOrders(Long memberId, LocalDateTime lastOrderDate, Long lastOrderId, int limit) {
+        boolean keyset = lastOrderDate != null && lastOrderId != null;
+        String sql = "select o.order_id, o.order_date, o.status from orders o"
+                + " where o.member_id = :memberId";
+        if (keyset) {
+            sql += " and (o.order_date < :lastOrderDate"
+                    + " or (o.order_date = :lastOrderDate and o.order_id < :lastOrderId))";
+        }
+        String query = sql + " order by o.order_date desc, o.order_id desc limit :limit";
+        MapSqlParameterSource params = new MapSqlParameterSource("memberId", memberId)
+                .addValue("limit", limit);
+        if (keyset) {
+            params.addValue("lastOrderDate", Timestamp.valueOf(lastOrderDate))
+                    .addValue("lastOrderId", lastOrderId);
+        }
+        RowMapper<MemberOrderQueryDto> mapper = (rs, rowNum) ->
+                new MemberOrderQueryDto(rs.getLong(1), toLocalDateTime(rs.getTimestamp(2)), toStatus(rs.getString(3)));
+        List<List<MemberOrderQueryDto>> perSource = new ArrayList<>();
+        perSource.add(mainJdbc.query(query, params, mapper));
+        perSource.add(shards.shardForMember(memberId).read(jdbc -> jdbc.query(query, params, mapper)));
+        return SortedMerge.merge(perSource, MEMBER_ORDER_NEWEST_FIRST, 0, limit);
+    }
+
+    /**
+     * 메인 DB + 전체 샤드에 같은 쿼리, 결과는 [메인 DB, 샤드 0, 샤드 1, ...] 순서
+     */
+    private <T> List<T> scatterWithMain(Function<NamedParameterJdbcTemplate, T> query) {
+        List<T> results = new ArrayList<>(shards.size() + 1);
+        results.add(query.apply(mainJdbc));
+        results.addAll(shards.scatter(shard -> shard.read(query)));
+        return results;
+    }
+
+    private <T> List<T> withMemberNames(List<Row<T>> rows, BiConsumer<T, String> setter) {
+        fillNames(rows, row -> row.memberId, memberJdbcRepository::findNames, setter);
+        return unwrap(rows);
+    }
+
+    private static <T> void fillNames(List<Row<T>> rows, Function<Row<T>, Long> id,
+                                      Function<Collection<Long>, Map<Long, String>> finder, BiConsumer<T, String> setter) {
+        Set<Long> ids = new LinkedHashSet<>();
+        rows.forEach(row -> ids.add(id.apply(row)));
+        Map<Long, String> names = new HashMap<>();
+        List<Long> chunk = new ArrayList<>(NAME_CHUNK_SIZE);
+        for (Long value : ids) {
+            chunk.add(value);
+            if (chunk.size() == NAME_CHUNK_SIZE) {
+                names.putAll(finder.apply(chunk));
+                chunk.clear();
+            }
+        }
+        names.putAll(finder.apply(chunk));
+        rows.forEach(row -> setter.accept(row.dto, names.get(id.apply(row))));
+    }
+
+    private static <T> List<T> unwrap(List<Row<T>> rows) {
+        List<T> result = new ArrayList<>(rows.size());
+        rows.forEach(row -> result.add(row.dto));
+        return result;
+    }
+
+    private static <T> Comparator<Row<T>> byOrderId(Function<T, Long> orderId) {
+        return Comparator.comparing(row -> orderId.apply(row.dto));
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+
+    private static OrderStatus toStatus(String status) {
+        return status == null ? null : OrderStatus.valueOf(status);
+    }
+
+    private static Address toAddress(ResultSet rs, int column) throws SQLException {
+        return new Address(rs.getString(column), rs.getString(column + 1), rs.getString(column + 2));
+    }
+
+    /**
+     * 이름을 채우기 전의 행 (메인 DB 조회용 id 를 같이 들고 있다)
+     */
+    private static final class Row<T> {
+        final T dto;
+        final Long memberId;
+        final Long itemId;
+
+        Row(T dto, Long memberId, Long itemId) {
+            this.dto = dto;
+            this.memberId = memberId;
+            this.itemId = itemId;
+        }
+    }
+
+    /**
+     * 샤드 하나의 주문 + 주문상품
+     */
+    private static final class ShardOrders {
+        final List<Row<OrderQueryDto>> orders = new ArrayList<>();
+        final List<Row<OrderItemQueryDto>> items = new ArrayList<>();
+    }
+
+    /**
+     * 메인 DB 나 샤드 하나의 읽기 전용 커서 - 한 행 앞서 읽는다.
+     */
+    private static final class Cursor<T> implements Iterator<T>, AutoCloseable {
+
+        private final String sql;
+        private final RowMapper<T> mapper;
+        private Connection connection;
+        private PreparedStatement statement;
+        private ResultSet resultSet;
+        private T next;
+        private int rowNum;
+
+        Cursor(String source, DataSource dataSource, String sql, RowMapper<T> mapper) {
+            this.sql = sql;
+            this.mapper = mapper;
+            try {
+                connection = dataSource.getConnection();
+                connection.setReadOnly(true);
+                connection.setAutoCommit(false);
+                statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                statement.setFetchSize(STREAM_FETCH_SIZE);
+                resultSet = statement.executeQuery();
+                advance();
+            } catch (SQLException e) {
+                close();
+                throw new UncategorizedSQLException(source + " cursor", sql, e);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public T next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            T current = next;
+            try {
+                advance();
+            } catch (SQLException e) {
+                close();
+                throw new UncategorizedSQLException("shard cursor", sql, e);
+            }
+            return current;
+        }
+
+        private void advance() throws SQLException {
+            next = resultSet.next() ? mapper.mapRow(resultSet, rowNum++) : null;
+            if (next == null) {
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (connection != null) {
+                    connection.rollback(); // 읽기만 했으므로 롤백으로 끝낸다.
+                    connection.close();
+                }
+            } catch (SQLException ignored) {
+                // 반환 실패는 풀이 처리한다.
+            } finally {
+                connection = null;
+                statement = null;
+                resultSet = null;
+            }
+        }
+    }
+}
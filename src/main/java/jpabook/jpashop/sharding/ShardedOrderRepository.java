@@ -0,0 +1,181 @@
+package jpabook.jpashop.sharding;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.DeliveryStatus;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.service.OrderLine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/*
+ * 주문 쓰기 (샤드)
+ * - 주문/배송/주문상품은 회원 샤드에 JDBC 로 저장한다. 회원 주문 수, 재고는 그대로 메인 DB(JPA)에서 변경한다.
+ * - 샤드 쓰기는 샤드 로컬 트랜잭션으로 바로 커밋되므로, 메인 트랜잭션이 커밋되지 않으면 보상 쿼리로 되돌린다. (최선 노력, 2PC 아님)
+ *   롤백뿐 아니라 커밋 결과를 알 수 없을 때(STATUS_UNKNOWN)도 되돌리고, 그 경우는 메인 DB 확인이 필요하므로 로그를 남긴다.
+ */
+@Slf4j
+public class ShardedOrderRepository {
+
+    private final OrderShards shards;
+
+    public ShardedOrderRepository(OrderShards shards) {
+        this.shards = shards;
+    }
+
+    /**
+     * 주문 저장 - 배송, 주문상품 포함. 발급된 id 를 엔티티에 채워서 돌려준다. (엔티티는 영속화하지 않는다)
+     */
+    public Long insert(Order order) {
+        Long memberId = order.getMember().getId();
+        OrderShard shard = shards.shardForMember(memberId);
+        shard.write(jdbc -> {
+            Iterator<Long> ids = nextIds(jdbc, 2 + order.getOrderItems().size()).iterator();
+            Delivery delivery = order.getDelivery();
+            delivery.setId(ids.next());
+            order.setId(ids.next());
+            order.getOrderItems().forEach(orderItem -> orderItem.setId(ids.next()));
+
+            Address address = delivery.getAddress();
+            jdbc.update("insert into delivery (delivery_id, city, street, zipcode, status)"
+                            + " values (:id, :city, :street, :zipcode, :status)",
+                    new MapSqlParameterSource("id", delivery.getId())
+                            .addValue("city", address == null ? null : address.getCity())
+                            .addValue("street", address == null ? null : address.getStreet())
+                            .addValue("zipcode", address == null ? null : address.getZipcode())
+                            .addValue("status", delivery.getStatus() == null ? null : delivery.getStatus().name()));
+            jdbc.update("insert into orders (order_id, order_date, status, delivery_id, member_id)"
+                            + " values (:id, :orderDate, :status, :deliveryId, :memberId)",
+                    new MapSqlParameterSource("id", order.getId())
+                            .addValue("orderDate", Timestamp.valueOf(order.getOrderDate()))
+                            .addValue("status", order.getStatus().name())
+                            .addValue("deliveryId", delivery.getId())
+                            .addValue("memberId", memberId));
+
+            List<SqlParameterSource> items = new ArrayList<>();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                items.add(new MapSqlParameterSource("id", orderItem.getId())
+                        .addValue("count", orderItem.getCount())
+                        .addValue("orderPrice", orderItem.getOrderPrice())
+                        .addValue("itemId", orderItem.getItem().getId())
+                        .addValue("orderId", order.getId()));
+            }
+            jdbc.batchUpdate("insert into order_item (order_item_id, count, order_price, item_id, order_id)"
+                    + " values (:id, :count, :orderPrice, :itemId, :orderId)", items.toArray(new SqlParameterSource[0]));
+            return null;
+        });
+
+        Long orderId = order.getId();
+        onRollback(() -> delete(orderId));
+        return orderId;
+    }
+
+    /**
+     * 주문 조회, 없거나 샤드 id 가 아니면(샤딩 전 메인 DB 주문) null
+     */
+    public ShardedOrder findOrder(Long orderId) {
+        if (!shards.isShardId(orderId)) {
+            return null;
+        }
+        return shards.shardForId(orderId).read(jdbc -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("orderId", orderId);
+            List<Object[]> headers = jdbc.query("select o.member_id, o.status, d.status from orders o"
+                    + " join delivery d on d.delivery_id = o.delivery_id"
+                    + " where o.order_id = :orderId", params,
+                    (rs, rowNum) -> new Object[]{rs.getLong(1), rs.getString(2), rs.getString(3)});
+            if (headers.isEmpty()) {
+                return null;
+            }
+            Object[] header = headers.get(0);
+            List<OrderLine> lines = jdbc.query("select item_id, count from order_item where order_id = :orderId"
+                    + " order by order_item_id", params, (rs, rowNum) -> new OrderLine(rs.getLong(1), rs.getInt(2)));
+            return new ShardedOrder(orderId, (Long) header[0],
+                    header[1] == null ? null : OrderStatus.valueOf((String) header[1]),
+                    header[2] == null ? null : DeliveryStatus.valueOf((String) header[2]),
+                    lines);
+        });
+    }
+
+    /**
+     * 주문 상태 변경 - 현재 상태가 expected 일 때만 바꾼다. (동시 취소 방지)
+     * 메인 트랜잭션이 커밋되지 않으면 expected 로 되돌린다.
+     */
+    public boolean updateStatus(Long orderId, OrderStatus expected, OrderStatus status) {
+        int updated = update(orderId, expected, status);
+        if (updated == 0) {
+            return false;
+        }
+        onRollback(() -> update(orderId, status, expected));
+        return true;
+    }
+
+    /**
+     * 주문 삭제 (주문상품, 배송 포함)
+     */
+    public void delete(Long orderId) {
+        shards.shardForId(orderId).write(jdbc -> {
+            MapSqlParameterSource params = new MapSqlParameterSource("orderId", orderId);
+            Long deliveryId = jdbc.query("select delivery_id from orders where order_id = :orderId", params,
+                    rs -> rs.next() ? rs.getLong(1) : null);
+            jdbc.update("delete from order_item where order_id = :orderId", params);
+            jdbc.update("delete from orders where order_id = :orderId", params);
+            if (deliveryId != null) {
+                jdbc.update("delete from delivery where delivery_id = :deliveryId",
+                        new MapSqlParameterSource("deliveryId", deliveryId));
+            }
+            return null;
+        });
+    }
+
+    private int update(Long orderId, OrderStatus expected, OrderStatus status) {
+        return shards.shardForId(orderId).write(jdbc -> jdbc.update(
+                "update orders set status = :status where order_id = :orderId and status = :expected",
+                new MapSqlParameterSource("orderId", orderId)
+                        .addValue("status", status.name())
+                        .addValue("expected", expected.name())));
+    }
+
+    /**
+     * 샤드 시퀀스에서 count 개를 한번에 받는다.
+     */
+    private static List<Long> nextIds(NamedParameterJdbcTemplate jdbc, int count) {
+        return jdbc.queryForList("select next value for order_shard_seq from system_range(1, :count)",
+                new MapSqlParameterSource("count", count), Long.class);
+    }
+
+    /**
+     * 메인 트랜잭션이 커밋되지 않으면 실행 (보상), 트랜잭션 밖이면 할 일이 없다.
+     */
+    private static void onRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    return;
+                }
+                if (status == STATUS_UNKNOWN) {
+                    log.warn("메인 트랜잭션 커밋 결과를 알 수 없어 샤드 쓰기를 되돌립니다. 메인 DB 재고/주문 수 확인 필요");
+                }
+                try {
+                    compensation.run();
+                } catch (RuntimeException e) {
+                    log.error("샤드 보상 실패 - 수동 정리 필요", e);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,101 @@
+package jpabook.jpashop.sharding;
+
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.metrics.HikariMetricsTrackerPostProcessor;
+import jpabook.jpashop.repository.ItemJdbcRepository;
+import jpabook.jpashop.repository.MemberJdbcRepository;
+import org.flywaydb.core.Flyway;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 주문 샤딩 (jpashop.sharding.enabled=true 일 때만)
+ *
+ * - 주문/배송/주문상품만 jpashop.sharding.shards 로 나눈다. 회원, 상품 등 나머지는 spring.datasource 그대로.
+ * - 샤드 스키마는 샤드마다 db/shard 마이그레이션으로 만든다. id 시퀀스 시작값/간격이 샤드 번호/샤드 수로 정해진다.
+ * - 샤드 주문 id 는 id-base 보다 크게 발급해서 메인 DB id 와 겹치지 않는다. 메인 시퀀스가 id-base 에 닿았으면 시작하지 않는다.
+ * - 샤드를 켜기 전 메인 DB 에 있던 주문은 옮기지 않는다. (id 가 id-base 이하이므로 메인 DB 에서 찾고, 목록 조회는 메인 DB 도 같이 합친다)
+ */
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+@ConditionalOnProperty(prefix = "jpashop.sharding", name = "enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean(destroyMethod = "close")
+    public OrderShards orderShards(ShardingProperties properties, HikariMetricsTrackerPostProcessor metricsTracker,
+                                   JdbcTemplate jdbcTemplate) {
+        checkMainSequence(jdbcTemplate, properties.getIdBase());
+        int count = properties.getShards().size();
+        List<OrderShard> shards = new ArrayList<>();
+        try {
+            for (int i = 0; i < count; i++) {
+                HikariDataSource pool = createShard(properties.getShards().get(i), i);
+                metricsTracker.postProcessAfterInitialization(pool, pool.getPoolName());
+                shards.add(new OrderShard(i, pool));
+                migrate(pool, properties.getIdBase(), i, count);
+            }
+        } catch (RuntimeException e) {
+            shards.forEach(shard -> shard.getDataSource().close());
+            throw e;
+        }
+        return new OrderShards(shards, properties.getIdBase(), properties.getQueryThreads(), properties.getQueryTimeout());
+    }
+
+    @Bean
+    public ShardedOrderRepository shardedOrderRepository(OrderShards orderShards) {
+        return new ShardedOrderRepository(orderShards);
+    }
+
+    @Bean
+    public ShardedOrderQueryRepository shardedOrderQueryRepository(OrderShards orderShards, DataSource dataSource,
+                                                                   MemberJdbcRepository memberJdbcRepository,
+                                                                   ItemJdbcRepository itemJdbcRepository) {
+        return new ShardedOrderQueryRepository(orderShards, dataSource, memberJdbcRepository, itemJdbcRepository);
+    }
+
+    private HikariDataSource createShard(ShardingProperties.Shard shard, int index) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("order-shard-" + index);
+        pool.setJdbcUrl(shard.getUrl());
+        pool.setUsername(shard.getUsername());
+        pool.setPassword(shard.getPassword());
+        if (shard.getDriverClassName() != null) {
+            pool.setDriverClassName(shard.getDriverClassName());
+        }
+        pool.setMaximumPoolSize(shard.getMaximumPoolSize());
+        return pool;
+    }
+
+    /**
+     * 메인 DB id 가 샤드 id 범위까지 올라왔으면 id 로 어느 DB 의 주문인지 구분할 수 없다.
+     */
+    private void checkMainSequence(JdbcTemplate jdbcTemplate, long idBase) {
+        Long current = jdbcTemplate.queryForObject("select current_value from information_schema.sequences"
+                + " where sequence_name = 'HIBERNATE_SEQUENCE'", Long.class);
+        if (current != null && current >= idBase) {
+            throw new IllegalStateException("메인 DB hibernate_sequence 가 샤드 id 범위에 닿았습니다. current="
+                    + current + ", jpashop.sharding.id-base=" + idBase);
+        }
+    }
+
+    private void migrate(HikariDataSource pool, long idBase, int index, int count) {
+        Map<String, String> placeholders = new HashMap<>();
+        placeholders.put("idStart", Long.toString(idBase + index + 1));
+        placeholders.put("idIncrement", Integer.toString(count));
+        Flyway.configure()
+                .dataSource(pool)
+                .locations("classpath:db/shard")
+                .placeholders(placeholders)
+                .load()
+                .migrate();
+    }
+}
@@ -0,0 +1,50 @@
+package jpabook.jpashop.sharding;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * jpashop.sharding.*
+ * 회원/상품 등 나머지 테이블은 기존 spring.datasource 를 그대로 사용한다.
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.sharding")
+public class ShardingProperties {
+
+    private boolean enabled;
+
+    /**
+     * 샤드 목록. 순서가 샤드 번호이고, 주문 id 와 회원 해시가 샤드 수에 묶이므로 운영 중에 바꾸지 않는다.
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    /**
+     * 샤드 주문 id 는 이 값보다 크게 발급한다. 메인 DB hibernate_sequence 로 발급된 id
+     * (샤딩 전 주문, 주문 아카이브, 아웃박스의 주문 id 등)와 겹치지 않게 하려는 것으로, 운영 중에 바꾸지 않는다.
+     */
+    private long idBase = 1_000_000_000_000L;
+
+    /**
+     * 전체 샤드 조회(scatter-gather) 스레드 수 (0 이면 샤드 수)
+     */
+    private int queryThreads;
+
+    /**
+     * 전체 샤드 조회 제한 시간
+     */
+    private Duration queryTimeout = Duration.ofSeconds(10);
+
+    @Getter @Setter
+    public static class Shard {
+        private String url;
+        private String username;
+        private String password;
+        private String driverClassName;
+        private int maximumPoolSize = 10;
+    }
+}
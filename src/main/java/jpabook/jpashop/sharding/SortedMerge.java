@@ -0,0 +1,79 @@
+package jpabook.jpashop.sharding;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * 샤드별로 정렬된 결과를 하나로 합친다. (k-way merge)
+ * - 같은 값이면 앞 샤드 먼저 -> 결과가 매번 같은 순서
+ */
+final class SortedMerge {
+
+    private SortedMerge() {
+    }
+
+    /**
+     * offset 개를 건너뛰고 limit 개까지 (limit < 0 이면 끝까지)
+     */
+    static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> comparator, int offset, int limit) {
+        List<Iterator<T>> iterators = new ArrayList<>(sorted.size());
+        sorted.forEach(list -> iterators.add(list.iterator()));
+        Iterator<T> merged = merge(iterators, comparator);
+
+        List<T> result = new ArrayList<>();
+        for (int skipped = 0; skipped < offset && merged.hasNext(); skipped++) {
+            merged.next();
+        }
+        while (merged.hasNext() && (limit < 0 || result.size() < limit)) {
+            result.add(merged.next());
+        }
+        return result;
+    }
+
+    static <T> Iterator<T> merge(List<? extends Iterator<T>> sorted, Comparator<? super T> comparator) {
+        PriorityQueue<Head<T>> heads = new PriorityQueue<>(Math.max(1, sorted.size()), (a, b) -> {
+            int compared = comparator.compare(a.value, b.value);
+            return compared != 0 ? compared : Integer.compare(a.source, b.source);
+        });
+        for (int i = 0; i < sorted.size(); i++) {
+            Iterator<T> iterator = sorted.get(i);
+            if (iterator.hasNext()) {
+                heads.add(new Head<>(iterator.next(), i, iterator));
+            }
+        }
+        return new Iterator<T>() {
+            @Override
+            public boolean hasNext() {
+                return !heads.isEmpty();
+            }
+
+            @Override
+            public T next() {
+                Head<T> head = heads.poll();
+                if (head == null) {
+                    throw new NoSuchElementException();
+                }
+                if (head.rest.hasNext()) {
+                    heads.add(new Head<>(head.rest.next(), head.source, head.rest));
+                }
+                return head.value;
+            }
+        };
+    }
+
+    private static final class Head<T> {
+        final T value;
+        final int source;
+        final Iterator<T> rest;
+
+        Head(T value, int source, Iterator<T> rest) {
+            this.value = value;
+            this.source = source;
+            this.rest = rest;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package jpabook.jpashop.startup;
+
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+/**
+ * 빈 생성 시간 측정
+ * - 인스턴스 생성 직전 ~ 초기화 완료까지를 스레드별 스택으로 잰다.
+ * - 생성 도중에 만들어진 의존 빈의 시간은 self 시간에서 뺀다.
+ */
+class BeanCreationTimer implements InstantiationAwareBeanPostProcessor {
+
+    private final StartupReport report;
+    private final ThreadLocal<Deque<Frame>> stack = ThreadLocal.withInitial(ArrayDeque::new);
+
+    BeanCreationTimer(StartupReport report) {
+        this.report = report;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) {
+        stack.get().push(new Frame(beanName, System.nanoTime()));
+        return null;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        Deque<Frame> frames = stack.get();
+        Frame frame = frames.peek();
+        // FactoryBean이 만든 객체도 같은 이름으로 호출되므로 스택 맨 위와 이름이 같을 때만 꺼낸다.
+        if (frame == null || !frame.beanName.equals(beanName)) {
+            return bean;
+        }
+        frames.pop();
+        long total = System.nanoTime() - frame.startNanos;
+        report.bean(beanName, total, total - frame.childNanos);
+        Frame parent = frames.peek();
+        if (parent != null) {
+            parent.childNanos += total;
+        }
+        return bean;
+    }
+
+    private static class Frame {
+        final String beanName;
+        final long startNanos;
+        long childNanos;
+
+        Frame(String beanName, long startNanos) {
+            this.beanName = beanName;
+            this.startNanos = startNanos;
+        }
+    }
+}
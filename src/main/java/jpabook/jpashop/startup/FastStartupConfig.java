@@ -0,0 +1,55 @@
+package jpabook.jpashop.startup;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryBuilderCustomizer;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.Lifecycle;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * 빠른 기동 모드 (--spring.profiles.active=fast-startup)
+ * - 빈은 지연 생성하고 주문 경로(jpashop.startup.eager-beans)만 기동 시점에 만든다.
+ * - EntityManagerFactory는 백그라운드 스레드에서 만들고, 처음 사용할 때 완료를 기다린다.
+ */
+@Configuration
+@Profile("fast-startup")
+public class FastStartupConfig {
+
+    /**
+     * 지연 생성 제외 목록, BeanFactoryPostProcessor 단계에서 조회되므로 static
+     * - Lifecycle 빈(스케줄러, 이벤트 소비자)은 목록과 상관없이 기동 시점에 만든다.
+     */
+    @Bean
+    public static LazyInitializationExcludeFilter eagerBeansExcludeFilter(Environment environment) {
+        Set<String> eagerBeans = Binder.get(environment)
+                .bind("jpashop.startup.eager-beans", Bindable.setOf(String.class))
+                .orElse(Collections.emptySet());
+        return (beanName, beanDefinition, beanType) -> eagerBeans.contains(beanName)
+                || (beanType != null && Lifecycle.class.isAssignableFrom(beanType));
+    }
+
+    @Bean
+    public EntityManagerFactoryBuilderCustomizer backgroundJpaBootstrap(ObjectProvider<StartupReport> startupReport) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("jpa-bootstrap-");
+        // EntityManagerFactory 생성 + 스키마 생성 이벤트 발행, 두 작업이 스레드 이름으로 구분된다.
+        executor.setTaskDecorator(task -> () -> {
+            String name = Thread.currentThread().getName();
+            startupReport.ifAvailable(report -> report.backgroundStarted(name));
+            try {
+                task.run();
+            } finally {
+                startupReport.ifAvailable(report -> report.backgroundFinished(name));
+            }
+        });
+        return builder -> builder.setBootstrapExecutor(executor);
+    }
+}
@@ -0,0 +1,119 @@
+package jpabook.jpashop.startup;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.util.ClassUtils;
+
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기동 시간 분석 리포트
+ * - 단계(phase)별 시간 : SpringApplicationRunListener 콜백 사이 구간
+ * - 빈별 시간 : 생성 ~ 초기화 완료, self = 의존 빈 생성 시간을 뺀 값
+ * - 백그라운드 작업 : 메인 스레드와 겹쳐서 실행된 작업 (JPA 부트스트랩)
+ */
+@Slf4j
+public class StartupReport {
+
+    private static final int TOP_BEANS = 20;
+
+    private final long jvmStartMillis = ManagementFactory.getRuntimeMXBean().getStartTime();
+    private final long startNanos = System.nanoTime();
+    private final long startMillis = System.currentTimeMillis();
+
+    private final Map<String, Long> phases = new LinkedHashMap<>(); // 단계 이름 -> 시작 후 경과(ns)
+    private final List<BeanTiming> beans = Collections.synchronizedList(new ArrayList<>());
+    private final Map<String, long[]> backgroundTasks = new ConcurrentHashMap<>(); // 이름 -> [시작, 끝] 경과(ns), 진행중이면 끝 = -1
+    private volatile boolean printed;
+
+    void phase(String name) {
+        phases.put(name, System.nanoTime() - startNanos);
+    }
+
+    void bean(String name, long totalNanos, long selfNanos) {
+        beans.add(new BeanTiming(name, totalNanos, selfNanos));
+    }
+
+    /**
+     * 백그라운드 작업 시작/종료, 리포트 출력 후에 끝나면 따로 로그를 남긴다.
+     */
+    public void backgroundStarted(String name) {
+        backgroundTasks.put(name, new long[]{System.nanoTime() - startNanos, -1});
+    }
+
+    public void backgroundFinished(String name) {
+        long[] range = backgroundTasks.get(name);
+        if (range == null) {
+            return;
+        }
+        range[1] = System.nanoTime() - startNanos;
+        if (printed) {
+            log.info("startup report : {} finished in {} ms (+{} ms)", name,
+                    TimeUnit.NANOSECONDS.toMillis(range[1] - range[0]), TimeUnit.NANOSECONDS.toMillis(range[1]));
+        }
+    }
+
+    /**
+     * JVM 시작 ~ 마지막 단계까지 (ms)
+     */
+    public long timeToReadyMillis() {
+        long last = phases.isEmpty() ? 0 : new ArrayList<>(phases.values()).get(phases.size() - 1);
+        return (startMillis - jvmStartMillis) + TimeUnit.NANOSECONDS.toMillis(last);
+    }
+
+    public List<BeanTiming> getBeans() {
+        synchronized (beans) {
+            return new ArrayList<>(beans);
+        }
+    }
+
+    void print(int beanDefinitionCount) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("\n== startup report : ready in ").append(timeToReadyMillis()).append(" ms (JVM start)\n");
+        sb.append(String.format("%-40s %10s%n", "phase", "ms"));
+        sb.append(String.format("%-40s %10d%n", "jvm -> starting", startMillis - jvmStartMillis));
+        long previous = 0;
+        String previousName = "starting";
+        for (Map.Entry<String, Long> phase : phases.entrySet()) {
+            sb.append(String.format("%-40s %10d%n", previousName + " -> " + phase.getKey(),
+                    TimeUnit.NANOSECONDS.toMillis(phase.getValue() - previous)));
+            previous = phase.getValue();
+            previousName = phase.getKey();
+        }
+        for (Map.Entry<String, long[]> task : backgroundTasks.entrySet()) {
+            long[] range = task.getValue();
+            if (range[1] < 0) {
+                sb.append(String.format("%-40s %10s  (background, +%d ms ~ still running)%n", task.getKey(), "-",
+                        TimeUnit.NANOSECONDS.toMillis(range[0])));
+            } else {
+                sb.append(String.format("%-40s %10d  (background, +%d ~ +%d ms)%n", task.getKey(),
+                        TimeUnit.NANOSECONDS.toMillis(range[1] - range[0]),
+                        TimeUnit.NANOSECONDS.toMillis(range[0]), TimeUnit.NANOSECONDS.toMillis(range[1])));
+            }
+        }
+
+        List<BeanTiming> sorted = getBeans();
+        sorted.sort(Comparator.comparingLong(BeanTiming::getSelfNanos).reversed());
+        sb.append(String.format("%nbeans created : %d / %d definitions, top %d by self time%n",
+                sorted.size(), beanDefinitionCount, Math.min(TOP_BEANS, sorted.size())));
+        sb.append(String.format("%-60s %10s %10s%n", "bean", "total(ms)", "self(ms)"));
+        for (BeanTiming bean : sorted.subList(0, Math.min(TOP_BEANS, sorted.size()))) {
+            sb.append(String.format("%-60s %10.1f %10.1f%n", ClassUtils.getShortName(bean.getName()),
+                    bean.getTotalNanos() / 1_000_000.0, bean.getSelfNanos() / 1_000_000.0));
+        }
+        log.info(sb.toString());
+        printed = true;
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class BeanTiming {
+        private final String name;
+        private final long totalNanos;
+        private final long selfNanos;
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.startup;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.SpringApplicationRunListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.ConfigurableEnvironment;
+
+/**
+ * 기동 리포트 수집 (META-INF/spring.factories 로 등록)
+ * - jpashop.startup.report=true 일 때만 동작한다. (fast-startup 프로필에서 켜짐)
+ * - 설정 파일을 읽은 다음에 판단해야 하므로 EventPublishingRunListener(order 0) 뒤에 실행한다.
+ */
+public class StartupReportRunListener implements SpringApplicationRunListener, Ordered {
+
+    public static final String BEAN_NAME = "startupReport";
+
+    private final StartupReport report = new StartupReport();
+    private boolean enabled;
+
+    public StartupReportRunListener(SpringApplication application, String[] args) {
+    }
+
+    @Override
+    public int getOrder() {
+        return 10;
+    }
+
+    @Override
+    public void environmentPrepared(ConfigurableEnvironment environment) {
+        enabled = environment.getProperty("jpashop.startup.report", Boolean.class, false);
+        report.phase("environment prepared");
+    }
+
+    @Override
+    public void contextPrepared(ConfigurableApplicationContext context) {
+        if (!enabled) {
+            return;
+        }
+        report.phase("context prepared");
+        context.getBeanFactory().registerSingleton(BEAN_NAME, report);
+        context.getBeanFactory().addBeanPostProcessor(new BeanCreationTimer(report));
+    }
+
+    @Override
+    public void contextLoaded(ConfigurableApplicationContext context) {
+        if (enabled) {
+            report.phase("context loaded");
+        }
+    }
+
+    @Override
+    public void started(ConfigurableApplicationContext context) {
+        if (enabled) {
+            report.phase("context refreshed");
+        }
+    }
+
+    @Override
+    public void running(ConfigurableApplicationContext context) {
+        if (enabled) {
+            report.phase("ready");
+            report.print(context.getBeanFactory().getBeanDefinitionCount());
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package jpabook.jpashop.threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+
+/**
+ * 애플리케이션이 쓰는 DataSource(dataSource, 라우팅 사용 시 routingDataSource)를 ConnectionLimitingDataSource 로 감싼다.
+ * - 가장 바깥에서 감싸야 p6spy / 라우팅 프록시를 거치는 모든 커넥션이 세어진다.
+ */
+@Slf4j
+class ConnectionLimitingPostProcessor implements BeanPostProcessor, Ordered {
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+
+    private final VirtualThreadProperties properties;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    ConnectionLimitingPostProcessor(VirtualThreadProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (!(bean instanceof DataSource) || bean instanceof ConnectionLimitingDataSource
+                || !("dataSource".equals(beanName) || "routingDataSource".equals(beanName))) {
+            return bean;
+        }
+        DataSource dataSource = (DataSource) bean;
+        ConnectionLimitingDataSource limited = new ConnectionLimitingDataSource(dataSource,
+                maxConnections(dataSource), properties.getAcquireTimeout());
+        log.info("{} 커넥션 동시 사용 제한 {}", beanName, limited.getMaxConnections());
+
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry != null) {
+            Gauge.builder("jpashop.db.permits.available", limited, ConnectionLimitingDataSource::getAvailablePermits)
+                    .tag("datasource", beanName).register(registry);
+            Gauge.builder("jpashop.db.permits.waiting", limited, ConnectionLimitingDataSource::getWaitingThreads)
+                    .tag("datasource", beanName).register(registry);
+        }
+        return limited;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+
+    private int maxConnections(DataSource dataSource) {
+        if (properties.getMaxConnections() > 0) {
+            return properties.getMaxConnections();
+        }
+        HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+        // maximum-pool-size 를 지정하지 않으면 풀이 뜨기 전까지 -1 이다. (Hikari 가 시작할 때 기본값 10 으로 바꾼다)
+        int poolSize = hikari != null ? hikari.getMaximumPoolSize() : -1;
+        return poolSize > 0 ? poolSize : DEFAULT_POOL_SIZE;
+    }
+}
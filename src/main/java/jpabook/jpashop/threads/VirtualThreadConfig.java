@@ -0,0 +1,51 @@
+package jpabook.jpashop.threads;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import java.util.concurrent.ExecutorService;
+
+/**
+ * 가상 스레드 실행 모드 (jpashop.virtual-threads.enabled=true 일 때만)
+ *
+ * - Tomcat 요청 스레드를 요청마다 새 가상 스레드로 바꾼다. OrderService, 리포지토리는 요청 스레드에서 실행되므로 함께 가상 스레드에서 돈다.
+ * - Java 21 미만이면 경고만 남기고 기존 Tomcat 스레드 풀(server.tomcat.max-threads)을 그대로 쓴다.
+ * - DB 커넥션 앞에 세마포어를 둔다. (ConnectionLimitingDataSource)
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "jpashop.virtual-threads", name = "enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    /**
+     * BeanPostProcessor 는 다른 빈보다 먼저 만들어지므로 설정도 Binder 로 직접 읽는다.
+     */
+    @Bean
+    static ConnectionLimitingPostProcessor connectionLimitingPostProcessor(Environment environment,
+                                                                           ObjectProvider<MeterRegistry> meterRegistry) {
+        VirtualThreadProperties properties = Binder.get(environment)
+                .bindOrCreate("jpashop.virtual-threads", VirtualThreadProperties.class);
+        return new ConnectionLimitingPostProcessor(properties, meterRegistry);
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<AbstractProtocol<?>> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> {
+            if (!VirtualThreads.isSupported()) {
+                log.warn("가상 스레드를 지원하지 않는 JVM({}) - 플랫폼 스레드 풀로 요청을 처리합니다.", System.getProperty("java.version"));
+                return;
+            }
+            ExecutorService executor = VirtualThreads.newThreadPerTaskExecutor("http-vt-");
+            protocolHandler.setExecutor(executor);
+            log.info("Tomcat 요청을 가상 스레드에서 처리합니다.");
+        };
+    }
+}
@@ -0,0 +1,30 @@
+package jpabook.jpashop.threads;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * jpashop.virtual-threads.*
+ */
+@Getter @Setter
+@ConfigurationProperties("jpashop.virtual-threads")
+public class VirtualThreadProperties {
+
+    /**
+     * 요청을 가상 스레드에서 처리한다. (Java 21 이상에서만, 아니면 기존 Tomcat 스레드 풀)
+     */
+    private boolean enabled;
+
+    /**
+     * 동시에 빌려갈 수 있는 DB 커넥션 수. 0 이면 Hikari maximumPoolSize 를 그대로 쓴다.
+     */
+    private int maxConnections;
+
+    /**
+     * 커넥션 허가를 기다리는 최대 시간. 넘으면 SQLTransientConnectionException
+     */
+    private Duration acquireTimeout = Duration.ofSeconds(30);
+}
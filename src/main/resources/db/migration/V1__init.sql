@@ -0,0 +1,73 @@
+-- 초기 스키마 (Flyway 도입 전 운영 스키마와 동일, 기존 DB는 이 버전으로 baseline 된다)
+create sequence if not exists hibernate_sequence start with 1 increment by 1;
+
+create table category (
+    category_id bigint not null,
+    name varchar(255),
+    parent_id bigint,
+    primary key (category_id)
+);
+
+create table category_item (
+    category_id bigint not null,
+    item_id bigint not null
+);
+
+create table delivery (
+    delivery_id bigint not null,
+    city varchar(255),
+    street varchar(255),
+    zipcode varchar(255),
+    status varchar(255),
+    primary key (delivery_id)
+);
+
+create table item (
+    dtype varchar(31) not null,
+    item_id bigint not null,
+    name varchar(255),
+    price integer not null,
+    stock_quantity integer not null,
+    author varchar(255),
+    isbn varchar(255),
+    actor varchar(255),
+    director varchar(255),
+    artist varchar(255),
+    etc varchar(255),
+    primary key (item_id)
+);
+
+create table member (
+    member_id bigint not null,
+    city varchar(255),
+    street varchar(255),
+    zipcode varchar(255),
+    name varchar(255),
+    primary key (member_id)
+);
+
+create table orders (
+    order_id bigint not null,
+    order_date timestamp,
+    status varchar(255),
+    delivery_id bigint,
+    member_id bigint,
+    primary key (order_id)
+);
+
+create table order_item (
+    order_item_id bigint not null,
+    count integer not null,
+    order_price integer not null,
+    item_id bigint,
+    order_id bigint,
+    primary key (order_item_id)
+);
+
+alter table category add constraint fk_category_parent foreign key (parent_id) references category;
+alter table category_item add constraint fk_category_item_item foreign key (item_id) references item;
+alter table category_item add constraint fk_category_item_category foreign key (category_id) references category;
+alter table order_item add constraint fk_order_item_item foreign key (item_id) references item;
+alter table order_item add constraint fk_order_item_order foreign key (order_id) references orders;
+alter table orders add constraint fk_orders_delivery foreign key (delivery_id) references delivery;
+alter table orders add constraint fk_orders_member foreign key (member_id) references member;
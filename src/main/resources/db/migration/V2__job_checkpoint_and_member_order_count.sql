@@ -0,0 +1,19 @@
+-- 청크 배치 체크포인트 (JobCheckpoint)
+create table if not exists job_checkpoint (
+    checkpoint_id varchar(255) not null,
+    job_name varchar(255),
+    partition_no integer not null,
+    range_from bigint not null,
+    range_to bigint not null,
+    last_processed_id bigint not null,
+    read_count bigint not null,
+    write_count bigint not null,
+    completed boolean not null,
+    updated_at timestamp,
+    primary key (checkpoint_id)
+);
+
+-- 회원별 주문 수 (Member.orderCount), 기존 주문으로 채운다.
+alter table member add column if not exists order_count integer default 0 not null;
+
+update member m set order_count = (select count(*) from orders o where o.member_id = m.member_id);
@@ -0,0 +1,24 @@
+-- 조회 조건별 인덱스 (QueryPlanTest 에서 실행계획으로 검증한다)
+
+-- 주문 : 상태 검색, 회원별 주문 이력(키셋 페이징), 배송 -> 주문 조회
+create index if not exists idx_orders_status on orders (status);
+create index if not exists idx_orders_member_date on orders (member_id, order_date, status);
+create index if not exists idx_orders_delivery on orders (delivery_id);
+
+-- 주문상품 : 주문별 조회(컬렉션 지연로딩, IN 쿼리), 상품별 조회
+create index if not exists idx_order_item_order on order_item (order_id);
+create index if not exists idx_order_item_item on order_item (item_id);
+
+-- 카테고리-상품 : 양방향 모두 조회된다.
+alter table category_item add constraint pk_category_item primary key (category_id, item_id);
+create index if not exists idx_category_item_item on category_item (item_id);
+create index if not exists idx_category_parent on category (parent_id);
+
+-- 회원 이름 검색 (중복 회원 검증)
+create index if not exists idx_member_name on member (name);
+
+-- 배송 상태 커서 조회 (배송 완료 배치)
+create index if not exists idx_delivery_status on delivery (status, delivery_id);
+
+-- 배치 체크포인트 조회
+create index if not exists idx_job_checkpoint_job on job_checkpoint (job_name, partition_no);
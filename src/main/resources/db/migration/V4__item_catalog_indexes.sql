@@ -0,0 +1,4 @@
+-- 상품 카탈로그 검색 (종류, 가격 범위, 재고, 키셋 페이징)
+-- 인덱스 끝에 item_id(PK)가 붙으므로 (price, item_id) 키셋 정렬도 인덱스 순서를 따른다.
+create index if not exists idx_item_dtype_price on item (dtype, price, stock_quantity);
+create index if not exists idx_item_price on item (price, stock_quantity);
@@ -0,0 +1,9 @@
+-- 주문 이벤트 아웃박스 (OrderOutbox), 재발행은 outbox_id(PK) 순서로 읽는다.
+create table if not exists order_outbox (
+    outbox_id bigint not null,
+    event_type varchar(255),
+    order_id bigint,
+    member_id bigint,
+    created_at timestamp,
+    primary key (outbox_id)
+);
@@ -0,0 +1,37 @@
+-- 주문 아카이브 (오래된 취소/배송완료 주문), 컬럼은 원본 테이블과 같다.
+create table if not exists delivery_archive (
+    delivery_id bigint not null,
+    city varchar(255),
+    street varchar(255),
+    zipcode varchar(255),
+    status varchar(255),
+    primary key (delivery_id)
+);
+
+create table if not exists orders_archive (
+    order_id bigint not null,
+    order_date timestamp,
+    status varchar(255),
+    delivery_id bigint,
+    member_id bigint,
+    primary key (order_id)
+);
+
+create table if not exists order_item_archive (
+    order_item_id bigint not null,
+    count integer not null,
+    order_price integer not null,
+    item_id bigint,
+    order_id bigint,
+    primary key (order_item_id)
+);
+
+alter table orders_archive add constraint fk_orders_archive_delivery foreign key (delivery_id) references delivery_archive;
+alter table orders_archive add constraint fk_orders_archive_member foreign key (member_id) references member;
+alter table order_item_archive add constraint fk_order_item_archive_order foreign key (order_id) references orders_archive;
+alter table order_item_archive add constraint fk_order_item_archive_item foreign key (item_id) references item;
+
+-- 아카이브 포함 조회 : 회원별 주문 이력, 상태 검색, 주문별 주문상품
+create index if not exists idx_orders_archive_member_date on orders_archive (member_id, order_date, status);
+create index if not exists idx_orders_archive_status on orders_archive (status);
+create index if not exists idx_order_item_archive_order on order_item_archive (order_id);
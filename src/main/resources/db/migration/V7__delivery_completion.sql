@@ -0,0 +1,9 @@
+-- 택배사 배송 완료 보고 (DeliveryCompleteJob 입력), 배치는 delivery_id 순서로 읽는다.
+create table if not exists delivery_completion (
+    completion_id bigint auto_increment not null,
+    delivery_id bigint not null,
+    reported_at timestamp,
+    primary key (completion_id)
+);
+
+create index if not exists idx_delivery_completion_delivery on delivery_completion (delivery_id);
@@ -0,0 +1,40 @@
+-- 주문 샤드 스키마 (jpashop.sharding.enabled=true 일 때 샤드마다 실행)
+-- 회원/상품은 메인 DB 에 있으므로 FK 를 걸지 않는다.
+-- id 는 샤드마다 ${idStart}(idBase + 샤드 번호 + 1) 부터 ${idIncrement}(샤드 수) 간격으로 발급한다.
+-- -> 전체 샤드에서 유일하고 메인 DB id(<= idBase)와 겹치지 않으며 (id - idBase - 1) % 샤드 수 = 샤드 번호
+
+create sequence order_shard_seq start with ${idStart} increment by ${idIncrement};
+
+create table delivery (
+    delivery_id bigint not null,
+    city varchar(255),
+    street varchar(255),
+    zipcode varchar(255),
+    status varchar(255),
+    primary key (delivery_id)
+);
+
+create table orders (
+    order_id bigint not null,
+    order_date timestamp,
+    status varchar(255),
+    delivery_id bigint,
+    member_id bigint,
+    primary key (order_id)
+);
+
+create table order_item (
+    order_item_id bigint not null,
+    count integer not null,
+    order_price integer not null,
+    item_id bigint,
+    order_id bigint,
+    primary key (order_item_id)
+);
+
+alter table orders add constraint fk_orders_delivery foreign key (delivery_id) references delivery;
+alter table order_item add constraint fk_order_item_order foreign key (order_id) references orders;
+
+create index idx_orders_member_date on orders (member_id, order_date, status);
+create index idx_orders_date on orders (order_date, order_id);
+create index idx_order_item_order on order_item (order_id);
@@ -0,0 +1,55 @@
+/*
+ * 회원 이름 자동완성 (/api/members/autocomplete)
+ * - 입력할 때마다 datalist 를 접두어가 일치하는 회원으로 채운다.
+ * - idInput 이 있으면 목록에 있는 이름과 정확히 같을 때 그 회원 id 를 넣고, 아니면 비운다.
+ */
+function memberAutocomplete(input, datalist, idInput) {
+    var timer;
+    var lastPrefix;
+
+    function selectId() {
+        if (!idInput) {
+            return;
+        }
+        idInput.value = "";
+        for (var i = 0; i < datalist.options.length; i++) {
+            if (datalist.options[i].value === input.value) {
+                idInput.value = datalist.options[i].getAttribute("data-id");
+                return;
+            }
+        }
+    }
+
+    function load(prefix) {
+        var xhr = new XMLHttpRequest();
+        xhr.open("GET", "/api/members/autocomplete?limit=10&prefix=" + encodeURIComponent(prefix));
+        xhr.onload = function () {
+            if (xhr.status !== 200 || prefix !== input.value) {
+                return;
+            }
+            datalist.innerHTML = "";
+            JSON.parse(xhr.responseText).forEach(function (member) {
+                var option = document.createElement("option");
+                option.value = member.name;
+                option.label = member.name + " (#" + member.id + ")";
+                option.setAttribute("data-id", member.id);
+                datalist.appendChild(option);
+            });
+            selectId();
+        };
+        xhr.send();
+    }
+
+    input.addEventListener("input", function () {
+        selectId();
+        clearTimeout(timer);
+        var prefix = input.value;
+        if (!prefix || prefix === lastPrefix) {
+            return;
+        }
+        timer = setTimeout(function () {
+            lastPrefix = prefix;
+            load(prefix);
+        }, 100);
+    });
+}
@@ -0,0 +1,281 @@
+package jpabook.jpashop.analytics;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.event.OrderEvent;
+import jpabook.jpashop.event.OrderEventType;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 이벤트는 커밋 후에 발행되므로 테스트 트랜잭션 없이 호출한다.
+ */
+@SpringBootTest(properties = {
+        "jpashop.order-facts.enabled=true",
+        "jpashop.order-facts.segment-rows=4096",
+        "jpashop.order-facts.dir=${java.io.tmpdir}/jpashop-order-facts-test-${random.uuid}" // 실행마다 새 저장소 (메모리 DB 와 맞춘다)
+})
+class OrderFactStoreTest {
+
+    private static final LocalDateTime BASE = LocalDateTime.of(2020, 1, 1, 0, 0);
+
+    @Autowired OrderFactStore orderFactStore;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @TempDir Path tempDir;
+
+    @Test
+    public void 집계는_행을_하나씩_더한_결과와_같다() throws Exception {
+        int rowCount = 10_000; // 세그먼트 3개
+        long[] itemIds = new long[rowCount];
+        int[] statuses = new int[rowCount];
+        int[] prices = new int[rowCount];
+        int[] counts = new int[rowCount];
+        Random random = new Random(1);
+
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            for (int i = 0; i < rowCount; i++) {
+                itemIds[i] = random.nextInt(10);
+                statuses[i] = random.nextInt(OrderStatus.values().length);
+                prices[i] = 1000 + random.nextInt(1000);
+                counts[i] = 1 + random.nextInt(5);
+                store.append(i / 2, i % 7, millis(i), OrderStatus.values()[statuses[i]], itemIds[i], prices[i], counts[i]);
+            }
+            assertEquals(rowCount, store.size());
+
+            OrderFactQuery query = new OrderFactQuery();
+            query.setItemId(3L);
+            query.setStatus(OrderStatus.ORDER);
+            query.setFrom(BASE.plusMinutes(5000));
+            query.setTo(BASE.plusMinutes(6000));
+            OrderFactSummary summary = store.aggregate(query);
+
+            long rows = 0, units = 0, revenue = 0;
+            for (int i = 5000; i < 6000; i++) {
+                if (itemIds[i] == 3 && statuses[i] == OrderStatus.ORDER.ordinal()) {
+                    rows++;
+                    units += counts[i];
+                    revenue += (long) prices[i] * counts[i];
+                }
+            }
+            assertTrue(rows > 0);
+            assertEquals(rows, summary.getRows());
+            assertEquals(units, summary.getUnits());
+            assertEquals(revenue, summary.getRevenue());
+            assertEquals(units, summary.getByStatus().get(OrderStatus.ORDER).getUnits());
+            // 주문일 범위 밖 블록은 읽지 않는다.
+            assertTrue(summary.getScannedRows() <= 2 * OrderFactSegment.BLOCK_ROWS, "scanned=" + summary.getScannedRows());
+            assertEquals(rowCount, summary.getScannedRows() + summary.getSkippedRows());
+        }
+    }
+
+    @Test
+    public void 다시_열면_그대로() throws Exception {
+        OrderFactQuery all = new OrderFactQuery();
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            for (int i = 0; i < 5000; i++) {
+                store.append(i, 1, millis(i), OrderStatus.ORDER, 1, 100, 2);
+            }
+            assertEquals(1, store.updateStatus(asList(10L, -1L), OrderStatus.CANCEL));
+        }
+
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            assertEquals(5000, store.size());
+            OrderFactSummary summary = store.aggregate(all);
+            assertEquals(10000, summary.getUnits());
+            assertEquals(1, summary.getByStatus().get(OrderStatus.CANCEL).getRows());
+            assertEquals(Collections.singleton(4999L), store.findExistingOrderIds(asList(4999L, 5000L)));
+
+            store.append(5000, 1, millis(5000), OrderStatus.ORDER, 1, 100, 2); // 이어서 쓴다.
+            assertEquals(5001, store.size());
+        }
+
+        // 세그먼트 크기 설정이 바뀌면 비우고 연다.
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 8192)) {
+            assertEquals(0, store.size());
+        }
+    }
+
+    @Test
+    public void 재구성_중에도_집계와_이벤트_반영은_기다리지_않고_새_버전에도_반영된다() throws Exception {
+        OrderFactQuery all = new OrderFactQuery();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            for (int i = 0; i < 5000; i++) { // 세그먼트 2개
+                store.append(i, 1, millis(i), OrderStatus.ORDER, 1, 100, 1);
+            }
+
+            long rows = store.rebuild(s -> {
+                for (int i = 0; i < 10; i++) {
+                    s.append(i, 1, millis(i), OrderStatus.ORDER, 1, 100, 1);
+                }
+                try {
+                    // 채우는 중에도 다른 스레드의 집계는 이전 세그먼트를 그대로 읽는다.
+                    assertEquals(5000, (long) executor.submit(() -> store.aggregate(all).getRows()).get(5, TimeUnit.SECONDS));
+
+                    // 이벤트로 들어온 추가/취소는 재구성이 끝나기를 기다리지 않고 지금 버전에 반영된다.
+                    executor.submit(() -> store.appendMissing(asList(5L, 6000L), (t, missing) ->
+                            missing.forEach(id -> t.append(id, 2, millis(id.intValue()), OrderStatus.ORDER, 1, 100, 1))))
+                            .get(5, TimeUnit.SECONDS);
+                    executor.submit(() -> store.updateStatus(asList(3L), OrderStatus.CANCEL)).get(5, TimeUnit.SECONDS);
+                    assertEquals(5001, store.size());
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            assertEquals(11, rows, "재구성 중에 들어온 주문은 새 버전에 한번만 들어간다.");
+            assertEquals(1, store.aggregate(all).getByStatus().get(OrderStatus.CANCEL).getRows(), "재구성 중의 취소도 새 버전에 반영된다.");
+        } finally {
+            executor.shutdown();
+        }
+
+        // CURRENT 가 새 버전을 가리키고 이전 버전 디렉토리는 지워졌다.
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            assertEquals(11, store.size());
+            assertEquals(new HashSet<>(asList(9L, 6000L)), store.findExistingOrderIds(asList(9L, 10L, 4999L, 6000L)));
+            assertEquals(1, versionDirs().size());
+        }
+    }
+
+    @Test
+    public void 중단된_재구성은_이전_버전을_그대로_쓴다() throws Exception {
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            for (int i = 0; i < 100; i++) {
+                store.append(i, 1, millis(i), OrderStatus.ORDER, 1, 100, 1);
+            }
+            assertThrows(IllegalStateException.class, () -> store.rebuild(s -> {
+                s.append(1000, 1, millis(1000), OrderStatus.ORDER, 1, 100, 1);
+                throw new IllegalStateException("DB 조회 실패");
+            }));
+            assertEquals(100, store.size());
+            assertEquals(1, versionDirs().size(), "채우던 버전은 지운다.");
+
+            store.append(100, 1, millis(100), OrderStatus.ORDER, 1, 100, 1);
+            assertEquals(101, store.size());
+        }
+
+        // 재구성 도중에 프로세스가 죽어서 남은 버전은 CURRENT 가 가리키지 않으므로 열 때 지운다.
+        Path orphan = Files.createDirectories(tempDir.resolve("version-00099"));
+        Files.write(orphan.resolve("segment-00000.ofc"), new byte[16]);
+        try (OrderFactStore store = OrderFactStore.open(tempDir, 4096)) {
+            assertEquals(101, store.size());
+            assertFalse(Files.exists(orphan));
+        }
+    }
+
+    @Test
+    public void 주문_이벤트로_저장소를_갱신한다() throws Exception {
+        Long[] ids = transactionTemplate.execute(s -> {
+            Member member = new Member();
+            member.setName("fact-member");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("fact book");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            return new Long[]{member.getId(), book.getId()};
+        });
+
+        Long orderId = orderService.order(ids[0], ids[1], 3);
+        await(() -> orderFactStore.findExistingOrderIds(asList(orderId)).contains(orderId));
+
+        OrderFactQuery query = new OrderFactQuery();
+        query.setItemId(ids[1]);
+        query.setLastMinutes(60);
+        OrderFactSummary summary = orderFactStore.aggregate(query);
+        assertEquals(3, summary.getUnits());
+        assertEquals(30000, summary.getRevenue());
+        assertEquals(3, summary.getByStatus().get(OrderStatus.ORDER).getUnits());
+
+        orderService.cancelOrder(orderId);
+        await(() -> orderFactStore.aggregate(query).getByStatus().containsKey(OrderStatus.CANCEL));
+        assertNull(orderFactStore.aggregate(query).getByStatus().get(OrderStatus.ORDER));
+    }
+
+    @Test
+    public void 배치_반영에_실패하면_모아_둔_이벤트가_전부_실패로_남는다() throws Exception {
+        OrderFactLoader failing = mock(OrderFactLoader.class);
+        doThrow(new IllegalStateException("조회 실패")).when(failing).appendOrders(any());
+        OrderFactHandler handler = new OrderFactHandler(orderFactStore, failing);
+
+        List<OrderEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderEvent event = mock(OrderEvent.class);
+            when(event.getType()).thenReturn(i == 1 ? OrderEventType.CANCELLED : OrderEventType.PLACED);
+            when(event.getOrderId()).thenReturn(800_000L + i);
+            batch.add(event);
+        }
+        handler.onEvent(batch.get(0), 0, false);
+        handler.onEvent(batch.get(1), 1, false);
+        assertThrows(IllegalStateException.class, () -> handler.onEvent(batch.get(2), 2, true));
+
+        for (OrderEvent event : batch) {
+            verify(event).markFailed();
+        }
+    }
+
+    @Test
+    public void 주문_샤딩과_함께_켜면_기동에_실패한다() throws Exception {
+        new ApplicationContextRunner()
+                .withUserConfiguration(OrderFactConfig.class)
+                .withPropertyValues("jpashop.order-facts.enabled=true", "jpashop.sharding.enabled=true",
+                        "jpashop.order-facts.dir=" + tempDir)
+                .run(context -> {
+                    assertNotNull(context.getStartupFailure());
+                    assertTrue(NestedExceptionUtils.getRootCause(context.getStartupFailure()) instanceof IllegalStateException);
+                });
+    }
+
+    private List<Path> versionDirs() throws IOException {
+        try (Stream<Path> files = Files.list(tempDir)) {
+            return files.filter(Files::isDirectory).collect(Collectors.toList());
+        }
+    }
+
+    private static long millis(int minutes) {
+        return OrderFactStore.toEpochMillis(BASE.plusMinutes(minutes));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "5초 안에 반영되지 않았다.");
+            Thread.sleep(20);
+        }
+    }
+}
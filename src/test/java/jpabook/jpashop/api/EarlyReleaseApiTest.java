@@ -0,0 +1,118 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.service.query.FetchPlan;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * OSIV off (early-release) 에서도 엔티티 API 가 조회 계획대로 초기화된 값을 내려주는지 확인한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("early-release")
+class EarlyReleaseApiTest {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 엔티티_주문_API는_OSIV_없이도_주문상품까지_내려준다() throws Exception {
+        String memberName = createOrder();
+
+        for (String url : new String[]{"/api/v1/orders", "/api/v2/orders", "/api/v3/orders", "/api/v3.1/orders"}) {
+            JsonNode order = findOrder(url, memberName);
+            assertNotNull(order, url);
+            JsonNode items = order.get("orderItems");
+            assertEquals(2, items.size(), url);
+            for (JsonNode item : items) {
+                String itemName = url.equals("/api/v1/orders") ? item.get("item").get("name").asText() : item.get("itemName").asText();
+                assertEquals("early JPA", itemName, url);
+            }
+        }
+    }
+
+    @Test
+    public void 엔티티_간단_주문_API는_OSIV_없이도_회원과_배송지를_내려준다() throws Exception {
+        String memberName = createOrder();
+
+        JsonNode v1 = findOrder("/api/v1/simple-orders", memberName);
+        assertEquals("서울", v1.get("delivery").get("address").get("city").asText());
+        for (String url : new String[]{"/api/v2/simple-orders", "/api/v3/simple-orders"}) {
+            assertEquals("서울", findOrder(url, memberName).get("address").get("city").asText(), url);
+        }
+    }
+
+    @Test
+    public void 주문_목록_화면은_OSIV_없이도_렌더링된다() throws Exception {
+        String memberName = createOrder();
+
+        String html = mockMvc.perform(get("/orders"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(html.contains(memberName));
+    }
+
+    @Test
+    public void 조회_계획_경로가_틀리면_선언할_때_실패한다() throws Exception {
+        FetchPlan.of(Order.class, "member", "delivery", "orderItems.item");
+        assertThrows(IllegalArgumentException.class, () -> FetchPlan.of(Order.class, "orderItems.itme"));
+        assertThrows(IllegalArgumentException.class, () -> FetchPlan.of(Order.class, "member.name.value"));
+    }
+
+    /**
+     * v1 은 엔티티 그대로(member.name), 나머지는 DTO(name) 로 회원명을 내려준다.
+     */
+    private JsonNode findOrder(String url, String memberName) throws Exception {
+        byte[] body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        for (JsonNode order : objectMapper.readTree(body)) {
+            JsonNode name = order.has("member") ? order.get("member").get("name") : order.get("name");
+            if (name != null && memberName.equals(name.asText())) {
+                return order;
+            }
+        }
+        return null;
+    }
+
+    private String createOrder() {
+        return new TransactionTemplate(transactionManager).execute(s -> {
+            Member member = new Member();
+            member.setName("early-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "강가", "123"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("early JPA");
+            book.setPrice(1000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            delivery.setStatus(DeliveryStatus.READY);
+            em.persist(Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(book, 1000, 1), OrderItem.createOrderItem(book, 1000, 1)));
+            return member.getName();
+        });
+    }
+}
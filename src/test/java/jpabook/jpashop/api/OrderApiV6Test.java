@@ -0,0 +1,108 @@
+package jpabook.jpashop.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 요청 단위 EntityManager(OSIV)까지 거쳐야 해서 MockMvc로 호출한다.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class OrderApiV6Test {
+
+    @Autowired MockMvc mockMvc;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired DataSource dataSource;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void v6_주문은_주문_id_순으로_주문상품을_묶는다() throws Exception {
+        Long[] orderIds = createOrders(3, 2);
+
+        MvcResult result = mockMvc.perform(get("/api/v6/orders"))
+                .andExpect(status().isOk())
+                .andReturn();
+
+        List<Long> responseIds = new ArrayList<>();
+        for (JsonNode order : objectMapper.readTree(result.getResponse().getContentAsByteArray())) {
+            long orderId = order.get("orderId").asLong();
+            assertFalse(responseIds.contains(orderId), "주문은 한 번만 나온다.");
+            responseIds.add(orderId);
+            if (orderId >= orderIds[0] && orderId <= orderIds[orderIds.length - 1]) {
+                assertEquals(2, order.get("orderItems").size());
+            }
+        }
+        List<Long> sorted = new ArrayList<>(responseIds);
+        sorted.sort(null);
+        assertEquals(sorted, responseIds);
+    }
+
+    @Test
+    public void 내보내기는_응답을_쓰는_동안_커넥션을_잡지_않는다() throws Exception {
+        createOrders(1, 1);
+        HikariDataSource pool = dataSource.unwrap(HikariDataSource.class);
+
+        MvcResult result = mockMvc.perform(get("/api/v6/orders/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        result.getAsyncResult(10_000);
+
+        // 요청이 끝나기 전 (요청 단위 EntityManager가 아직 열려 있는 시점)
+        assertEquals(0, pool.getHikariPoolMXBean().getActiveConnections(), "읽기가 끝나면 커넥션을 돌려줘야 한다.");
+
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+        assertTrue(result.getResponse().getContentAsString().length() > 0);
+    }
+
+    private Long[] createOrders(int count, int itemsPerOrder) {
+        return new TransactionTemplate(transactionManager).execute(s -> {
+            Member member = new Member();
+            member.setName("v6-" + UUID.randomUUID());
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("v6 JPA");
+            book.setPrice(1000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Long[] ids = new Long[count];
+            for (int i = 0; i < count; i++) {
+                Delivery delivery = new Delivery();
+                delivery.setStatus(DeliveryStatus.READY);
+                OrderItem[] items = new OrderItem[itemsPerOrder];
+                for (int j = 0; j < itemsPerOrder; j++) {
+                    items[j] = OrderItem.createOrderItem(book, 1000, 1);
+                }
+                Order order = Order.createOrder(member, delivery, items);
+                em.persist(order);
+                ids[i] = order.getId();
+            }
+            return ids;
+        });
+    }
+}
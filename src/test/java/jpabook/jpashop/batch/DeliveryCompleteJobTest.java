@@ -0,0 +1,200 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.DeliveryRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 배치는 청크마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션(@Transactional) 없이 실행한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class DeliveryCompleteJobTest {
+
+    @Autowired DeliveryCompleteJob deliveryCompleteJob;
+    @Autowired ChunkJobRunner chunkJobRunner;
+    @Autowired DeliveryRepository deliveryRepository;
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+
+    @Test
+    public void 배송완료_배치() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] orderIds = createOrders(tx, 6);
+        List<Long> reported = tx.execute(s -> {
+            em.find(Order.class, orderIds[0]).cancel();
+            List<Long> deliveryIds = new ArrayList<>();
+            for (int i = 0; i < orderIds.length - 1; i++) {
+                deliveryIds.add(em.find(Order.class, orderIds[i]).getDelivery().getId());
+            }
+            return deliveryIds;
+        });
+        // 마지막 주문의 배송은 택배사가 완료를 보고하지 않았다.
+        deliveryCompleteJob.report(reported);
+
+        String jobName = "delivery-complete-" + UUID.randomUUID();
+        JobResult result = deliveryCompleteJob.run(jobName, 2, 2);
+
+        assertTrue(result.isCompleted(), "모든 파티션이 완료되어야 한다.");
+        tx.execute(s -> {
+            assertEquals(DeliveryStatus.READY, em.find(Order.class, orderIds[0]).getDelivery().getStatus(), "취소된 주문의 배송은 변경하지 않는다.");
+            for (int i = 1; i < orderIds.length - 1; i++) {
+                assertEquals(DeliveryStatus.COMP, em.find(Order.class, orderIds[i]).getDelivery().getStatus());
+            }
+            assertEquals(DeliveryStatus.READY, em.find(Order.class, orderIds[orderIds.length - 1]).getDelivery().getStatus(), "완료 보고가 없는 배송은 변경하지 않는다.");
+            return null;
+        });
+
+        JobResult rerun = deliveryCompleteJob.run(jobName, 2, 2);
+        assertEquals(result.getWriteCount(), rerun.getWriteCount(), "완료된 job은 다시 처리하지 않는다.");
+    }
+
+    @Test
+    public void 중단된_배치는_같은_jobName으로_체크포인트부터_이어서_처리한다() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] orderIds = createOrders(tx, 6);
+        long[] deliveryRange = tx.execute(s -> new long[]{
+                em.find(Order.class, orderIds[0]).getDelivery().getId(),
+                em.find(Order.class, orderIds[orderIds.length - 1]).getDelivery().getId()});
+        deliveryCompleteJob.report(tx.execute(s -> Arrays.stream(orderIds)
+                .map(orderId -> em.find(Order.class, orderId).getDelivery().getId())
+                .collect(Collectors.toList())));
+
+        // 두번째 청크를 쓰다가 실패하는 단계로 첫 실행을 중단시킨다. (범위는 이 테스트의 배송만)
+        String jobName = "delivery-complete-" + UUID.randomUUID();
+        IdChunkStep interrupted = new IdChunkStep() {
+            int chunks;
+
+            @Override
+            public long[] idRange() {
+                return deliveryRange;
+            }
+
+            @Override
+            public List<Long> read(long afterId, long toId, int size) {
+                return deliveryRepository.findIdsByStatus(DeliveryStatus.READY, afterId, toId, size);
+            }
+
+            @Override
+            public int write(List<Long> ids) {
+                if (++chunks == 2) {
+                    throw new IllegalStateException("중단");
+                }
+                return deliveryRepository.updateStatus(ids, DeliveryStatus.COMP);
+            }
+        };
+        assertThrows(IllegalStateException.class, () -> chunkJobRunner.run(jobName, interrupted, 2, 1));
+
+        JobResult stopped = deliveryCompleteJob.status(jobName);
+        assertFalse(stopped.isCompleted());
+        assertEquals(2, stopped.getReadCount());
+        assertEquals(2, stopped.getWriteCount(), "실패한 청크는 롤백되고 체크포인트도 전진하지 않는다.");
+
+        JobResult resumed = deliveryCompleteJob.run(jobName, 2, 1);
+        assertTrue(resumed.isCompleted());
+        assertEquals(1, resumed.getPartitions(), "저장된 파티션을 그대로 쓴다.");
+        assertEquals(6, resumed.getReadCount(), "처리한 청크를 다시 읽지 않는다.");
+        assertEquals(6, resumed.getWriteCount());
+        tx.execute(s -> {
+            for (Long orderId : orderIds) {
+                assertEquals(DeliveryStatus.COMP, em.find(Order.class, orderId).getDelivery().getStatus());
+            }
+            return null;
+        });
+    }
+
+    @Test
+    public void 같은_jobName은_동시에_실행할_수_없다() throws Exception {
+        String jobName = "delivery-complete-" + UUID.randomUUID();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        IdChunkStep blocking = new IdChunkStep() {
+            @Override
+            public long[] idRange() {
+                return new long[]{1, 1};
+            }
+
+            @Override
+            public List<Long> read(long afterId, long toId, int size) {
+                return afterId < 1 ? Collections.singletonList(1L) : Collections.emptyList();
+            }
+
+            @Override
+            public int write(List<Long> ids) {
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return 0;
+            }
+        };
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<JobResult> first = executor.submit(() -> chunkJobRunner.run(jobName, blocking, 1, 1));
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+
+            assertThrows(IllegalStateException.class, () -> chunkJobRunner.run(jobName, blocking, 1, 1));
+
+            release.countDown();
+            assertTrue(first.get(5, TimeUnit.SECONDS).isCompleted());
+            assertEquals(1, chunkJobRunner.status(jobName).getPartitions(), "두번째 실행은 체크포인트를 만들지 않는다.");
+        } finally {
+            release.countDown();
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void concurrency는_커넥션_풀_크기보다_작아야_한다() throws Exception {
+        String jobName = "delivery-complete-" + UUID.randomUUID();
+        assertThrows(IllegalArgumentException.class, () -> deliveryCompleteJob.launch(jobName, 100, 0));
+        assertThrows(IllegalArgumentException.class, () -> deliveryCompleteJob.launch(jobName, 100, 10));
+        assertThrows(IllegalArgumentException.class, () -> deliveryCompleteJob.run(jobName, 100, 1000));
+        assertEquals(0, deliveryCompleteJob.status(jobName).getPartitions(), "거절된 job은 체크포인트를 만들지 않는다.");
+    }
+
+    private Long[] createOrders(TransactionTemplate tx, int count) {
+        return tx.execute(s -> {
+            Member member = new Member();
+            member.setName("batch-" + UUID.randomUUID());
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("배치 JPA");
+            book.setPrice(1000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Long[] ids = new Long[count];
+            for (int i = 0; i < ids.length; i++) {
+                Delivery delivery = new Delivery();
+                delivery.setStatus(DeliveryStatus.READY);
+                Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 1000, 1));
+                em.persist(order);
+                ids[i] = order.getId();
+            }
+            return ids;
+        });
+    }
+}
@@ -0,0 +1,123 @@
+package jpabook.jpashop.batch;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.OrderSearch;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 다른 테스트 주문을 옮기지 않도록 주문일을 2000년으로 바꾼 주문만 대상으로 한다.
+ */
+@SpringBootTest
+class OrderArchiveJobTest {
+
+    static final LocalDateTime CUTOFF = LocalDateTime.of(2001, 1, 1, 0, 0);
+
+    @Autowired OrderArchiveJob orderArchiveJob;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderJdbcQueryRepository orderJdbcQueryRepository;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate tx;
+
+    @Test
+    public void 오래된_취소_배송완료_주문만_아카이브() throws Exception {
+        String memberName = "archive-" + UUID.randomUUID();
+        Long[] ids = tx.execute(s -> {
+            Member member = new Member();
+            member.setName(memberName);
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("아카이브 JPA");
+            book.setPrice(1000);
+            book.setStockQuantity(100);
+            em.persist(book);
+
+            Order cancelled = order(member, book, LocalDateTime.of(2000, 3, 1, 0, 0));
+            cancelled.cancel();
+            Order completed = order(member, book, LocalDateTime.of(2000, 2, 1, 0, 0));
+            completed.getDelivery().setStatus(DeliveryStatus.COMP);
+            Order ordered = order(member, book, LocalDateTime.of(2000, 1, 1, 0, 0));
+            Order recent = order(member, book, LocalDateTime.now());
+            recent.cancel();
+            return new Long[]{recent.getId(), cancelled.getId(), completed.getId(), ordered.getId(), member.getId()};
+        });
+        Long recentId = ids[0], cancelledId = ids[1], completedId = ids[2], orderedId = ids[3], memberId = ids[4];
+
+        //when
+        JobResult result = orderArchiveJob.run(CUTOFF);
+
+        //then
+        assertTrue(result.isCompleted());
+        assertTrue(result.getWriteCount() >= 2);
+        tx.execute(s -> {
+            assertNull(em.find(Order.class, cancelledId));
+            assertNull(em.find(Order.class, completedId));
+            assertNotNull(em.find(Order.class, orderedId), "주문 상태(배송 전)는 옮기지 않는다.");
+            assertNotNull(em.find(Order.class, recentId), "minAge 이내 주문은 옮기지 않는다.");
+            return null;
+        });
+
+        // 기본 조회는 hot 테이블만
+        assertEquals(asList(recentId, orderedId), orderIds(orderQueryRepository.findMemberOrders(memberId, null, null, 10)));
+
+        // 아카이브 포함 키셋 페이징 (hot/cold 경계를 넘어간다)
+        List<Long> paged = new ArrayList<>();
+        List<MemberOrderQueryDto> page = orderQueryRepository.findMemberOrders(memberId, null, null, 1, true);
+        while (!page.isEmpty()) {
+            paged.add(page.get(0).getOrderId());
+            page = orderQueryRepository.findMemberOrders(memberId, page.get(0).getOrderDate(), page.get(0).getOrderId(), 1, true);
+        }
+        assertEquals(asList(recentId, cancelledId, completedId, orderedId), paged);
+
+        // v7 : union all
+        OrderSearch search = new OrderSearch();
+        search.setMemberName(memberName);
+        assertEquals(asList(orderedId, recentId), v7OrderIds(search));
+        List<OrderQueryDto> all = orderJdbcQueryRepository.findOrders(search, true);
+        assertEquals(4, all.size());
+        OrderQueryDto archived = all.stream().filter(o -> o.getOrderId().equals(cancelledId)).findFirst().get();
+        assertEquals(OrderStatus.CANCEL, archived.getOrderStatus());
+        assertEquals("서울", archived.getAddress().getCity());
+        assertEquals("아카이브 JPA", archived.getOrderItems().get(0).getItemName());
+
+        // 다시 실행해도 옮길 주문이 없다.
+        assertEquals(0, orderArchiveJob.run(CUTOFF).getWriteCount());
+    }
+
+    private Order order(Member member, Book book, LocalDateTime orderDate) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        Order order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 1000, 1));
+        order.setOrderDate(orderDate);
+        em.persist(order);
+        return order;
+    }
+
+    private List<Long> orderIds(List<MemberOrderQueryDto> orders) {
+        return orders.stream().map(MemberOrderQueryDto::getOrderId).collect(toList());
+    }
+
+    private List<Long> v7OrderIds(OrderSearch search) {
+        return orderJdbcQueryRepository.findOrders(search).stream().map(OrderQueryDto::getOrderId).collect(toList());
+    }
+}
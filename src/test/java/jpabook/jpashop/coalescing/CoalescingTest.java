@@ -0,0 +1,302 @@
+package jpabook.jpashop.coalescing;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.service.MemberService;
+import jpabook.jpashop.service.query.MemberListDto;
+import jpabook.jpashop.service.query.MemberQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 조회 합치기
+ * - 버스트 : 실행중 1번 + 그 동안 들어온 호출 전체가 1번 = 총 2번 실행
+ * - 합류한 호출은 자기가 호출한 이후에 시작된 조회 결과를 받는다. (오래된 결과 X)
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class CoalescingTest {
+
+    @Autowired SlowQuery slowQuery;
+    @Autowired Probe probe;
+    @Autowired MemberService memberService;
+    @Autowired MemberQueryService memberQueryService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void reset() {
+        probe.reset();
+    }
+
+    @Test
+    public void 동시_호출은_조회_한번으로_합친다() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            // 첫 호출이 실행중인 동안 나머지가 들어온다.
+            Future<List<Integer>> first = executor.submit(() -> call("a"));
+            assertTrue(probe.started.await(5, TimeUnit.SECONDS));
+
+            List<Future<List<Integer>>> followers = new ArrayList<>();
+            for (int i = 0; i < 7; i++) {
+                followers.add(executor.submit(() -> call("a")));
+            }
+            waitForCallers(8);
+            probe.release.countDown();
+
+            assertEquals(Collections.singletonList(1), first.get(5, TimeUnit.SECONDS));
+            for (Future<List<Integer>> follower : followers) {
+                assertEquals(Collections.singletonList(2), follower.get(5, TimeUnit.SECONDS),
+                        "첫 조회가 시작된 뒤에 들어온 호출은 다음 조회 결과를 받아야 한다.");
+            }
+            assertEquals(2, probe.invocations.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 트랜잭션_안에서는_합치지_않는다() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            List<Future<List<Integer>>> calls = new ArrayList<>();
+            calls.add(executor.submit(() -> transactionTemplate.execute(s -> callUnchecked("a"))));
+            assertTrue(probe.started.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 2; i++) {
+                calls.add(executor.submit(() -> transactionTemplate.execute(s -> callUnchecked("a"))));
+            }
+            waitForCallers(3);
+            probe.release.countDown();
+
+            for (Future<List<Integer>> call : calls) {
+                call.get(5, TimeUnit.SECONDS);
+            }
+            assertEquals(3, probe.invocations.get(), "트랜잭션마다 따로 조회한다.");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void Copyable_결과는_호출자마다_복사본을_받는다() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Future<List<OrderSimpleQueryDto>> first = executor.submit(() -> callOrders());
+            assertTrue(probe.started.await(5, TimeUnit.SECONDS));
+            Future<List<OrderSimpleQueryDto>> second = executor.submit(() -> callOrders());
+            Future<List<OrderSimpleQueryDto>> third = executor.submit(() -> callOrders());
+            waitForCallers(3);
+            probe.release.countDown();
+
+            first.get(5, TimeUnit.SECONDS);
+            OrderSimpleQueryDto mine = second.get(5, TimeUnit.SECONDS).get(0);
+            OrderSimpleQueryDto theirs = third.get(5, TimeUnit.SECONDS).get(0);
+            assertEquals(2, probe.invocations.get());
+            assertEquals(mine.getOrderId(), theirs.getOrderId());
+            assertNotSame(mine, theirs);
+
+            mine.setName("changed");
+            mine.getAddress().setCity("부산");
+            assertEquals("order-2", theirs.getName());
+            assertEquals("서울", theirs.getAddress().getCity());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 인자가_다르면_합치지_않는다() throws Exception {
+        probe.release.countDown();
+        slowQuery.find("a");
+        slowQuery.find("b");
+        slowQuery.find("a");
+
+        assertEquals(3, probe.invocations.get(), "순차 호출은 캐시 없이 매번 조회한다.");
+    }
+
+    @Test
+    public void 결과는_수정할_수_없다() throws Exception {
+        probe.release.countDown();
+        List<Integer> result = slowQuery.find("a");
+
+        assertThrows(UnsupportedOperationException.class, () -> result.add(1));
+    }
+
+    @Test
+    public void 예외는_합류한_호출에도_전달된다() throws Exception {
+        probe.release.countDown();
+
+        assertThrows(IllegalArgumentException.class, () -> slowQuery.find("fail"));
+        assertThrows(IllegalArgumentException.class, () -> slowQuery.find("fail"));
+    }
+
+    @Test
+    public void 대기_중_중단되어도_키가_막히지_않는다() throws Exception {
+        SingleFlight singleFlight = new SingleFlight();
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<Object> first = submit(executor, singleFlight, () -> {
+                running.countDown();
+                release.await();
+                return "first";
+            });
+            assertTrue(running.await(5, TimeUnit.SECONDS));
+
+            // 다음 조회 리더가 이전 조회를 기다리는 중에 중단된다.
+            Future<Object> interrupted = submit(executor, singleFlight, () -> "second");
+            Thread.sleep(100);
+            interrupted.cancel(true);
+            release.countDown();
+
+            assertEquals("first", first.get(5, TimeUnit.SECONDS));
+            Future<Object> next = submit(executor, singleFlight, () -> "next");
+            assertEquals("next", next.get(5, TimeUnit.SECONDS));
+            assertEquals(0, singleFlight.inFlight());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void 엔티티는_반환할_수_없다() throws Exception {
+        assertThrows(IllegalStateException.class, () -> slowQuery.findEntity());
+    }
+
+    @Test
+    public void 회원_목록_쓰기_후_조회() throws Exception {
+        Member member = new Member();
+        member.setName("coalescing-" + UUID.randomUUID());
+        memberService.join(member);
+
+        List<MemberListDto> members = memberQueryService.findMemberList();
+        assertTrue(members.stream().anyMatch(m -> m.getName().equals(member.getName())));
+    }
+
+    private static Future<Object> submit(ExecutorService executor, SingleFlight singleFlight, SingleFlight.Call call) {
+        return executor.submit(() -> {
+            try {
+                return singleFlight.execute("k", call);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    private List<Integer> call(String key) throws InterruptedException {
+        probe.calls.incrementAndGet();
+        return slowQuery.find(key);
+    }
+
+    private List<Integer> callUnchecked(String key) {
+        try {
+            return call(key);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private List<OrderSimpleQueryDto> callOrders() throws InterruptedException {
+        probe.calls.incrementAndGet();
+        return slowQuery.findOrders();
+    }
+
+    private void waitForCallers(int callers) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (probe.calls.get() < callers && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        // 마지막 호출이 aspect 안으로 들어갈 시간
+        Thread.sleep(100);
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        Probe probe() {
+            return new Probe();
+        }
+
+        @Bean
+        SlowQuery slowQuery(Probe probe) {
+            return new SlowQuery(probe);
+        }
+    }
+
+    /**
+     * 호출 횟수, 진행 제어 (SlowQuery 는 프록시라서 상태를 따로 둔다)
+     */
+    static class Probe {
+
+        final AtomicInteger calls = new AtomicInteger();
+        final AtomicInteger invocations = new AtomicInteger();
+        volatile CountDownLatch started;
+        volatile CountDownLatch release;
+
+        void reset() {
+            calls.set(0);
+            invocations.set(0);
+            started = new CountDownLatch(1);
+            release = new CountDownLatch(1);
+        }
+    }
+
+    static class SlowQuery {
+
+        private final Probe probe;
+
+        SlowQuery(Probe probe) {
+            this.probe = probe;
+        }
+
+        @Coalesced
+        public List<Integer> find(String key) throws InterruptedException {
+            int invocation = probe.invocations.incrementAndGet();
+            probe.started.countDown();
+            probe.release.await();
+            if ("fail".equals(key)) {
+                throw new IllegalArgumentException(key);
+            }
+            List<Integer> result = new ArrayList<>();
+            result.add(invocation);
+            return result;
+        }
+
+        @Coalesced
+        public List<OrderSimpleQueryDto> findOrders() throws InterruptedException {
+            int invocation = probe.invocations.incrementAndGet();
+            probe.started.countDown();
+            probe.release.await();
+            List<OrderSimpleQueryDto> result = new ArrayList<>();
+            result.add(new OrderSimpleQueryDto((long) invocation, "order-" + invocation, LocalDateTime.now(),
+                    OrderStatus.ORDER, new Address("서울", "강가", "123-123")));
+            return result;
+        }
+
+        @Coalesced
+        public Member findEntity() {
+            return new Member();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package jpabook.jpashop.datasource;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * H2 메모리 DB 두개로 primary / replica 구성
+ * - replica에는 비어있는 member 테이블만 있어서 어느 쪽에서 읽었는지 구분된다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=create-drop",
+        "jpashop.datasource.routing.enabled=true",
+        "decorator.datasource.exclude-beans=routingDataSource",
+        "jpashop.datasource.routing.sticky-window=0s",
+        "jpashop.datasource.routing.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1;"
+                + "INIT=create table if not exists member(member_id bigint primary key, city varchar, street varchar, zipcode varchar, name varchar, order_count integer default 0 not null)"
+})
+class ReplicationRoutingDataSourceTest {
+
+    @Autowired MemberService memberService;
+    @Autowired ReplicationLagGuard replicationLagGuard;
+
+    @Test
+    public void 읽기전용_트랜잭션은_replica() throws Exception {
+        Member member = new Member();
+        member.setName("routing");
+        Long memberId = memberService.join(member); // 쓰기 -> primary
+
+        assertTrue(memberService.findMembers().isEmpty(), "readOnly 조회는 replica로 간다.");
+        assertNull(memberService.findOne(memberId));
+    }
+
+    @Test
+    public void 쓰기_직후_읽기는_primary() throws Exception {
+        ReplicationLagGuard guard = new ReplicationLagGuard(Duration.ofMinutes(1));
+        guard.markWrite();
+        assertTrue(guard.recentlyWritten(), "sticky window 안에서는 primary를 읽는다.");
+
+        assertFalse(replicationLagGuard.recentlyWritten(), "sticky window가 0이면 보호하지 않는다.");
+    }
+}
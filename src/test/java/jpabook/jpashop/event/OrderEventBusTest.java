@@ -0,0 +1,258 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderOutbox;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.exception.NotEnoughtStockExption;
+import jpabook.jpashop.repository.OrderOutboxRepository;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 이벤트는 커밋 후에 발행되므로 테스트 트랜잭션 없이 호출한다.
+ */
+@SpringBootTest
+class OrderEventBusTest {
+
+    @Autowired OrderService orderService;
+    @Autowired OrderEventBus orderEventBus;
+    @Autowired OrderOutboxRepository outboxRepository;
+    @Autowired RecordingHandler recorder;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    Long memberId;
+    Long bookId;
+
+    @BeforeEach
+    public void setUp() {
+        recorder.events.clear();
+        transactionTemplate.execute(s -> {
+            Member member = new Member();
+            member.setName("event-member");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+
+            Book book = new Book();
+            book.setName("event book");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+
+            memberId = member.getId();
+            bookId = book.getId();
+            return null;
+        });
+    }
+
+    @Test
+    public void 주문_취소_이벤트는_커밋_후_발행() throws Exception {
+        Long orderId = orderService.order(memberId, bookId, 2);
+        Received placed = recorder.events.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(placed);
+        assertEquals(OrderEventType.PLACED, placed.type);
+        assertEquals((long) orderId, placed.orderId);
+        assertEquals((long) memberId, placed.memberId);
+
+        orderService.cancelOrder(orderId);
+        Received cancelled = recorder.events.poll(5, TimeUnit.SECONDS);
+
+        assertNotNull(cancelled);
+        assertEquals(OrderEventType.CANCELLED, cancelled.type);
+        assertEquals((long) orderId, cancelled.orderId);
+
+        awaitOutboxDeleted(placed.outboxId, cancelled.outboxId);
+    }
+
+    @Test
+    public void 롤백되면_발행하지_않는다() throws Exception {
+        assertThrows(NotEnoughtStockExption.class, () -> orderService.order(memberId, bookId, 11));
+
+        assertNull(recorder.events.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void 남은_아웃박스는_재발행() throws Exception {
+        // 커밋 후 발행 전에 죽은 경우 : 아웃박스 row만 남아 있다.
+        Long outboxId = transactionTemplate.execute(s -> {
+            OrderOutbox outbox = OrderOutbox.create(OrderEventType.PLACED, 999_999L, memberId);
+            outboxRepository.save(outbox);
+            return outbox.getId();
+        });
+
+        assertTrue(orderEventBus.replayOutbox() >= 1);
+
+        Received replayed = null;
+        for (Received received; (received = recorder.events.poll(5, TimeUnit.SECONDS)) != null; ) {
+            if (received.outboxId == outboxId) {
+                replayed = received;
+                break;
+            }
+        }
+        assertNotNull(replayed, "아웃박스 row가 다시 발행되어야 한다.");
+        assertEquals(999_999L, replayed.orderId);
+        awaitOutboxDeleted(outboxId);
+    }
+
+    @Test
+    public void 처리에_실패한_이벤트는_아웃박스에_남는다() throws Exception {
+        Long failedId = saveOutbox(FailingHandler.FAILING_ORDER_ID);
+        Long okId = saveOutbox(999_998L);
+        orderEventBus.getRingBuffer().publish(OrderEventType.PLACED, FailingHandler.FAILING_ORDER_ID, memberId, failedId);
+        orderEventBus.getRingBuffer().publish(OrderEventType.PLACED, 999_998L, memberId, okId);
+
+        // 같은 배치 또는 뒤에 온 이벤트가 정리될 때까지 기다린 뒤 실패한 row 를 확인한다.
+        awaitOutboxDeleted(okId);
+        assertNotNull(findOutbox(failedId), "실패한 이벤트는 재시작할 때 다시 발행되도록 남아야 한다.");
+
+        transactionTemplate.execute(s -> outboxRepository.deleteByIds(Collections.singletonList(failedId)));
+    }
+
+    @Test
+    public void 링버퍼_다중_발행자_배치_소비() throws Exception {
+        for (WaitStrategy waitStrategy : WaitStrategy.values()) {
+            OrderEventRingBuffer ringBuffer = new OrderEventRingBuffer(64, waitStrategy);
+            int producers = 4;
+            int perProducer = 20_000;
+
+            AtomicLong sum = new AtomicLong();
+            AtomicLong batches = new AtomicLong();
+            BatchEventProcessor consumer = new BatchEventProcessor("sum", ringBuffer,
+                    (event, sequence, endOfBatch) -> {
+                        sum.addAndGet(event.getOrderId());
+                        if (endOfBatch) {
+                            batches.incrementAndGet();
+                        }
+                    }, new ArrayList<>());
+            List<BatchEventProcessor> dependency = new ArrayList<>();
+            dependency.add(consumer);
+            BatchEventProcessor last = new BatchEventProcessor("last", ringBuffer, (event, sequence, endOfBatch) -> {
+            }, dependency);
+            ringBuffer.setGatingSequence(last.getSequence());
+
+            Thread consumerThread = new Thread(consumer);
+            Thread lastThread = new Thread(last);
+            consumerThread.start();
+            lastThread.start();
+
+            ExecutorService executor = Executors.newFixedThreadPool(producers);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int p = 0; p < producers; p++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 1; i <= perProducer; i++) {
+                        ringBuffer.publish(OrderEventType.PLACED, i, 0, 0);
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(30, TimeUnit.SECONDS);
+            }
+            executor.shutdown();
+
+            long total = (long) producers * perProducer;
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (last.getSequence().get() < total - 1 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            consumer.halt();
+            last.halt();
+            consumerThread.interrupt();
+            lastThread.interrupt();
+
+            assertEquals(total - 1, last.getSequence().get(), waitStrategy.name());
+            assertEquals((long) producers * perProducer * (perProducer + 1) / 2, sum.get(), waitStrategy + " 이벤트 유실/중복");
+            assertTrue(batches.get() < total, waitStrategy + " 배치로 꺼내야 한다.");
+        }
+    }
+
+    private void awaitOutboxDeleted(Long... outboxIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        for (Long outboxId : outboxIds) {
+            while (findOutbox(outboxId) != null && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertNull(findOutbox(outboxId), "처리된 이벤트는 아웃박스에서 삭제되어야 한다.");
+        }
+    }
+
+    private Long saveOutbox(long orderId) {
+        return transactionTemplate.execute(s -> {
+            OrderOutbox outbox = OrderOutbox.create(OrderEventType.PLACED, orderId, memberId);
+            outboxRepository.save(outbox);
+            return outbox.getId();
+        });
+    }
+
+    private OrderOutbox findOutbox(Long outboxId) {
+        return transactionTemplate.execute(s -> em.find(OrderOutbox.class, outboxId));
+    }
+
+    @TestConfiguration
+    static class Config {
+        @Bean
+        RecordingHandler recordingHandler() {
+            return new RecordingHandler();
+        }
+
+        @Bean
+        FailingHandler failingHandler() {
+            return new FailingHandler();
+        }
+    }
+
+    static class Received {
+        final OrderEventType type;
+        final long orderId;
+        final long memberId;
+        final long outboxId;
+
+        Received(OrderEvent event) {
+            this.type = event.getType();
+            this.orderId = event.getOrderId();
+            this.memberId = event.getMemberId();
+            this.outboxId = event.getOutboxId();
+        }
+    }
+
+    /**
+     * 슬롯은 재사용되므로 받은 값을 복사해서 보관한다.
+     */
+    static class RecordingHandler implements OrderEventHandler {
+
+        final BlockingQueue<Received> events = new LinkedBlockingQueue<>();
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            events.add(new Received(event));
+        }
+    }
+
+    static class FailingHandler implements OrderEventHandler {
+
+        static final long FAILING_ORDER_ID = 888_888L;
+
+        @Override
+        public void onEvent(OrderEvent event, long sequence, boolean endOfBatch) {
+            if (event.getOrderId() == FAILING_ORDER_ID) {
+                throw new IllegalStateException("처리 실패");
+            }
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package jpabook.jpashop.event;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 주문 피드 - SseEmitter 대신 보낸 이벤트를 모으는 RecordingEmitter 로 구독한다.
+ * 다른 테스트의 주문 이벤트도 같은 피드로 들어오므로 주문 id 로 골라서 검사한다.
+ */
+@SpringBootTest
+class OrderFeedTest {
+
+    @Autowired OrderFeed orderFeed;
+    @Autowired OrderService orderService;
+    @Autowired EntityManager em;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 주문_생성_취소가_피드로_나간다() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        orderFeed.subscribe(emitter, null);
+
+        Long[] ids = transactionTemplate.execute(s -> {
+            Member member = new Member();
+            member.setName("feed-member");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            Book book = new Book();
+            book.setName("feed book");
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            return new Long[]{member.getId(), book.getId()};
+        });
+        Long orderId = orderService.order(ids[0], ids[1], 1);
+        orderService.cancelOrder(orderId);
+
+        Sent placed = emitter.next(orderId);
+        assertEquals("placed", placed.name);
+        assertEquals("feed-member", placed.order.getName());
+        assertEquals("서울", placed.order.getAddress().getCity());
+
+        Sent cancelled = emitter.next(orderId);
+        assertEquals("cancelled", cancelled.name);
+        assertEquals(OrderStatus.CANCEL, cancelled.order.getOrderStatus());
+        assertTrue(cancelled.sequence() > placed.sequence());
+        emitter.complete();
+    }
+
+    @Test
+    public void Last_Event_ID_이후부터_다시_받는다() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        orderFeed.subscribe(first, null);
+        orderFeed.append(entries(-101L, -102L, -103L));
+        Sent received = first.next(-101L);
+        first.complete();
+
+        RecordingEmitter reconnected = new RecordingEmitter();
+        orderFeed.subscribe(reconnected, received.id);
+
+        assertEquals(-102L, (long) reconnected.next(-102L).order.getOrderId());
+        assertEquals(-103L, (long) reconnected.next(-103L).order.getOrderId());
+        reconnected.complete();
+    }
+
+    @Test
+    public void 이어받을_수_없는_id는_reset() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter();
+        orderFeed.subscribe(emitter, "0:" + Long.MAX_VALUE);
+
+        Sent reset = emitter.sent.poll(5, TimeUnit.SECONDS);
+        assertNotNull(reset);
+        assertEquals("reset", reset.name);
+        emitter.complete();
+    }
+
+    @Test
+    public void 재시작_전_id는_순번이_범위_안이어도_reset() throws Exception {
+        RecordingEmitter first = new RecordingEmitter();
+        orderFeed.subscribe(first, null);
+        orderFeed.append(entries(-201L, -202L));
+        Sent received = first.next(-201L);
+        first.complete();
+
+        // 재시작 전 프로세스가 같은 순번을 발급했던 경우 : epoch 만 다르다.
+        for (String lastEventId : new String[]{"restarted:" + received.sequence(), String.valueOf(received.sequence())}) {
+            RecordingEmitter reconnected = new RecordingEmitter();
+            orderFeed.subscribe(reconnected, lastEventId);
+            Sent reset = reconnected.sent.poll(5, TimeUnit.SECONDS);
+            assertNotNull(reset);
+            assertEquals("reset", reset.name, lastEventId);
+            reconnected.complete();
+        }
+    }
+
+    @Test
+    public void 느린_구독자는_끊는다() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter slow = new RecordingEmitter(release);
+        RecordingEmitter fast = new RecordingEmitter();
+        orderFeed.subscribe(slow, null);
+        orderFeed.subscribe(fast, null);
+
+        // sender 스레드가 slow 에 첫 이벤트를 보내다 멈춘 상태에서 큐(256)를 넘긴다. fast 는 매번 받아간다.
+        for (long i = 0; i < 300; i++) {
+            Long orderId = -1000L - i;
+            orderFeed.append(entries(orderId));
+            assertNotNull(fast.next(orderId), "다른 구독자는 영향을 받지 않는다.");
+        }
+
+        assertTrue(slow.completed.await(5, TimeUnit.SECONDS), "느린 구독자는 연결을 끊는다.");
+        release.countDown();
+        fast.complete();
+    }
+
+    @Test
+    public void 배치_반영에_실패하면_모아_둔_이벤트가_전부_실패로_남는다() throws Exception {
+        OrderSimpleQueryRepository failing = mock(OrderSimpleQueryRepository.class);
+        when(failing.findOrderDtos(any(Collection.class))).thenThrow(new IllegalStateException("조회 실패"));
+        OrderFeedHandler handler = new OrderFeedHandler(failing, orderFeed);
+
+        List<OrderEvent> batch = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderEvent event = new OrderEvent();
+            event.set(OrderEventType.PLACED, 700_000L + i, 1L, 700_000L + i, System.currentTimeMillis());
+            batch.add(event);
+        }
+        handler.onEvent(batch.get(0), 0, false);
+        handler.onEvent(batch.get(1), 1, false);
+        assertThrows(IllegalStateException.class, () -> handler.onEvent(batch.get(2), 2, true));
+
+        assertTrue(batch.stream().allMatch(OrderEvent::isFailed), "아웃박스를 지우면 앞의 이벤트가 유실된다.");
+    }
+
+    private List<OrderFeed.Entry> entries(Long... orderIds) {
+        List<OrderFeed.Entry> entries = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            entries.add(new OrderFeed.Entry(OrderEventType.PLACED,
+                    new OrderSimpleQueryDto(orderId, "feed", LocalDateTime.now(), OrderStatus.ORDER, null)));
+        }
+        return entries;
+    }
+
+    static class Sent {
+        String id;
+        String name;
+        OrderSimpleQueryDto order;
+
+        long sequence() {
+            return Long.parseLong(id.substring(id.indexOf(':') + 1));
+        }
+    }
+
+    static class RecordingEmitter extends SseEmitter {
+
+        final BlockingQueue<Sent> sent = new LinkedBlockingQueue<>();
+        final CountDownLatch completed = new CountDownLatch(1);
+        private final CountDownLatch release;
+
+        RecordingEmitter() {
+            this(new CountDownLatch(0));
+        }
+
+        RecordingEmitter(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            Sent event = new Sent();
+            for (DataWithMediaType data : builder.build()) {
+                if (data.getData() instanceof OrderSimpleQueryDto) {
+                    event.order = (OrderSimpleQueryDto) data.getData();
+                    continue;
+                }
+                for (String line : data.getData().toString().split("\n")) {
+                    if (line.startsWith("id:")) {
+                        event.id = line.substring(3);
+                    } else if (line.startsWith("event:")) {
+                        event.name = line.substring(6);
+                    }
+                }
+            }
+            if (event.name != null) {
+                sent.add(event);
+            }
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed.countDown();
+        }
+
+        /**
+         * orderId 주문의 다음 이벤트 (다른 주문 이벤트는 건너뛴다)
+         */
+        Sent next(Long orderId) throws InterruptedException {
+            for (Sent event; (event = sent.poll(5, TimeUnit.SECONDS)) != null; ) {
+                if (event.order != null && orderId.equals(event.order.getOrderId())) {
+                    return event;
+                }
+            }
+            fail("주문 " + orderId + " 피드 이벤트를 받지 못했다.");
+            return null;
+        }
+    }
+}
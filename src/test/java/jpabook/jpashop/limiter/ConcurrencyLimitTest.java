@@ -0,0 +1,182 @@
+package jpabook.jpashop.limiter;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.exception.NotEnoughtStockExption;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.web.util.NestedServletException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.http.HttpServletResponse;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {
+        "jpashop.concurrency-limit.enabled=true",
+        "jpashop.concurrency-limit.groups.order-placement.patterns=POST /api/orders",
+        "jpashop.concurrency-limit.groups.order-placement.initial-limit=2",
+        "jpashop.concurrency-limit.groups.order-placement.min-limit=2",
+        "jpashop.concurrency-limit.groups.order-placement.max-limit=2",
+        "jpashop.concurrency-limit.groups.order-cancel.patterns=POST /api/orders/*/cancel",
+        "jpashop.concurrency-limit.groups.order-cancel.initial-limit=10",
+        "jpashop.concurrency-limit.groups.order-cancel.min-limit=1",
+        "jpashop.concurrency-limit.groups.order-cancel.max-limit=10"
+})
+class ConcurrencyLimitTest {
+
+    private static final long MILLIS = 1_000_000L;
+
+    @Autowired ConcurrencyLimitFilter concurrencyLimitFilter;
+    @Autowired MeterRegistry registry;
+
+    @Test
+    public void 지연이_늘면_한도를_줄이고_줄어들면_다시_늘린다() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", group(20, 2, 100));
+
+        for (int i = 0; i < 300; i++) {
+            limiter.onSample(10 * MILLIS, limiter.getLimit(), false);
+        }
+        int healthy = limiter.getLimit();
+        assertTrue(healthy > 20, "평소 지연에서는 한도가 늘어난다. limit=" + healthy);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.onSample(100 * MILLIS, limiter.getLimit(), false);
+        }
+        int slow = limiter.getLimit();
+        assertTrue(slow < healthy / 2, "지연이 10배가 되면 한도가 줄어든다. " + healthy + " -> " + slow);
+
+        for (int i = 0; i < 300; i++) {
+            limiter.onSample(10 * MILLIS, limiter.getLimit(), false);
+        }
+        assertTrue(limiter.getLimit() > slow, "지연이 돌아오면 한도도 다시 늘어난다.");
+
+        // 한도의 절반도 쓰지 않으면 바꾸지 않는다.
+        int before = limiter.getLimit();
+        limiter.onSample(1000 * MILLIS, 1, false);
+        assertEquals(before, limiter.getLimit());
+
+        // 과부하 신호는 곱으로 줄이고 최소 한도 아래로는 내려가지 않는다.
+        for (int i = 0; i < 100; i++) {
+            limiter.onSample(10 * MILLIS, limiter.getLimit(), true);
+        }
+        assertEquals(2, limiter.getLimit());
+    }
+
+    @Test
+    public void 한도를_넘으면_기다리지_않고_거절한다() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", group(3, 1, 3));
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(3, limiter.getInFlight());
+        assertEquals(1, limiter.getRejected());
+
+        limiter.release(MILLIS, false);
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    public void 그룹마다_한도가_따로라서_주문이_밀려도_가벼운_조회는_통과한다() throws Exception {
+        CountDownLatch entered = new CountDownLatch(2);
+        CountDownLatch proceed = new CountDownLatch(1);
+        FilterChain slowChain = (request, response) -> {
+            entered.countDown();
+            try {
+                proceed.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        };
+        double rejectedBefore = rejected("order-placement");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> filter("POST", "/api/orders", slowChain));
+            Future<?> second = executor.submit(() -> filter("POST", "/api/orders", slowChain));
+            assertTrue(entered.await(5, TimeUnit.SECONDS));
+            assertEquals(2, registry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).tag("group", "order-placement").gauge().value());
+
+            MockHttpServletResponse rejected = filter("POST", "/api/orders", (request, response) -> fail("한도를 넘었는데 실행되었다."));
+            assertEquals(503, rejected.getStatus());
+            assertEquals("1", rejected.getHeader("Retry-After"));
+            assertTrue(rejected.getContentAsString().contains("order-placement"));
+            assertEquals(rejectedBefore + 1, rejected("order-placement"));
+
+            // 다른 그룹, 그룹에 없는 경로는 그대로 통과
+            assertEquals(200, filter("GET", "/api/items", (request, response) -> { }).getStatus());
+            assertEquals(200, filter("GET", "/api/simple-orders/feed", (request, response) -> { }).getStatus());
+
+            proceed.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            proceed.countDown();
+            executor.shutdown();
+        }
+        assertEquals(0, registry.get(AdaptiveConcurrencyLimiter.IN_FLIGHT).tag("group", "order-placement").gauge().value());
+        assertEquals(2, registry.get(AdaptiveConcurrencyLimiter.LIMIT).tag("group", "order-placement").gauge().value());
+        assertEquals(200, filter("POST", "/api/orders", (request, response) -> { }).getStatus());
+    }
+
+    @Test
+    public void 업무_예외는_한도를_줄이지_않고_과부하_신호만_줄인다() throws Exception {
+        String uri = "/api/orders/1/cancel";
+        // 컨트롤러 예외는 DispatcherServlet 이 감싸서 던진다.
+        assertThrows(IllegalStateException.class, () -> filter("POST", uri, (request, response) -> {
+            throw new NestedServletException("처리 실패", new NotEnoughtStockExption("need more stock"));
+        }));
+        assertThrows(IllegalStateException.class, () -> filter("POST", uri, (request, response) -> {
+            throw new IllegalArgumentException("주문이 존재하지 않습니다.");
+        }));
+        assertEquals(500, filter("POST", uri, (request, response) -> ((HttpServletResponse) response).setStatus(500)).getStatus());
+        assertEquals(10, limit("order-cancel"));
+
+        // 커넥션 획득 시간 초과
+        assertThrows(IllegalStateException.class, () -> filter("POST", uri, (request, response) -> {
+            throw new NestedServletException("처리 실패", new CannotCreateTransactionException("Could not open JPA EntityManager",
+                    new SQLTransientConnectionException("Connection is not available, request timed out after 30000ms.")));
+        }));
+        assertEquals(9, limit("order-cancel"));
+
+        // 하위 시스템의 503
+        filter("POST", uri, (request, response) -> ((HttpServletResponse) response).setStatus(503));
+        assertEquals(8, limit("order-cancel"));
+    }
+
+    private MockHttpServletResponse filter(String method, String uri, FilterChain chain) {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        try {
+            concurrencyLimitFilter.doFilter(new MockHttpServletRequest(method, uri), response, chain);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return response;
+    }
+
+    private double limit(String group) {
+        return registry.get(AdaptiveConcurrencyLimiter.LIMIT).tag("group", group).gauge().value();
+    }
+
+    private double rejected(String group) {
+        return registry.get(AdaptiveConcurrencyLimiter.REJECTED).tag("group", group).functionCounter().count();
+    }
+
+    private static ConcurrencyLimitProperties.Group group(int initial, int min, int max) {
+        ConcurrencyLimitProperties.Group group = new ConcurrencyLimitProperties.Group();
+        group.setInitialLimit(initial);
+        group.setMinLimit(min);
+        group.setMaxLimit(max);
+        return group;
+    }
+}
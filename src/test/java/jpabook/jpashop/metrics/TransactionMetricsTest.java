@@ -0,0 +1,46 @@
+package jpabook.jpashop.metrics;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 트랜잭션 지표는 서비스가 트랜잭션을 시작할 때만 기록되므로 테스트 트랜잭션 없이 호출한다.
+ */
+@ExtendWith(SpringExtension.class)
+@SpringBootTest
+class TransactionMetricsTest {
+
+    @Autowired MemberService memberService;
+    @Autowired TransactionLatencyEndpoint endpoint;
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void 서비스_트랜잭션_지표() throws Exception {
+        Member member = new Member();
+        member.setName("metrics-" + UUID.randomUUID());
+        memberService.join(member);
+
+        Map<String, Object> methods = (Map<String, Object>) endpoint.latency().get("methods");
+        Map<String, Object> join = (Map<String, Object>) methods.get("MemberService.join");
+        assertNotNull(join, "MemberService.join 지표가 기록되어야 한다.");
+
+        Map<String, Object> statements = (Map<String, Object>) join.get("statements");
+        assertTrue((Long) statements.get("count") >= 1);
+        assertTrue((Double) statements.get("max") >= 2, "중복 검사 select + insert");
+        assertTrue(join.containsKey("transactionMs"));
+        assertTrue(join.containsKey("connectionAcquireMs"));
+
+        Map<String, Object> pools = (Map<String, Object>) endpoint.latency().get("pools");
+        assertFalse(pools.isEmpty(), "Hikari 풀 지표가 기록되어야 한다.");
+    }
+}
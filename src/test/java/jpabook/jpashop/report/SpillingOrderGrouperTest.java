@@ -0,0 +1,173 @@
+package jpabook.jpashop.report;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderItemQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class SpillingOrderGrouperTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderReportService orderReportService;
+    @Autowired ObjectMapper objectMapper;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @TempDir Path tempDir;
+
+    @Test
+    public void 메모리_상한을_넘으면_임시파일로_내리고_주문id_순으로_합친다() throws Exception {
+        // 주문 300개 x 상품 3개를 주문 id 역순/뒤섞인 순서로 넣는다.
+        List<OrderFlatDto> rows = new ArrayList<>();
+        for (int item = 0; item < 3; item++) {
+            for (long orderId = 300; orderId >= 1; orderId--) {
+                rows.add(row(orderId, "item-" + orderId + "-" + item, item));
+            }
+        }
+        Collections.shuffle(rows.subList(0, 300), new Random(1)); // 같은 주문 안의 상품 순서는 유지
+
+        List<OrderQueryDto> groups = new ArrayList<>();
+        try (SpillingOrderGrouper grouper = new SpillingOrderGrouper(8 * 1024, tempDir)) {
+            rows.forEach(grouper::add);
+            grouper.groups().forEachRemaining(groups::add);
+
+            assertTrue(grouper.getSpillCount() > 1);
+            assertEquals(grouper.getSpillCount(), Files.list(tempDir).count());
+        }
+        assertEquals(0, Files.list(tempDir).count(), "close 하면 임시 파일을 지운다.");
+
+        assertEquals(300, groups.size());
+        for (int i = 0; i < groups.size(); i++) {
+            OrderQueryDto order = groups.get(i);
+            long orderId = i + 1;
+            assertEquals(orderId, order.getOrderId());
+            assertEquals(Arrays.asList("item-" + orderId + "-0", "item-" + orderId + "-1", "item-" + orderId + "-2"),
+                    order.getOrderItems().stream().map(oi -> oi.getItemName()).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void 임시파일을_거쳐도_필드가_그대로() throws Exception {
+        LocalDateTime orderDate = LocalDateTime.of(2020, 1, 2, 3, 4, 5, 123456789);
+        OrderFlatDto full = new OrderFlatDto(2L, "회원", orderDate, OrderStatus.CANCEL,
+                new Address("서울", "강가", "123-123"), "JPA 책", 10000, 3);
+        OrderFlatDto empty = new OrderFlatDto(1L, null, null, null, null, null, 0, 0);
+
+        List<OrderQueryDto> groups = new ArrayList<>();
+        try (SpillingOrderGrouper grouper = new SpillingOrderGrouper(1, tempDir)) { // 행마다 spill
+            grouper.add(full);
+            grouper.add(empty);
+            grouper.groups().forEachRemaining(groups::add);
+            assertEquals(2, grouper.getSpillCount());
+        }
+
+        assertEquals(new OrderQueryDto(1L, null, null, null, null,
+                Collections.singletonList(new OrderItemQueryDto(1L, null, 0, 0))), groups.get(0));
+        OrderQueryDto order = groups.get(1);
+        assertEquals("회원", order.getName());
+        assertEquals(orderDate, order.getOrderDate());
+        assertEquals(OrderStatus.CANCEL, order.getOrderStatus());
+        assertEquals("서울", order.getAddress().getCity());
+        assertEquals("강가", order.getAddress().getStreet());
+        assertEquals("123-123", order.getAddress().getZipcode());
+        assertEquals("JPA 책", order.getOrderItems().get(0).getItemName());
+        assertEquals(10000, order.getOrderItems().get(0).getOrderPrice());
+        assertEquals(3, order.getOrderItems().get(0).getCount());
+    }
+
+    @Test
+    public void 주문_내보내기() throws Exception {
+        Long first = createOrder("report-book1", "report-book2");
+        Long second = createOrder("report-book3");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long count = orderReportService.exportOrders(out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : new String(out.toByteArray(), StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        assertEquals(count, lines.size());
+        List<Long> orderIds = lines.stream().map(node -> node.get("orderId").asLong()).collect(Collectors.toList());
+        List<Long> sorted = new ArrayList<>(orderIds);
+        Collections.sort(sorted);
+        assertEquals(sorted, orderIds, "주문 id 순");
+
+        JsonNode firstOrder = lines.get(orderIds.indexOf(first));
+        assertEquals(2, firstOrder.get("orderItems").size());
+        assertEquals("report-book1", firstOrder.get("orderItems").get(0).get("itemName").asText());
+        assertEquals(1, lines.get(orderIds.indexOf(second)).get("orderItems").size());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 내보내는_동안에는_트랜잭션과_커넥션을_잡고_있지_않는다() throws Exception {
+        transactionTemplate.execute(s -> createOrder("report-book4"));
+        List<Boolean> heldWhileWriting = new ArrayList<>();
+        OutputStream out = new OutputStream() {
+            @Override
+            public void write(int b) {
+                heldWhileWriting.add(TransactionSynchronizationManager.isActualTransactionActive()
+                        || !TransactionSynchronizationManager.getResourceMap().isEmpty());
+            }
+        };
+        long count = orderReportService.exportOrders(out);
+
+        assertTrue(count > 0 && !heldWhileWriting.isEmpty());
+        assertFalse(heldWhileWriting.contains(true));
+    }
+
+    private OrderFlatDto row(long orderId, String itemName, int count) {
+        return new OrderFlatDto(orderId, "member-" + orderId, LocalDateTime.of(2020, 1, 1, 0, 0), OrderStatus.ORDER,
+                new Address("city", "street", "zip"), itemName, 1000, count);
+    }
+
+    private Long createOrder(String... itemNames) {
+        Member member = new Member();
+        member.setName("report-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        OrderItem[] orderItems = new OrderItem[itemNames.length];
+        for (int i = 0; i < itemNames.length; i++) {
+            Book book = new Book();
+            book.setName(itemNames[i]);
+            book.setPrice(10000);
+            book.setStockQuantity(10);
+            em.persist(book);
+            orderItems[i] = OrderItem.createOrderItem(book, 10000, 1);
+        }
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, orderItems);
+        em.persist(order);
+        em.flush();
+        em.clear();
+        return order.getId();
+    }
+}
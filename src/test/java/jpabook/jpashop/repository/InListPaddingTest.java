@@ -0,0 +1,96 @@
+package jpabook.jpashop.repository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.metrics.StatementCacheMetrics;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * IN 리스트 길이 5~8 은 같은 SQL(8개)로 실행되어야 한다.
+ */
+@SpringBootTest
+@Transactional
+class InListPaddingTest {
+
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired ItemJdbcRepository itemJdbcRepository;
+    @Autowired MemberJdbcRepository memberJdbcRepository;
+    @Autowired StatementCacheMetrics statementCacheMetrics;
+    @Autowired EntityManagerFactory entityManagerFactory;
+    @Autowired MeterRegistry meterRegistry;
+
+    @Test
+    public void 패딩() throws Exception {
+        assertEquals(asList(), InListPadding.pad(asList()));
+        assertEquals(asList(1L), InListPadding.pad(asList(1L)));
+        assertEquals(asList(1L, 2L), InListPadding.pad(asList(1L, 2L)));
+        assertEquals(asList(1L, 2L, 3L, 3L), InListPadding.pad(asList(1L, 2L, 3L)));
+        assertEquals(8, InListPadding.pad(ids(5)).size());
+        assertEquals(8, InListPadding.pad(ids(8)).size());
+        assertEquals(16, InListPadding.pad(ids(9)).size());
+    }
+
+    @Test
+    public void JPQL_IN_리스트() throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        assertTrue(statistics.isStatisticsEnabled());
+        assertNotNull(meterRegistry.find("jpashop.hibernate.query.plan.cache.hit.ratio").gauge());
+
+        orderSimpleQueryRepository.findOrderDtos(ids(5));
+        long planMisses = statistics.getQueryPlanCacheMissCount();
+
+        assertSameStatement(size -> orderSimpleQueryRepository.findOrderDtos(ids(size)));
+        assertEquals(planMisses, statistics.getQueryPlanCacheMissCount(), "IN 길이 6~8 은 같은 쿼리 플랜을 쓴다.");
+    }
+
+    @Test
+    public void JdbcTemplate_IN_리스트() throws Exception {
+        assertSameStatement(size -> itemJdbcRepository.findExistingIds(ids(size)));
+
+        assertSameStatement(size -> {
+            List<String> names = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                names.add("padding-" + i);
+            }
+            memberJdbcRepository.findExistingNames(names);
+        });
+    }
+
+    /**
+     * 길이 5 로 한번 실행한 뒤 6, 7, 8 은 모두 문장 캐시 hit 이어야 한다.
+     */
+    private void assertSameStatement(Consumer<Integer> call) {
+        assertNotNull(meterRegistry.find("jpashop.jdbc.statement.cache.hit.ratio").gauge());
+        call.accept(5);
+        long misses = statementCacheMetrics.getMissCount();
+        long hits = statementCacheMetrics.getHitCount();
+
+        call.accept(6);
+        call.accept(7);
+        call.accept(8);
+
+        assertEquals(misses, statementCacheMetrics.getMissCount());
+        assertEquals(hits + 3, statementCacheMetrics.getHitCount());
+    }
+
+    private List<Long> ids(int size) {
+        List<Long> ids = new ArrayList<>();
+        for (long i = 1; i <= size; i++) {
+            ids.add(-i);
+        }
+        return ids;
+    }
+}
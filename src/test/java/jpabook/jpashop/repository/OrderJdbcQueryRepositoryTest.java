@@ -0,0 +1,89 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.Comparator;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class OrderJdbcQueryRepositoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderJdbcQueryRepository orderJdbcQueryRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+
+    @Test
+    public void JDBC_조회는_DTO_조회와_같은_결과() throws Exception {
+        //given
+        Member member = createMember("jdbc 회원");
+        Book book1 = createBook("jdbc book1", 10000);
+        Book book2 = createBook("jdbc book2", 20000);
+        Order order1 = createOrder(member, OrderItem.createOrderItem(book1, 10000, 1), OrderItem.createOrderItem(book2, 20000, 2));
+        Order order2 = createOrder(member, OrderItem.createOrderItem(book2, 20000, 3));
+        order2.cancel();
+        em.flush();
+        em.clear();
+
+        //when
+        List<OrderQueryDto> jdbc = orderJdbcQueryRepository.findOrders(new OrderSearch());
+        List<OrderQueryDto> jpql = orderQueryRepository.findAllByDto_optimization();
+
+        //then
+        assertEquals(describe(jpql), describe(jdbc), "v5(JPQL DTO)와 같은 주문/주문상품");
+
+        OrderSearch canceled = new OrderSearch();
+        canceled.setOrderStatus(OrderStatus.CANCEL);
+        canceled.setMemberName("jdbc");
+        List<OrderQueryDto> filtered = orderJdbcQueryRepository.findOrders(canceled);
+        assertEquals(1, filtered.size());
+        assertEquals(order2.getId(), filtered.get(0).getOrderId());
+        assertEquals(3, filtered.get(0).getOrderItems().get(0).getCount());
+    }
+
+    // Address는 equals가 없어서 값으로 비교한다.
+    private List<String> describe(List<OrderQueryDto> orders) {
+        return orders.stream()
+                .sorted(Comparator.comparing(OrderQueryDto::getOrderId))
+                .map(o -> o.toString().replace(o.getAddress().toString(),
+                        o.getAddress().getCity() + "/" + o.getAddress().getStreet() + "/" + o.getAddress().getZipcode()))
+                .collect(toList());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook(String name, int price) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+
+    private Order createOrder(Member member, OrderItem... orderItems) {
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        Order order = Order.createOrder(member, delivery, orderItems);
+        em.persist(order);
+        return order;
+    }
+}
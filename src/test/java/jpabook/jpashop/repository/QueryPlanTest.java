@@ -0,0 +1,334 @@
+package jpabook.jpashop.repository;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.item.query.CatalogItemType;
+import jpabook.jpashop.repository.item.query.CatalogSort;
+import jpabook.jpashop.repository.item.query.ItemCatalogRepository;
+import jpabook.jpashop.repository.item.query.ItemCatalogSearch;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderJdbcQueryRepository;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.ItemBulkUpdate;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 실행계획 회귀 테스트
+ * - 리포지토리 메소드가 실제로 실행한 SQL을 p6spy 리스너로 모아서 H2 EXPLAIN을 돌린다.
+ * - 인덱스를 타야 하는 테이블이 tableScan으로 바뀌면 실패한다. (인덱스는 db/migration 에서 관리)
+ * - 조건 없는 전체 조회(findAll 등)는 드라이빙 테이블 tableScan이 정상이므로 조인 대상만 검사한다.
+ */
+@SpringBootTest
+@Transactional
+@Import(QueryPlanTest.SqlCaptureConfig.class)
+class QueryPlanTest {
+
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired SqlCaptureListener sqlCapture;
+
+    @Autowired MemberRepository memberRepository;
+    @Autowired MemberJdbcRepository memberJdbcRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired ItemJdbcRepository itemJdbcRepository;
+    @Autowired ItemCatalogRepository itemCatalogRepository;
+    @Autowired OrderRepository orderRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired OrderJdbcQueryRepository orderJdbcQueryRepository;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired DeliveryRepository deliveryRepository;
+    @Autowired JobCheckpointRepository jobCheckpointRepository;
+    @Autowired OrderOutboxRepository orderOutboxRepository;
+    @Autowired OrderArchiveRepository orderArchiveRepository;
+
+    Member member;
+    Book book;
+    Category category;
+    Order order;
+
+    @BeforeEach
+    public void setUp() {
+        member = new Member();
+        member.setName("plan");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        book = new Book();
+        book.setName("plan book");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+
+        category = new Category();
+        category.setName("plan category");
+        category.getItems().add(book);
+        em.persist(category);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        delivery.setStatus(DeliveryStatus.READY);
+        order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+        em.persist(order);
+
+        em.persist(JobCheckpoint.create("plan-job", 0, 1, 100));
+    }
+
+    @Test
+    public void 회원_조회() throws Exception {
+        assertIndexed(() -> memberRepository.findOne(member.getId()), "MEMBER");
+        assertIndexed(() -> memberRepository.findByName("plan"), "MEMBER");
+        assertIndexed(() -> memberRepository.findOrderCount(member.getId()), "MEMBER");
+        assertIndexed(() -> memberRepository.increaseOrderCount(member.getId()), "MEMBER");
+        assertIndexed(() -> memberJdbcRepository.findExistingNames(asList("plan", "plan2")), "MEMBER");
+        assertIndexed(() -> memberJdbcRepository.findNames(asList(member.getId(), -1L)), "MEMBER");
+    }
+
+    @Test
+    public void 상품_카테고리_조회() throws Exception {
+        assertIndexed(() -> itemRepository.findOne(book.getId()), "ITEM");
+        assertIndexed(() -> itemRepository.findAllForUpdate(asList(book.getId())), "ITEM");
+        assertIndexed(() -> itemJdbcRepository.updatePriceAndStock(asList(new ItemBulkUpdate(book.getId(), 1000, null, -1))), "ITEM");
+        assertIndexed(() -> itemJdbcRepository.findExistingIds(asList(book.getId(), -1L)), "ITEM");
+        assertIndexed(() -> itemJdbcRepository.findNames(asList(book.getId(), -1L)), "ITEM");
+        assertIndexed(() -> em.find(Item.class, book.getId()).getCategories().size(), "CATEGORY_ITEM", "CATEGORY");
+        assertIndexed(() -> em.find(Category.class, category.getId()).getItems().size(), "CATEGORY_ITEM", "ITEM");
+        assertIndexed(() -> em.find(Category.class, category.getId()).getChild().size(), "CATEGORY");
+    }
+
+    @Test
+    public void 상품_카탈로그_검색() throws Exception {
+        for (CatalogSort sort : CatalogSort.values()) {
+            ItemCatalogSearch byType = new ItemCatalogSearch();
+            byType.setType(CatalogItemType.BOOK);
+            byType.setMinPrice(5000);
+            byType.setMaxPrice(20000);
+            byType.setInStock(true);
+            byType.setSort(sort);
+            assertIndexed(() -> itemCatalogRepository.search(byType, 21), "ITEM");
+
+            byType.setLastId(book.getId());
+            byType.setLastPrice(book.getPrice());
+            assertIndexed(() -> itemCatalogRepository.search(byType, 21), "ITEM");
+
+            ItemCatalogSearch byPrice = new ItemCatalogSearch();
+            byPrice.setMinPrice(5000);
+            byPrice.setSort(sort);
+            assertIndexed(() -> itemCatalogRepository.search(byPrice, 21), "ITEM");
+        }
+    }
+
+    @Test
+    public void 주문_검색() throws Exception {
+        OrderSearch byStatus = new OrderSearch();
+        byStatus.setOrderStatus(OrderStatus.ORDER);
+        byStatus.setMemberName("plan");
+
+        assertIndexed(() -> orderRepository.findOne(order.getId()), "ORDERS", "MEMBER", "DELIVERY");
+        assertIndexed(() -> orderRepository.finaAll(byStatus), "ORDERS", "MEMBER");
+        assertIndexed(() -> orderRepository.findAllByString(byStatus), "ORDERS", "MEMBER");
+        assertIndexed(() -> orderRepository.findAllByCriteria(byStatus), "ORDERS", "MEMBER");
+        assertIndexed(() -> em.find(Order.class, order.getId()).getOrderItems().size(), "ORDER_ITEM");
+    }
+
+    @Test
+    public void 주문_전체_조회_조인() throws Exception {
+        // 드라이빙 테이블 하나만 전체 조회하고, 나머지 조인 대상은 인덱스로 찾아야 한다.
+        assertSingleScan(() -> orderRepository.findAllWithMemberDelivery());
+        assertSingleScan(() -> orderRepository.findAllWithMemberDelivery(0, 100));
+        assertSingleScan(() -> orderRepository.findAllWithItem());
+        assertSingleScan(() -> orderSimpleQueryRepository.findOrderDtos());
+        assertSingleScan(() -> orderSimpleQueryRepository.findOrderDtos(0, 20));
+        assertSingleScan(() -> orderQueryRepository.findAllByDto_flat());
+        assertSingleScan(() -> {
+            try (Stream<OrderFlatDto> rows = orderQueryRepository.streamAllByDto_flat()) {
+                rows.count();
+            }
+        });
+        assertSingleScan(() -> memberRepository.findAll());
+        assertSingleScan(() -> itemRepository.findAll());
+    }
+
+    @Test
+    public void 주문_DTO_조회() throws Exception {
+        assertIndexed(() -> orderQueryRepository.findOrderQueryDtos(), "MEMBER", "DELIVERY", "ORDER_ITEM", "ITEM");
+        assertIndexed(() -> orderQueryRepository.findAllByDto_optimization(), "MEMBER", "DELIVERY", "ORDER_ITEM", "ITEM");
+        assertIndexed(() -> orderQueryRepository.findMemberOrders(member.getId(), null, null, 20), "ORDERS");
+        assertIndexed(() -> orderQueryRepository.findMemberOrders(member.getId(), order.getOrderDate(), order.getId(), 20), "ORDERS");
+
+        OrderSearch byStatus = new OrderSearch();
+        byStatus.setOrderStatus(OrderStatus.ORDER);
+        assertIndexed(() -> orderJdbcQueryRepository.findOrders(byStatus), "ORDERS", "MEMBER", "DELIVERY", "ORDER_ITEM", "ITEM");
+        assertSingleScan(() -> orderJdbcQueryRepository.findOrders(new OrderSearch()));
+
+        assertIndexed(() -> orderJdbcQueryRepository.findOrders(byStatus, true), "ORDERS", "ORDERS_ARCHIVE", "MEMBER", "DELIVERY",
+                "DELIVERY_ARCHIVE", "ORDER_ITEM", "ORDER_ITEM_ARCHIVE", "ITEM");
+        assertIndexed(() -> orderQueryRepository.findMemberOrders(member.getId(), order.getOrderDate(), order.getId(), 20, true),
+                "ORDERS", "ORDERS_ARCHIVE");
+    }
+
+    @Test
+    public void 주문_아카이브_배치_조회() throws Exception {
+        assertIndexed(() -> orderArchiveRepository.findArchivableIds(order.getOrderDate(), 0, order.getId(), 500), "ORDERS", "DELIVERY");
+        assertIndexed(() -> orderArchiveRepository.moveToArchive(asList(order.getId())), "ORDERS", "ORDER_ITEM", "DELIVERY",
+                "ORDERS_ARCHIVE");
+    }
+
+    @Test
+    public void 배송_배치_조회() throws Exception {
+        Long deliveryId = order.getDelivery().getId();
+
+        assertIndexed(() -> deliveryRepository.findIdsByStatus(DeliveryStatus.READY, 0, Long.MAX_VALUE, 100), "DELIVERY");
+        assertIndexed(() -> deliveryRepository.filterIdsByOrderStatus(asList(deliveryId), OrderStatus.ORDER), "ORDERS", "DELIVERY");
+        assertIndexed(() -> deliveryRepository.updateStatus(asList(deliveryId), DeliveryStatus.COMP), "DELIVERY");
+        assertIndexed(() -> jobCheckpointRepository.findOne("plan-job#0"), "JOB_CHECKPOINT");
+        assertIndexed(() -> jobCheckpointRepository.findByJobName("plan-job"), "JOB_CHECKPOINT");
+    }
+
+    @Test
+    public void 주문_이벤트_아웃박스() throws Exception {
+        assertIndexed(() -> orderOutboxRepository.findAfter(order.getId(), 500), "ORDER_OUTBOX");
+        assertIndexed(() -> orderOutboxRepository.deleteByIds(asList(order.getId())), "ORDER_OUTBOX");
+        assertIndexed(() -> orderSimpleQueryRepository.findOrderDtos(asList(order.getId())), "ORDERS", "MEMBER", "DELIVERY");
+    }
+
+    /**
+     * 리포지토리 호출 중 실행된 모든 SQL에서 tables가 tableScan 되지 않는지 검사한다.
+     */
+    private void assertIndexed(Runnable repositoryCall, String... tables) {
+        em.flush();
+        em.clear();
+
+        List<CapturedSql> captured = sqlCapture.capture(repositoryCall);
+        assertFalse(captured.isEmpty(), "실행된 SQL이 없다.");
+
+        for (CapturedSql sql : captured) {
+            String plan = explain(sql);
+            for (String table : tables) {
+                assertFalse(plan.contains("PUBLIC." + table + ".tableScan"),
+                        () -> table + " 테이블을 인덱스 없이 전체 조회한다.\nsql : " + sql.sql + "\nplan : " + plan);
+            }
+        }
+    }
+
+    /**
+     * 조건 없는 전체 조회 - SQL마다 tableScan은 드라이빙 테이블 하나만 허용한다.
+     */
+    private void assertSingleScan(Runnable repositoryCall) {
+        em.flush();
+        em.clear();
+
+        List<CapturedSql> captured = sqlCapture.capture(repositoryCall);
+        assertFalse(captured.isEmpty(), "실행된 SQL이 없다.");
+
+        for (CapturedSql sql : captured) {
+            String plan = explain(sql);
+            int scans = plan.split("\\.tableScan", -1).length - 1;
+            assertTrue(scans <= 1, () -> "조인 대상 테이블을 인덱스 없이 전체 조회한다.\nsql : " + sql.sql + "\nplan : " + plan);
+        }
+    }
+
+    private String explain(CapturedSql sql) {
+        return jdbcTemplate.query("EXPLAIN " + sql.sql,
+                ps -> {
+                    for (Map.Entry<Integer, Object> parameter : sql.parameters.entrySet()) {
+                        ps.setObject(parameter.getKey(), parameter.getValue());
+                    }
+                },
+                rs -> {
+                    StringBuilder plan = new StringBuilder();
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                    return plan.toString();
+                });
+    }
+
+    @TestConfiguration
+    static class SqlCaptureConfig {
+        @Bean
+        SqlCaptureListener sqlCaptureListener() {
+            return new SqlCaptureListener();
+        }
+    }
+
+    static class CapturedSql {
+        final String sql;
+        final Map<Integer, Object> parameters;
+
+        CapturedSql(String sql, Map<Integer, Object> parameters) {
+            this.sql = sql;
+            this.parameters = parameters;
+        }
+    }
+
+    /**
+     * p6spy 리스너 - capture() 중에 실행된 PreparedStatement(batch 포함)의 SQL과 파라미터를 모은다.
+     */
+    static class SqlCaptureListener extends SimpleJdbcEventListener {
+
+        private final Map<PreparedStatementInformation, Map<Integer, Object>> parameters = new IdentityHashMap<>();
+        private List<CapturedSql> captured;
+
+        synchronized List<CapturedSql> capture(Runnable call) {
+            captured = new ArrayList<>();
+            try {
+                call.run();
+                return captured;
+            } finally {
+                captured = null;
+                parameters.clear();
+            }
+        }
+
+        @Override
+        public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex, Object value, SQLException e) {
+            if (captured != null) {
+                parameters.computeIfAbsent(statementInformation, k -> new TreeMap<>()).put(parameterIndex, value);
+            }
+        }
+
+        @Override
+        public void onAfterExecuteQuery(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            record(statementInformation);
+        }
+
+        @Override
+        public void onAfterExecuteUpdate(PreparedStatementInformation statementInformation, long timeElapsedNanos, int rowCount, SQLException e) {
+            record(statementInformation);
+        }
+
+        // JDBC batch - 건마다 파라미터가 다르므로 addBatch 시점에 한 건씩 기록한다.
+        @Override
+        public void onAfterAddBatch(PreparedStatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+            record(statementInformation);
+        }
+
+        private void record(PreparedStatementInformation statementInformation) {
+            if (captured != null) {
+                Map<Integer, Object> values = parameters.remove(statementInformation);
+                captured.add(new CapturedSql(statementInformation.getSql(),
+                        values == null ? Collections.emptyMap() : values));
+            }
+        }
+    }
+}
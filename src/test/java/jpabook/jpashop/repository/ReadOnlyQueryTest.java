@@ -0,0 +1,99 @@
+package jpabook.jpashop.repository;
+
+import jpabook.jpashop.domain.*;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.service.ItemService;
+import jpabook.jpashop.service.MemberService;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class ReadOnlyQueryTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderRepository orderRepository;
+    @Autowired ItemRepository itemRepository;
+    @Autowired MemberService memberService;
+    @Autowired ItemService itemService;
+
+    Order order;
+
+    @BeforeEach
+    public void setUp() {
+        Member member = new Member();
+        member.setName("readonly-member");
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+
+        Book book = new Book();
+        book.setName("readonly book");
+        book.setPrice(10000);
+        book.setStockQuantity(10);
+        em.persist(book);
+
+        Delivery delivery = new Delivery();
+        delivery.setAddress(member.getAddress());
+        order = Order.createOrder(member, delivery, OrderItem.createOrderItem(book, 10000, 1));
+        em.persist(order);
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 페치조인까지_읽기전용() throws Exception {
+        Session session = em.unwrap(Session.class);
+
+        List<Order> orders = orderRepository.findAllWithItemReadOnly();
+        Order found = orders.stream().filter(o -> o.getId().equals(order.getId())).findFirst().get();
+
+        assertTrue(session.isReadOnly(found));
+        assertTrue(session.isReadOnly(found.getMember()));
+        assertTrue(session.isReadOnly(found.getDelivery()));
+        assertTrue(session.isReadOnly(found.getOrderItems().get(0)));
+        assertTrue(session.isReadOnly(found.getOrderItems().get(0).getItem()));
+    }
+
+    @Test
+    public void 읽기전용_엔티티는_flush_되지_않는다() throws Exception {
+        Order found = orderRepository.findAllByCriteriaReadOnly(new OrderSearch()).stream()
+                .filter(o -> o.getId().equals(order.getId())).findFirst().get();
+        found.setStatus(OrderStatus.CANCEL);
+        em.flush();
+        em.clear();
+
+        assertEquals(OrderStatus.ORDER, orderRepository.findOne(order.getId()).getStatus());
+    }
+
+    @Test
+    public void 일반_조회는_변경감지() throws Exception {
+        Session session = em.unwrap(Session.class);
+
+        List<Item> items = itemRepository.findAll();
+        assertFalse(items.isEmpty());
+        assertFalse(session.isReadOnly(items.get(0)));
+        em.clear();
+
+        List<Item> readOnlyItems = itemRepository.findAllReadOnly();
+        assertTrue(session.isReadOnly(readOnlyItems.get(0)));
+    }
+
+    @Test
+    public void 엔티티를_돌려주는_서비스_목록은_일반_조회() throws Exception {
+        Session session = em.unwrap(Session.class);
+
+        // OSIV 에서 같은 요청의 이후 변경이 flush 되도록 읽기 전용으로 조회하지 않는다.
+        assertTrue(memberService.findMembers().stream().noneMatch(session::isReadOnly));
+        assertTrue(itemService.findItems().stream().noneMatch(session::isReadOnly));
+    }
+}
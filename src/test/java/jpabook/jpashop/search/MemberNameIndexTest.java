@@ -0,0 +1,101 @@
+package jpabook.jpashop.search;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberImportFormat;
+import jpabook.jpashop.service.MemberImportService;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 인덱스는 커밋 후에 반영되므로 테스트 트랜잭션 없이 호출한다.
+ */
+@SpringBootTest
+class MemberNameIndexTest {
+
+    @Autowired MemberNameIndex memberNameIndex;
+    @Autowired MemberService memberService;
+    @Autowired MemberImportService memberImportService;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 접두어_검색은_이름순_limit_개() throws Exception {
+        MemberNameIndex index = new MemberNameIndex(null);
+        index.add("kim", 1);
+        index.add("kimchi", 2);
+        index.add("kimbap", 3);
+        index.add("ki", 4);
+        index.add("lee", 5);
+        index.add("kim", 6); // 같은 이름
+
+        assertEquals(asList("ki:4", "kim:1", "kim:6", "kimbap:3", "kimchi:2"), names(index.search("k", 10)));
+        assertEquals(asList("kim:1", "kim:6", "kimbap:3"), names(index.search("kim", 3)));
+        assertEquals(asList("kimchi:2"), names(index.search("kimc", 10)));
+        assertTrue(index.search("kix", 10).isEmpty());
+        assertTrue(index.search("kimchijjigae", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+        assertEquals(6, index.size());
+    }
+
+    @Test
+    public void 삭제하면_트리를_다시_합친다() throws Exception {
+        MemberNameIndex index = new MemberNameIndex(null);
+        index.add("kim", 1);
+        index.add("kimchi", 2);
+        index.add("kimbap", 3);
+
+        index.remove("kim", 1);
+        index.remove("kimbap", 3);
+        index.remove("kimbap", 3); // 없는 회원
+        assertEquals(asList("kimchi:2"), names(index.search("ki", 10)));
+        assertEquals(asList("kimchi:2"), names(index.search("kimch", 10)));
+
+        index.rename(2, "kimchi", "park");
+        assertTrue(index.search("k", 10).isEmpty());
+        assertEquals(asList("park:2"), names(index.search("p", 10)));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void 가입_이름변경_대량등록은_커밋_후_반영() throws Exception {
+        String prefix = "자동완성-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+
+        Member member = new Member();
+        member.setName(prefix + "kim");
+        Long memberId = memberService.join(member);
+        assertEquals(asList(prefix + "kim:" + memberId), names(memberNameIndex.search(prefix, 10)));
+
+        memberService.update(memberId, prefix + "lee");
+        assertEquals(asList(prefix + "lee:" + memberId), names(memberNameIndex.search(prefix, 10)));
+
+        String csv = "name,city,street,zipcode\n" + prefix + "park,서울,강가,123\n" + prefix + "choi,서울,강가,123\n";
+        memberImportService.importMembers(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), MemberImportFormat.CSV, 10);
+        assertEquals(asList(prefix + "choi", prefix + "lee", prefix + "park"),
+                memberNameIndex.search(prefix, 10).stream().map(MemberNameMatch::getName).collect(Collectors.toList()));
+
+        // 롤백된 가입은 들어가지 않는다.
+        transactionTemplate.execute(status -> {
+            Member rollback = new Member();
+            rollback.setName(prefix + "rollback");
+            memberService.join(rollback);
+            status.setRollbackOnly();
+            return null;
+        });
+        assertTrue(memberNameIndex.search(prefix + "r", 10).isEmpty());
+    }
+
+    private static List<String> names(List<MemberNameMatch> matches) {
+        return matches.stream().map(m -> m.getName() + ":" + m.getId()).collect(Collectors.toList());
+    }
+}
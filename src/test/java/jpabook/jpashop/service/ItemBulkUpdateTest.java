@@ -0,0 +1,152 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.ItemRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.Arrays.asList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 실행한다.
+ */
+@SpringBootTest
+class ItemBulkUpdateTest {
+
+    @Autowired ItemBulkUpdateService itemBulkUpdateService;
+    @Autowired ItemService itemService;
+    @Autowired ItemRepository itemRepository;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 가격_재고_일괄변경() throws Exception {
+        Long book1 = createBook(10000, 10);
+        Long book2 = createBook(20000, 5);
+        Long book3 = createBook(30000, 1);
+
+        ItemBulkUpdateResult result = itemBulkUpdateService.update(asList(
+                new ItemBulkUpdate(book1, 12000, null, null),      // 가격만
+                new ItemBulkUpdate(book2, null, null, -3),         // 재고 상대 변경
+                new ItemBulkUpdate(book3, 25000, 100, null),       // 가격 + 재고 절대값
+                new ItemBulkUpdate(-1L, 1000, null, null)), 2);    // 없는 상품
+
+        assertEquals(4, result.getRequested());
+        assertEquals(3, result.getUpdated());
+        assertEquals(1, result.getMissing());
+        assertEquals(asList(-1L), result.getMissingIds());
+        assertEquals(0, result.getRejected());
+
+        assertItem(book1, 12000, 10);
+        assertItem(book2, 20000, 2);
+        assertItem(book3, 25000, 100);
+    }
+
+    @Test
+    public void 재고가_음수가_되면_변경하지_않는다() throws Exception {
+        Long book1 = createBook(10000, 2);
+        Long book2 = createBook(10000, 2);
+
+        ItemBulkUpdateResult result = itemBulkUpdateService.update(asList(
+                new ItemBulkUpdate(book1, 9000, null, -3),
+                new ItemBulkUpdate(book2, null, null, -2)), 10);
+
+        assertEquals(1, result.getUpdated());
+        assertEquals(1, result.getRejected());
+        assertEquals(asList(book1), result.getRejectedIds());
+        assertItem(book1, 10000, 2);
+        assertItem(book2, 10000, 0);
+    }
+
+    @Test
+    public void 잘못된_요청은_아무것도_변경하지_않는다() throws Exception {
+        Long book = createBook(10000, 2);
+
+        assertThrows(IllegalArgumentException.class, () -> itemBulkUpdateService.update(asList(
+                new ItemBulkUpdate(book, 5000, null, null),
+                new ItemBulkUpdate(book, null, 10, 1)), 10));
+        assertThrows(IllegalArgumentException.class, () -> itemBulkUpdateService.update(asList(
+                new ItemBulkUpdate(null, 5000, null, null)), 10));
+        assertThrows(IllegalArgumentException.class, () -> itemBulkUpdateService.update(asList(
+                new ItemBulkUpdate(book, -1, null, null)), 10));
+
+        assertItem(book, 10000, 2);
+    }
+
+    @Test
+    public void 여러_청크() throws Exception {
+        List<ItemBulkUpdate> updates = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            updates.add(new ItemBulkUpdate(createBook(1000, 10), null, null, 5));
+        }
+
+        ItemBulkUpdateResult result = itemBulkUpdateService.update(updates, 7);
+
+        assertEquals(25, result.getUpdated());
+        for (ItemBulkUpdate update : updates) {
+            assertItem(update.getItemId(), 1000, 15);
+        }
+    }
+
+    @Test
+    public void 청크는_주문과_같은_id_순서로_잠가서_교착되지_않는다() throws Exception {
+        Long book1 = createBook(1000, 10);
+        Long book2 = createBook(1000, 10);
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<ItemBulkUpdateResult> bulk = transactionTemplate.execute(s -> {
+                // 주문처럼 id 오름차순으로 잠그는 중 : book1 을 잡은 상태에서 일괄 변경이 시작된다.
+                itemRepository.findAllForUpdate(Collections.singletonList(book1));
+                Future<ItemBulkUpdateResult> future = executor.submit(() -> itemBulkUpdateService.update(asList(
+                        new ItemBulkUpdate(book2, null, null, 1),
+                        new ItemBulkUpdate(book1, null, null, 1)), 10));
+                sleep(300); // 요청 순서대로라면 일괄 변경이 book2 를 잡고 book1 을 기다린다.
+                itemRepository.findAllForUpdate(Collections.singletonList(book2));
+                return future;
+            });
+
+            assertEquals(2, bulk.get(10, TimeUnit.SECONDS).getUpdated());
+        } finally {
+            executor.shutdown();
+        }
+        assertItem(book1, 1000, 11);
+        assertItem(book2, 1000, 11);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void assertItem(Long itemId, int price, int stockQuantity) {
+        Item item = itemService.findOne(itemId);
+        assertEquals(price, item.getPrice());
+        assertEquals(stockQuantity, item.getStockQuantity());
+    }
+
+    private Long createBook(int price, int stockQuantity) {
+        return transactionTemplate.execute(s -> {
+            Book book = new Book();
+            book.setName("bulk book");
+            book.setPrice(price);
+            book.setStockQuantity(stockQuantity);
+            itemRepository.save(book);
+            return book.getId();
+        });
+    }
+}
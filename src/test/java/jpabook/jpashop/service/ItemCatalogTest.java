@@ -0,0 +1,161 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.api.ItemApiController;
+import jpabook.jpashop.domain.item.Album;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.domain.item.Movie;
+import jpabook.jpashop.repository.item.query.*;
+import jpabook.jpashop.service.query.ItemCatalogPage;
+import jpabook.jpashop.service.query.ItemQueryService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 다른 테스트 데이터와 섞이지 않도록 가격 범위(777000 ~ 777999)로 검색한다.
+ */
+@SpringBootTest
+@Transactional
+class ItemCatalogTest {
+
+    static final int MIN = 777000;
+    static final int MAX = 777999;
+
+    @Autowired EntityManager em;
+    @Autowired ItemQueryService itemQueryService;
+    @Autowired ItemApiController itemApiController;
+
+    Book cheapBook, soldOutBook, expensiveBook;
+    Album album;
+    Movie movie;
+
+    @BeforeEach
+    public void setUp() {
+        cheapBook = book("싼 책", MIN + 100, 10);
+        soldOutBook = book("품절 책", MIN + 200, 0);
+        expensiveBook = book("비싼 책", MIN + 300, 5);
+
+        album = new Album();
+        album.setName("앨범");
+        album.setPrice(MIN + 150);
+        album.setStockQuantity(3);
+        album.setArtist("가수");
+        em.persist(album);
+
+        movie = new Movie();
+        movie.setName("영화");
+        movie.setPrice(MIN + 250);
+        movie.setStockQuantity(3);
+        movie.setDirector("감독");
+        em.persist(movie);
+
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void 종류별_하위타입_컬럼만_조회() throws Exception {
+        ItemCatalogSearch search = search(CatalogSort.PRICE_ASC);
+        search.setType(CatalogItemType.BOOK);
+
+        List<? extends CatalogItemDto> books = itemQueryService.searchCatalog(search, 10).getItems();
+
+        assertEquals(ids(cheapBook, soldOutBook, expensiveBook), ids(books));
+        assertTrue(books.stream().allMatch(b -> b instanceof BookCatalogDto));
+        assertEquals("저자", ((BookCatalogDto) books.get(0)).getAuthor());
+
+        search.setType(CatalogItemType.ALBUM);
+        CatalogItemDto found = itemQueryService.searchCatalog(search, 10).getItems().get(0);
+        assertEquals("가수", ((AlbumCatalogDto) found).getArtist());
+    }
+
+    @Test
+    public void 전체_검색은_공통_컬럼과_종류() throws Exception {
+        ItemCatalogSearch search = search(CatalogSort.PRICE_DESC);
+        search.setInStock(true);
+
+        List<? extends CatalogItemDto> items = itemQueryService.searchCatalog(search, 10).getItems();
+
+        assertEquals(ids(expensiveBook, movie, album, cheapBook), ids(items), "품절 상품 제외, 가격 내림차순");
+        assertEquals(CatalogItemType.MOVIE, items.get(1).getType());
+        assertEquals(CatalogItemType.ALBUM, items.get(2).getType());
+        assertEquals(CatalogItemDto.class, items.get(0).getClass());
+    }
+
+    @Test
+    public void 키셋_페이징() throws Exception {
+        for (CatalogSort sort : CatalogSort.values()) {
+            ItemCatalogSearch search = search(sort);
+            List<Long> paged = new ArrayList<>();
+            ItemCatalogPage page;
+            do {
+                page = itemQueryService.searchCatalog(search, 2);
+                paged.addAll(ids(page.getItems()));
+                search.setLastId(page.getLastId());
+                search.setLastPrice(page.getLastPrice());
+            } while (page.isHasNext());
+
+            List<Long> all = ids(itemQueryService.searchCatalog(search(sort), 100).getItems());
+            assertEquals(5, paged.size(), sort.name());
+            assertEquals(all, paged, sort + " 페이지를 이어 붙이면 전체 조회와 같아야 한다.");
+        }
+    }
+
+    @Test
+    public void 가격_정렬_커서가_한쪽만_있으면_거절한다() throws Exception {
+        ItemCatalogSearch search = search(CatalogSort.PRICE_ASC);
+        search.setLastId(cheapBook.getId());
+        assertThrows(IllegalArgumentException.class, () -> itemQueryService.searchCatalog(search, 2));
+        ResponseStatusException e = assertThrows(ResponseStatusException.class, () -> itemApiController.items(search, 2));
+        assertEquals(HttpStatus.BAD_REQUEST, e.getStatus());
+
+        search.setLastId(null);
+        search.setLastPrice(cheapBook.getPrice());
+        assertThrows(IllegalArgumentException.class, () -> itemQueryService.searchCatalog(search, 2));
+
+        // 최신순은 lastId 만으로 이어진다.
+        ItemCatalogSearch newest = search(CatalogSort.NEWEST);
+        newest.setLastId(cheapBook.getId());
+        assertFalse(newest.hasPartialCursor());
+        assertTrue(ids(itemQueryService.searchCatalog(newest, 10).getItems()).stream().allMatch(id -> id < cheapBook.getId()));
+    }
+
+    private ItemCatalogSearch search(CatalogSort sort) {
+        ItemCatalogSearch search = new ItemCatalogSearch();
+        search.setMinPrice(MIN);
+        search.setMaxPrice(MAX);
+        search.setSort(sort);
+        return search;
+    }
+
+    private Book book(String name, int price, int stock) {
+        Book book = new Book();
+        book.setName(name);
+        book.setPrice(price);
+        book.setStockQuantity(stock);
+        book.setAuthor("저자");
+        em.persist(book);
+        return book;
+    }
+
+    private List<Long> ids(Item... items) {
+        return asList(items).stream().map(Item::getId).collect(toList());
+    }
+
+    private List<Long> ids(List<? extends CatalogItemDto> items) {
+        return items.stream().map(CatalogItemDto::getId).collect(toList());
+    }
+}
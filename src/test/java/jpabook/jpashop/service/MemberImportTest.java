@@ -0,0 +1,125 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 청크마다 별도 트랜잭션으로 커밋하므로 테스트 트랜잭션 없이 실행한다. (이름에 UUID를 붙여 다른 테스트와 겹치지 않게 한다)
+ */
+@SpringBootTest
+class MemberImportTest {
+
+    @Autowired MemberImportService memberImportService;
+    @Autowired MemberService memberService;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void CSV_등록과_줄별_오류() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        Member existing = new Member();
+        existing.setName(prefix + "-기존");
+        memberService.join(existing);
+
+        String csv = "zipcode,name,city,street\n"
+                + "111,\"" + prefix + "-1\",서울,\"강가, 1\"\n"
+                + "222," + prefix + "-2,부산,해운대\n"
+                + "\n"
+                + "333,,대구,중앙로\n"                       // 5 : 이름 없음
+                + "444," + prefix + "-기존,서울,강가\n"        // 6 : 이미 가입
+                + "555," + prefix + "-2,서울,강가\n"           // 7 : 파일 안에서 중복 (다른 청크)
+                + "666,\"" + prefix + "-3,서울\n"             // 8 : 따옴표 오류
+                + "777,\"" + prefix + "-\"\"4\"\"\",광주,금남로\n";
+
+        MemberImportResult result = memberImportService.importMembers(stream(csv), MemberImportFormat.CSV, 2);
+
+        assertEquals(7, result.getTotal());
+        assertEquals(3, result.getImported());
+        assertEquals(4, result.getErrorCount());
+        assertEquals(asLongs(5, 6, 7, 8), result.getErrors().stream().map(MemberImportResult.RowError::getLine).collect(toList()));
+
+        Member imported = memberRepository.findByName(prefix + "-1").get(0);
+        assertEquals("서울", imported.getAddress().getCity());
+        assertEquals("강가, 1", imported.getAddress().getStreet());
+        assertEquals("111", imported.getAddress().getZipcode());
+        assertEquals(1, memberRepository.findByName(prefix + "-\"4\"").size());
+        assertEquals(1, memberRepository.findByName(prefix + "-2").size());
+    }
+
+    @Test
+    public void 빈_줄_다음의_CSV_헤더도_검사한다() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        assertThrows(IllegalArgumentException.class, () -> memberImportService.importMembers(
+                stream("\n  \ncity,street\n서울," + prefix + "\n"), MemberImportFormat.CSV, 10));
+        assertThrows(IllegalArgumentException.class, () -> memberImportService.importMembers(
+                stream("\n\"name,city\n" + prefix + ",서울\n"), MemberImportFormat.CSV, 10));
+
+        MemberImportResult result = memberImportService.importMembers(
+                stream("\nname,city\n" + prefix + "-1,서울\n"), MemberImportFormat.CSV, 10);
+        assertEquals(1, result.getImported());
+        assertEquals(0, result.getErrorCount());
+    }
+
+    @Test
+    public void NDJSON_등록() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        String ndjson = "{\"name\":\"" + prefix + "-1\",\"city\":\"서울\"}\n"
+                + "{\"name\":\"" + prefix + "-1\"}\n"
+                + "{not json}\n"
+                + "{\"name\":\"" + prefix + "-2\",\"zipcode\":\"123\"}\n";
+
+        MemberImportResult result = memberImportService.importMembers(stream(ndjson), MemberImportFormat.NDJSON, 1000);
+
+        assertEquals(4, result.getTotal());
+        assertEquals(2, result.getImported());
+        assertEquals(asLongs(2, 3), result.getErrors().stream().map(MemberImportResult.RowError::getLine).collect(toList()));
+        assertEquals("123", memberRepository.findByName(prefix + "-2").get(0).getAddress().getZipcode());
+    }
+
+    @Test
+    public void 대량_등록_처리량() throws Exception {
+        String prefix = UUID.randomUUID().toString();
+        int rows = 20_000;
+        InputStream input = new SequenceInputStream(new Enumeration<InputStream>() {
+            int line = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return line < rows;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                line++;
+                return stream(line == 0 ? "name,city,street,zipcode\n" : prefix + "-" + line + ",서울,강가,123-123\n");
+            }
+        });
+
+        MemberImportResult result = memberImportService.importMembers(input, MemberImportFormat.CSV, 1000);
+
+        assertEquals(rows, result.getImported());
+        assertEquals(0, result.getErrorCount());
+    }
+
+    private static InputStream stream(String text) {
+        return new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<Long> asLongs(long... values) {
+        return java.util.Arrays.stream(values).boxed().collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,79 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.service.query.MemberOrderPage;
+import jpabook.jpashop.service.query.OrderQueryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.util.stream.Collectors.toList;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@Transactional
+class MemberOrderHistoryTest {
+
+    @Autowired EntityManager em;
+    @Autowired OrderService orderService;
+    @Autowired OrderQueryService orderQueryService;
+
+    @Test
+    public void 회원_주문이력_키셋_페이징() throws Exception {
+        //given
+        Member member = createMember("회원1");
+        Member other = createMember("회원2");
+        Book book = createBook();
+
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            orderIds.add(orderService.order(member.getId(), book.getId(), 1));
+        }
+        orderService.order(other.getId(), book.getId(), 1);
+
+        //when
+        MemberOrderPage page1 = orderQueryService.findMemberOrders(member.getId(), null, null, 2, true);
+        MemberOrderPage page2 = orderQueryService.findMemberOrders(member.getId(), page1.getLastOrderDate(), page1.getLastOrderId(), 2, false);
+        MemberOrderPage page3 = orderQueryService.findMemberOrders(member.getId(), page2.getLastOrderDate(), page2.getLastOrderId(), 2, false);
+
+        //then
+        List<Long> paged = new ArrayList<>();
+        for (MemberOrderPage page : new MemberOrderPage[]{page1, page2, page3}) {
+            paged.addAll(page.getOrders().stream().map(MemberOrderQueryDto::getOrderId).collect(toList()));
+        }
+        List<Long> expected = new ArrayList<>(orderIds);
+        expected.sort((a, b) -> Long.compare(b, a)); // 주문시간이 같으면 id 역순
+
+        assertEquals(expected, paged, "최신 주문부터 중복/누락 없이 조회");
+        assertTrue(page1.isHasNext());
+        assertTrue(page2.isHasNext());
+        assertFalse(page3.isHasNext());
+        assertEquals(5, page1.getOrderCount(), "미리 집계된 주문 수");
+        assertNull(page2.getOrderCount());
+    }
+
+    private Member createMember(String name) {
+        Member member = new Member();
+        member.setName(name);
+        member.setAddress(new Address("서울", "강가", "123-123"));
+        em.persist(member);
+        return member;
+    }
+
+    private Book createBook() {
+        Book book = new Book();
+        book.setName("시골 JPA");
+        book.setPrice(10000);
+        book.setStockQuantity(100);
+        em.persist(book);
+        return book;
+    }
+}
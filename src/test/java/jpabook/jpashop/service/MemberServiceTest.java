@@ -8,7 +8,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -25,6 +31,7 @@ class MemberServiceTest {
 
     @Autowired MemberService memberService;
     @Autowired MemberRepository memberRepository;
+    @Autowired PlatformTransactionManager transactionManager;
 
     @Test
     public void 회원가입() throws Exception {
@@ -53,4 +60,29 @@ class MemberServiceTest {
 
         fail("예외가 발생해야 합니다.");
     }
-}
\ No newline at end of file
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void 회원_수정은_그_사이_커밋된_주문_수를_덮어쓰지_않는다() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        TransactionTemplate other = new TransactionTemplate(transactionManager);
+        other.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Member member = new Member();
+        member.setName("update-" + UUID.randomUUID());
+        Long memberId = tx.execute(s -> memberService.join(member));
+
+        tx.execute(s -> {
+            memberRepository.findOne(memberId); // 주문 수 0 으로 로딩
+            other.execute(s2 -> {
+                memberRepository.increaseOrderCount(memberId); // 로딩과 flush 사이에 다른 트랜잭션이 주문
+                return null;
+            });
+            memberService.update(memberId, "renamed-" + UUID.randomUUID());
+            return null;
+        });
+
+        assertEquals(1, (int) tx.execute(s -> memberRepository.findOrderCount(memberId)));
+        assertTrue(tx.execute(s -> memberRepository.findOne(memberId).getName()).startsWith("renamed-"));
+    }
+}
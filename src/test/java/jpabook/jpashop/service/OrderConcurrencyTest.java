@@ -0,0 +1,145 @@
+package jpabook.jpashop.service;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.exception.NotEnoughtStockExption;
+import jpabook.jpashop.repository.MemberRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 상품이 겹치는 장바구니 주문을 동시에 실행한다.
+ * 트랜잭션마다 커밋되므로 @Transactional 을 붙이지 않는다.
+ */
+@SpringBootTest
+class OrderConcurrencyTest {
+
+    private static final int ITEMS = 10;
+    private static final int STOCK = 100_000;
+    private static final int THREADS = 8;
+    private static final int CARTS_PER_THREAD = 50;
+
+    @Autowired EntityManager em;
+    @Autowired PlatformTransactionManager transactionManager;
+    @Autowired OrderService orderService;
+    @Autowired ItemService itemService;
+    @Autowired MemberRepository memberRepository;
+
+    @Test
+    public void 겹치는_장바구니_동시_주문() throws Exception {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long memberId = tx.execute(s -> {
+            Member member = new Member();
+            member.setName("동시주문 회원");
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            return member.getId();
+        });
+        List<Long> itemIds = tx.execute(s -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Book book = new Book();
+                book.setName("동시주문 상품" + i);
+                book.setPrice(1000);
+                book.setStockQuantity(STOCK);
+                em.persist(book);
+                ids.add(book.getId());
+            }
+            return ids;
+        });
+
+        //when
+        AtomicLongArray ordered = new AtomicLongArray(ITEMS);
+        List<Throwable> failures = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            long seed = t;
+            futures.add(executor.submit(() -> {
+                Random random = new Random(seed);
+                start.await();
+                for (int c = 0; c < CARTS_PER_THREAD; c++) {
+                    // 상품 3~5개를 무작위 순서로 담는다. (스레드마다 잠금 순서가 뒤섞이도록)
+                    List<Integer> picked = new ArrayList<>();
+                    for (int i = 0; i < ITEMS; i++) {
+                        picked.add(i);
+                    }
+                    Collections.shuffle(picked, random);
+                    picked = picked.subList(0, 3 + random.nextInt(3));
+
+                    List<OrderLine> lines = new ArrayList<>();
+                    for (int index : picked) {
+                        lines.add(new OrderLine(itemIds.get(index), 1 + random.nextInt(3)));
+                    }
+                    try {
+                        orderService.order(memberId, lines);
+                        for (int i = 0; i < picked.size(); i++) {
+                            ordered.addAndGet(picked.get(i), lines.get(i).getCount());
+                        }
+                    } catch (Throwable e) {
+                        failures.add(e);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //then
+        int orders = THREADS * CARTS_PER_THREAD;
+
+        assertTrue(failures.isEmpty(), "교착/잠금 타임아웃 없이 모두 성공해야 한다. " + failures);
+        for (int i = 0; i < ITEMS; i++) {
+            Item item = itemService.findOne(itemIds.get(i));
+            assertEquals(STOCK - ordered.get(i), item.getStockQuantity(), "재고 감소가 유실되지 않아야 한다.");
+        }
+        assertEquals(orders, memberRepository.findOrderCount(memberId).intValue());
+    }
+
+    @Test
+    public void 재고부족이면_아무것도_변경하지_않는다() throws Exception {
+        //given
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long[] ids = tx.execute(s -> {
+            Member member = new Member();
+            member.setName("재고부족 회원");
+            em.persist(member);
+            Book enough = new Book();
+            enough.setName("재고 충분");
+            enough.setStockQuantity(10);
+            em.persist(enough);
+            Book lacking = new Book();
+            lacking.setName("재고 부족");
+            lacking.setStockQuantity(1);
+            em.persist(lacking);
+            return new Long[]{member.getId(), enough.getId(), lacking.getId()};
+        });
+
+        //when
+        assertThrows(NotEnoughtStockExption.class, () -> orderService.order(ids[0],
+                Arrays.asList(new OrderLine(ids[1], 5), new OrderLine(ids[2], 2))));
+
+        //then
+        assertEquals(10, itemService.findOne(ids[1]).getStockQuantity());
+        assertEquals(1, itemService.findOne(ids[2]).getStockQuantity());
+        assertEquals(0, memberRepository.findOrderCount(ids[0]).intValue());
+    }
+}
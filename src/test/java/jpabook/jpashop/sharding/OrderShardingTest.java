@@ -0,0 +1,309 @@
+package jpabook.jpashop.sharding;
+
+import jpabook.jpashop.domain.Address;
+import jpabook.jpashop.domain.Delivery;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.domain.Order;
+import jpabook.jpashop.domain.OrderItem;
+import jpabook.jpashop.domain.OrderStatus;
+import jpabook.jpashop.domain.item.Book;
+import jpabook.jpashop.domain.item.Item;
+import jpabook.jpashop.repository.order.query.MemberOrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderFlatDto;
+import jpabook.jpashop.repository.order.query.OrderQueryDto;
+import jpabook.jpashop.repository.order.query.OrderQueryRepository;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryDto;
+import jpabook.jpashop.repository.order.simplequery.OrderSimpleQueryRepository;
+import jpabook.jpashop.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 샤드 3개 (메모리 H2), 샤드 쓰기는 바로 커밋되므로 테스트 트랜잭션 없이 호출한다.
+ */
+@SpringBootTest(properties = {
+        "jpashop.sharding.enabled=true",
+        "jpashop.sharding.shards[0].url=jdbc:h2:mem:order-shard-0;DB_CLOSE_DELAY=-1",
+        "jpashop.sharding.shards[0].username=sa",
+        "jpashop.sharding.shards[1].url=jdbc:h2:mem:order-shard-1;DB_CLOSE_DELAY=-1",
+        "jpashop.sharding.shards[1].username=sa",
+        "jpashop.sharding.shards[2].url=jdbc:h2:mem:order-shard-2;DB_CLOSE_DELAY=-1",
+        "jpashop.sharding.shards[2].username=sa"
+})
+class OrderShardingTest {
+
+    @Autowired OrderShards orderShards;
+    @Autowired ShardedOrderRepository shardedOrderRepository;
+    @Autowired OrderService orderService;
+    @Autowired OrderSimpleQueryRepository orderSimpleQueryRepository;
+    @Autowired OrderQueryRepository orderQueryRepository;
+    @Autowired EntityManager em;
+    @Autowired JdbcTemplate jdbcTemplate;
+    @Autowired TransactionTemplate transactionTemplate;
+
+    @Test
+    public void 회원_해시로_샤드에_저장하고_id는_샤드끼리_겹치지_않는다() throws Exception {
+        Long bookId = createBook(100);
+        Set<Long> orderIds = new HashSet<>();
+        Set<Integer> usedShards = new HashSet<>();
+        for (int i = 0; i < 12; i++) {
+            Long memberId = createMember();
+            Long orderId = orderService.order(memberId, bookId, 1);
+            assertTrue(orderIds.add(orderId), "id 중복 : " + orderId);
+
+            OrderShard shard = orderShards.shardForMember(memberId);
+            assertEquals(shard.getIndex(), orderShards.shardForId(orderId).getIndex());
+            usedShards.add(shard.getIndex());
+            for (OrderShard other : orderShards.all()) {
+                int count = other.read(jdbc -> jdbc.queryForObject("select count(*) from orders where order_id = :id",
+                        new MapSqlParameterSource("id", orderId), Integer.class));
+                assertEquals(other == shard ? 1 : 0, count, other + " orderId=" + orderId);
+            }
+            // 메인 DB 에는 쓰지 않는다.
+            assertEquals(0, (int) jdbcTemplate.queryForObject("select count(*) from orders where member_id = ?", Integer.class, memberId));
+        }
+        assertTrue(usedShards.size() > 1, "한 샤드로 몰렸다. " + usedShards);
+    }
+
+    @Test
+    public void 전체_샤드_조회는_순서와_페이지를_지킨다() throws Exception {
+        Long bookId = createBook(100);
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 9; i++) {
+            orderIds.add(orderService.order(createMember(), bookId, 2));
+        }
+
+        List<OrderSimpleQueryDto> all = orderSimpleQueryRepository.findOrderDtos();
+        List<Long> allIds = all.stream().map(OrderSimpleQueryDto::getOrderId).collect(Collectors.toList());
+        assertTrue(allIds.containsAll(orderIds));
+        assertEquals(allIds.stream().sorted().collect(Collectors.toList()), allIds);
+        all.stream().filter(dto -> orderIds.contains(dto.getOrderId()))
+                .forEach(dto -> assertTrue(dto.getName().startsWith("shard-member-"), dto.toString()));
+
+        // 페이지 = 전체를 최근 순으로 정렬해서 자른 것
+        List<Long> newest = all.stream()
+                .sorted(Comparator.comparing(OrderSimpleQueryDto::getOrderDate).thenComparing(OrderSimpleQueryDto::getOrderId).reversed())
+                .map(OrderSimpleQueryDto::getOrderId)
+                .collect(Collectors.toList());
+        assertEquals(newest.subList(0, 4), ids(orderSimpleQueryRepository.findOrderDtos(0, 4)));
+        assertEquals(newest.subList(4, 8), ids(orderSimpleQueryRepository.findOrderDtos(4, 4)));
+
+        List<OrderSimpleQueryDto> some = orderSimpleQueryRepository.findOrderDtos(orderIds.subList(0, 3));
+        assertEquals(orderIds.subList(0, 3).stream().sorted().collect(Collectors.toList()), ids(some)); // 주문 id 순
+
+        List<OrderQueryDto> withItems = orderQueryRepository.findOrderQueryDtos();
+        OrderQueryDto first = withItems.stream().filter(dto -> dto.getOrderId().equals(orderIds.get(0))).findFirst().get();
+        assertEquals(1, first.getOrderItems().size());
+        assertEquals("shard book", first.getOrderItems().get(0).getItemName());
+        assertEquals(2, first.getOrderItems().get(0).getCount());
+
+        List<OrderFlatDto> flats = orderQueryRepository.findAllByDto_flat();
+        assertTrue(flats.stream().anyMatch(flat -> flat.getOrderId().equals(orderIds.get(0)) && "shard book".equals(flat.getItemName())));
+        try (Stream<OrderFlatDto> stream = orderQueryRepository.streamAllByDto_flat()) {
+            assertEquals(flats.stream().map(OrderFlatDto::getOrderId).collect(Collectors.toList()),
+                    stream.map(OrderFlatDto::getOrderId).collect(Collectors.toList()));
+        }
+    }
+
+    @Test
+    public void 주문_취소는_재고를_되돌리고_샤드_주문_상태를_바꾼다() throws Exception {
+        Long bookId = createBook(10);
+        Long orderId = orderService.order(createMember(), bookId, 3);
+        assertEquals(7, stock(bookId));
+
+        orderService.cancelOrder(orderId);
+        assertEquals(10, stock(bookId));
+        assertEquals(OrderStatus.CANCEL, shardedOrderRepository.findOrder(orderId).getStatus());
+
+        assertThrows(IllegalStateException.class, () -> orderService.cancelOrder(orderId));
+        assertEquals(10, stock(bookId));
+    }
+
+    @Test
+    public void 샤딩_전_메인_DB_주문은_id_가_겹치지_않고_메인_DB_에서_취소한다() throws Exception {
+        Long bookId = createBook(10);
+        Long memberId = createMember();
+        Long legacyId = createLegacyOrder(memberId, bookId);
+        Long shardedId = orderService.order(memberId, bookId, 1);
+        assertFalse(orderShards.isShardId(legacyId));
+        assertTrue(orderShards.isShardId(shardedId));
+        assertNull(shardedOrderRepository.findOrder(legacyId));
+
+        // 피드 조회는 메인 DB 주문과 샤드 주문을 같이 돌려준다.
+        assertEquals(Arrays.asList(legacyId, shardedId), ids(orderSimpleQueryRepository.findOrderDtos(Arrays.asList(shardedId, legacyId))));
+
+        assertEquals(7, stock(bookId));
+        orderService.cancelOrder(legacyId);
+        assertEquals(9, stock(bookId));
+        assertEquals(OrderStatus.CANCEL, transactionTemplate.execute(s -> em.find(Order.class, legacyId).getStatus()));
+        assertEquals(OrderStatus.ORDER, shardedOrderRepository.findOrder(shardedId).getStatus());
+
+        assertThrows(IllegalArgumentException.class, () -> orderService.cancelOrder(shardedId + orderShards.size() * 1000L));
+    }
+
+    @Test
+    public void 목록_조회는_샤딩_전_메인_DB_주문도_합친다() throws Exception {
+        Long bookId = createBook(10);
+        Long memberId = createMember();
+        Long legacyId = createLegacyOrder(memberId, bookId);
+        Long shardedId = orderService.order(memberId, bookId, 1);
+
+        List<Long> all = ids(orderSimpleQueryRepository.findOrderDtos());
+        assertTrue(all.containsAll(Arrays.asList(legacyId, shardedId)));
+        assertEquals(all.stream().sorted().collect(Collectors.toList()), all, "메인 DB 주문도 주문 id 순으로 합친다.");
+        assertTrue(ids(orderSimpleQueryRepository.findOrderDtos(0, all.size())).contains(legacyId));
+
+        OrderQueryDto legacy = orderQueryRepository.findOrderQueryDtos().stream()
+                .filter(dto -> dto.getOrderId().equals(legacyId)).findFirst().get();
+        assertTrue(legacy.getName().startsWith("shard-member-"));
+        assertEquals("shard book", legacy.getOrderItems().get(0).getItemName());
+        assertTrue(orderQueryRepository.findAllByDto_optimization().stream().anyMatch(dto -> dto.getOrderId().equals(legacyId)));
+
+        List<Long> flatIds = orderQueryRepository.findAllByDto_flat().stream().map(OrderFlatDto::getOrderId).collect(Collectors.toList());
+        assertTrue(flatIds.contains(legacyId));
+        try (Stream<OrderFlatDto> stream = orderQueryRepository.streamAllByDto_flat()) {
+            assertEquals(flatIds, stream.map(OrderFlatDto::getOrderId).collect(Collectors.toList()));
+        }
+
+        // 회원 주문 이력 - 샤드 주문이 더 최근이다.
+        assertEquals(Arrays.asList(shardedId, legacyId), orderQueryRepository.findMemberOrders(memberId, null, null, 10).stream()
+                .map(MemberOrderQueryDto::getOrderId).collect(Collectors.toList()));
+        MemberOrderQueryDto newest = orderQueryRepository.findMemberOrders(memberId, null, null, 1).get(0);
+        assertEquals(Collections.singletonList(legacyId), orderQueryRepository.findMemberOrders(memberId, newest.getOrderDate(), newest.getOrderId(), 10)
+                .stream().map(MemberOrderQueryDto::getOrderId).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void 메인_트랜잭션이_롤백되면_샤드_주문도_지운다() throws Exception {
+        Long bookId = createBook(10);
+        Long memberId = createMember();
+        Long[] orderId = new Long[1];
+        transactionTemplate.execute(s -> {
+            orderId[0] = orderService.order(memberId, bookId, 3);
+            s.setRollbackOnly();
+            return null;
+        });
+
+        assertNotNull(orderId[0]);
+        assertNull(shardedOrderRepository.findOrder(orderId[0]));
+        assertEquals(10, stock(bookId));
+    }
+
+    @Test
+    public void 메인_트랜잭션_커밋_결과를_모르면_샤드_쓰기도_되돌린다() throws Exception {
+        Long bookId = createBook(10);
+        Long memberId = createMember();
+        Long orderId = orderService.order(memberId, bookId, 1);
+        Order order = transactionTemplate.execute(s -> {
+            Member member = em.find(Member.class, memberId);
+            Item item = em.find(Item.class, bookId);
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            return Order.createOrder(member, delivery, OrderItem.createOrderItem(item, item.getPrice(), 1));
+        });
+
+        Long unknownId;
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            unknownId = shardedOrderRepository.insert(order);
+            assertTrue(shardedOrderRepository.updateStatus(orderId, OrderStatus.ORDER, OrderStatus.CANCEL));
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                    TransactionSynchronization.STATUS_UNKNOWN);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertNull(shardedOrderRepository.findOrder(unknownId));
+        assertEquals(OrderStatus.ORDER, shardedOrderRepository.findOrder(orderId).getStatus());
+    }
+
+    @Test
+    public void 회원_주문_이력은_회원_샤드에서_키셋으로_조회한다() throws Exception {
+        Long bookId = createBook(10);
+        Long memberId = createMember();
+        List<Long> orderIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            orderIds.add(orderService.order(memberId, bookId, 1));
+        }
+
+        List<MemberOrderQueryDto> firstPage = orderQueryRepository.findMemberOrders(memberId, null, null, 2);
+        assertEquals(2, firstPage.size());
+        MemberOrderQueryDto last = firstPage.get(1);
+        List<MemberOrderQueryDto> secondPage = orderQueryRepository.findMemberOrders(memberId, last.getOrderDate(), last.getOrderId(), 2);
+        assertEquals(1, secondPage.size());
+
+        List<MemberOrderQueryDto> pages = new ArrayList<>(firstPage);
+        pages.addAll(secondPage);
+        List<Long> expected = new ArrayList<>(orderIds);
+        expected.sort(Comparator.reverseOrder()); // 같은 회원 주문은 같은 샤드 -> id 가 커질수록 최근
+        assertEquals(expected, pages.stream().map(MemberOrderQueryDto::getOrderId).collect(Collectors.toList()));
+        assertTrue(pages.stream().map(MemberOrderQueryDto::getOrderDate).noneMatch(date -> date.isAfter(LocalDateTime.now())));
+    }
+
+    /**
+     * 샤딩 전에 메인 DB 에 저장된 주문 (수량 2)
+     */
+    private Long createLegacyOrder(Long memberId, Long bookId) {
+        return transactionTemplate.execute(s -> {
+            Member member = em.find(Member.class, memberId);
+            Item item = em.find(Item.class, bookId);
+            Delivery delivery = new Delivery();
+            delivery.setAddress(member.getAddress());
+            Order order = Order.createOrder(member, delivery,
+                    OrderItem.createOrderItem(item, item.getPrice(), 2));
+            em.persist(order);
+            return order.getId();
+        });
+    }
+
+    private Long createMember() {
+        return transactionTemplate.execute(s -> {
+            Member member = new Member();
+            member.setName("shard-member-" + UUID.randomUUID());
+            member.setAddress(new Address("서울", "강가", "123-123"));
+            em.persist(member);
+            return member.getId();
+        });
+    }
+
+    private Long createBook(int stock) {
+        return transactionTemplate.execute(s -> {
+            Book book = new Book();
+            book.setName("shard book");
+            book.setPrice(10000);
+            book.setStockQuantity(stock);
+            em.persist(book);
+            return book.getId();
+        });
+    }
+
+    private int stock(Long itemId) {
+        return transactionTemplate.execute(s -> em.find(Item.class, itemId).getStockQuantity());
+    }
+
+    private static List<Long> ids(List<OrderSimpleQueryDto> dtos) {
+        return dtos.stream().map(OrderSimpleQueryDto::getOrderId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,25 @@
+package jpabook.jpashop.startup;
+
+import jpabook.jpashop.batch.OrderArchiveJob;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"jpashop.archive.enabled=true", "jpashop.archive.interval=1h"})
+@ActiveProfiles("fast-startup")
+class FastStartupSchedulerTest {
+
+    @Autowired ConfigurableApplicationContext context;
+
+    @Test
+    public void 지연_생성_모드에서도_아카이브_스케줄러가_시작된다() throws Exception {
+        //getBean 전에 이미 만들어져 있어야 한다.
+        assertTrue(context.getBeanFactory().containsSingleton("orderArchiveJob"));
+        assertFalse(context.getBeanFactory().getBeanDefinition("orderArchiveJob").isLazyInit());
+        assertTrue(context.getBean(OrderArchiveJob.class).isRunning());
+    }
+}
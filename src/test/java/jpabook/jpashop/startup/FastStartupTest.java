@@ -0,0 +1,52 @@
+package jpabook.jpashop.startup;
+
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+@ActiveProfiles("fast-startup")
+class FastStartupTest {
+
+    @Autowired ConfigurableApplicationContext context;
+    @Autowired StartupReport startupReport;
+    @Autowired MemberService memberService;
+
+    @Test
+    public void 주문_경로만_즉시_생성() throws Exception {
+        assertFalse(context.getBeanFactory().getBeanDefinition("orderService").isLazyInit());
+        assertFalse(context.getBeanFactory().getBeanDefinition("orderController").isLazyInit());
+        assertTrue(context.getBeanFactory().getBeanDefinition("memberApiController").isLazyInit());
+        assertFalse(context.containsBean("initDB"), "fast-startup 모드에서는 InitDB를 등록하지 않는다.");
+    }
+
+    @Test
+    public void 기동_리포트() throws Exception {
+        assertTrue(startupReport.timeToReadyMillis() > 0);
+        assertTrue(startupReport.getBeans().stream()
+                .map(StartupReport.BeanTiming::getName)
+                .collect(Collectors.toSet())
+                .contains("orderService"));
+    }
+
+    @Test
+    public void 백그라운드_JPA_부트스트랩_후_사용() throws Exception {
+        //given
+        Member member = new Member();
+        member.setName("fast");
+
+        //when
+        Long memberId = memberService.join(member);
+
+        //then
+        assertEquals("fast", memberService.findOne(memberId).getName());
+    }
+}
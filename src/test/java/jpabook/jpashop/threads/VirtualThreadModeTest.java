@@ -0,0 +1,98 @@
+package jpabook.jpashop.threads;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jpabook.jpashop.domain.Member;
+import jpabook.jpashop.service.MemberService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 가상 스레드 모드 - 테스트 JVM 이 Java 21 미만이면 요청 스레드는 플랫폼 스레드로 폴백하고 커넥션 제한만 동작한다.
+ */
+@SpringBootTest(properties = {
+        "jpashop.virtual-threads.enabled=true",
+        "jpashop.virtual-threads.max-connections=2",
+        "jpashop.virtual-threads.acquire-timeout=300ms"
+})
+class VirtualThreadModeTest {
+
+    @Autowired DataSource dataSource;
+    @Autowired MemberService memberService;
+    @Autowired ObjectProvider<MeterRegistry> meterRegistry;
+
+    @Test
+    public void 동시_커넥션은_허가_수를_넘지_않는다() throws Exception {
+        assertTrue(dataSource instanceof ConnectionLimitingDataSource);
+
+        ExecutorService executor = VirtualThreads.isSupported()
+                ? VirtualThreads.newThreadPerTaskExecutor("test-vt-")
+                : Executors.newFixedThreadPool(16);
+        AtomicInteger open = new AtomicInteger();
+        AtomicInteger maxOpen = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> {
+                    try (Connection connection = dataSource.getConnection()) {
+                        maxOpen.accumulateAndGet(open.incrementAndGet(), Math::max);
+                        Thread.sleep(10);
+                        open.decrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(2, maxOpen.get());
+        assertEquals(2, ((ConnectionLimitingDataSource) dataSource).getAvailablePermits());
+    }
+
+    @Test
+    public void 허가를_기다리다_시간이_지나면_예외() throws Exception {
+        try (Connection first = dataSource.getConnection(); Connection second = dataSource.getConnection()) {
+            assertThrows(SQLTransientConnectionException.class, dataSource::getConnection);
+            first.close();
+            dataSource.getConnection().close(); // close 를 두 번 해도 허가는 한 번만 반납된다.
+        }
+        assertEquals(2, ((ConnectionLimitingDataSource) dataSource).getAvailablePermits());
+    }
+
+    @Test
+    public void 서비스는_제한된_커넥션으로_동작한다() throws Exception {
+        Member member = new Member();
+        member.setName("virtual-thread-" + System.nanoTime());
+        Long memberId = memberService.join(member);
+
+        assertEquals(member.getName(), memberService.findOne(memberId).getName());
+        assertEquals(2, ((ConnectionLimitingDataSource) dataSource).getAvailablePermits());
+    }
+
+    @Test
+    public void 풀_크기를_지정하지_않은_Hikari는_기본_풀_크기만큼_허가한다() throws Exception {
+        ConnectionLimitingPostProcessor processor = new ConnectionLimitingPostProcessor(new VirtualThreadProperties(), meterRegistry);
+        try (HikariDataSource hikari = new HikariDataSource()) {
+            assertEquals(-1, hikari.getMaximumPoolSize());
+
+            Object limited = processor.postProcessAfterInitialization(hikari, "dataSource");
+            assertEquals(10, ((ConnectionLimitingDataSource) limited).getMaxConnections());
+        }
+    }
+}